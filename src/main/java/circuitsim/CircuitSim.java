@@ -48,6 +48,7 @@ public class CircuitSim {
     private static final int WINDOW_WIDTH = 800;
     private static final int WINDOW_HEIGHT = 600;
     private static final int PANEL_PADDING = 8;
+    private static final int EDITOR_SAVE_DELAY_MS = 400;
     private static final String APP_ICON_RESOURCE = "/circuitsim/icon.png";
     private static final String RELEASES_LATEST_API_URL =
             "https://api.github.com/repos/BlazingHotCode/CircuitSim/releases/latest";
@@ -83,12 +84,38 @@ public class CircuitSim {
 
         CircuitPanel[] activePanel = new CircuitPanel[] { mainPanel };
         CustomComponentDefinition[] editingDefinition = new CustomComponentDefinition[1];
+        // Editor edits are saved once they pause instead of on every keystroke or drag step.
+        boolean[] editorSavePending = new boolean[1];
+        javax.swing.Timer editorSaveTimer = new javax.swing.Timer(EDITOR_SAVE_DELAY_MS, null);
+        editorSaveTimer.setRepeats(false);
+        Runnable flushEditorSave = () -> {
+            editorSaveTimer.stop();
+            if (!editorSavePending[0]) {
+                return;
+            }
+            editorSavePending[0] = false;
+            if (!editorPanel.isVisible() || editingDefinition[0] == null) {
+                return;
+            }
+            CustomComponentDefinition updated = saveEditorDefinition(editorPanel, editingDefinition[0],
+                    library, frame);
+            if (updated != null) {
+                editingDefinition[0] = updated;
+                mainPanel.flushAutosave();
+            }
+        };
+        editorSaveTimer.addActionListener(event -> flushEditorSave.run());
+        Runnable scheduleEditorSave = () -> {
+            if (!editorPanel.isVisible() || editingDefinition[0] == null) {
+                return;
+            }
+            editorSavePending[0] = true;
+            editorSaveTimer.restart();
+        };
         propertiesPanel.setOnChange(() -> {
             activePanel[0].handlePropertyChange();
             activePanel[0].repaint();
-            if (editorPanel.isVisible() && editingDefinition[0] != null) {
-                saveEditorDefinition(editorPanel, editingDefinition[0], library, frame);
-            }
+            scheduleEditorSave.run();
         });
 
         configureRegistryForMain(library);
@@ -129,6 +156,8 @@ public class CircuitSim {
 
         CustomEditorPanel[] editorPanelControlsHolder = new CustomEditorPanel[1];
         editorPanelControlsHolder[0] = new CustomEditorPanel(() -> {
+            editorSaveTimer.stop();
+            editorSavePending[0] = false;
             CustomComponentDefinition updated = saveEditorDefinition(editorPanel, editingDefinition[0],
                     library, frame);
             if (updated == null) {
@@ -142,6 +171,7 @@ public class CircuitSim {
             exitEditor(activePanel, mainPanel, editorPanel, mainPalette, mainClear,
                     mainBar, editorPalette, editorClear, editorBar, editorPanelControlsHolder[0]);
         }, () -> {
+            flushEditorSave.run();
             editingDefinition[0] = null;
             configureRegistryForMain(library);
             mainBar.refreshGroups();
@@ -155,17 +185,7 @@ public class CircuitSim {
         mainPanel.setCustomDefinitionResolver(library::getDefinition);
         editorPanel.setCustomDefinitionResolver(library::getDefinition);
         editorPanel.setCustomDefinitionsSupplier(java.util.Collections::emptyList);
-        editorPanel.setChangeListener(() -> {
-            if (!editorPanel.isVisible() || editingDefinition[0] == null) {
-                return;
-            }
-            CustomComponentDefinition updated = saveEditorDefinition(editorPanel, editingDefinition[0],
-                    library, frame);
-            if (updated != null) {
-                editingDefinition[0] = updated;
-                mainPanel.flushAutosave();
-            }
-        });
+        editorPanel.setChangeListener(scheduleEditorSave);
 
         // Load autosave only after custom-component resolvers are configured so that
         // saved Custom component instances can be reconstructed on startup.
@@ -184,6 +204,7 @@ public class CircuitSim {
             if (name == null || name.trim().isEmpty()) {
                 return;
             }
+            flushEditorSave.run();
             CustomComponentDefinition definition = new CustomComponentDefinition(name.trim(),
                     new ArrayList<>(), new ArrayList<>(),
                     new BoardState(BoardState.CURRENT_VERSION,
@@ -192,6 +213,7 @@ public class CircuitSim {
             enterEditor(definition, library, activePanel, mainPanel, editorPanel, mainPalette, mainClear,
                     mainBar, editorPalette, editorClear, editorBar, editorPanelControlsHolder[0]);
         }, customId -> {
+            flushEditorSave.run();
             CustomComponentDefinition definition = library.getDefinition(customId);
             if (definition == null) {
                 return;
@@ -210,6 +232,12 @@ public class CircuitSim {
             if (confirm != JOptionPane.YES_OPTION) {
                 return;
             }
+            if (editingDefinition[0] != null && customId.equals(editingDefinition[0].getId())) {
+                editorSaveTimer.stop();
+                editorSavePending[0] = false;
+            } else {
+                flushEditorSave.run();
+            }
             try {
                 library.deleteDefinition(customId);
                 removeDeletedCustomComponentUsages(library, definition, mainPanel, editorPanel);
@@ -235,6 +263,28 @@ public class CircuitSim {
                 () -> mainPanel.requestCreateCustomComponent(),
                 mainPanel::requestEditCustomComponent,
                 mainPanel::requestDeleteCustomComponent);
+        library.startWatching(SwingUtilities::invokeLater, (updated, removedIds, listingChanged) -> {
+            String editingId = editingDefinition[0] == null ? null : editingDefinition[0].getId();
+            java.util.Map<String, CustomComponentDefinition> swaps = new java.util.LinkedHashMap<>();
+            for (CustomComponentDefinition definition : updated) {
+                // The open editor owns its definition; its next save wins.
+                if (!definition.getId().equals(editingId)) {
+                    swaps.put(definition.getId(), definition);
+                }
+            }
+            mainPanel.updateCustomComponentInstances(swaps);
+            editorPanel.updateCustomComponentInstances(swaps);
+            if (!listingChanged) {
+                return;
+            }
+            if (editingId != null) {
+                configureRegistryForEditor(library, editingId);
+                editorBar.refreshGroups();
+            } else {
+                configureRegistryForMain(library);
+                mainBar.refreshGroups();
+            }
+        });
 
         JLayeredPane layeredPane = buildLayeredPane(mainPanel, editorPanel, mainPalette, editorPalette,
                 mainClear, editorClear, mainBar, editorBar, tempModePanel, editorPanelControls,
@@ -244,6 +294,9 @@ public class CircuitSim {
         frame.addWindowListener(new java.awt.event.WindowAdapter() {
             @Override
             public void windowClosing(java.awt.event.WindowEvent e) {
+                library.stopWatching();
+                editorSaveTimer.stop();
+                editorSavePending[0] = false;
                 if (!editorPanel.isVisible() || editingDefinition[0] == null) {
                     return;
                 }
@@ -254,6 +307,7 @@ public class CircuitSim {
         frame.setLocationRelativeTo(null);
         frame.setVisible(true);
         frame.setExtendedState(frame.getExtendedState() | JFrame.MAXIMIZED_BOTH);
+        library.prefetchLayouts();
         checkForUpdates(frame, updateStatusPanel, currentVersion);
     }
 
@@ -508,7 +562,8 @@ public class CircuitSim {
             }
         }
         BoardState boardState = editorPanel.exportBoardState();
-        return new CustomComponentDefinition(original.getId(), original.getName(), inputs, outputs, boardState);
+        return CustomComponentDefinition.intern(new CustomComponentDefinition(original.getId(), original.getName(),
+                inputs, outputs, boardState));
     }
 
     private static BoardState handleBoardLoad(BoardState state, CustomComponentLibrary library,
@@ -570,20 +625,25 @@ public class CircuitSim {
             return;
         }
         List<CustomComponentDefinition> definitions = library.getDefinitions();
-        for (CustomComponentDefinition definition : definitions) {
-            if (definition == null) {
-                continue;
-            }
-            CustomComponentDefinition updated = stripNestedCustomComponent(definition, removedDefinition);
-            if (updated == definition) {
-                continue;
+        java.util.Map<String, CustomComponentDefinition> swaps = new java.util.LinkedHashMap<>();
+        try {
+            for (CustomComponentDefinition definition : definitions) {
+                if (definition == null) {
+                    continue;
+                }
+                CustomComponentDefinition updated = stripNestedCustomComponent(definition, removedDefinition);
+                if (updated == definition) {
+                    continue;
+                }
+                library.saveDefinition(updated);
+                swaps.put(definition.getId(), updated);
             }
-            library.saveDefinition(updated);
+        } finally {
             if (mainPanel != null) {
-                mainPanel.updateCustomComponentInstances(definition.getId(), updated);
+                mainPanel.updateCustomComponentInstances(swaps);
             }
             if (editorPanel != null) {
-                editorPanel.updateCustomComponentInstances(definition.getId(), updated);
+                editorPanel.updateCustomComponentInstances(swaps);
             }
         }
     }
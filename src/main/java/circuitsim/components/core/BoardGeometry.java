@@ -0,0 +1,92 @@
+package circuitsim.components.core;
+
+import circuitsim.components.wiring.Wire;
+import circuitsim.components.wiring.WireNode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Geometry counters owned by one board. Components, wires and wire nodes report moves to the board they were
+ * added to, so caches built over that board can tell when its geometry changed; placement previews and scratch
+ * parts that belong to no board change nothing. Caches that re-bucket moved items subscribe with
+ * {@link #trackComponents()} or {@link #trackWires()} and drain the items reported since their last sync.
+ * Used on the event dispatch thread only.
+ */
+public final class BoardGeometry {
+    private long componentVersion;
+    private long wireVersion;
+    private final List<GeometryChanges<CircuitComponent>> componentTrackers = new ArrayList<>();
+    private final List<GeometryChanges<Wire>> wireTrackers = new ArrayList<>();
+
+    /**
+     * @return counter advanced whenever a component on this board moves, resizes, rotates or changes its
+     * paint bounds
+     */
+    public long getComponentVersion() {
+        return componentVersion;
+    }
+
+    /**
+     * @return counter advanced whenever a wire node on this board moves or a wire on it is re-linked
+     */
+    public long getWireVersion() {
+        return wireVersion;
+    }
+
+    /**
+     * @return combined counter advanced by any component or wire geometry change
+     */
+    public long getVersion() {
+        return componentVersion + wireVersion;
+    }
+
+    /**
+     * @return a new set that collects every component reported as moved from now on
+     */
+    public GeometryChanges<CircuitComponent> trackComponents() {
+        GeometryChanges<CircuitComponent> changes = new GeometryChanges<>();
+        componentTrackers.add(changes);
+        return changes;
+    }
+
+    /**
+     * @return a new set that collects every wire reported as moved or re-linked from now on
+     */
+    public GeometryChanges<Wire> trackWires() {
+        GeometryChanges<Wire> changes = new GeometryChanges<>();
+        wireTrackers.add(changes);
+        return changes;
+    }
+
+    /**
+     * Records a geometry change of one component.
+     */
+    public void markComponentChanged(CircuitComponent component) {
+        componentVersion++;
+        for (GeometryChanges<CircuitComponent> changes : componentTrackers) {
+            changes.add(component);
+        }
+    }
+
+    /**
+     * Records a re-link or anchor change of one wire.
+     */
+    public void markWireChanged(Wire wire) {
+        wireVersion++;
+        for (GeometryChanges<Wire> changes : wireTrackers) {
+            changes.add(wire);
+        }
+    }
+
+    /**
+     * Records a wire node move, which moves every wire attached to it.
+     */
+    public void markNodeMoved(WireNode node) {
+        wireVersion++;
+        for (GeometryChanges<Wire> changes : wireTrackers) {
+            for (Wire wire : node.getWires()) {
+                changes.add(wire);
+            }
+        }
+    }
+}
@@ -31,6 +31,12 @@ public abstract class CircuitComponent implements PropertyOwner, ComponentInterf
     private static final int PROPERTY_TEXT_MARGIN = 2;
     private static final float PROPERTY_FONT_SCALE = 0.6f;
     private static final float TITLE_FONT_SCALE = 0.8f;
+    private static final int PAINT_MARGIN = Grid.SIZE;
+    private static final int TEXT_PAINT_EXTENT = Grid.SIZE * 6;
+    private static final float MIN_READABLE_TEXT_SIZE = 5f;
+    private static final float MIN_VISIBLE_DOT_SIZE = 2f;
+    private static final long GLYPH_CACHE_BYTES = 16L << 20;
+    private static final GlyphCache GLYPHS = new GlyphCache(GLYPH_CACHE_BYTES);
 
     private final long id;
     private final int connectionAmount;
@@ -47,6 +53,9 @@ public abstract class CircuitComponent implements PropertyOwner, ComponentInterf
     private boolean showTitle = false;
     private String displayName;
     private int rotationQuarterTurns = 0;
+    private long geometryStamp;
+    private BoardGeometry boardGeometry;
+    private boolean displayDirty = true;
 
     /**
      * @param x left position in pixels
@@ -89,8 +98,36 @@ public abstract class CircuitComponent implements PropertyOwner, ComponentInterf
      * Updates the component's upper-left position.
      */
     public void setPosition(int x, int y) {
+        if (this.x == x && this.y == y) {
+            return;
+        }
         this.x = x;
         this.y = y;
+        markGeometryChanged();
+    }
+
+    /**
+     * @return counter advanced whenever this component's bounds, rotation or paint bounds change
+     */
+    public long getGeometryStamp() {
+        return geometryStamp;
+    }
+
+    /**
+     * Makes this component report geometry changes to the board it was added to.
+     */
+    public void setBoardGeometry(BoardGeometry boardGeometry) {
+        this.boardGeometry = boardGeometry;
+    }
+
+    /**
+     * Records a change to the bounds, rotation or paint bounds.
+     */
+    protected final void markGeometryChanged() {
+        geometryStamp++;
+        if (boardGeometry != null) {
+            boardGeometry.markComponentChanged(this);
+        }
     }
 
     /**
@@ -127,6 +164,7 @@ public abstract class CircuitComponent implements PropertyOwner, ComponentInterf
     public void setSize(int width, int height) {
         this.width = Math.max(getMinimumWidth(), width);
         this.height = Math.max(getMinimumHeight(), height);
+        markGeometryChanged();
     }
 
     /**
@@ -283,6 +321,7 @@ public abstract class CircuitComponent implements PropertyOwner, ComponentInterf
             width = Math.max(1, targetWidth);
             height = Math.max(1, Math.round(targetWidth / aspectRatio));
         }
+        markGeometryChanged();
     }
 
     /**
@@ -292,6 +331,63 @@ public abstract class CircuitComponent implements PropertyOwner, ComponentInterf
         return new Rectangle(x, y, width, height);
     }
 
+    /**
+     * @return world area the component may paint into, including its title and property values
+     */
+    public Rectangle getPaintBounds() {
+        Rectangle bounds = new Rectangle(x, y, width, height);
+        bounds.grow(PAINT_MARGIN, PAINT_MARGIN);
+        if (!showTitle && !showPropertyValues) {
+            return bounds;
+        }
+        // Text may be rotated about the center, so reserve a square around it.
+        float scale = Math.max(1f, width / (float) baseWidth);
+        int lines = showPropertyValues ? properties.size() + 1 : 1;
+        int reach = (Math.max(width, height) / 2)
+                + Math.round((TEXT_PAINT_EXTENT + (lines * MIN_FONT_SIZE)) * scale);
+        int centerX = x + (width / 2);
+        int centerY = y + (height / 2);
+        return bounds.union(new Rectangle(centerX - reach, centerY - reach, reach * 2, reach * 2));
+    }
+
+    /**
+     * @return hash of position, size and rotation
+     */
+    public int getGeometryState() {
+        int state = x;
+        state = (31 * state) + y;
+        state = (31 * state) + width;
+        state = (31 * state) + height;
+        return (31 * state) + rotationQuarterTurns;
+    }
+
+    /**
+     * Clears the display flag.
+     *
+     * @return true when something the component draws beyond its geometry changed since the previous call
+     */
+    public final boolean pollDisplayChanged() {
+        boolean changed = displayDirty;
+        displayDirty = false;
+        return changed;
+    }
+
+    /**
+     * Flags the component for repaint on the next frame.
+     * EXTENSIBLE: Setters of values the component draws, including displayable property values, call this
+     * when the drawn value changes.
+     */
+    protected final void markDisplayDirty() {
+        displayDirty = true;
+    }
+
+    /**
+     * @return true when two readings differ once shown with two decimals
+     */
+    protected static boolean isReadingChanged(float previous, float next) {
+        return Math.rint(previous * 100.0) != Math.rint(next * 100.0);
+    }
+
     /**
      * @return diameter in pixels for connection dots
      */
@@ -310,7 +406,11 @@ public abstract class CircuitComponent implements PropertyOwner, ComponentInterf
      * Toggles property value visibility.
      */
     public void setShowPropertyValues(boolean showPropertyValues) {
-        this.showPropertyValues = showPropertyValues;
+        if (this.showPropertyValues != showPropertyValues) {
+            this.showPropertyValues = showPropertyValues;
+            markDisplayDirty();
+            markGeometryChanged();
+        }
     }
 
     /**
@@ -324,7 +424,11 @@ public abstract class CircuitComponent implements PropertyOwner, ComponentInterf
      * Toggles title visibility.
      */
     public void setShowTitle(boolean showTitle) {
-        this.showTitle = showTitle;
+        if (this.showTitle != showTitle) {
+            this.showTitle = showTitle;
+            markDisplayDirty();
+            markGeometryChanged();
+        }
     }
 
     /**
@@ -353,6 +457,7 @@ public abstract class CircuitComponent implements PropertyOwner, ComponentInterf
             }
         }
         this.rotationQuarterTurns = normalized;
+        markGeometryChanged();
         // Keep the resize aspect ratio consistent with the current bounds.
         // This is important when restoring rotation from saved state without calling rotate90().
         if (height > 0) {
@@ -386,6 +491,7 @@ public abstract class CircuitComponent implements PropertyOwner, ComponentInterf
         if (aspectRatio != 0) {
             aspectRatio = 1f / aspectRatio;
         }
+        markGeometryChanged();
     }
 
     /**
@@ -496,20 +602,65 @@ public abstract class CircuitComponent implements PropertyOwner, ComponentInterf
         } else {
             this.displayName = displayName.trim();
         }
+        markDisplayDirty();
     }
 
     /**
      * Draws the component, its connection points, title, and property values.
      */
     public final void draw(Graphics g) {
+        draw(g, 1.0);
+    }
+
+    /**
+     * Draws the component at the detail level for the view zoom. Connection dots and text are left out once
+     * they would be too small to make out on screen.
+     *
+     * @param zoomFactor view scale, 1 being actual size
+     */
+    public final void draw(Graphics g, double zoomFactor) {
         Graphics2D g2 = (Graphics2D) g;
+        DetailLevel level = DetailLevel.forZoom(zoomFactor);
+        if (level == DetailLevel.BOX) {
+            Color originalColor = g2.getColor();
+            g2.setColor(getOverviewColor());
+            g2.fillRect(x, y, width, height);
+            g2.setColor(originalColor);
+            return;
+        }
         Stroke originalStroke = g2.getStroke();
         Font originalFont = g2.getFont();
         Color originalColor = g2.getColor();
-        java.awt.geom.AffineTransform originalTransform = g2.getTransform();
         float scale = width / (float) baseWidth;
         g2.setStroke(new BasicStroke(Math.max(MIN_STROKE_WIDTH, BASE_STROKE_WIDTH * scale)));
         g2.setFont(originalFont.deriveFont(Math.max(MIN_FONT_SIZE, originalFont.getSize2D() * scale)));
+        if (!isGlyphCacheable() || !GLYPHS.draw(g2, this, level, PAINT_MARGIN)) {
+            drawBody(g2, level);
+        }
+        if (level == DetailLevel.FULL) {
+            if (getConnectionDotSize() * zoomFactor >= MIN_VISIBLE_DOT_SIZE) {
+                drawConnectionPoints(g2);
+            }
+            if (isReadable(g2, TITLE_FONT_SCALE, zoomFactor)) {
+                drawTitle(g2);
+            }
+            if (isReadable(g2, PROPERTY_FONT_SCALE, zoomFactor)) {
+                drawPropertyValues(g2);
+            }
+        }
+        g2.setStroke(originalStroke);
+        g2.setFont(originalFont);
+        g2.setColor(originalColor);
+    }
+
+    /**
+     * Draws the rotated component body at the given detail level, leaving the graphics context as it was.
+     */
+    void drawBody(Graphics2D g2, DetailLevel level) {
+        java.awt.geom.AffineTransform originalTransform = g2.getTransform();
+        Stroke originalStroke = g2.getStroke();
+        Font originalFont = g2.getFont();
+        Color originalColor = g2.getColor();
         int originalX = x;
         int originalY = y;
         int originalWidth = width;
@@ -525,7 +676,11 @@ public abstract class CircuitComponent implements PropertyOwner, ComponentInterf
         }
         // Draw the component with the current rotation applied.
         applyRotationTransform(g2);
-        drawComponent(g2);
+        if (level == DetailLevel.FULL) {
+            drawComponent(g2);
+        } else {
+            drawSimplifiedComponent(g2);
+        }
         g2.setTransform(originalTransform);
         if (swapped) {
             x = originalX;
@@ -533,14 +688,61 @@ public abstract class CircuitComponent implements PropertyOwner, ComponentInterf
             width = originalWidth;
             height = originalHeight;
         }
-        drawConnectionPoints(g2);
-        drawTitle(g2);
-        drawPropertyValues(g2);
         g2.setStroke(originalStroke);
         g2.setFont(originalFont);
         g2.setColor(originalColor);
     }
 
+    /**
+     * Whether the body may be drawn from a glyph shared with every component of the same type, size, rotation,
+     * {@link #getGlyphState() glyph state} and {@link #getGlyphLabel() glyph label}.
+     * EXTENSIBLE: Components whose body draws continuously changing values, or state that does not pack into
+     * {@link #getGlyphState()}, return false while they do.
+     */
+    protected boolean isGlyphCacheable() {
+        return true;
+    }
+
+    /**
+     * Live state the body draws, packed exactly rather than hashed, so two components share a glyph only when
+     * their bodies look the same.
+     * EXTENSIBLE: Components whose body shows toggled or simulated state pack it here.
+     */
+    protected long getGlyphState() {
+        return 0L;
+    }
+
+    /**
+     * Text drawn as part of the body, or null when the body draws none.
+     * EXTENSIBLE: Components that print their display name in the body return it.
+     */
+    protected String getGlyphLabel() {
+        return null;
+    }
+
+    /**
+     * @return true when text at the given scale of the current font is large enough to read on screen
+     */
+    private static boolean isReadable(Graphics2D g2, float fontScale, double zoomFactor) {
+        return Math.max(8f, g2.getFont().getSize2D() * fontScale) * zoomFactor >= MIN_READABLE_TEXT_SIZE;
+    }
+
+    /**
+     * Draws the component body for zoomed-out views, in the same coordinates as {@link #drawComponent}.
+     * EXTENSIBLE: Components with fine detail or text in the body override this with a plainer glyph.
+     */
+    protected void drawSimplifiedComponent(Graphics2D g2) {
+        drawComponent(g2);
+    }
+
+    /**
+     * Fill color of the box drawn in place of the component at overview zoom.
+     * EXTENSIBLE: Components with a visible live state return a color that reflects it.
+     */
+    protected Color getOverviewColor() {
+        return circuitsim.ui.Colors.COMPONENT_OVERVIEW;
+    }
+
     /**
      * Rotates the graphics context around the component center.
      */
@@ -0,0 +1,33 @@
+package circuitsim.components.core;
+
+/**
+ * How much of a component is drawn at a given view zoom.
+ */
+public enum DetailLevel {
+    /**
+     * Full glyph with connection dots, title and property values.
+     */
+    FULL,
+    /**
+     * Simplified glyph without connection dots or text.
+     */
+    SIMPLIFIED,
+    /**
+     * Filled box in the component's overview color.
+     */
+    BOX;
+
+    private static final double SIMPLIFIED_BELOW_ZOOM = 0.45;
+    private static final double BOX_BELOW_ZOOM = 0.25;
+
+    /**
+     * @param zoomFactor view scale, 1 being actual size
+     * @return detail tier for the zoom
+     */
+    public static DetailLevel forZoom(double zoomFactor) {
+        if (zoomFactor < BOX_BELOW_ZOOM) {
+            return BOX;
+        }
+        return zoomFactor < SIMPLIFIED_BELOW_ZOOM ? SIMPLIFIED : FULL;
+    }
+}
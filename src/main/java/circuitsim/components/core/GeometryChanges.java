@@ -0,0 +1,62 @@
+package circuitsim.components.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Items whose geometry changed since a cache last drained them. Each cache holds its own set, so one cache
+ * draining does not hide a move from another. A set that was marked wholly dirty reports {@link #isAll()} until
+ * drained, and then its individual items carry no meaning. Used on the event dispatch thread only.
+ *
+ * @param <T> tracked item type
+ */
+public final class GeometryChanges<T> {
+    private final Set<T> items = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean all;
+
+    /**
+     * Records a change to one item.
+     */
+    public void add(T item) {
+        if (!all) {
+            items.add(item);
+        }
+    }
+
+    /**
+     * Records a change that may affect every item.
+     */
+    public void markAll() {
+        all = true;
+        items.clear();
+    }
+
+    /**
+     * @return true when every item must be treated as changed
+     */
+    public boolean isAll() {
+        return all;
+    }
+
+    /**
+     * @return true when nothing changed since the last drain
+     */
+    public boolean isEmpty() {
+        return !all && items.isEmpty();
+    }
+
+    /**
+     * Empties the set.
+     *
+     * @return items changed since the last drain, in no particular order
+     */
+    public List<T> drain() {
+        List<T> drained = items.isEmpty() ? Collections.emptyList() : new ArrayList<>(items);
+        items.clear();
+        all = false;
+        return drained;
+    }
+}
@@ -0,0 +1,147 @@
+package circuitsim.components.core;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pre-rendered component bodies shared by every component of the same type, size, rotation and displayed state,
+ * so drawing a component body is a single image copy. Glyphs are rasterized at the device scale they are drawn
+ * at and evicted least recently used first once their pixels pass a memory cap.
+ */
+final class GlyphCache {
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final int ALLOWED_TRANSFORM_TYPES = AffineTransform.TYPE_TRANSLATION
+            | AffineTransform.TYPE_UNIFORM_SCALE;
+
+    private final long maxBytes;
+    private static final Glyph EMPTY = new Glyph(null, 0, 0);
+
+    private final Map<Key, Glyph> glyphs = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    /**
+     * @param maxBytes pixel memory the cached glyphs may hold
+     */
+    GlyphCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Draws the component body from its glyph, rendering the glyph first when it is not cached.
+     *
+     * @param margin world pixels around the component bounds the body may paint into
+     * @return false when the body cannot be drawn from a glyph under the current transform and must be drawn
+     * directly
+     */
+    boolean draw(Graphics2D g2, CircuitComponent component, DetailLevel level, int margin) {
+        AffineTransform transform = g2.getTransform();
+        if ((transform.getType() & ~ALLOWED_TRANSFORM_TYPES) != 0 || transform.getScaleX() <= 0) {
+            return false;
+        }
+        double scale = transform.getScaleX();
+        int left = component.getX() - margin;
+        int top = component.getY() - margin;
+        int imageWidth = (int) Math.ceil((component.getWidth() + (2 * margin)) * scale);
+        int imageHeight = (int) Math.ceil((component.getHeight() + (2 * margin)) * scale);
+        if ((long) imageWidth * imageHeight * BYTES_PER_PIXEL > maxBytes / 4) {
+            return false;
+        }
+        Key key = new Key(component.getClass(), component.getWidth(), component.getHeight(),
+                component.getRotationQuarterTurns(), level, scale, g2.getStroke(), g2.getFont(), g2.getColor(),
+                component.getGlyphState(), component.getGlyphLabel());
+        Glyph glyph = glyphs.get(key);
+        if (glyph == null) {
+            glyph = render(g2, component, level, scale, left, top, imageWidth, imageHeight);
+            glyphs.put(key, glyph);
+            bytes += glyph.bytes();
+            evict();
+        }
+        if (glyph.image == null) {
+            return true;
+        }
+        int deviceX = (int) Math.round(transform.getTranslateX() + (left * scale)) + glyph.offsetX;
+        int deviceY = (int) Math.round(transform.getTranslateY() + (top * scale)) + glyph.offsetY;
+        g2.setTransform(new AffineTransform());
+        g2.drawImage(glyph.image, deviceX, deviceY, null);
+        g2.setTransform(transform);
+        return true;
+    }
+
+    /**
+     * Renders the body over its whole paint area, then keeps only the part it actually painted.
+     */
+    private static Glyph render(Graphics2D target, CircuitComponent component, DetailLevel level,
+                                double scale, int left, int top, int imageWidth, int imageHeight) {
+        BufferedImage canvas = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2 = canvas.createGraphics();
+        g2.setRenderingHints(target.getRenderingHints());
+        g2.setFont(target.getFont());
+        g2.setColor(target.getColor());
+        g2.setStroke(target.getStroke());
+        g2.scale(scale, scale);
+        g2.translate(-left, -top);
+        component.drawBody(g2, level);
+        g2.dispose();
+        return trim(canvas);
+    }
+
+    private static Glyph trim(BufferedImage canvas) {
+        int width = canvas.getWidth();
+        int height = canvas.getHeight();
+        int[] pixels = canvas.getRGB(0, 0, width, height, null, 0, width);
+        int minX = width;
+        int minY = height;
+        int maxX = -1;
+        int maxY = -1;
+        for (int row = 0; row < height; row++) {
+            for (int column = 0; column < width; column++) {
+                if ((pixels[(row * width) + column] >>> 24) != 0) {
+                    minX = Math.min(minX, column);
+                    maxX = Math.max(maxX, column);
+                    minY = Math.min(minY, row);
+                    maxY = Math.max(maxY, row);
+                }
+            }
+        }
+        if (maxX < 0) {
+            return EMPTY;
+        }
+        BufferedImage image = new BufferedImage(maxX - minX + 1, maxY - minY + 1, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2 = image.createGraphics();
+        g2.drawImage(canvas, -minX, -minY, null);
+        g2.dispose();
+        return new Glyph(image, minX, minY);
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Key, Glyph>> iterator = glyphs.entrySet().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            bytes -= iterator.next().getValue().bytes();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Painted part of a body and where it sits in the body's paint area, in device pixels. The image is null
+     * when the body paints nothing.
+     */
+    private record Glyph(BufferedImage image, int offsetX, int offsetY) {
+        private long bytes() {
+            return image == null ? 0 : (long) image.getWidth() * image.getHeight() * BYTES_PER_PIXEL;
+        }
+    }
+
+    /**
+     * Everything a component body is drawn from.
+     */
+    private record Key(Class<?> type, int width, int height, int rotationQuarterTurns, DetailLevel level,
+                       double scale, Stroke stroke, Font font, Color color, long state, String label) {
+    }
+}
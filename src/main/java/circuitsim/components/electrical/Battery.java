@@ -59,6 +59,7 @@ public class Battery extends TwoTerminalComponent {
      */
     public void setVoltage(float voltage) {
         this.voltage = voltage;
+        markDisplayDirty();
     }
 
     /**
@@ -73,6 +74,7 @@ public class Battery extends TwoTerminalComponent {
      */
     public void setInternalResistance(float internalResistance) {
         this.internalResistance = internalResistance;
+        markDisplayDirty();
     }
 
     /**
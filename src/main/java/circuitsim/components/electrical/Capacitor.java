@@ -48,6 +48,7 @@ public class Capacitor extends TwoTerminalComponent {
 
     public void setCapacitanceFarad(float capacitanceFarad) {
         this.capacitanceFarad = capacitanceFarad;
+        markDisplayDirty();
     }
 
     public float getComputedVoltage() {
@@ -55,6 +56,9 @@ public class Capacitor extends TwoTerminalComponent {
     }
 
     public void setComputedVoltage(float computedVoltage) {
+        if (showingStoredCharge && this.computedVoltage != computedVoltage) {
+            markDisplayDirty();
+        }
         this.computedVoltage = computedVoltage;
     }
 
@@ -84,6 +88,7 @@ public class Capacitor extends TwoTerminalComponent {
 
     public void toggleStoredChargeDisplay() {
         showingStoredCharge = !showingStoredCharge;
+        markDisplayDirty();
     }
 
     public boolean isStoredChargeButtonHit(int worldX, int worldY) {
@@ -106,6 +111,11 @@ public class Capacitor extends TwoTerminalComponent {
         return true;
     }
 
+    @Override
+    protected boolean isGlyphCacheable() {
+        return !showingStoredCharge;
+    }
+
     @Override
     protected void drawComponent(Graphics2D g2) {
         Color originalColor = g2.getColor();
@@ -0,0 +1,145 @@
+package circuitsim.components.electrical;
+
+import circuitsim.components.core.*;
+import circuitsim.components.properties.*;
+import circuitsim.physics.DigitalScheduler;
+import circuitsim.ui.Colors;
+import java.awt.Color;
+import java.awt.Graphics2D;
+
+/**
+ * Square-wave clock source advanced by the digital scheduler.
+ */
+@BuiltinComponent(group = "Sources", groupOrder = 10, paletteOrder = 30)
+public class Clock extends Source {
+    private static final float DEFAULT_FREQUENCY_HZ = 1f;
+    private static final float DEFAULT_DUTY_CYCLE = 50f;
+    private static final float MIN_FREQUENCY_HZ = 0.01f;
+    private static final float MAX_FREQUENCY_HZ = 100_000_000f;
+    private static final java.awt.BasicStroke WAVE_STROKE = new java.awt.BasicStroke(1.5f);
+    private float frequency = DEFAULT_FREQUENCY_HZ;
+    private float dutyCycle = DEFAULT_DUTY_CYCLE;
+    private long periodTicks;
+    private long highTicks;
+    private boolean level;
+
+    public Clock(int x, int y) {
+        super(x, y);
+        setDisplayName("Clock");
+        setActive(true);
+        updateTiming();
+        addProperty(new FloatProperty("Frequency (Hz)", this::getFrequency, this::setFrequency, true));
+        addProperty(new FloatProperty("Duty Cycle (%)", this::getDutyCycle, this::setDutyCycle, false));
+    }
+
+    public float getFrequency() {
+        return frequency;
+    }
+
+    public void setFrequency(float frequency) {
+        this.frequency = Math.max(MIN_FREQUENCY_HZ, Math.min(MAX_FREQUENCY_HZ, frequency));
+        updateTiming();
+        markDisplayDirty();
+    }
+
+    public float getDutyCycle() {
+        return dutyCycle;
+    }
+
+    public void setDutyCycle(float dutyCycle) {
+        this.dutyCycle = Math.max(0f, Math.min(100f, dutyCycle));
+        updateTiming();
+        markDisplayDirty();
+    }
+
+    /**
+     * @return output level at the given scheduler tick, ignoring the enable toggle
+     */
+    public boolean levelAt(long tick) {
+        return Math.floorMod(tick, periodTicks) < highTicks;
+    }
+
+    /**
+     * @return first tick after the given one where the level changes, or Long.MAX_VALUE for a constant output
+     */
+    public long nextEdgeAfter(long tick) {
+        if (highTicks == 0 || highTicks == periodTicks) {
+            return Long.MAX_VALUE;
+        }
+        long phase = Math.floorMod(tick, periodTicks);
+        long periodStart = tick - phase;
+        return phase < highTicks ? periodStart + highTicks : periodStart + periodTicks;
+    }
+
+    /**
+     * Sets the current waveform level; called by the scheduler.
+     */
+    public void setLevel(boolean level) {
+        if (this.level != level) {
+            markDisplayDirty();
+        }
+        this.level = level;
+    }
+
+    public boolean getLevel() {
+        return level;
+    }
+
+    @Override
+    public boolean isOutputHigh() {
+        return isActive() && level;
+    }
+
+    private void updateTiming() {
+        periodTicks = Math.max(2L, Math.round(DigitalScheduler.TICKS_PER_SECOND / (double) frequency));
+        highTicks = Math.round(periodTicks * (dutyCycle / 100.0));
+    }
+
+    @Override
+    protected long getGlyphState() {
+        return (isOutputHigh() ? 1L : 0L) | (isActive() ? 2L : 0L);
+    }
+
+    @Override
+    protected String getGlyphLabel() {
+        return getDisplayName();
+    }
+
+    @Override
+    protected void drawComponent(Graphics2D g2) {
+        Color originalColor = g2.getColor();
+        java.awt.Stroke originalStroke = g2.getStroke();
+        g2.setColor(Colors.COMPONENT_STROKE);
+        g2.drawRect(x, y, width, height);
+        int inset = Math.max(3, width / 5);
+        int left = x + inset;
+        int right = x + width - inset;
+        int top = y + inset;
+        int bottom = y + height - inset;
+        int mid = left + (right - left) / 2;
+        g2.setColor(isOutputHigh() ? Colors.CLOCK_WAVE_HIGH : Colors.COMPONENT_STROKE);
+        g2.setStroke(WAVE_STROKE);
+        g2.drawPolyline(new int[] {left, left, mid, mid, right, right},
+                new int[] {bottom, top, top, bottom, bottom, top}, 6);
+        g2.setStroke(originalStroke);
+        int indicatorSize = Math.max(4, width / 5);
+        int indicatorX = x + width - indicatorSize - 2;
+        int indicatorY = y + 2;
+        if (isActive()) {
+            g2.setColor(Colors.CLOCK_ENABLED);
+            g2.fillOval(indicatorX, indicatorY, indicatorSize, indicatorSize);
+        } else {
+            g2.setColor(Colors.CLOCK_DISABLED);
+            g2.drawOval(indicatorX, indicatorY, indicatorSize, indicatorSize);
+        }
+        g2.setColor(Colors.COMPONENT_STROKE);
+        java.awt.Font originalFont = g2.getFont();
+        g2.setFont(originalFont.deriveFont(Math.max(9f, originalFont.getSize2D() * 0.75f)));
+        String label = getDisplayName();
+        int textX = x + width + 6;
+        int textY = y + height / 2 + (g2.getFontMetrics().getAscent() / 2) - 6;
+        g2.drawString(label, textX, textY);
+        g2.setFont(originalFont);
+        g2.setColor(originalColor);
+    }
+}
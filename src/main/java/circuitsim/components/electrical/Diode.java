@@ -42,6 +42,7 @@ public class Diode extends TwoTerminalComponent {
 
     public void setForwardVoltage(float forwardVoltage) {
         this.forwardVoltage = forwardVoltage;
+        markDisplayDirty();
     }
 
     public float getComputedVoltage() {
@@ -39,6 +39,11 @@ public class Ground extends SingleTerminalComponent {
         // Ground does not need per-tick updates.
     }
 
+    @Override
+    protected long getGlyphState() {
+        return activeIndicator ? 1L : 0L;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -72,6 +77,9 @@ public class Ground extends SingleTerminalComponent {
      * Updates the active indicator state.
      */
     public void setActiveIndicator(boolean activeIndicator) {
+        if (this.activeIndicator != activeIndicator) {
+            markDisplayDirty();
+        }
         this.activeIndicator = activeIndicator;
     }
 }
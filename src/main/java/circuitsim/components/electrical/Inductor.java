@@ -43,6 +43,7 @@ public class Inductor extends TwoTerminalComponent {
 
     public void setInductanceHenry(float inductanceHenry) {
         this.inductanceHenry = inductanceHenry;
+        markDisplayDirty();
     }
 
     public float getComputedVoltage() {
@@ -77,6 +77,7 @@ public class LightBulb extends TwoTerminalComponent {
 
     public void setRatedPowerWatt(float ratedPowerWatt) {
         this.ratedPowerWatt = ratedPowerWatt;
+        markDisplayDirty();
     }
 
     public float getRatedVoltage() {
@@ -85,6 +86,7 @@ public class LightBulb extends TwoTerminalComponent {
 
     public void setRatedVoltage(float ratedVoltage) {
         this.ratedVoltage = ratedVoltage;
+        markDisplayDirty();
     }
 
     public boolean isBurnedOut() {
@@ -96,6 +98,7 @@ public class LightBulb extends TwoTerminalComponent {
         if (!burnedOut) {
             burnoutCounter = 0;
         }
+        markDisplayDirty();
     }
 
     public void updateBurnout(float actualPowerWatt) {
@@ -112,6 +115,7 @@ public class LightBulb extends TwoTerminalComponent {
             burnoutCounter++;
             if (burnoutCounter >= BURNOUT_TICKS) {
                 burnedOut = true;
+                markDisplayDirty();
             }
         } else {
             burnoutCounter = Math.max(0, burnoutCounter - 1);
@@ -139,7 +143,11 @@ public class LightBulb extends TwoTerminalComponent {
     }
 
     public void setComputedPowerWatt(float computedPowerWatt) {
+        int previousGlow = getGlowLevel();
         this.computedPowerWatt = computedPowerWatt;
+        if (getGlowLevel() != previousGlow) {
+            markDisplayDirty();
+        }
     }
 
     public float getComputedResistance() {
@@ -150,6 +158,70 @@ public class LightBulb extends TwoTerminalComponent {
         this.computedResistance = computedResistance;
     }
 
+    /**
+     * Lit bulbs glow with their exact brightness, so only dark ones share glyphs.
+     */
+    @Override
+    protected boolean isGlyphCacheable() {
+        return getBrightness() <= 0.05f;
+    }
+
+    @Override
+    protected long getGlyphState() {
+        return burnedOut ? 1L : 0L;
+    }
+
+    /**
+     * @return brightness in the 1/255 steps the glow is drawn with
+     */
+    private int getGlowLevel() {
+        return Math.round(getBrightness() * 255f);
+    }
+
+    /**
+     * @return dissipated power relative to the rating, clamped to 0..2; 0 once burned out
+     */
+    private float getBrightness() {
+        float rated = Math.max(0.001f, ratedPowerWatt);
+        float brightness = burnedOut ? 0f : (computedPowerWatt / rated);
+        return Math.max(0f, Math.min(2f, brightness));
+    }
+
+    /**
+     * @return glow color, shifting toward white when overdriven
+     */
+    private static Color getGlowColor(float brightness) {
+        float over = Math.max(0f, brightness - 1f);
+        int glowG = Math.min(255, Math.round(200 + (55 * over)));
+        int glowB = Math.min(255, Math.round(90 + (140 * over)));
+        return new Color(255, glowG, glowB);
+    }
+
+    /**
+     * Zoomed out: the glass only, filled with the glow color while lit.
+     */
+    @Override
+    protected void drawSimplifiedComponent(Graphics2D g2) {
+        Color original = g2.getColor();
+        int size = Math.max(6, Math.min(width, height) - 4);
+        int left = x + (width / 2) - (size / 2);
+        int top = y + (height / 2) - (size / 2);
+        float brightness = getBrightness();
+        if (brightness > 0.05f) {
+            g2.setColor(getGlowColor(brightness));
+            g2.fillOval(left, top, size, size);
+        }
+        g2.setColor(burnedOut ? new Color(180, 70, 70) : Colors.COMPONENT_STROKE);
+        g2.drawOval(left, top, size, size);
+        g2.setColor(original);
+    }
+
+    @Override
+    protected Color getOverviewColor() {
+        float brightness = getBrightness();
+        return brightness > 0.05f ? getGlowColor(brightness) : super.getOverviewColor();
+    }
+
     @Override
     protected void drawComponent(Graphics2D g2) {
         Color original = g2.getColor();
@@ -159,17 +231,11 @@ public class LightBulb extends TwoTerminalComponent {
         int left = cx - (size / 2);
         int top = cy - (size / 2);
 
-        float rated = Math.max(0.001f, ratedPowerWatt);
-        float brightness = burnedOut ? 0f : (computedPowerWatt / rated);
-        brightness = Math.max(0f, Math.min(2f, brightness));
+        float brightness = getBrightness();
         boolean lit = brightness > 0.05f;
         if (lit) {
             float intensity = Math.min(1f, brightness);
-            float over = Math.max(0f, brightness - 1f);
-            int glowR = 255;
-            int glowG = Math.min(255, Math.round(200 + (55 * over)));
-            int glowB = Math.min(255, Math.round(90 + (140 * over)));
-            Color glowColor = new Color(glowR, glowG, glowB);
+            Color glowColor = getGlowColor(brightness);
             Composite originalComposite = g2.getComposite();
             int glowLift = Math.max(1, Math.round(size * 0.08f));
 
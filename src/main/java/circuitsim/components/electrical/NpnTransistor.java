@@ -50,6 +50,7 @@ public class NpnTransistor extends CircuitComponent {
 
     public void setGain(float gain) {
         this.gain = gain;
+        markDisplayDirty();
     }
 
     public float getComputedCollectorEmitterVoltage() {
@@ -0,0 +1,78 @@
+package circuitsim.components.electrical;
+
+import circuitsim.components.core.CircuitComponent;
+import java.awt.Graphics2D;
+
+/**
+ * Simulation-only flyweight for the resistors, capacitors and inductors inside one expanded custom component.
+ * Kinds, values and local terminal coordinates are primitive arrays shared by every instance of a definition;
+ * an instance only adds its placement offset and the capacitor voltages and inductor currents carried between
+ * steps.
+ */
+public final class PassiveDeviceBank extends CircuitComponent {
+    public static final byte RESISTOR = 0;
+    public static final byte CAPACITOR = 1;
+    public static final byte INDUCTOR = 2;
+
+    private final byte[] kinds;
+    private final double[] values;
+    private final int[] terminals;
+    private final int offsetX;
+    private final int offsetY;
+    private final double[] history;
+
+    /**
+     * @param kinds device kind per device
+     * @param values resistance (ohm), capacitance (F) or inductance (H) per device
+     * @param terminals local {@code x0, y0, x1, y1} per device
+     * @param offsetX world x offset of the instance
+     * @param offsetY world y offset of the instance
+     */
+    public PassiveDeviceBank(byte[] kinds, double[] values, int[] terminals, int offsetX, int offsetY) {
+        super(offsetX, offsetY, 1, 1, 0, false);
+        this.kinds = kinds;
+        this.values = values;
+        this.terminals = terminals;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.history = new double[kinds.length];
+    }
+
+    public int getDeviceCount() {
+        return kinds.length;
+    }
+
+    public byte getKind(int device) {
+        return kinds[device];
+    }
+
+    public double getValue(int device) {
+        return values[device];
+    }
+
+    /**
+     * @return world x of the device's first or second terminal
+     */
+    public int getTerminalX(int device, boolean second) {
+        return terminals[device * 4 + (second ? 2 : 0)] + offsetX;
+    }
+
+    /**
+     * @return world y of the device's first or second terminal
+     */
+    public int getTerminalY(int device, boolean second) {
+        return terminals[device * 4 + (second ? 3 : 1)] + offsetY;
+    }
+
+    /**
+     * @return capacitor voltage or inductor current carried between steps, indexed by device
+     */
+    public double[] getHistory() {
+        return history;
+    }
+
+    @Override
+    protected void drawComponent(Graphics2D g2) {
+        // Simulation-only; the custom component shell is what gets drawn.
+    }
+}
@@ -0,0 +1,86 @@
+package circuitsim.components.electrical;
+
+import circuitsim.components.core.CircuitComponent;
+import circuitsim.components.core.ConnectionPoint;
+import circuitsim.components.ports.CustomComponent;
+import circuitsim.physics.PortReducedModel;
+import java.awt.Graphics2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simulation-only stand-in for a linear custom component that stamps its port-reduced model.
+ * Ports are borrowed from the custom component shell, inputs first; reactive history belongs to the instance.
+ */
+public final class PortReducedNetwork extends CircuitComponent {
+    private final CustomComponent shell;
+    private final PortReducedModel model;
+    private final List<ConnectionPoint> ports = new ArrayList<>();
+    private final double[] history;
+
+    /**
+     * @param shell custom component whose ports the model connects
+     * @param model compiled model of the shell's definition
+     */
+    public PortReducedNetwork(CustomComponent shell, PortReducedModel model) {
+        super(shell.getX(), shell.getY(), shell.getHeight(), shell.getWidth(), 0, false);
+        this.shell = shell;
+        this.model = model;
+        for (ConnectionPoint point : shell.getConnectionPoints()) {
+            if (shell.isInputPoint(point)) {
+                ports.add(point);
+            }
+        }
+        for (ConnectionPoint point : shell.getConnectionPoints()) {
+            if (shell.isOutputPoint(point)) {
+                ports.add(point);
+            }
+        }
+        this.history = new double[model.getHistorySize()];
+    }
+
+    public PortReducedModel getModel() {
+        return model;
+    }
+
+    /**
+     * @return capacitor voltages carried between steps
+     */
+    public double[] getHistory() {
+        return history;
+    }
+
+    /**
+     * @return world x of the given model port
+     */
+    public int getPortX(int port) {
+        return shell.getConnectionPointWorldX(ports.get(port));
+    }
+
+    /**
+     * @return world y of the given model port
+     */
+    public int getPortY(int port) {
+        return shell.getConnectionPointWorldY(ports.get(port));
+    }
+
+    @Override
+    public List<ConnectionPoint> getConnectionPoints() {
+        return shell.getConnectionPoints();
+    }
+
+    @Override
+    public int getConnectionPointWorldX(ConnectionPoint point) {
+        return shell.getConnectionPointWorldX(point);
+    }
+
+    @Override
+    public int getConnectionPointWorldY(ConnectionPoint point) {
+        return shell.getConnectionPointWorldY(point);
+    }
+
+    @Override
+    protected void drawComponent(Graphics2D g2) {
+        // Simulation-only; the custom component shell is what gets drawn.
+    }
+}
@@ -73,6 +73,7 @@ public class PowerUser extends TwoTerminalComponent {
      */
     public void setTargetPowerWatt(float targetPowerWatt) {
         this.targetPowerWatt = targetPowerWatt;
+        markDisplayDirty();
     }
 
     public float getTargetVoltage() {
@@ -81,6 +82,7 @@ public class PowerUser extends TwoTerminalComponent {
 
     public void setTargetVoltage(float targetVoltage) {
         this.targetVoltage = targetVoltage;
+        markDisplayDirty();
     }
 
     public float getComputedVoltage() {
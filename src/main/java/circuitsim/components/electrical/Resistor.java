@@ -52,6 +52,7 @@ public class Resistor extends TwoTerminalComponent {
      */
     public void setResistance(float resistance) {
         this.resistance = resistance;
+        markDisplayDirty();
     }
 
     /**
@@ -31,6 +31,7 @@ public class Source extends SingleTerminalComponent implements SwitchLike {
 
     public void setVoltage(float voltage) {
         this.voltage = voltage;
+        markDisplayDirty();
     }
 
     /**
@@ -44,9 +45,19 @@ public class Source extends SingleTerminalComponent implements SwitchLike {
      * Updates the source toggle state.
      */
     public void setActive(boolean active) {
+        if (this.active != active) {
+            markDisplayDirty();
+        }
         this.active = active;
     }
 
+    /**
+     * @return true when the source currently drives its terminal high
+     */
+    public boolean isOutputHigh() {
+        return active;
+    }
+
     @Override
     public boolean isClosed() {
         return active;
@@ -62,6 +73,16 @@ public class Source extends SingleTerminalComponent implements SwitchLike {
         return true;
     }
 
+    @Override
+    protected long getGlyphState() {
+        return active ? 1L : 0L;
+    }
+
+    @Override
+    protected String getGlyphLabel() {
+        return getDisplayName();
+    }
+
     @Override
     protected void drawComponent(Graphics2D g2) {
         Color originalColor = g2.getColor();
@@ -36,6 +36,9 @@ public class Switch extends TwoTerminalComponent implements SwitchLike {
      * Sets whether the switch is closed.
      */
     public void setClosed(boolean closed) {
+        if (this.closed != closed) {
+            markDisplayDirty();
+        }
         this.closed = closed;
     }
 
@@ -56,11 +59,17 @@ public class Switch extends TwoTerminalComponent implements SwitchLike {
      */
     public void toggle() {
         closed = !closed;
+        markDisplayDirty();
     }
 
     /**
      * {@inheritDoc}
      */
+    @Override
+    protected long getGlyphState() {
+        return closed ? 1L : 0L;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -28,6 +28,7 @@ public class VariableResistor extends CircuitComponent {
 
     private static final int SLIDER_HIT_RADIUS = 16;
     private static final int HANDLE_GAP = 0;
+    private static final float POWERED_CURRENT_THRESHOLD = 0.0001f;
 
     private float resistance;
     private float wiperPosition = 0.5f; // 0..1
@@ -65,6 +66,7 @@ public class VariableResistor extends CircuitComponent {
 
     public void setResistance(float resistance) {
         this.resistance = resistance;
+        markDisplayDirty();
     }
 
     public float getWiperPosition() {
@@ -92,6 +94,9 @@ public class VariableResistor extends CircuitComponent {
     }
 
     public void setComputedAmpere(float computedAmpere) {
+        if ((this.computedAmpere > POWERED_CURRENT_THRESHOLD) != (computedAmpere > POWERED_CURRENT_THRESHOLD)) {
+            markDisplayDirty();
+        }
         this.computedAmpere = computedAmpere;
     }
 
@@ -126,6 +131,7 @@ public class VariableResistor extends CircuitComponent {
             width = getMinimumWidth();
             height = Math.max(getMinimumHeight(), targetHeight);
         }
+        markGeometryChanged();
     }
 
     @Override
@@ -187,6 +193,7 @@ public class VariableResistor extends CircuitComponent {
         int steps = Math.max(1, (int) Math.round(trackLength / Grid.SIZE));
         float snapped = (float) (Math.round(wiperPosition * steps) / (double) steps);
         this.wiperPosition = Math.max(0f, Math.min(1f, snapped));
+        markDisplayDirty();
     }
 
     private java.awt.Point getTerminalWorld(int index) {
@@ -283,6 +290,12 @@ public class VariableResistor extends CircuitComponent {
         return super.getConnectionPointWorldY(point);
     }
 
+    @Override
+    protected long getGlyphState() {
+        long powered = computedAmpere > POWERED_CURRENT_THRESHOLD ? 1L : 0L;
+        return ((long) Float.floatToIntBits(wiperPosition) << 1) | powered;
+    }
+
     @Override
     protected void drawComponent(Graphics2D g2) {
         Stroke componentStroke = g2.getStroke();
@@ -445,7 +458,7 @@ public class VariableResistor extends CircuitComponent {
         g2.setColor(Colors.COMPONENT_STROKE);
         g2.setStroke(new BasicStroke(2f));
         g2.drawLine(x1, y1, x2, y2);
-        if (computedAmpere > 0.0001f) {
+        if (computedAmpere > POWERED_CURRENT_THRESHOLD) {
             g2.setColor(new Color(220, 60, 60));
             g2.setStroke(new BasicStroke(2f));
             g2.drawLine(x1, y1, x2, y2);
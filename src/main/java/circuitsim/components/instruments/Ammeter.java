@@ -43,9 +43,30 @@ public class Ammeter extends TwoTerminalComponent {
      * Sets computed current.
      */
     public void setComputedAmpere(float computedAmpere) {
+        if (isReadingChanged(this.computedAmpere, computedAmpere)) {
+            markDisplayDirty();
+        }
         this.computedAmpere = computedAmpere;
     }
 
+    /**
+     * The reading changes with every solve, so the body is drawn directly.
+     */
+    @Override
+    protected boolean isGlyphCacheable() {
+        return false;
+    }
+
+    /**
+     * Zoomed out: the case without the reading.
+     */
+    @Override
+    protected void drawSimplifiedComponent(Graphics2D g2) {
+        g2.setColor(Colors.COMPONENT_STROKE);
+        int arc = Math.max(8, Math.min(width, height) / 3);
+        g2.drawRoundRect(x, y, width, height, arc, arc);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -44,9 +44,30 @@ public class Voltmeter extends TwoTerminalComponent {
      * Sets computed voltage.
      */
     public void setComputedVoltage(float computedVoltage) {
+        if (isReadingChanged(this.computedVoltage, computedVoltage)) {
+            markDisplayDirty();
+        }
         this.computedVoltage = computedVoltage;
     }
 
+    /**
+     * The reading changes with every solve, so the body is drawn directly.
+     */
+    @Override
+    protected boolean isGlyphCacheable() {
+        return false;
+    }
+
+    /**
+     * Zoomed out: the case without the reading.
+     */
+    @Override
+    protected void drawSimplifiedComponent(Graphics2D g2) {
+        g2.setColor(Colors.COMPONENT_STROKE);
+        int arc = Math.max(8, Math.min(width, height) / 3);
+        g2.drawRoundRect(x, y, width, height, arc, arc);
+    }
+
     /**
      * {@inheritDoc}
      */
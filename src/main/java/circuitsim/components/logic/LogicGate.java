@@ -2,6 +2,7 @@ package circuitsim.components.logic;
 
 import circuitsim.components.core.*;
 
+import circuitsim.physics.LogicPhysics;
 import circuitsim.ui.Grid;
 import java.awt.Color;
 import java.awt.Graphics2D;
@@ -28,6 +29,8 @@ public abstract class LogicGate extends CircuitComponent {
     
     private boolean[] inputPowered = new boolean[0];
     private boolean outputPowered;
+    private LogicPhysics.LoopStatus loopStatus = LogicPhysics.LoopStatus.STABLE;
+    private int loopPeriod;
 
     protected LogicGate(int x, int y, int baseWidth, int baseHeight, int connectionCount) {
         super(x, y, baseHeight, baseWidth, connectionCount, false);
@@ -138,6 +141,27 @@ public abstract class LogicGate extends CircuitComponent {
         return null;
     }
 
+    /**
+     * @return input connection points in evaluation order
+     */
+    public java.util.List<ConnectionPoint> getInputPoints() {
+        java.util.List<ConnectionPoint> inputs = new java.util.ArrayList<>();
+        for (ConnectionPoint point : getConnectionPoints()) {
+            if (isInputPoint(point)) {
+                inputs.add(point);
+            }
+        }
+        return inputs;
+    }
+
+    /**
+     * @return output connection points in evaluation order
+     */
+    public java.util.List<ConnectionPoint> getOutputPoints() {
+        ConnectionPoint output = getOutputPoint();
+        return output == null ? java.util.Collections.emptyList() : java.util.List.of(output);
+    }
+
     /**
      * MODULAR: Template method for input counting.
      * Override to create custom input count behavior.
@@ -196,6 +220,9 @@ public abstract class LogicGate extends CircuitComponent {
         if (index >= inputPowered.length) {
             return;
         }
+        if (inputPowered[index] != powered) {
+            markDisplayDirty();
+        }
         inputPowered[index] = powered;
     }
 
@@ -204,6 +231,9 @@ public abstract class LogicGate extends CircuitComponent {
     }
 
     public void setOutputPowered(boolean powered) {
+        if (outputPowered != powered) {
+            markDisplayDirty();
+        }
         outputPowered = powered;
     }
 
@@ -211,6 +241,65 @@ public abstract class LogicGate extends CircuitComponent {
         return outputPowered;
     }
 
+    @Override
+    protected boolean isGlyphCacheable() {
+        return inputPowered.length < Long.SIZE;
+    }
+
+    @Override
+    protected long getGlyphState() {
+        long state = outputPowered ? 1L : 0L;
+        for (int i = 0; i < inputPowered.length; i++) {
+            if (inputPowered[i]) {
+                state |= 1L << (i + 1);
+            }
+        }
+        return state;
+    }
+
+    @Override
+    protected String getGlyphLabel() {
+        return getDisplayName();
+    }
+
+    /**
+     * Sets the powered state of the output at the given index (single-output gates use index 0).
+     */
+    public void setOutputPowered(int index, boolean powered) {
+        if (index == 0) {
+            setOutputPowered(powered);
+        }
+    }
+
+    /**
+     * @return powered state of the output at the given index
+     */
+    public boolean isOutputPowered(int index) {
+        return index == 0 && isOutputPowered();
+    }
+
+    /**
+     * Records the feedback-loop diagnosis from the last logic update.
+     */
+    public void setLoopStatus(LogicPhysics.LoopStatus status, int period) {
+        loopStatus = status == null ? LogicPhysics.LoopStatus.STABLE : status;
+        loopPeriod = Math.max(0, period);
+    }
+
+    /**
+     * @return settling status of the feedback loop this gate belongs to
+     */
+    public LogicPhysics.LoopStatus getLoopStatus() {
+        return loopStatus;
+    }
+
+    /**
+     * @return oscillation period in relaxation passes, or 0 when not oscillating
+     */
+    public int getLoopPeriod() {
+        return loopPeriod;
+    }
+
     /**
      * Optional inversion circle (used by NAND/NOR).
      */
@@ -222,6 +311,11 @@ public abstract class LogicGate extends CircuitComponent {
         return new Color(220, 60, 60);
     }
 
+    @Override
+    protected Color getOverviewColor() {
+        return outputPowered ? getPoweredColor() : super.getOverviewColor();
+    }
+
     protected final void drawUprightString(Graphics2D g2, String text, int textX, int textY) {
         if (getRotationQuarterTurns() == 0) {
             g2.drawString(text, textX, textY);
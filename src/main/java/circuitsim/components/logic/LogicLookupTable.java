@@ -0,0 +1,110 @@
+package circuitsim.components.logic;
+
+import circuitsim.components.core.ConnectionPoint;
+import circuitsim.components.ports.CustomComponent;
+import java.awt.Graphics2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Simulation-only macro-model that stands in for a purely combinational custom component.
+ * Ports are borrowed from the custom component shell; outputs come from a precomputed truth table.
+ */
+public final class LogicLookupTable extends LogicGate {
+    private final CustomComponent shell;
+    private final List<ConnectionPoint> inputPoints = new ArrayList<>();
+    private final List<ConnectionPoint> outputPoints = new ArrayList<>();
+    private final long[] table;
+    private final boolean[] outputs;
+
+    /**
+     * @param shell custom component whose ports this table drives
+     * @param table output bit masks indexed by the input bit mask
+     */
+    public LogicLookupTable(CustomComponent shell, long[] table) {
+        super(shell.getX(), shell.getY(), shell.getWidth(), shell.getHeight(), 0);
+        this.shell = shell;
+        this.table = table;
+        for (ConnectionPoint point : shell.getConnectionPoints()) {
+            if (shell.isInputPoint(point)) {
+                inputPoints.add(point);
+            } else if (shell.isOutputPoint(point)) {
+                outputPoints.add(point);
+            }
+        }
+        this.outputs = new boolean[outputPoints.size()];
+    }
+
+    /**
+     * @return output bit mask for the given input bit mask
+     */
+    public long lookup(int inputMask) {
+        if (inputMask < 0 || inputMask >= table.length) {
+            return 0L;
+        }
+        return table[inputMask];
+    }
+
+    @Override
+    public List<ConnectionPoint> getConnectionPoints() {
+        return shell.getConnectionPoints();
+    }
+
+    @Override
+    public int getConnectionPointWorldX(ConnectionPoint point) {
+        return shell.getConnectionPointWorldX(point);
+    }
+
+    @Override
+    public int getConnectionPointWorldY(ConnectionPoint point) {
+        return shell.getConnectionPointWorldY(point);
+    }
+
+    @Override
+    public boolean isInputPoint(ConnectionPoint point) {
+        return shell.isInputPoint(point);
+    }
+
+    @Override
+    public boolean isOutputPoint(ConnectionPoint point) {
+        return shell.isOutputPoint(point);
+    }
+
+    @Override
+    public List<ConnectionPoint> getInputPoints() {
+        return Collections.unmodifiableList(inputPoints);
+    }
+
+    @Override
+    public List<ConnectionPoint> getOutputPoints() {
+        return Collections.unmodifiableList(outputPoints);
+    }
+
+    @Override
+    public int getInputCount() {
+        return inputPoints.size();
+    }
+
+    @Override
+    public int getOutputCount() {
+        return outputPoints.size();
+    }
+
+    @Override
+    public void setOutputPowered(int index, boolean powered) {
+        if (index >= 0 && index < outputs.length) {
+            outputs[index] = powered;
+        }
+    }
+
+    @Override
+    public boolean isOutputPowered(int index) {
+        return index >= 0 && index < outputs.length && outputs[index];
+    }
+
+    @Override
+    protected void drawComponent(Graphics2D g2) {
+        // Simulation-only; the custom component shell is what gets drawn.
+    }
+}
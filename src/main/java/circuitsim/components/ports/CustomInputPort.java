@@ -34,6 +34,9 @@ public class CustomInputPort extends SingleTerminalComponent implements SwitchLi
      * Updates the test toggle state.
      */
     public void setActive(boolean active) {
+        if (this.active != active) {
+            markDisplayDirty();
+        }
         this.active = active;
     }
 
@@ -58,6 +61,16 @@ public class CustomInputPort extends SingleTerminalComponent implements SwitchLi
         return true;
     }
 
+    @Override
+    protected long getGlyphState() {
+        return active ? 1L : 0L;
+    }
+
+    @Override
+    protected String getGlyphLabel() {
+        return getDisplayName();
+    }
+
     @Override
     protected void drawComponent(Graphics2D g2) {
         Color originalColor = g2.getColor();
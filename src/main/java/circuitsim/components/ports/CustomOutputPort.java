@@ -33,6 +33,16 @@ public class CustomOutputPort extends SingleTerminalComponent {
         // No simulation state changes needed for output ports.
     }
 
+    @Override
+    protected long getGlyphState() {
+        return activeIndicator ? 1L : 0L;
+    }
+
+    @Override
+    protected String getGlyphLabel() {
+        return getDisplayName();
+    }
+
     @Override
     protected void drawComponent(Graphics2D g2) {
         Color originalColor = g2.getColor();
@@ -62,10 +72,20 @@ public class CustomOutputPort extends SingleTerminalComponent {
         g2.setColor(originalColor);
     }
 
+    /**
+     * @return true when the port currently shows an active (high) signal
+     */
+    public boolean isActiveIndicator() {
+        return activeIndicator;
+    }
+
     /**
      * Updates the active indicator state.
      */
     public void setActiveIndicator(boolean activeIndicator) {
+        if (this.activeIndicator != activeIndicator) {
+            markDisplayDirty();
+        }
         this.activeIndicator = activeIndicator;
     }
 }
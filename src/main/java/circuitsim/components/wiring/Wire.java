@@ -1,11 +1,12 @@
 package circuitsim.components.wiring;
 
+import circuitsim.components.core.BoardGeometry;
 import circuitsim.ui.Colors;
 import java.awt.BasicStroke;
 import java.awt.Color;
+import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.Stroke;
-import java.awt.geom.AffineTransform;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.Locale;
@@ -18,8 +19,14 @@ public class Wire {
     private WireNode end;
     private static final float STROKE_WIDTH = 3f;
     private static final float CURRENT_HIGHLIGHT_THRESHOLD = 0.0001f;
+    private static final float MIN_READABLE_TEXT_SIZE = 5f;
+    private static final float SHORT_LABEL_FONT_SCALE = 1.4f;
+    private static final String SHORT_LABEL = "∞";
+    private static final BasicStroke STROKE = new BasicStroke(STROKE_WIDTH);
+    private static final BasicStroke HIGHLIGHT_STROKE = new BasicStroke(Math.max(1f, STROKE_WIDTH - 1f));
     private static final DecimalFormat VALUE_FORMAT =
             new DecimalFormat("0.##", DecimalFormatSymbols.getInstance(Locale.US));
+    private static volatile DerivedFont shortLabelFont;
     private boolean showData = false;
     private float computedVoltage = 0f;
     private float computedAmpere = 0f;
@@ -28,6 +35,13 @@ public class Wire {
     private WireColor color;
     private Wire startAnchorWire;
     private Wire endAnchorWire;
+    private boolean displayDirty = true;
+    private BoardGeometry boardGeometry;
+    private float labeledAmpere;
+    private String ampereLabel;
+    private Font measuredFont;
+    private String measuredLabel;
+    private int measuredLabelWidth;
 
     /**
      * Creates a wire with the default color.
@@ -76,13 +90,23 @@ public class Wire {
      * Draws the wire between the provided coordinates.
      */
     public void drawAt(Graphics2D g2, int startX, int startY, int endX, int endY) {
+        drawAt(g2, startX, startY, endX, endY, 1.0);
+    }
+
+    /**
+     * Draws the wire between the provided coordinates, leaving out the data label once it would be too small
+     * to read at the view zoom.
+     */
+    public void drawAt(Graphics2D g2, int startX, int startY, int endX, int endY, double zoomFactor) {
         Color originalColor = g2.getColor();
         Stroke originalStroke = g2.getStroke();
         g2.setColor(color.getColor());
-        g2.setStroke(new BasicStroke(STROKE_WIDTH));
+        g2.setStroke(STROKE);
         g2.drawLine(startX, startY, endX, endY);
         drawPoweredHighlight(g2, startX, startY, endX, endY);
-        drawDataLabel(g2, startX, startY, endX, endY);
+        if (g2.getFont().getSize2D() * zoomFactor >= MIN_READABLE_TEXT_SIZE) {
+            drawDataLabel(g2, startX, startY, endX, endY);
+        }
         g2.setColor(originalColor);
         g2.setStroke(originalStroke);
     }
@@ -105,26 +129,52 @@ public class Wire {
      * Updates the start node and maintains wire references.
      */
     public void setStart(WireNode start) {
-        if (this.start != null) {
+        if (this.start != null && this.start != end) {
+            // A wire whose two ends share one node stays listed on it.
             this.start.removeWire(this);
         }
         this.start = start;
         if (this.start != null) {
             this.start.addWire(this);
         }
+        markGeometryChanged();
     }
 
     /**
      * Updates the end node and maintains wire references.
      */
     public void setEnd(WireNode end) {
-        if (this.end != null) {
+        if (this.end != null && this.end != start) {
             this.end.removeWire(this);
         }
         this.end = end;
         if (this.end != null) {
             this.end.addWire(this);
         }
+        markGeometryChanged();
+    }
+
+    /**
+     * Makes this wire and its nodes report geometry changes to the board it was added to.
+     */
+    public void setBoardGeometry(BoardGeometry boardGeometry) {
+        this.boardGeometry = boardGeometry;
+        attachBoardGeometry(start);
+        attachBoardGeometry(end);
+    }
+
+    private void attachBoardGeometry(WireNode node) {
+        if (node != null && boardGeometry != null) {
+            node.setBoardGeometry(boardGeometry);
+        }
+    }
+
+    private void markGeometryChanged() {
+        attachBoardGeometry(start);
+        attachBoardGeometry(end);
+        if (boardGeometry != null) {
+            boardGeometry.markWireChanged(this);
+        }
     }
 
     /**
@@ -150,6 +200,9 @@ public class Wire {
      * Toggles data label visibility.
      */
     public void setShowData(boolean showData) {
+        if (this.showData != showData) {
+            displayDirty = true;
+        }
         this.showData = showData;
     }
 
@@ -178,6 +231,13 @@ public class Wire {
      * Sets computed current for display.
      */
     public void setComputedAmpere(float computedAmpere) {
+        boolean highlightChanged = (this.computedAmpere > CURRENT_HIGHLIGHT_THRESHOLD)
+                != (computedAmpere > CURRENT_HIGHLIGHT_THRESHOLD);
+        boolean labelChanged = showData
+                && Math.rint(this.computedAmpere * 100.0) != Math.rint(computedAmpere * 100.0);
+        if (highlightChanged || labelChanged) {
+            displayDirty = true;
+        }
         this.computedAmpere = computedAmpere;
     }
 
@@ -192,6 +252,9 @@ public class Wire {
      * Marks whether the wire is driven by a logic signal.
      */
     public void setLogicPowered(boolean logicPowered) {
+        if (this.logicPowered != logicPowered) {
+            displayDirty = true;
+        }
         this.logicPowered = logicPowered;
     }
 
@@ -206,6 +269,9 @@ public class Wire {
      * Marks whether the wire is part of a short circuit.
      */
     public void setShortCircuit(boolean shortCircuit) {
+        if (this.shortCircuit != shortCircuit) {
+            displayDirty = true;
+        }
         this.shortCircuit = shortCircuit;
     }
 
@@ -221,6 +287,7 @@ public class Wire {
      */
     public void setStartAnchorWire(Wire startAnchorWire) {
         this.startAnchorWire = startAnchorWire;
+        markGeometryChanged();
     }
 
     /**
@@ -235,6 +302,7 @@ public class Wire {
      */
     public void setEndAnchorWire(Wire endAnchorWire) {
         this.endAnchorWire = endAnchorWire;
+        markGeometryChanged();
     }
 
     /**
@@ -249,6 +317,7 @@ public class Wire {
      */
     public void setWireColor(WireColor color) {
         this.color = color == null ? WireColor.WHITE : color;
+        displayDirty = true;
     }
 
     /**
@@ -265,6 +334,13 @@ public class Wire {
         return STROKE_WIDTH;
     }
 
+    /**
+     * @return shared stroke wires are drawn with
+     */
+    public static Stroke getStroke() {
+        return STROKE;
+    }
+
     /**
      * Moves the wire endpoints by a delta.
      */
@@ -277,6 +353,17 @@ public class Wire {
         }
     }
 
+    /**
+     * Clears the display flag set by the color, highlight and label setters.
+     *
+     * @return true when the color, highlight or label changed since the previous call
+     */
+    public boolean pollDisplayChanged() {
+        boolean changed = displayDirty;
+        displayDirty = false;
+        return changed;
+    }
+
     /**
      * Draws the optional current label near the wire midpoint.
      */
@@ -284,36 +371,65 @@ public class Wire {
         if (!showData) {
             return;
         }
-        String label;
-        if (shortCircuit) {
-            label = "∞";
-        } else {
-            label = VALUE_FORMAT.format(computedAmpere) + "A";
-        }
+        String label = shortCircuit ? SHORT_LABEL : getAmpereLabel();
         double midX = (startX + endX) / 2.0;
         double midY = (startY + endY) / 2.0;
         double angle = Math.atan2(endY - startY, endX - startX);
         boolean flipText = Math.abs(angle) > (Math.PI / 2);
         double textAngle = flipText ? angle + Math.PI : angle;
-        AffineTransform originalTransform = g2.getTransform();
         Color originalColor = g2.getColor();
+        Font originalFont = g2.getFont();
+        Font font = shortCircuit ? getShortLabelFont(originalFont) : originalFont;
         g2.setColor(shortCircuit ? Colors.SHORT_LABEL : Colors.WIRE_LABEL);
+        g2.setFont(font);
         g2.translate(midX, midY);
         g2.rotate(textAngle);
-        java.awt.Font originalFont = g2.getFont();
-        if (shortCircuit) {
-            g2.setFont(originalFont.deriveFont(originalFont.getSize2D() * 1.4f));
-        }
-        int textWidth = g2.getFontMetrics().stringWidth(label);
         int textOffsetY = flipText ? 12 : -4;
-        g2.drawString(label, -textWidth / 2, textOffsetY);
-        if (shortCircuit) {
-            g2.setFont(originalFont);
-        }
-        g2.setTransform(originalTransform);
+        g2.drawString(label, -measureLabel(g2, font, label) / 2, textOffsetY);
+        // Undone step by step instead of saving the transform, which would copy it for every label.
+        g2.rotate(-textAngle);
+        g2.translate(-midX, -midY);
+        g2.setFont(originalFont);
         g2.setColor(originalColor);
     }
 
+    /**
+     * @return current label, formatted again only when the current changed since the last call
+     */
+    private String getAmpereLabel() {
+        if (ampereLabel == null || Float.compare(labeledAmpere, computedAmpere) != 0) {
+            synchronized (VALUE_FORMAT) {
+                ampereLabel = VALUE_FORMAT.format(computedAmpere) + "A";
+            }
+            labeledAmpere = computedAmpere;
+        }
+        return ampereLabel;
+    }
+
+    /**
+     * @return width of the label in the font, measured again only when either changed since the last call
+     */
+    private int measureLabel(Graphics2D g2, Font font, String label) {
+        if (font != measuredFont || !label.equals(measuredLabel)) {
+            measuredLabelWidth = g2.getFontMetrics(font).stringWidth(label);
+            measuredFont = font;
+            measuredLabel = label;
+        }
+        return measuredLabelWidth;
+    }
+
+    /**
+     * @return the enlarged font short-circuit labels use, derived once per base font
+     */
+    private static Font getShortLabelFont(Font base) {
+        DerivedFont cached = shortLabelFont;
+        if (cached == null || cached.base != base) {
+            cached = new DerivedFont(base, base.deriveFont(base.getSize2D() * SHORT_LABEL_FONT_SCALE));
+            shortLabelFont = cached;
+        }
+        return cached.derived;
+    }
+
     /**
      * Draws a powered highlight segment at the middle of the wire.
      */
@@ -321,15 +437,15 @@ public class Wire {
         if (computedAmpere <= CURRENT_HIGHLIGHT_THRESHOLD && !logicPowered) {
             return;
         }
-        Color highlight = color == WireColor.RED
-                ? new Color(160, 40, 40)
-                : new Color(220, 60, 60);
         Color originalColor = g2.getColor();
         Stroke originalStroke = g2.getStroke();
-        g2.setColor(highlight);
-        g2.setStroke(new BasicStroke(Math.max(1f, STROKE_WIDTH - 1f)));
+        g2.setColor(color == WireColor.RED ? Colors.WIRE_POWERED_ON_RED : Colors.WIRE_POWERED);
+        g2.setStroke(HIGHLIGHT_STROKE);
         g2.drawLine(startX, startY, endX, endY);
         g2.setColor(originalColor);
         g2.setStroke(originalStroke);
     }
+
+    private record DerivedFont(Font base, Font derived) {
+    }
 }
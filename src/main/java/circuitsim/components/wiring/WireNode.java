@@ -1,5 +1,6 @@
 package circuitsim.components.wiring;
 
+import circuitsim.components.core.BoardGeometry;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -13,6 +14,7 @@ public class WireNode {
     private final Set<Wire> wires = new HashSet<>();
     private Long attachedComponentId;
     private Integer attachedConnectionIndex;
+    private BoardGeometry boardGeometry;
 
     /**
      * @param x world X coordinate
@@ -41,8 +43,21 @@ public class WireNode {
      * Updates the node position.
      */
     public void setPosition(int x, int y) {
+        if (this.x == x && this.y == y) {
+            return;
+        }
         this.x = x;
         this.y = y;
+        if (boardGeometry != null) {
+            boardGeometry.markNodeMoved(this);
+        }
+    }
+
+    /**
+     * Makes this node report moves to the board its wires were added to.
+     */
+    void setBoardGeometry(BoardGeometry boardGeometry) {
+        this.boardGeometry = boardGeometry;
     }
 
     /**
@@ -1,20 +1,34 @@
 package circuitsim.custom;
 
 import circuitsim.io.BoardState;
+import circuitsim.io.BoardStateIO;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * Stores metadata and internal layout for a custom component.
  */
 public final class CustomComponentDefinition {
+    private static final Map<String, WeakReference<CustomComponentDefinition>> INTERNED = new HashMap<>();
+    private static final String UNREADABLE_HASH_PREFIX = "unreadable:";
+    private static int internPurgeThreshold = 64;
+
     private final String id;
     private final String name;
     private final List<CustomComponentPort> inputs;
     private final List<CustomComponentPort> outputs;
-    private final BoardState boardState;
+    private volatile BoardState boardState;
+    private final java.util.concurrent.FutureTask<BoardState> boardLoader;
+    private volatile String contentHash;
+    private volatile String loadError;
 
     public CustomComponentDefinition(String name, List<CustomComponentPort> inputs,
                                      List<CustomComponentPort> outputs, BoardState boardState) {
@@ -32,6 +46,25 @@ public final class CustomComponentDefinition {
                 ? Collections.emptyList()
                 : outputs));
         this.boardState = boardState;
+        this.boardLoader = null;
+    }
+
+    /**
+     * Creates a definition whose internal layout is parsed on first use.
+     *
+     * @param boardLoader task producing the internal board; run by the first caller that needs it unless a
+     *                    background worker got to it first, and fails when the layout cannot be read
+     * @param contentHash content hash recorded when the layout was last parsed
+     */
+    CustomComponentDefinition(String id, String name, List<CustomComponentPort> inputs,
+                              List<CustomComponentPort> outputs,
+                              java.util.concurrent.FutureTask<BoardState> boardLoader, String contentHash) {
+        this.id = id;
+        this.name = name;
+        this.inputs = Collections.unmodifiableList(new ArrayList<>(inputs));
+        this.outputs = Collections.unmodifiableList(new ArrayList<>(outputs));
+        this.boardLoader = boardLoader;
+        this.contentHash = contentHash;
     }
 
     /**
@@ -63,9 +96,115 @@ public final class CustomComponentDefinition {
     }
 
     /**
-     * @return internal board state
+     * @return internal board state; empty when a lazily loaded layout could not be read (see
+     * {@link #getLoadError()})
      */
     public BoardState getBoardState() {
-        return boardState;
+        BoardState state = boardState;
+        if (state == null && boardLoader != null) {
+            // Parses inline only if no parser worker has started the task; otherwise waits for its result.
+            boardLoader.run();
+            try {
+                state = boardLoader.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new BoardState(BoardState.CURRENT_VERSION, null,
+                        Collections.emptyList(), Collections.emptyList());
+            } catch (java.util.concurrent.ExecutionException e) {
+                state = failLoad(e.getCause());
+            }
+            boardState = state;
+        }
+        return state;
+    }
+
+    /**
+     * @return why the internal layout could not be read, or null if it loaded (or has not been needed yet)
+     */
+    public String getLoadError() {
+        return loadError;
+    }
+
+    /**
+     * Reports an unreadable layout and gives this definition a hash of its own, so the interner and the caches
+     * keyed by content hash never hand out the empty board in place of the real design.
+     */
+    private synchronized BoardState failLoad(Throwable cause) {
+        if (loadError == null) {
+            String message = cause == null || cause.getMessage() == null ? String.valueOf(cause) : cause.getMessage();
+            loadError = message;
+            System.err.println("Custom component \"" + name + "\" failed to load: " + message);
+            synchronized (INTERNED) {
+                String key = id + '@' + contentHash;
+                WeakReference<CustomComponentDefinition> reference = INTERNED.get(key);
+                if (reference != null && reference.get() == this) {
+                    INTERNED.remove(key);
+                }
+            }
+            contentHash = UNREADABLE_HASH_PREFIX + contentHash;
+        }
+        return new BoardState(BoardState.CURRENT_VERSION, null, Collections.emptyList(), Collections.emptyList());
+    }
+
+    /**
+     * @return stable hash of the name, ports and internal layout (computed once; definitions are immutable)
+     */
+    public String getContentHash() {
+        String hash = contentHash;
+        if (hash == null) {
+            hash = computeContentHash();
+            contentHash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the live instance with the same id and content, registering this one if there is none, so
+     * a design referenced from many boards and library files is held once.
+     */
+    public static CustomComponentDefinition intern(CustomComponentDefinition definition) {
+        if (definition == null) {
+            return null;
+        }
+        String key = definition.id + '@' + definition.getContentHash();
+        synchronized (INTERNED) {
+            WeakReference<CustomComponentDefinition> reference = INTERNED.get(key);
+            CustomComponentDefinition existing = reference == null ? null : reference.get();
+            if (existing != null) {
+                if (existing.boardState == null && definition.boardState != null) {
+                    // A full parse of the same content completes a lazily loaded instance.
+                    existing.boardState = definition.boardState;
+                }
+                return existing;
+            }
+            if (INTERNED.size() >= internPurgeThreshold) {
+                INTERNED.values().removeIf(entry -> entry.get() == null);
+                internPurgeThreshold = Math.max(64, INTERNED.size() * 2);
+            }
+            INTERNED.put(key, new WeakReference<>(definition));
+            return definition;
+        }
+    }
+
+    private String computeContentHash() {
+        StringBuilder content = new StringBuilder(name);
+        for (CustomComponentPort port : inputs) {
+            content.append("|in:").append(port.getName());
+        }
+        for (CustomComponentPort port : outputs) {
+            content.append("|out:").append(port.getName());
+        }
+        content.append('|').append(BoardStateIO.toJson(getBoardState()));
+        byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(content.toString().hashCode());
+        }
     }
 }
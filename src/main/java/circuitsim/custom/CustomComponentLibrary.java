@@ -4,6 +4,9 @@ import circuitsim.io.BoardState;
 import circuitsim.io.BoardStateIO;
 import circuitsim.io.DataPaths;
 import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -15,19 +18,58 @@ import java.util.Map;
 
 /**
  * Loads and stores custom component definitions from disk.
+ * Each storage directory keeps an index of names, ports and content hashes so the library is listed without
+ * parsing definition files. Internal layouts are parsed by a small background pool once the caller asks for
+ * prefetching (after the palette is built); a layout still needed before its worker got to it is parsed inline.
  */
 public final class CustomComponentLibrary {
+    private static final String INDEX_FILE_NAME = "library.index";
+    private static final String INDEX_HEADER = "circuitsim-library-index 1";
+    private static final long WATCH_DEBOUNCE_MILLIS = 300L;
+    private static final java.util.concurrent.ExecutorService PARSER = createParser();
+
     private final Map<String, CustomComponentDefinition> definitions = new LinkedHashMap<>();
     private final Path localDir = DataPaths.getCustomComponentsDir();
     private final Path tempDir = DataPaths.getTempDataDir();
     private Path activeDir;
     private boolean tempMode;
+    private java.nio.file.WatchService watchService;
+    private Thread watcherThread;
+    private java.util.concurrent.Executor watchCallbackExecutor;
+    private ChangeListener watchListener;
+    private final List<java.util.concurrent.FutureTask<BoardState>> pendingLayouts = new ArrayList<>();
+    private boolean prefetching;
+
+    /**
+     * Receives definitions that changed on disk behind the library's back.
+     */
+    public interface ChangeListener {
+        /**
+         * @param updated definitions whose content changed, including newly added ones
+         * @param removedIds ids whose files were deleted
+         * @param listingChanged true when names, ports or the set of definitions changed
+         */
+        void definitionsChanged(List<CustomComponentDefinition> updated, List<String> removedIds,
+                                boolean listingChanged);
+    }
 
     public CustomComponentLibrary() {
         initializeActiveDir();
         loadActiveDefinitions();
     }
 
+    /**
+     * Starts parsing the layouts of indexed definitions in the background; definitions loaded later are queued
+     * as soon as they are indexed. Call once the UI no longer competes for the startup path.
+     */
+    public void prefetchLayouts() {
+        prefetching = true;
+        for (java.util.concurrent.FutureTask<BoardState> loader : pendingLayouts) {
+            PARSER.execute(loader);
+        }
+        pendingLayouts.clear();
+    }
+
     /**
      * @return true if temp storage is active
      */
@@ -63,6 +105,7 @@ public final class CustomComponentLibrary {
         if (definition == null) {
             return;
         }
+        definition = CustomComponentDefinition.intern(definition);
         ensureDir(activeDir);
         Path file = activeDir.resolve(definition.getId() + ".json");
         BoardState wrapper = new BoardState(BoardState.CURRENT_VERSION, circuitsim.components.wiring.WireColor.WHITE,
@@ -70,6 +113,7 @@ public final class CustomComponentLibrary {
                 Collections.singletonList(definition));
         Files.writeString(file, BoardStateIO.toJson(wrapper));
         definitions.put(definition.getId(), definition);
+        updateIndex(activeDir, file, definition);
     }
 
     /**
@@ -82,6 +126,7 @@ public final class CustomComponentLibrary {
         Path file = activeDir.resolve(id + ".json");
         Files.deleteIfExists(file);
         definitions.remove(id);
+        updateIndex(activeDir, file, null);
     }
 
     /**
@@ -130,6 +175,7 @@ public final class CustomComponentLibrary {
         tempMode = true;
         activeDir = tempDir;
         loadActiveDefinitions();
+        restartWatching();
     }
 
     /**
@@ -143,6 +189,209 @@ public final class CustomComponentLibrary {
         tempMode = false;
         activeDir = localDir;
         loadActiveDefinitions();
+        restartWatching();
+    }
+
+    /**
+     * Watches the active storage directory and reloads only the definition files that change there.
+     * Bursts of events are debounced; the reload and the listener run on {@code callbackExecutor}, which
+     * should be the thread that owns the library.
+     */
+    public void startWatching(java.util.concurrent.Executor callbackExecutor, ChangeListener listener) {
+        if (watchListener != null || callbackExecutor == null || listener == null) {
+            return;
+        }
+        watchCallbackExecutor = callbackExecutor;
+        watchListener = listener;
+        openWatcher();
+    }
+
+    /**
+     * Stops watching and releases the watch service and its thread; call on shutdown.
+     */
+    public void stopWatching() {
+        closeWatcher();
+        watchCallbackExecutor = null;
+        watchListener = null;
+    }
+
+    /**
+     * Moves the watch to a new active directory, closing the old directory's service and thread.
+     */
+    private void restartWatching() {
+        if (watchListener == null) {
+            return;
+        }
+        closeWatcher();
+        openWatcher();
+    }
+
+    private void openWatcher() {
+        java.nio.file.WatchService service;
+        try {
+            ensureDir(activeDir);
+            service = activeDir.getFileSystem().newWatchService();
+        } catch (IOException | UnsupportedOperationException ignored) {
+            return;
+        }
+        try {
+            activeDir.register(service, java.nio.file.StandardWatchEventKinds.ENTRY_CREATE,
+                    java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY,
+                    java.nio.file.StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException ignored) {
+            // Best-effort; changes are still picked up on the next full load.
+            closeQuietly(service);
+            return;
+        }
+        java.util.concurrent.Executor callbackExecutor = watchCallbackExecutor;
+        ChangeListener listener = watchListener;
+        Thread watcher = new Thread(() -> runWatcher(service, callbackExecutor, listener),
+                "circuitsim-library-watcher");
+        watcher.setDaemon(true);
+        watchService = service;
+        watcherThread = watcher;
+        watcher.start();
+    }
+
+    private void closeWatcher() {
+        if (watchService != null) {
+            closeQuietly(watchService);
+            watchService = null;
+        }
+        if (watcherThread != null) {
+            watcherThread.interrupt();
+            watcherThread = null;
+        }
+    }
+
+    private static void closeQuietly(java.nio.file.WatchService service) {
+        try {
+            service.close();
+        } catch (IOException ignored) {
+            // Nothing left to release.
+        }
+    }
+
+    private void runWatcher(java.nio.file.WatchService service, java.util.concurrent.Executor callbackExecutor,
+                            ChangeListener listener) {
+        try {
+            while (true) {
+                java.nio.file.WatchKey key = service.take();
+                Path dir = (Path) key.watchable();
+                java.util.Set<String> changed = new java.util.LinkedHashSet<>();
+                boolean overflow = collectChanges(key, changed);
+                java.nio.file.WatchKey next;
+                while ((next = service.poll(WATCH_DEBOUNCE_MILLIS, java.util.concurrent.TimeUnit.MILLISECONDS))
+                        != null) {
+                    if (next.watchable().equals(dir)) {
+                        overflow |= collectChanges(next, changed);
+                    } else {
+                        next.pollEvents();
+                        next.reset();
+                    }
+                }
+                if (changed.isEmpty() && !overflow) {
+                    continue;
+                }
+                boolean rescan = overflow;
+                callbackExecutor.execute(() -> reloadChangedFiles(dir, changed, rescan, listener));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (java.nio.file.ClosedWatchServiceException ignored) {
+            // Watching stopped.
+        }
+    }
+
+    /**
+     * Drains a watch key into the set of changed definition file names.
+     *
+     * @return true if events were lost and the directory needs a rescan
+     */
+    private static boolean collectChanges(java.nio.file.WatchKey key, java.util.Set<String> changed) {
+        boolean overflow = false;
+        for (java.nio.file.WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == java.nio.file.StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+            } else if (event.context() instanceof Path path && path.toString().endsWith(".json")) {
+                changed.add(path.toString());
+            }
+        }
+        key.reset();
+        return overflow;
+    }
+
+    /**
+     * Re-reads the given files of the active directory and reports definitions whose content changed.
+     */
+    private void reloadChangedFiles(Path dir, java.util.Set<String> fileNames, boolean rescan,
+                                    ChangeListener listener) {
+        if (!dir.equals(activeDir)) {
+            return;
+        }
+        Map<String, IndexEntry> index = readIndex(dir);
+        java.util.Set<String> candidates = new java.util.LinkedHashSet<>(fileNames);
+        if (rescan) {
+            candidates.addAll(index.keySet());
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.json")) {
+                for (Path file : stream) {
+                    candidates.add(file.getFileName().toString());
+                }
+            } catch (IOException ignored) {
+                // Reload what is known.
+            }
+        }
+        List<CustomComponentDefinition> updated = new ArrayList<>();
+        List<String> removedIds = new ArrayList<>();
+        boolean listingChanged = false;
+        boolean indexChanged = false;
+        for (String fileName : candidates) {
+            Path file = dir.resolve(fileName);
+            IndexEntry entry = index.get(fileName);
+            if (!Files.exists(file)) {
+                if (entry != null) {
+                    index.remove(fileName);
+                    indexChanged = true;
+                    if (definitions.remove(entry.id()) != null) {
+                        removedIds.add(entry.id());
+                        listingChanged = true;
+                    }
+                }
+                continue;
+            }
+            long modified = getLastModified(file);
+            CustomComponentDefinition definition = readDefinition(file);
+            if (definition == null) {
+                // Probably a partial write; the write's next event retries.
+                continue;
+            }
+            CustomComponentDefinition current = definitions.get(definition.getId());
+            if (entry != null && current != null && entry.contentHash().equals(definition.getContentHash())
+                    && current.getContentHash().equals(definition.getContentHash())) {
+                // Our own save, already indexed; only the timestamp may need catching up.
+                if (entry.modified() != modified) {
+                    index.put(fileName, IndexEntry.of(fileName, modified, current));
+                    indexChanged = true;
+                }
+                continue;
+            }
+            IndexEntry refreshed = IndexEntry.of(fileName, modified, definition);
+            index.put(fileName, refreshed);
+            indexChanged = true;
+            CustomComponentDefinition previous = definitions.put(definition.getId(), definition);
+            if (previous == null || !previous.getContentHash().equals(definition.getContentHash())) {
+                updated.add(definition);
+                listingChanged |= previous == null || !previous.getName().equals(definition.getName())
+                        || !refreshed.inputs().equals(IndexEntry.portNames(previous.getInputs()))
+                        || !refreshed.outputs().equals(IndexEntry.portNames(previous.getOutputs()));
+            }
+        }
+        if (indexChanged) {
+            writeIndex(dir, index);
+        }
+        if (!updated.isEmpty() || !removedIds.isEmpty()) {
+            listener.definitionsChanged(updated, removedIds, listingChanged);
+        }
     }
 
     private void initializeActiveDir() {
@@ -169,34 +418,149 @@ public final class CustomComponentLibrary {
         if (dir == null || !Files.exists(dir)) {
             return;
         }
+        Map<String, IndexEntry> previous = readIndex(dir);
+        Map<String, IndexEntry> current = new LinkedHashMap<>();
         try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.json")) {
             for (Path file : stream) {
-                CustomComponentDefinition definition = readDefinition(file);
+                String fileName = file.getFileName().toString();
+                long modified = getLastModified(file);
+                IndexEntry entry = previous.get(fileName);
+                CustomComponentDefinition definition;
+                if (entry != null && entry.modified() == modified) {
+                    definition = createLazyDefinition(file, entry);
+                } else {
+                    definition = readDefinition(file);
+                    entry = definition == null ? null : IndexEntry.of(fileName, modified, definition);
+                }
                 if (definition != null) {
                     target.put(definition.getId(), definition);
+                    current.put(fileName, entry);
                 }
             }
         } catch (IOException ignored) {
             // Best-effort.
         }
+        if (!current.equals(previous)) {
+            writeIndex(dir, current);
+        }
     }
 
-    private CustomComponentDefinition readDefinition(Path file) {
+    private static CustomComponentDefinition readDefinition(Path file) {
         if (file == null || !Files.exists(file)) {
             return null;
         }
         try {
-            String json = Files.readString(file);
-            BoardState wrapper = BoardStateIO.fromJson(json);
-            if (wrapper.getCustomComponents().isEmpty()) {
-                return null;
-            }
-            return wrapper.getCustomComponents().get(0);
+            return parseDefinition(file);
         } catch (IOException | RuntimeException ignored) {
             return null;
         }
     }
 
+    private static CustomComponentDefinition parseDefinition(Path file) throws IOException {
+        BoardState wrapper = BoardStateIO.fromJson(Files.readString(file));
+        if (wrapper.getCustomComponents().isEmpty()) {
+            throw new IOException(file.getFileName() + " holds no custom component definition");
+        }
+        return wrapper.getCustomComponents().get(0);
+    }
+
+    /**
+     * Builds a definition from its index entry and queues its file for background parsing; a caller that needs
+     * the layout before a worker started on it parses it inline.
+     */
+    private CustomComponentDefinition createLazyDefinition(Path file, IndexEntry entry) {
+        java.util.concurrent.FutureTask<BoardState> loader = new java.util.concurrent.FutureTask<>(
+                () -> parseDefinition(file).getBoardState());
+        CustomComponentDefinition lazy = new CustomComponentDefinition(entry.id(), entry.name(),
+                toPorts(entry.inputs(), CustomComponentPort.Direction.INPUT),
+                toPorts(entry.outputs(), CustomComponentPort.Direction.OUTPUT), loader, entry.contentHash());
+        CustomComponentDefinition shared = CustomComponentDefinition.intern(lazy);
+        if (shared == lazy) {
+            if (prefetching) {
+                PARSER.execute(loader);
+            } else {
+                pendingLayouts.add(loader);
+            }
+        }
+        return shared;
+    }
+
+    private static List<CustomComponentPort> toPorts(List<String> names, CustomComponentPort.Direction direction) {
+        List<CustomComponentPort> ports = new ArrayList<>(names.size());
+        for (String name : names) {
+            ports.add(new CustomComponentPort(name, direction));
+        }
+        return ports;
+    }
+
+    private static long getLastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException ignored) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Records (or, with a null definition, drops) one file in a directory's index.
+     */
+    private static void updateIndex(Path dir, Path file, CustomComponentDefinition definition) {
+        Map<String, IndexEntry> entries = readIndex(dir);
+        String fileName = file.getFileName().toString();
+        if (definition == null) {
+            entries.remove(fileName);
+        } else {
+            entries.put(fileName, IndexEntry.of(fileName, getLastModified(file), definition));
+        }
+        writeIndex(dir, entries);
+    }
+
+    private static Map<String, IndexEntry> readIndex(Path dir) {
+        Map<String, IndexEntry> entries = new LinkedHashMap<>();
+        Path file = dir.resolve(INDEX_FILE_NAME);
+        if (!Files.exists(file)) {
+            return entries;
+        }
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !INDEX_HEADER.equals(lines.get(0))) {
+                return entries;
+            }
+            for (String line : lines.subList(1, lines.size())) {
+                IndexEntry entry = IndexEntry.parse(line);
+                if (entry != null) {
+                    entries.put(entry.fileName(), entry);
+                }
+            }
+        } catch (IOException | RuntimeException ignored) {
+            // A damaged index is rebuilt from the definition files.
+            entries.clear();
+        }
+        return entries;
+    }
+
+    private static void writeIndex(Path dir, Map<String, IndexEntry> entries) {
+        StringBuilder out = new StringBuilder(INDEX_HEADER).append('\n');
+        for (IndexEntry entry : entries.values()) {
+            out.append(entry.format()).append('\n');
+        }
+        try {
+            Files.writeString(dir.resolve(INDEX_FILE_NAME), out.toString(), StandardCharsets.UTF_8);
+        } catch (IOException ignored) {
+            // Best-effort; the next load re-parses whatever the index misses.
+        }
+    }
+
+    private static java.util.concurrent.ExecutorService createParser() {
+        int threads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+        return java.util.concurrent.Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "circuitsim-library-parser");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
     private void copyMissingDefinitions(Path sourceDir, Path targetDir) throws IOException {
         if (sourceDir == null || !Files.exists(sourceDir)) {
             return;
@@ -239,4 +603,64 @@ public final class CustomComponentLibrary {
             }
         }
     }
+
+    /**
+     * Index line for one definition file: everything the library lists without parsing the file.
+     */
+    private record IndexEntry(String fileName, long modified, String contentHash, String id, String name,
+                              List<String> inputs, List<String> outputs) {
+        private static IndexEntry of(String fileName, long modified, CustomComponentDefinition definition) {
+            return new IndexEntry(fileName, modified, definition.getContentHash(), definition.getId(),
+                    definition.getName(), portNames(definition.getInputs()), portNames(definition.getOutputs()));
+        }
+
+        private static List<String> portNames(List<CustomComponentPort> ports) {
+            List<String> names = new ArrayList<>(ports.size());
+            for (CustomComponentPort port : ports) {
+                names.add(port.getName());
+            }
+            return names;
+        }
+
+        private static IndexEntry parse(String line) {
+            String[] fields = line.split("\t", -1);
+            if (fields.length != 7) {
+                return null;
+            }
+            return new IndexEntry(decode(fields[0]), Long.parseLong(fields[1]), decode(fields[2]),
+                    decode(fields[3]), decode(fields[4]), decodeList(fields[5]), decodeList(fields[6]));
+        }
+
+        private String format() {
+            return String.join("\t", encode(fileName), Long.toString(modified), encode(contentHash), encode(id),
+                    encode(name), encodeList(inputs), encodeList(outputs));
+        }
+
+        private static String encode(String value) {
+            return URLEncoder.encode(value == null ? "" : value, StandardCharsets.UTF_8);
+        }
+
+        private static String decode(String value) {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8);
+        }
+
+        private static String encodeList(List<String> values) {
+            List<String> encoded = new ArrayList<>(values.size());
+            for (String value : values) {
+                encoded.add(encode(value));
+            }
+            return String.join(",", encoded);
+        }
+
+        private static List<String> decodeList(String value) {
+            List<String> decoded = new ArrayList<>();
+            if (value.isEmpty()) {
+                return decoded;
+            }
+            for (String part : value.split(",", -1)) {
+                decoded.add(decode(part));
+            }
+            return decoded;
+        }
+    }
 }
@@ -11,9 +11,14 @@ import java.util.List;
  */
 public final class BoardState {
     /**
-     * Current schema version.
+     * Current schema version; version 2 stores custom component boards as nested objects.
      */
-    public static final int CURRENT_VERSION = 1;
+    public static final int CURRENT_VERSION = 2;
+    /**
+     * Version written by the export for builds that predate version 2, which embeds custom component boards as
+     * escaped {@code boardJson} strings.
+     */
+    public static final int LEGACY_VERSION = 1;
 
     private final int version;
     private final WireColor activeWireColor;
@@ -114,6 +119,8 @@ public final class BoardState {
         private final Boolean burnedOut;
         private final Float wiperPosition;
         private final Boolean closed;
+        private final Float frequency;
+        private final Float dutyCycle;
 
         /**
          * @param type component type name
@@ -188,6 +195,41 @@ public final class BoardState {
                               Float voltage, Float internalResistance, Float resistance, Float capacitance, Float inductance,
                               Float gain,
                               Float powerWatt, Boolean burnedOut, Float wiperPosition, Boolean closed) {
+            this(type, x, y, width, height, rotationQuarterTurns, displayName, customId, showTitle, showValues,
+                    voltage, internalResistance, resistance, capacitance, inductance, gain, powerWatt, burnedOut,
+                    wiperPosition, closed, null, null);
+        }
+
+        /**
+         * @param type component type name
+         * @param x left position
+         * @param y top position
+         * @param width width in pixels
+         * @param height height in pixels
+         * @param rotationQuarterTurns rotation in quarter turns
+         * @param displayName display name
+         * @param customId custom component id (optional)
+         * @param showTitle show title flag
+         * @param showValues show values flag
+         * @param voltage battery voltage (optional)
+         * @param internalResistance battery internal resistance (optional)
+         * @param resistance resistor resistance (optional)
+         * @param capacitance capacitor capacitance (optional)
+         * @param inductance inductor inductance (optional)
+         * @param gain transistor gain (optional)
+         * @param powerWatt constant-power load wattage (optional)
+         * @param burnedOut light bulb burned out state (optional)
+         * @param wiperPosition sliding resistor wiper position 0..1 (optional)
+         * @param closed switch closed state (optional)
+         * @param frequency clock frequency in hertz (optional)
+         * @param dutyCycle clock duty cycle in percent (optional)
+         */
+        public ComponentState(String type, int x, int y, int width, int height, int rotationQuarterTurns,
+                              String displayName, String customId, boolean showTitle, boolean showValues,
+                              Float voltage, Float internalResistance, Float resistance, Float capacitance, Float inductance,
+                              Float gain,
+                              Float powerWatt, Boolean burnedOut, Float wiperPosition, Boolean closed,
+                              Float frequency, Float dutyCycle) {
             this.type = type;
             this.x = x;
             this.y = y;
@@ -208,6 +250,8 @@ public final class BoardState {
             this.burnedOut = burnedOut;
             this.wiperPosition = wiperPosition;
             this.closed = closed;
+            this.frequency = frequency;
+            this.dutyCycle = dutyCycle;
         }
 
         /**
@@ -349,6 +393,20 @@ public final class BoardState {
         public Boolean getClosed() {
             return closed;
         }
+
+        /**
+         * @return clock frequency in hertz, if applicable
+         */
+        public Float getFrequency() {
+            return frequency;
+        }
+
+        /**
+         * @return clock duty cycle in percent, if applicable
+         */
+        public Float getDutyCycle() {
+            return dutyCycle;
+        }
     }
 
     /**
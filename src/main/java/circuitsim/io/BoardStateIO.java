@@ -12,6 +12,8 @@ import java.util.Map;
  * JSON serializer and parser for {@link BoardState}.
  */
 public final class BoardStateIO {
+    private static final String LEGACY_BOARD_KEY = "boardJson";
+
     /**
      * Prevent instantiation.
      */
@@ -29,14 +31,23 @@ public final class BoardStateIO {
             return "{}";
         }
         StringBuilder out = new StringBuilder(1024);
-        out.append('{');
-        boolean[] first = new boolean[] { true };
-        appendNumberField(out, first, "version", state.getVersion());
-        appendStringField(out, first, "activeWireColor", state.getActiveWireColor().name());
-        appendCustomComponents(out, first, state.getCustomComponents());
-        appendComponents(out, first, state.getComponents());
-        appendWires(out, first, state.getWires());
-        out.append('}');
+        appendBoard(out, state, Layout.CURRENT);
+        return out.toString();
+    }
+
+    /**
+     * Serializes the board state in the version 1 layout read by builds that predate version 2, where custom
+     * component boards are escaped JSON strings nested inside each other.
+     *
+     * @param state board state
+     * @return JSON string
+     */
+    public static String toLegacyJson(BoardState state) {
+        if (state == null) {
+            return "{}";
+        }
+        StringBuilder out = new StringBuilder(1024);
+        appendBoard(out, state, Layout.LEGACY);
         return out.toString();
     }
 
@@ -53,7 +64,28 @@ public final class BoardStateIO {
             return new BoardState(BoardState.CURRENT_VERSION, WireColor.WHITE,
                     new ArrayList<>(), new ArrayList<>());
         }
-        Map<String, Object> root = castObject(parsed);
+        return parseBoard(castObject(parsed));
+    }
+
+    /**
+     * Writes a board state as a JSON object.
+     */
+    private static void appendBoard(StringBuilder out, BoardState state, Layout layout) {
+        out.append('{');
+        boolean[] first = new boolean[] { true };
+        appendNumberField(out, first, "version",
+                layout == Layout.LEGACY ? BoardState.LEGACY_VERSION : state.getVersion());
+        appendStringField(out, first, "activeWireColor", state.getActiveWireColor().name());
+        appendCustomComponents(out, first, state.getCustomComponents(), layout);
+        appendComponents(out, first, state.getComponents());
+        appendWires(out, first, state.getWires());
+        out.append('}');
+    }
+
+    /**
+     * Builds a board state from a parsed JSON object.
+     */
+    private static BoardState parseBoard(Map<String, Object> root) {
         int version = getInt(root, "version", BoardState.CURRENT_VERSION);
         WireColor activeWireColor = parseWireColor(getString(root, "activeWireColor", WireColor.WHITE.name()));
         List<CustomComponentDefinition> customComponents = parseCustomComponents(root.get("customComponents"));
@@ -94,6 +126,8 @@ public final class BoardStateIO {
             appendOptionalBooleanField(out, firstField, "burnedOut", component.getBurnedOut());
             appendOptionalNumberField(out, firstField, "wiperPosition", component.getWiperPosition());
             appendOptionalBooleanField(out, firstField, "closed", component.getClosed());
+            appendOptionalNumberField(out, firstField, "frequency", component.getFrequency());
+            appendOptionalNumberField(out, firstField, "dutyCycle", component.getDutyCycle());
             out.append('}');
         }
         out.append(']');
@@ -103,7 +137,7 @@ public final class BoardStateIO {
      * Appends custom component definitions to the JSON output.
      */
     private static void appendCustomComponents(StringBuilder out, boolean[] first,
-                                               List<CustomComponentDefinition> customComponents) {
+                                               List<CustomComponentDefinition> customComponents, Layout layout) {
         appendFieldStart(out, first, "customComponents");
         out.append('[');
         boolean[] firstItem = new boolean[] { true };
@@ -116,8 +150,22 @@ public final class BoardStateIO {
             appendPorts(out, firstField, "inputs", definition.getInputs());
             appendPorts(out, firstField, "outputs", definition.getOutputs());
             BoardState boardState = definition.getBoardState();
-            String boardJson = boardState == null ? "{}" : toJson(boardState);
-            appendStringField(out, firstField, "boardJson", boardJson);
+            if (layout == Layout.CURRENT) {
+                appendFieldStart(out, firstField, "board");
+                if (boardState == null) {
+                    out.append("{}");
+                } else {
+                    appendBoard(out, boardState, Layout.CURRENT);
+                }
+            } else {
+                StringBuilder legacy = new StringBuilder();
+                if (boardState == null) {
+                    legacy.append("{}");
+                } else {
+                    appendBoard(legacy, boardState, Layout.LEGACY);
+                }
+                appendStringField(out, firstField, LEGACY_BOARD_KEY, legacy.toString());
+            }
             out.append('}');
         }
         out.append(']');
@@ -201,15 +249,18 @@ public final class BoardStateIO {
             Boolean burnedOut = getBooleanObject(map, "burnedOut");
             Float wiperPosition = getFloat(map, "wiperPosition");
             Boolean closed = getBooleanObject(map, "closed");
+            Float frequency = getFloat(map, "frequency");
+            Float dutyCycle = getFloat(map, "dutyCycle");
             result.add(new BoardState.ComponentState(type, x, y, width, height, rotation,
                     displayName, customId, showTitle, showValues, voltage, internalResistance, resistance,
-                    capacitance, inductance, gain, powerWatt, burnedOut, wiperPosition, closed));
+                    capacitance, inductance, gain, powerWatt, burnedOut, wiperPosition, closed,
+                    frequency, dutyCycle));
         }
         return result;
     }
 
     /**
-     * Parses custom component definitions from a JSON array.
+     * Parses custom component definitions from a JSON array, sharing instances with identical content.
      */
     private static List<CustomComponentDefinition> parseCustomComponents(Object raw) {
         List<CustomComponentDefinition> result = new ArrayList<>();
@@ -226,9 +277,13 @@ public final class BoardStateIO {
             String name = getString(map, "name", "Custom Component");
             List<CustomComponentPort> inputs = parsePorts(map.get("inputs"), CustomComponentPort.Direction.INPUT);
             List<CustomComponentPort> outputs = parsePorts(map.get("outputs"), CustomComponentPort.Direction.OUTPUT);
-            String boardJson = getString(map, "boardJson", "{}");
-            BoardState boardState = fromJson(boardJson);
-            result.add(new CustomComponentDefinition(id, name, inputs, outputs, boardState));
+            Object board = map.get("board");
+            // Files written before version 2, or exported for such builds, embed the board as an escaped string.
+            BoardState boardState = board instanceof Map
+                    ? parseBoard(castObject(board))
+                    : fromJson(getLegacyBoard(map));
+            result.add(CustomComponentDefinition.intern(
+                    new CustomComponentDefinition(id, name, inputs, outputs, boardState)));
         }
         return result;
     }
@@ -461,6 +516,38 @@ public final class BoardStateIO {
         }
     }
 
+    /**
+     * @return unescaped legacy board string of a custom component entry, or an empty object when it has none
+     */
+    private static String getLegacyBoard(Map<String, Object> map) {
+        Object value = map.get(LEGACY_BOARD_KEY);
+        if (value instanceof DeferredString deferred) {
+            return deferred.decode();
+        }
+        return value instanceof String text ? text : "{}";
+    }
+
+    /**
+     * How a board is written. Builds before version 2 only read the escaped {@code boardJson} string; it is
+     * written only by {@link #toLegacyJson}, never next to a nested {@code board} object.
+     */
+    private enum Layout {
+        CURRENT,
+        LEGACY
+    }
+
+    /**
+     * String token whose unescaping is deferred until it is read. Files written by builds that kept a
+     * {@code boardJson} copy next to {@code board} would otherwise decode a copy nobody uses.
+     */
+    private record DeferredString(String input, int start) {
+        private String decode() {
+            JsonParser parser = new JsonParser(input);
+            parser.index = start;
+            return parser.parseString();
+        }
+    }
+
     /**
      * Minimal JSON parser for objects, arrays, numbers, booleans, and strings.
      */
@@ -518,7 +605,7 @@ public final class BoardStateIO {
                 if (index < input.length() && input.charAt(index) == ':') {
                     index++;
                 }
-                Object value = parseValue();
+                Object value = LEGACY_BOARD_KEY.equals(key) ? parseDeferredValue() : parseValue();
                 result.put(key, value);
                 skipWhitespace();
                 if (index < input.length() && input.charAt(index) == ',') {
@@ -533,6 +620,28 @@ public final class BoardStateIO {
             return result;
         }
 
+        /**
+         * Skips over a string token without unescaping it; other values are parsed as usual.
+         */
+        private Object parseDeferredValue() {
+            skipWhitespace();
+            if (index >= input.length() || input.charAt(index) != '"') {
+                return parseValue();
+            }
+            int start = index;
+            index++;
+            while (index < input.length()) {
+                char c = input.charAt(index++);
+                if (c == '"') {
+                    break;
+                }
+                if (c == '\\') {
+                    index++;
+                }
+            }
+            return new DeferredString(input, start);
+        }
+
         /**
          * Parses a JSON array into a list.
          */
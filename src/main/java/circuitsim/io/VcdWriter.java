@@ -0,0 +1,97 @@
+package circuitsim.io;
+
+import circuitsim.physics.DigitalScheduler;
+import circuitsim.physics.WaveformRecorder;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Streams recorded logic transitions as a Value Change Dump for external waveform viewers.
+ */
+public final class VcdWriter {
+    private static final char FIRST_ID_CHAR = '!';
+    private static final int ID_RADIX = '~' - '!' + 1;
+
+    /**
+     * Prevent instantiation.
+     */
+    private VcdWriter() {
+    }
+
+    /**
+     * Writes the recorder contents event by event; the caller owns buffering and closing.
+     *
+     * @param recorder source of probes and transitions
+     * @param out destination writer
+     * @throws IOException when writing fails
+     */
+    public static void write(WaveformRecorder recorder, Writer out) throws IOException {
+        List<WaveformRecorder.Probe> probes = recorder.getProbes();
+        int maxId = -1;
+        for (WaveformRecorder.Probe probe : probes) {
+            maxId = Math.max(maxId, probe.getId());
+        }
+        String[] codes = new String[maxId + 1];
+        out.write("$timescale " + (1_000_000_000L / DigitalScheduler.TICKS_PER_SECOND) + "ns $end\n");
+        out.write("$scope module circuitsim $end\n");
+        for (WaveformRecorder.Probe probe : probes) {
+            String code = identifierCode(probe.getId());
+            codes[probe.getId()] = code;
+            out.write("$var wire 1 " + code + " " + sanitizeName(probe.getName()) + " $end\n");
+        }
+        out.write("$upscope $end\n");
+        out.write("$enddefinitions $end\n");
+
+        long startTick = Math.max(0L, recorder.getStartTick());
+        out.write("#" + startTick + "\n");
+        out.write("$dumpvars\n");
+        for (WaveformRecorder.Probe probe : probes) {
+            int base = recorder.getBaseValue(probe.getId());
+            out.write(base < 0 ? 'x' : (base == 1 ? '1' : '0'));
+            out.write(codes[probe.getId()]);
+            out.write('\n');
+        }
+        out.write("$end\n");
+
+        long currentTick = startTick;
+        int count = recorder.getEventCount();
+        for (int i = 0; i < count; i++) {
+            int probeId = recorder.getEventProbe(i);
+            if (probeId > maxId || codes[probeId] == null) {
+                continue;
+            }
+            long tick = recorder.getEventTick(i);
+            if (tick != currentTick) {
+                out.write("#" + tick + "\n");
+                currentTick = tick;
+            }
+            out.write(recorder.getEventValue(i) ? '1' : '0');
+            out.write(codes[probeId]);
+            out.write('\n');
+        }
+        if (recorder.getLastTick() > currentTick) {
+            out.write("#" + recorder.getLastTick() + "\n");
+        }
+    }
+
+    /**
+     * @return short printable identifier code for the probe id
+     */
+    private static String identifierCode(int id) {
+        StringBuilder code = new StringBuilder();
+        int value = id;
+        do {
+            code.append((char) (FIRST_ID_CHAR + value % ID_RADIX));
+            value = value / ID_RADIX - 1;
+        } while (value >= 0);
+        return code.toString();
+    }
+
+    private static String sanitizeName(String name) {
+        if (name == null || name.isBlank()) {
+            return "signal";
+        }
+        return name.trim().replaceAll("\\s+", "_");
+    }
+}
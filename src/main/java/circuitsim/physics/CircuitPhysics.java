@@ -10,6 +10,8 @@ import circuitsim.components.electrical.Ground;
 import circuitsim.components.electrical.Inductor;
 import circuitsim.components.electrical.LightBulb;
 import circuitsim.components.electrical.NpnTransistor;
+import circuitsim.components.electrical.PassiveDeviceBank;
+import circuitsim.components.electrical.PortReducedNetwork;
 import circuitsim.components.electrical.PowerUser;
 import circuitsim.components.electrical.Resistor;
 import circuitsim.components.electrical.VariableResistor;
@@ -21,8 +23,6 @@ import circuitsim.components.ports.CustomInputPort;
 import circuitsim.components.ports.CustomOutputPort;
 import circuitsim.components.wiring.Wire;
 import circuitsim.components.wiring.WireNode;
-import circuitsim.ui.Grid;
-import java.awt.Point;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -46,6 +46,7 @@ public final class CircuitPhysics {
     private static final double NPN_BASE_THRESHOLD = 0.7;
     private static final double NPN_HYSTERESIS = 0.05;
     private static final double INDUCTOR_MIN_CONDUCTANCE = 1e-9;
+    private static final float CURRENT_INDICATOR_THRESHOLD = 0.0001f;
     /**
      * Prevent instantiation.
      */
@@ -77,25 +78,53 @@ public final class CircuitPhysics {
      */
     public static boolean update(List<CircuitComponent> components, Collection<Wire> wires,
                                  boolean treatCustomOutputsAsGround, double timeStepSeconds) {
-        return updateInternal(components, wires, treatCustomOutputsAsGround, timeStepSeconds);
+        if (components == null || wires == null) {
+            return false;
+        }
+        return updateInternal(components, wires, WireNetIndex.of(wires), null, treatCustomOutputsAsGround,
+                timeStepSeconds);
+    }
+
+    /**
+     * Updates computed values using a net index maintained by the caller over the same wires.
+     */
+    public static boolean update(List<CircuitComponent> components, Collection<Wire> wires, WireNetIndex netIndex,
+                                 boolean treatCustomOutputsAsGround, double timeStepSeconds) {
+        return update(components, wires, netIndex, null, treatCustomOutputsAsGround, timeStepSeconds);
+    }
+
+    /**
+     * Updates computed values, solving each island by custom component domain when {@code domains} maps
+     * components and wires to the expanded instance they belong to (absent items are top-level).
+     */
+    public static boolean update(List<CircuitComponent> components, Collection<Wire> wires, WireNetIndex netIndex,
+                                 Map<Object, Integer> domains, boolean treatCustomOutputsAsGround,
+                                 double timeStepSeconds) {
+        if (components == null || wires == null) {
+            return false;
+        }
+        return updateInternal(components, wires, netIndex == null ? WireNetIndex.of(wires) : netIndex, domains,
+                treatCustomOutputsAsGround, timeStepSeconds);
     }
 
     /**
      * Performs the internal solver update.
      */
     private static boolean updateInternal(List<CircuitComponent> components, Collection<Wire> wires,
-                                          boolean treatCustomOutputsAsGround, double timeStepSeconds) {
+                                          WireNetIndex netIndex, Map<Object, Integer> domains,
+                                          boolean treatCustomOutputsAsGround,
+                                          double timeStepSeconds) {
         if (components == null || wires == null) {
             return false;
         }
         double stableTimeStep = Double.isFinite(timeStepSeconds) && timeStepSeconds > 0.0
                 ? timeStepSeconds : (1.0 / 60.0);
-        Map<Point, Integer> nodeIndex = new HashMap<>();
+        NodeNumbering nodeIndex = new NodeNumbering(netIndex);
         for (CircuitComponent component : components) {
             for (ConnectionPoint point : component.getConnectionPoints()) {
                 int x = component.getConnectionPointWorldX(point);
                 int y = component.getConnectionPointWorldY(point);
-                getNodeIndex(nodeIndex, x, y);
+                nodeIndex.resolve(x, y);
             }
         }
         for (Wire wire : wires) {
@@ -104,8 +133,8 @@ public final class CircuitPhysics {
             if (start == null || end == null) {
                 continue;
             }
-            getNodeIndex(nodeIndex, start.getX(), start.getY());
-            getNodeIndex(nodeIndex, end.getX(), end.getY());
+            nodeIndex.resolve(start.getX(), start.getY());
+            nodeIndex.resolve(end.getX(), end.getY());
         }
         if (nodeIndex.isEmpty()) {
             return false;
@@ -122,6 +151,8 @@ public final class CircuitPhysics {
         List<CustomInputPort> inputPorts = new ArrayList<>();
         List<Source> sources = new ArrayList<>();
         List<LogicGate> logicGates = new ArrayList<>();
+        List<PortReducedNetwork> reducedNetworks = new ArrayList<>();
+        List<PassiveDeviceBank> deviceBanks = new ArrayList<>();
         for (CircuitComponent component : components) {
             switch (component) {
                 case Resistor resistor -> {
@@ -129,10 +160,10 @@ public final class CircuitPhysics {
                     if (points.size() < 2) {
                         break;
                     }
-                    int aIndex = getNodeIndex(nodeIndex,
+                    int aIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(0)),
                             component.getConnectionPointWorldY(points.get(0)));
-                    int bIndex = getNodeIndex(nodeIndex,
+                    int bIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(1)),
                             component.getConnectionPointWorldY(points.get(1)));
                     edges.add(new Edge(aIndex, bIndex,
@@ -143,10 +174,10 @@ public final class CircuitPhysics {
                     if (points.size() < 2) {
                         break;
                     }
-                    int aIndex = getNodeIndex(nodeIndex,
+                    int aIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(0)),
                             component.getConnectionPointWorldY(points.get(0)));
-                    int bIndex = getNodeIndex(nodeIndex,
+                    int bIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(1)),
                             component.getConnectionPointWorldY(points.get(1)));
                     edges.add(new Edge(aIndex, bIndex, getPowerUserResistance(powerUser), powerUser));
@@ -156,10 +187,10 @@ public final class CircuitPhysics {
                     if (points.size() < 2) {
                         break;
                     }
-                    int aIndex = getNodeIndex(nodeIndex,
+                    int aIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(0)),
                             component.getConnectionPointWorldY(points.get(0)));
-                    int bIndex = getNodeIndex(nodeIndex,
+                    int bIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(1)),
                             component.getConnectionPointWorldY(points.get(1)));
                     edges.add(new Edge(aIndex, bIndex, MIN_RESISTANCE, capacitor));
@@ -169,10 +200,10 @@ public final class CircuitPhysics {
                     if (points.size() < 2) {
                         break;
                     }
-                    int aIndex = getNodeIndex(nodeIndex,
+                    int aIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(0)),
                             component.getConnectionPointWorldY(points.get(0)));
-                    int bIndex = getNodeIndex(nodeIndex,
+                    int bIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(1)),
                             component.getConnectionPointWorldY(points.get(1)));
                     edges.add(new Edge(aIndex, bIndex, DIODE_OFF_RESISTANCE, diode));
@@ -182,10 +213,10 @@ public final class CircuitPhysics {
                     if (points.size() < 2) {
                         break;
                     }
-                    int aIndex = getNodeIndex(nodeIndex,
+                    int aIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(0)),
                             component.getConnectionPointWorldY(points.get(0)));
-                    int bIndex = getNodeIndex(nodeIndex,
+                    int bIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(1)),
                             component.getConnectionPointWorldY(points.get(1)));
                     edges.add(new Edge(aIndex, bIndex, MIN_RESISTANCE, inductor));
@@ -195,13 +226,13 @@ public final class CircuitPhysics {
                     if (points.size() < 3) {
                         break;
                     }
-                    int baseIndex = getNodeIndex(nodeIndex,
+                    int baseIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(0)),
                             component.getConnectionPointWorldY(points.get(0)));
-                    int collectorIndex = getNodeIndex(nodeIndex,
+                    int collectorIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(1)),
                             component.getConnectionPointWorldY(points.get(1)));
-                    int emitterIndex = getNodeIndex(nodeIndex,
+                    int emitterIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(2)),
                             component.getConnectionPointWorldY(points.get(2)));
                     edges.add(new Edge(collectorIndex, emitterIndex, NPN_OFF_RESISTANCE, transistor, baseIndex));
@@ -211,10 +242,10 @@ public final class CircuitPhysics {
                     if (points.size() < 2) {
                         break;
                     }
-                    int aIndex = getNodeIndex(nodeIndex,
+                    int aIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(0)),
                             component.getConnectionPointWorldY(points.get(0)));
-                    int bIndex = getNodeIndex(nodeIndex,
+                    int bIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(1)),
                             component.getConnectionPointWorldY(points.get(1)));
                     edges.add(new Edge(aIndex, bIndex, getLightBulbResistance(lightBulb), lightBulb));
@@ -227,13 +258,13 @@ public final class CircuitPhysics {
                     ConnectionPoint left = slider.getConnectionPoints().get(0);
                     ConnectionPoint right = slider.getConnectionPoints().get(1);
                     ConnectionPoint wiper = slider.getConnectionPoints().get(2);
-                    int aIndex = getNodeIndex(nodeIndex,
+                    int aIndex = nodeIndex.resolve(
                             slider.getConnectionPointWorldX(left),
                             slider.getConnectionPointWorldY(left));
-                    int bIndex = getNodeIndex(nodeIndex,
+                    int bIndex = nodeIndex.resolve(
                             slider.getConnectionPointWorldX(right),
                             slider.getConnectionPointWorldY(right));
-                    int wIndex = getNodeIndex(nodeIndex,
+                    int wIndex = nodeIndex.resolve(
                             slider.getConnectionPointWorldX(wiper),
                             slider.getConnectionPointWorldY(wiper));
                     double total = Math.max(MIN_RESISTANCE, slider.getResistance());
@@ -249,10 +280,10 @@ public final class CircuitPhysics {
                     if (points.size() < 2) {
                         break;
                     }
-                    int aIndex = getNodeIndex(nodeIndex,
+                    int aIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(0)),
                             component.getConnectionPointWorldY(points.get(0)));
-                    int bIndex = getNodeIndex(nodeIndex,
+                    int bIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(1)),
                             component.getConnectionPointWorldY(points.get(1)));
                     edges.add(new Edge(aIndex, bIndex, WIRE_RESISTANCE, ammeter));
@@ -270,10 +301,10 @@ public final class CircuitPhysics {
                     if (points.size() < 2) {
                         break;
                     }
-                    int aIndex = getNodeIndex(nodeIndex,
+                    int aIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(0)),
                             component.getConnectionPointWorldY(points.get(0)));
-                    int bIndex = getNodeIndex(nodeIndex,
+                    int bIndex = nodeIndex.resolve(
                             component.getConnectionPointWorldX(points.get(1)),
                             component.getConnectionPointWorldY(points.get(1)));
                     edges.add(new Edge(aIndex, bIndex, WIRE_RESISTANCE, circuitSwitch));
@@ -285,6 +316,8 @@ public final class CircuitPhysics {
                     grounds.add(ground);
                     groundComponents.add(ground);
                 }
+                case PortReducedNetwork network -> reducedNetworks.add(network);
+                case PassiveDeviceBank bank -> deviceBanks.add(bank);
                 default -> {
                 }
             }
@@ -297,23 +330,28 @@ public final class CircuitPhysics {
             if (wire.getStart() == null || wire.getEnd() == null) {
                 continue;
             }
-            int aIndex = getNodeIndex(nodeIndex, Grid.snap(wire.getStart().getX()),
-                    Grid.snap(wire.getStart().getY()));
-            int bIndex = getNodeIndex(nodeIndex, Grid.snap(wire.getEnd().getX()),
-                    Grid.snap(wire.getEnd().getY()));
+            int aIndex = nodeIndex.resolve(wire.getStart().getX(), wire.getStart().getY());
+            int bIndex = nodeIndex.resolve(wire.getEnd().getX(), wire.getEnd().getY());
             edges.add(new Edge(aIndex, bIndex,
                     WIRE_RESISTANCE, wire));
         }
+        addDeviceBankEdges(edges, deviceBanks, nodeIndex);
+        int[][] reducedNodes = addReducedNetworkEdges(edges, reducedNetworks, nodeIndex, stableTimeStep);
+        double[][] reducedVoltages = new double[reducedNetworks.size()][];
+        for (int i = 0; i < reducedVoltages.length; i++) {
+            reducedVoltages[i] = new double[reducedNodes[i].length];
+            java.util.Arrays.fill(reducedVoltages[i], Double.NaN);
+        }
         int nodeCount = nodeIndex.size();
         java.awt.Point groundPoint = resolveGroundPoint(grounds,
-                batteries.isEmpty() ? null : batteries.get(0), wires);
+                batteries.isEmpty() ? null : batteries.get(0), netIndex);
         if (groundPoint == null && treatCustomOutputsAsGround && outputPorts.size() == 1) {
             groundPoint = getOutputPortPoint(outputPorts.get(0));
         }
         if (groundPoint == null && !logicGates.isEmpty()) {
             groundPoint = getLogicGateReferencePoint(logicGates.get(0));
         }
-        LogicPhysics.updateLogicComponents(components, wires);
+        LogicPhysics.updateLogicComponents(components, wires, netIndex);
         addInputBatteries(batteries, inputPorts, groundPoint);
         addSourceBatteries(batteries, sources, groundPoint);
         addLogicGateBatteries(batteries, logicGates, groundPoint);
@@ -332,9 +370,10 @@ public final class CircuitPhysics {
                 ConnectionPoint point = points.get(0);
                 int outputX = outputPort.getConnectionPointWorldX(point);
                 int outputY = outputPort.getConnectionPointWorldY(point);
-                outputPort.setActiveIndicator(isWirePoweredAt(wires, outputX, outputY));
+                outputPort.setActiveIndicator(isWirePoweredAt(netIndex, outputX, outputY));
             }
             resetGroundIndicators(groundComponents);
+            advanceReducedNetworks(reducedNetworks, reducedVoltages);
             return false;
         }
         for (Battery battery : batteries) {
@@ -343,10 +382,10 @@ public final class CircuitPhysics {
             if (neg == null || pos == null) {
                 continue;
             }
-            int negIndex = getNodeIndex(nodeIndex,
+            int negIndex = nodeIndex.resolve(
                     battery.getConnectionPointWorldX(neg),
                     battery.getConnectionPointWorldY(neg));
-            int posIndex = getNodeIndex(nodeIndex,
+            int posIndex = nodeIndex.resolve(
                     battery.getConnectionPointWorldX(pos),
                     battery.getConnectionPointWorldY(pos));
             int internalNode = nodeCount++;
@@ -356,6 +395,9 @@ public final class CircuitPhysics {
             battery.setPositiveNodeIndex(posIndex);
         }
 
+        int[] nodeDomains = domains == null || domains.isEmpty() || !DomainSolver.isEnabled()
+                ? null : computeNodeDomains(components, wires, domains, nodeIndex, nodeCount);
+
         // Multi-circuit solve: allow multiple disconnected battery-powered islands to work simultaneously.
         resetComputedValues(edges);
         resetVariableResistorValues(variableResistors);
@@ -426,8 +468,8 @@ public final class CircuitPhysics {
                     ConnectionPoint point = points.get(0);
                     int gx = ground.getConnectionPointWorldX(point);
                     int gy = ground.getConnectionPointWorldY(point);
-                    Integer idx = nodeIndex.get(new Point(Grid.snap(gx), Grid.snap(gy)));
-                    if (idx != null && idx >= 0) {
+                    int idx = nodeIndex.find(gx, gy);
+                    if (idx >= 0) {
                         groundIndex = idx;
                         break;
                     }
@@ -435,7 +477,7 @@ public final class CircuitPhysics {
             }
             if (groundIndex == null) {
                 java.awt.Point fallbackGround = getBatteryNegativePoint(reference);
-                groundIndex = fallbackGround == null ? null : nodeIndex.get(fallbackGround);
+                groundIndex = fallbackGround == null ? null : nodeIndex.find(fallbackGround.x, fallbackGround.y);
             }
             if (groundIndex == null || groundIndex < 0) {
                 for (Map.Entry<Battery, int[]> snapshot : batteryIndexSnapshot.entrySet()) {
@@ -466,8 +508,9 @@ public final class CircuitPhysics {
                 continue;
             }
 
+            DomainSolver.Partition partition = partitionIsland(remapNodeDomains(nodeDomains, pruned), pruned);
             double[] nodeVoltages = solveNodeVoltages(pruned.nodeCount, pruned.edges, pruned.batteries,
-                    pruned.groundIndex, stableTimeStep);
+                    pruned.groundIndex, partition, stableTimeStep);
             if (nodeVoltages != null) {
                 for (int iteration = 0; iteration < 4; iteration++) {
                     boolean transistorStateChanged = false;
@@ -487,7 +530,7 @@ public final class CircuitPhysics {
                         break;
                     }
                     nodeVoltages = solveNodeVoltages(pruned.nodeCount, pruned.edges, pruned.batteries,
-                            pruned.groundIndex, stableTimeStep);
+                            pruned.groundIndex, partition, stableTimeStep);
                     if (nodeVoltages == null) {
                         break;
                     }
@@ -501,6 +544,8 @@ public final class CircuitPhysics {
                 continue;
             }
 
+            collectReducedVoltages(reducedNodes, reducedVoltages, pruned, nodeVoltages);
+
             List<VariableResistor> componentVariableResistors = variableResistorsByComponent.get(cid);
             if (componentVariableResistors != null) {
                 updateVariableResistorValues(componentVariableResistors, nodeIndex, pruned, nodeVoltages);
@@ -545,6 +590,12 @@ public final class CircuitPhysics {
                     edge.capacitor.setComputedAmpere((float) absCurrent);
                     edge.capacitor.setPreviousVoltage((float) voltage);
                 }
+                if (isBankedCapacitor(edge)) {
+                    edge.bank.getHistory()[edge.bankDevice] = voltage;
+                }
+                if (isBankedInductor(edge)) {
+                    edge.bank.getHistory()[edge.bankDevice] = current;
+                }
                 if (edge.diode != null) {
                     edge.diode.setComputedVoltage((float) Math.abs(voltage));
                     edge.diode.setComputedAmpere((float) absCurrent);
@@ -619,12 +670,12 @@ public final class CircuitPhysics {
 
             List<CustomOutputPort> componentOutputs = outputsByComponent.get(cid);
             if (componentOutputs != null) {
-                updateOutputIndicators(componentOutputs, nodeIndex, pruned, activeNodes, wires);
+                updateOutputIndicators(componentOutputs, nodeIndex, pruned, activeNodes, netIndex);
             }
 
             List<Ground> componentGroundIndicators = groundIndicatorsByComponent.get(cid);
             if (componentGroundIndicators != null) {
-                updateGroundIndicators(componentGroundIndicators, nodeIndex, pruned, activeNodes, wires);
+                updateGroundIndicators(componentGroundIndicators, nodeIndex, pruned, activeNodes, netIndex);
             }
 
             for (Map.Entry<Battery, int[]> snapshot : batteryIndexSnapshot.entrySet()) {
@@ -634,9 +685,203 @@ public final class CircuitPhysics {
         }
 
         resetSwitchValues(switches);
+        advanceReducedNetworks(reducedNetworks, reducedVoltages);
         return anyShortCircuit;
     }
 
+    /**
+     * Labels each node with the custom component domain of everything attached to it; nodes shared by
+     * different domains or by top-level items become interface nodes, and solver-created nodes stay unassigned.
+     */
+    private static int[] computeNodeDomains(List<CircuitComponent> components, Collection<Wire> wires,
+                                            Map<Object, Integer> domains, NodeNumbering nodeIndex,
+                                            int nodeCount) {
+        int[] nodeDomains = new int[nodeCount];
+        java.util.Arrays.fill(nodeDomains, DomainSolver.UNASSIGNED);
+        for (CircuitComponent component : components) {
+            int domain = domains.getOrDefault(component, DomainSolver.INTERFACE);
+            for (ConnectionPoint point : component.getConnectionPoints()) {
+                markNodeDomain(nodeDomains, nodeIndex, component.getConnectionPointWorldX(point),
+                        component.getConnectionPointWorldY(point), domain);
+            }
+            if (component instanceof PassiveDeviceBank bank) {
+                for (int device = 0; device < bank.getDeviceCount(); device++) {
+                    markNodeDomain(nodeDomains, nodeIndex, bank.getTerminalX(device, false),
+                            bank.getTerminalY(device, false), domain);
+                    markNodeDomain(nodeDomains, nodeIndex, bank.getTerminalX(device, true),
+                            bank.getTerminalY(device, true), domain);
+                }
+            }
+        }
+        for (Wire wire : wires) {
+            WireNode start = wire.getStart();
+            WireNode end = wire.getEnd();
+            if (start == null || end == null) {
+                continue;
+            }
+            int domain = domains.getOrDefault(wire, DomainSolver.INTERFACE);
+            markNodeDomain(nodeDomains, nodeIndex, start.getX(), start.getY(), domain);
+            markNodeDomain(nodeDomains, nodeIndex, end.getX(), end.getY(), domain);
+        }
+        return nodeDomains;
+    }
+
+    /**
+     * Merges a domain label into the node at the given point.
+     */
+    private static void markNodeDomain(int[] nodeDomains, NodeNumbering nodeIndex, int x, int y,
+                                       int domain) {
+        int index = nodeIndex.find(x, y);
+        if (index < 0 || index >= nodeDomains.length) {
+            return;
+        }
+        int current = nodeDomains[index];
+        nodeDomains[index] = current == DomainSolver.UNASSIGNED || current == domain
+                ? domain : DomainSolver.INTERFACE;
+    }
+
+    /**
+     * Maps node domain labels onto a pruned island.
+     */
+    private static int[] remapNodeDomains(int[] nodeDomains, GraphView pruned) {
+        if (nodeDomains == null) {
+            return null;
+        }
+        int[] remapped = new int[pruned.nodeCount];
+        java.util.Arrays.fill(remapped, DomainSolver.UNASSIGNED);
+        for (int i = 0; i < nodeDomains.length && i < pruned.nodeRemap.length; i++) {
+            int target = pruned.nodeRemap[i];
+            if (target >= 0 && target < remapped.length) {
+                remapped[target] = nodeDomains[i];
+            }
+        }
+        return remapped;
+    }
+
+    /**
+     * Refines an island's node domains into solver domains once, against the matrix entries its edges and battery
+     * rows stamp, so the transistor re-solves of the island reuse them instead of rescanning the dense matrix.
+     *
+     * @return the partition, or null to solve the island flat
+     */
+    private static DomainSolver.Partition partitionIsland(int[] nodeDomains, GraphView island) {
+        int groundIndex = island.groundIndex;
+        int unknownNodeCount = island.nodeCount - 1;
+        if (nodeDomains == null || unknownNodeCount <= 0) {
+            return null;
+        }
+        int size = unknownNodeCount + island.batteries.size();
+        int[] labels = new int[size];
+        java.util.Arrays.fill(labels, DomainSolver.UNASSIGNED);
+        for (int i = 0; i < island.nodeCount; i++) {
+            if (i != groundIndex) {
+                labels[nodeToMatrixIndex(i, groundIndex)] = nodeDomains[i];
+            }
+        }
+        int capacity = island.edges.size() + (island.batteries.size() * 2);
+        int[] first = new int[capacity];
+        int[] second = new int[capacity];
+        int count = 0;
+        for (Edge edge : island.edges) {
+            if (edge.aIndex != groundIndex && edge.bIndex != groundIndex) {
+                first[count] = nodeToMatrixIndex(edge.aIndex, groundIndex);
+                second[count++] = nodeToMatrixIndex(edge.bIndex, groundIndex);
+            }
+        }
+        for (int i = 0; i < island.batteries.size(); i++) {
+            Battery battery = island.batteries.get(i);
+            int p = battery.getPositiveNodeIndex();
+            int n = battery.getInternalNodeIndex();
+            if (p < 0 || n < 0) {
+                continue;
+            }
+            int row = unknownNodeCount + i;
+            if (p != groundIndex) {
+                first[count] = nodeToMatrixIndex(p, groundIndex);
+                second[count++] = row;
+            }
+            if (n != groundIndex) {
+                first[count] = nodeToMatrixIndex(n, groundIndex);
+                second[count++] = row;
+            }
+        }
+        return DomainSolver.partition(labels, first, second, count);
+    }
+
+    /**
+     * Stamps each port-reduced network as conductances between its port nets plus history current sources.
+     *
+     * @return node index of every port net, per network
+     */
+    private static int[][] addReducedNetworkEdges(List<Edge> edges, List<PortReducedNetwork> networks,
+                                                  NodeNumbering nodeIndex, double timeStepSeconds) {
+        int[][] groupNodes = new int[networks.size()][];
+        for (int n = 0; n < networks.size(); n++) {
+            PortReducedNetwork network = networks.get(n);
+            PortReducedModel model = network.getModel();
+            model.prepare(timeStepSeconds);
+            int groupCount = model.getGroupCount();
+            int[] nodes = new int[groupCount];
+            for (int group = 0; group < groupCount; group++) {
+                int port = model.getGroupPort(group);
+                nodes[group] = nodeIndex.resolve(network.getPortX(port), network.getPortY(port));
+            }
+            groupNodes[n] = nodes;
+            double[] injections = model.computeInjections(network.getHistory());
+            for (int a = 0; a < groupCount; a++) {
+                for (int b = a + 1; b < groupCount; b++) {
+                    double conductance = model.getConductance(a, b);
+                    if (conductance > 0.0 && nodes[a] != nodes[b]) {
+                        edges.add(new Edge(nodes[a], nodes[b], 1.0 / conductance));
+                    }
+                }
+                int reference = model.getInjectionReference(a);
+                if (reference >= 0 && reference != a && injections[a] != 0.0 && nodes[a] != nodes[reference]) {
+                    edges.add(new Edge(nodes[a], nodes[reference], POWER_USER_MAX_RESISTANCE, injections[a]));
+                }
+            }
+        }
+        return groupNodes;
+    }
+
+    /**
+     * Adds one edge per banked device; capacitors and inductors count as shorts for short-circuit detection just
+     * like their full component edges, and the companion conductance is applied when stamping.
+     */
+    private static void addDeviceBankEdges(List<Edge> edges, List<PassiveDeviceBank> banks,
+                                           NodeNumbering nodeIndex) {
+        for (PassiveDeviceBank bank : banks) {
+            for (int device = 0; device < bank.getDeviceCount(); device++) {
+                int aIndex = nodeIndex.resolve(bank.getTerminalX(device, false),
+                        bank.getTerminalY(device, false));
+                int bIndex = nodeIndex.resolve(bank.getTerminalX(device, true),
+                        bank.getTerminalY(device, true));
+                double resistance = bank.getKind(device) == PassiveDeviceBank.RESISTOR
+                        ? Math.max(MIN_RESISTANCE, bank.getValue(device)) : MIN_RESISTANCE;
+                edges.add(new Edge(aIndex, bIndex, resistance, bank, device));
+            }
+        }
+    }
+
+    private static void collectReducedVoltages(int[][] reducedNodes, double[][] reducedVoltages, GraphView pruned,
+                                               double[] nodeVoltages) {
+        for (int n = 0; n < reducedNodes.length; n++) {
+            for (int group = 0; group < reducedNodes[n].length; group++) {
+                int remapped = remapNodeIndex(reducedNodes[n][group], pruned.nodeRemap);
+                if (remapped >= 0 && remapped < nodeVoltages.length) {
+                    reducedVoltages[n][group] = nodeVoltages[remapped];
+                }
+            }
+        }
+    }
+
+    private static void advanceReducedNetworks(List<PortReducedNetwork> networks, double[][] reducedVoltages) {
+        for (int n = 0; n < networks.size(); n++) {
+            PortReducedNetwork network = networks.get(n);
+            network.getModel().advance(network.getHistory(), reducedVoltages[n]);
+        }
+    }
+
     private static int[] computeConnectedComponentIds(int nodeCount, List<Edge> edges, List<Battery> batteries) {
         int[] componentIds = new int[nodeCount];
         java.util.Arrays.fill(componentIds, -1);
@@ -684,7 +929,7 @@ public final class CircuitPhysics {
     }
 
     private static Map<Integer, List<Voltmeter>> groupVoltmetersByComponent(List<Voltmeter> voltmeters,
-            Map<Point, Integer> nodeIndex, int[] componentIds) {
+            NodeNumbering nodeIndex, int[] componentIds) {
         Map<Integer, List<Voltmeter>> result = new HashMap<>();
         for (Voltmeter voltmeter : voltmeters) {
             List<ConnectionPoint> points = voltmeter.getConnectionPoints();
@@ -693,8 +938,8 @@ public final class CircuitPhysics {
             }
             int ax = voltmeter.getConnectionPointWorldX(points.get(0));
             int ay = voltmeter.getConnectionPointWorldY(points.get(0));
-            Integer aIndex = nodeIndex.get(new Point(Grid.snap(ax), Grid.snap(ay)));
-            if (aIndex == null || aIndex < 0 || aIndex >= componentIds.length) {
+            int aIndex = nodeIndex.find(ax, ay);
+            if (aIndex < 0 || aIndex >= componentIds.length) {
                 continue;
             }
             int cid = componentIds[aIndex];
@@ -704,7 +949,7 @@ public final class CircuitPhysics {
     }
 
     private static Map<Integer, List<CustomOutputPort>> groupOutputPortsByComponent(List<CustomOutputPort> outputPorts,
-            Map<Point, Integer> nodeIndex, int[] componentIds) {
+            NodeNumbering nodeIndex, int[] componentIds) {
         Map<Integer, List<CustomOutputPort>> result = new HashMap<>();
         for (CustomOutputPort outputPort : outputPorts) {
             List<ConnectionPoint> points = outputPort.getConnectionPoints();
@@ -714,8 +959,8 @@ public final class CircuitPhysics {
             ConnectionPoint point = points.get(0);
             int x = outputPort.getConnectionPointWorldX(point);
             int y = outputPort.getConnectionPointWorldY(point);
-            Integer idx = nodeIndex.get(new Point(Grid.snap(x), Grid.snap(y)));
-            if (idx == null || idx < 0 || idx >= componentIds.length) {
+            int idx = nodeIndex.find(x, y);
+            if (idx < 0 || idx >= componentIds.length) {
                 continue;
             }
             int cid = componentIds[idx];
@@ -724,7 +969,7 @@ public final class CircuitPhysics {
         return result;
     }
 
-    private static Map<Integer, List<Ground>> groupGroundsByComponent(List<Ground> grounds, Map<Point, Integer> nodeIndex,
+    private static Map<Integer, List<Ground>> groupGroundsByComponent(List<Ground> grounds, NodeNumbering nodeIndex,
             int[] componentIds) {
         Map<Integer, List<Ground>> result = new HashMap<>();
         for (Ground ground : grounds) {
@@ -735,8 +980,8 @@ public final class CircuitPhysics {
             ConnectionPoint point = points.get(0);
             int x = ground.getConnectionPointWorldX(point);
             int y = ground.getConnectionPointWorldY(point);
-            Integer idx = nodeIndex.get(new Point(Grid.snap(x), Grid.snap(y)));
-            if (idx == null || idx < 0 || idx >= componentIds.length) {
+            int idx = nodeIndex.find(x, y);
+            if (idx < 0 || idx >= componentIds.length) {
                 continue;
             }
             int cid = componentIds[idx];
@@ -746,7 +991,7 @@ public final class CircuitPhysics {
     }
 
     private static Map<Integer, List<VariableResistor>> groupVariableResistorsByComponent(
-            List<VariableResistor> variableResistors, Map<Point, Integer> nodeIndex, int[] componentIds) {
+            List<VariableResistor> variableResistors, NodeNumbering nodeIndex, int[] componentIds) {
         Map<Integer, List<VariableResistor>> result = new HashMap<>();
         for (VariableResistor slider : variableResistors) {
             List<ConnectionPoint> points = slider.getConnectionPoints();
@@ -756,8 +1001,8 @@ public final class CircuitPhysics {
             ConnectionPoint point = points.get(0);
             int x = slider.getConnectionPointWorldX(point);
             int y = slider.getConnectionPointWorldY(point);
-            Integer idx = nodeIndex.get(new Point(Grid.snap(x), Grid.snap(y)));
-            if (idx == null || idx < 0 || idx >= componentIds.length) {
+            int idx = nodeIndex.find(x, y);
+            if (idx < 0 || idx >= componentIds.length) {
                 continue;
             }
             int cid = componentIds[idx];
@@ -797,6 +1042,9 @@ public final class CircuitPhysics {
                 edge.inductor.setComputedAmpere(0f);
                 edge.inductor.setPreviousCurrent(0f);
             }
+            if (isBankedInductor(edge)) {
+                edge.bank.getHistory()[edge.bankDevice] = 0.0;
+            }
             if (edge.npnTransistor != null) {
                 edge.npnTransistor.setComputedCollectorEmitterVoltage(0f);
                 edge.npnTransistor.setComputedCollectorCurrent(0f);
@@ -851,6 +1099,9 @@ public final class CircuitPhysics {
                 edge.inductor.setComputedAmpere(0f);
                 edge.inductor.setPreviousCurrent(0f);
             }
+            if (isBankedInductor(edge) && !pruned.banks.contains(edge.bank)) {
+                edge.bank.getHistory()[edge.bankDevice] = 0.0;
+            }
             if (edge.npnTransistor != null && !pruned.npnTransistors.contains(edge.npnTransistor)) {
                 edge.npnTransistor.setComputedCollectorEmitterVoltage(0f);
                 edge.npnTransistor.setComputedCollectorCurrent(0f);
@@ -904,7 +1155,7 @@ public final class CircuitPhysics {
     }
 
     private static void updateVariableResistorValues(List<VariableResistor> variableResistors,
-            Map<Point, Integer> nodeIndex, GraphView pruned, double[] nodeVoltages) {
+            NodeNumbering nodeIndex, GraphView pruned, double[] nodeVoltages) {
         for (VariableResistor slider : variableResistors) {
             if (slider == null || slider.getConnectionPoints().size() < 3) {
                 continue;
@@ -918,10 +1169,10 @@ public final class CircuitPhysics {
             int ry = slider.getConnectionPointWorldY(right);
             int wx = slider.getConnectionPointWorldX(wiper);
             int wy = slider.getConnectionPointWorldY(wiper);
-            Integer lIndex = nodeIndex.get(new Point(Grid.snap(lx), Grid.snap(ly)));
-            Integer rIndex = nodeIndex.get(new Point(Grid.snap(rx), Grid.snap(ry)));
-            Integer wIndex = nodeIndex.get(new Point(Grid.snap(wx), Grid.snap(wy)));
-            if (lIndex == null || rIndex == null || wIndex == null) {
+            int lIndex = nodeIndex.find(lx, ly);
+            int rIndex = nodeIndex.find(rx, ry);
+            int wIndex = nodeIndex.find(wx, wy);
+            if (lIndex < 0 || rIndex < 0 || wIndex < 0) {
                 slider.setComputedVoltage(0f);
                 slider.setComputedAmpere(0f);
                 slider.setComputedPowerWatt(0f);
@@ -968,9 +1219,9 @@ public final class CircuitPhysics {
         }
     }
 
-    private static void updateOutputIndicators(List<CustomOutputPort> outputPorts, Map<Point, Integer> nodeIndex,
+    private static void updateOutputIndicators(List<CustomOutputPort> outputPorts, NodeNumbering nodeIndex,
                                                GraphView pruned, java.util.Set<Integer> activeNodes,
-                                               Collection<Wire> wires) {
+                                               WireNetIndex netIndex) {
         if (outputPorts.isEmpty()) {
             return;
         }
@@ -983,12 +1234,12 @@ public final class CircuitPhysics {
             ConnectionPoint point = points.get(0);
             int outputX = outputPort.getConnectionPointWorldX(point);
             int outputY = outputPort.getConnectionPointWorldY(point);
-            if (isWirePoweredAt(wires, outputX, outputY)) {
+            if (isWirePoweredAt(netIndex, outputX, outputY)) {
                 outputPort.setActiveIndicator(true);
                 continue;
             }
-            Integer originalIndex = nodeIndex.get(new Point(Grid.snap(outputX), Grid.snap(outputY)));
-            if (originalIndex == null) {
+            int originalIndex = nodeIndex.find(outputX, outputY);
+            if (originalIndex < 0) {
                 outputPort.setActiveIndicator(false);
                 continue;
             }
@@ -997,9 +1248,9 @@ public final class CircuitPhysics {
         }
     }
 
-    private static void updateGroundIndicators(List<Ground> groundComponents, Map<Point, Integer> nodeIndex,
+    private static void updateGroundIndicators(List<Ground> groundComponents, NodeNumbering nodeIndex,
                                                GraphView pruned, java.util.Set<Integer> activeNodes,
-                                               Collection<Wire> wires) {
+                                               WireNetIndex netIndex) {
         if (groundComponents.isEmpty()) {
             return;
         }
@@ -1012,40 +1263,19 @@ public final class CircuitPhysics {
             ConnectionPoint point = points.get(0);
             int groundX = ground.getConnectionPointWorldX(point);
             int groundY = ground.getConnectionPointWorldY(point);
-            Integer originalIndex = nodeIndex.get(new Point(Grid.snap(groundX), Grid.snap(groundY)));
-            if (originalIndex == null) {
+            int originalIndex = nodeIndex.find(groundX, groundY);
+            if (originalIndex < 0) {
                 ground.setActiveIndicator(false);
                 continue;
             }
             int remapped = pruned.nodeRemap[originalIndex];
             boolean nodeActive = remapped >= 0 && activeNodes.contains(remapped);
-            ground.setActiveIndicator(nodeActive && isWirePoweredAt(wires, groundX, groundY));
+            ground.setActiveIndicator(nodeActive && isWirePoweredAt(netIndex, groundX, groundY));
         }
     }
 
-    private static boolean isWirePoweredAt(Collection<Wire> wires, int x, int y) {
-        if (wires == null || wires.isEmpty()) {
-            return false;
-        }
-        int sx = Grid.snap(x);
-        int sy = Grid.snap(y);
-        for (Wire wire : wires) {
-            WireNode start = wire.getStart();
-            WireNode end = wire.getEnd();
-            if (start != null
-                    && Grid.snap(start.getX()) == sx
-                    && Grid.snap(start.getY()) == sy
-                    && (wire.isLogicPowered() || wire.getComputedAmpere() > 0.0001f)) {
-                return true;
-            }
-            if (end != null
-                    && Grid.snap(end.getX()) == sx
-                    && Grid.snap(end.getY()) == sy
-                    && (wire.isLogicPowered() || wire.getComputedAmpere() > 0.0001f)) {
-                return true;
-            }
-        }
-        return false;
+    private static boolean isWirePoweredAt(WireNetIndex netIndex, int x, int y) {
+        return netIndex.isWirePoweredAt(x, y, CURRENT_INDICATOR_THRESHOLD);
     }
 
     private static final class GroundAdapter extends Ground {
@@ -1075,7 +1305,7 @@ public final class CircuitPhysics {
     /**
      * Updates voltmeters based on solved node voltages.
      */
-    private static void updateVoltmeterValues(List<Voltmeter> voltmeters, Map<Point, Integer> nodeIndex,
+    private static void updateVoltmeterValues(List<Voltmeter> voltmeters, NodeNumbering nodeIndex,
             GraphView pruned, double[] nodeVoltages) {
         for (Voltmeter voltmeter : voltmeters) {
             List<ConnectionPoint> points = voltmeter.getConnectionPoints();
@@ -1087,9 +1317,9 @@ public final class CircuitPhysics {
             int ay = voltmeter.getConnectionPointWorldY(points.get(0));
             int bx = voltmeter.getConnectionPointWorldX(points.get(1));
             int by = voltmeter.getConnectionPointWorldY(points.get(1));
-            Integer aIndex = nodeIndex.get(new Point(Grid.snap(ax), Grid.snap(ay)));
-            Integer bIndex = nodeIndex.get(new Point(Grid.snap(bx), Grid.snap(by)));
-            if (aIndex == null || bIndex == null) {
+            int aIndex = nodeIndex.find(ax, ay);
+            int bIndex = nodeIndex.find(bx, by);
+            if (aIndex < 0 || bIndex < 0) {
                 voltmeter.setComputedVoltage(0f);
                 continue;
             }
@@ -1108,7 +1338,7 @@ public final class CircuitPhysics {
      * Resolves the ground node index, falling back to the battery negative terminal.
      */
     private static java.awt.Point resolveGroundPoint(List<Ground> grounds, Battery primaryBattery,
-                                                     Collection<Wire> wires) {
+                                                     WireNetIndex netIndex) {
         if (grounds != null && !grounds.isEmpty()) {
             for (Ground ground : grounds) {
                 List<ConnectionPoint> points = ground.getConnectionPoints();
@@ -1118,7 +1348,7 @@ public final class CircuitPhysics {
                 ConnectionPoint point = points.get(0);
                 int x = ground.getConnectionPointWorldX(point);
                 int y = ground.getConnectionPointWorldY(point);
-                if (!isWireConnectedAt(wires, x, y)) {
+                if (!netIndex.hasWireAt(x, y)) {
                     continue;
                 }
                 return new java.awt.Point(x, y);
@@ -1130,29 +1360,6 @@ public final class CircuitPhysics {
         return getBatteryNegativePoint(primaryBattery);
     }
 
-    private static boolean isWireConnectedAt(Collection<Wire> wires, int x, int y) {
-        if (wires == null || wires.isEmpty()) {
-            return false;
-        }
-        int sx = Grid.snap(x);
-        int sy = Grid.snap(y);
-        for (Wire wire : wires) {
-            WireNode start = wire.getStart();
-            WireNode end = wire.getEnd();
-            if (start != null
-                    && Grid.snap(start.getX()) == sx
-                    && Grid.snap(start.getY()) == sy) {
-                return true;
-            }
-            if (end != null
-                    && Grid.snap(end.getX()) == sx
-                    && Grid.snap(end.getY()) == sy) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     private static java.awt.Point getBatteryNegativePoint(Battery battery) {
         if (battery == null) {
             return null;
@@ -1191,7 +1398,7 @@ public final class CircuitPhysics {
             return;
         }
         for (Source source : sources) {
-            if (!source.isActive()) {
+            if (!source.isOutputHigh()) {
                 continue;
             }
             List<ConnectionPoint> points = source.getConnectionPoints();
@@ -1211,31 +1418,31 @@ public final class CircuitPhysics {
             return;
         }
         for (LogicGate gate : logicGates) {
-            if (!gate.isOutputPowered()) {
-                continue;
-            }
-            ConnectionPoint output = gate.getOutputPoint();
-            if (output == null) {
-                continue;
+            List<ConnectionPoint> outputs = gate.getOutputPoints();
+            for (int i = 0; i < outputs.size(); i++) {
+                if (!gate.isOutputPowered(i)) {
+                    continue;
+                }
+                ConnectionPoint output = outputs.get(i);
+                int posX = gate.getConnectionPointWorldX(output);
+                int posY = gate.getConnectionPointWorldY(output);
+                batteries.add(new InputBatteryAdapter(posX, posY, groundPoint.x, groundPoint.y));
             }
-            int posX = gate.getConnectionPointWorldX(output);
-            int posY = gate.getConnectionPointWorldY(output);
-            batteries.add(new InputBatteryAdapter(posX, posY, groundPoint.x, groundPoint.y));
         }
     }
 
     private static void addLogicGateInputLoads(List<Edge> edges, List<LogicGate> logicGates,
-                                               Map<Point, Integer> nodeIndex, java.awt.Point groundPoint) {
+                                               NodeNumbering nodeIndex, java.awt.Point groundPoint) {
         if (logicGates.isEmpty() || groundPoint == null) {
             return;
         }
-        int groundIndex = getNodeIndex(nodeIndex, groundPoint.x, groundPoint.y);
+        int groundIndex = nodeIndex.resolve(groundPoint.x, groundPoint.y);
         for (LogicGate gate : logicGates) {
             for (ConnectionPoint point : gate.getConnectionPoints()) {
                 if (!gate.isInputPoint(point)) {
                     continue;
                 }
-                int node = getNodeIndex(nodeIndex,
+                int node = nodeIndex.resolve(
                         gate.getConnectionPointWorldX(point),
                         gate.getConnectionPointWorldY(point));
                 if (node == groundIndex) {
@@ -1393,9 +1600,11 @@ public final class CircuitPhysics {
 
     /**
      * Solves node voltages using modified nodal analysis.
+     *
+     * @param partition solver domains of the system from {@link #partitionIsland}, or null to solve it flat
      */
     private static double[] solveNodeVoltages(int nodeCount, List<Edge> edges,
-            List<Battery> batteries, int groundIndex, double timeStepSeconds) {
+            List<Battery> batteries, int groundIndex, DomainSolver.Partition partition, double timeStepSeconds) {
         int voltageSourceCount = batteries.size();
         int unknownNodeCount = nodeCount - 1;
         if (unknownNodeCount <= 0) {
@@ -1423,8 +1632,11 @@ public final class CircuitPhysics {
                 matrix[ia][ib] -= conductance;
                 matrix[ib][ia] -= conductance;
             }
-            if (edge.capacitor != null) {
-                double historyCurrent = getCapacitorHistoryCurrent(edge.capacitor, timeStepSeconds);
+            if (edge.capacitor != null || isBankedCapacitor(edge)) {
+                double historyCurrent = edge.capacitor != null
+                        ? getCapacitorHistoryCurrent(edge.capacitor, timeStepSeconds)
+                        : getCapacitorHistoryCurrent(edge.bank.getValue(edge.bankDevice),
+                        edge.bank.getHistory()[edge.bankDevice], timeStepSeconds);
                 if (a != groundIndex) {
                     int ia = nodeToMatrixIndex(a, groundIndex);
                     rhs[ia] += historyCurrent;
@@ -1447,8 +1659,17 @@ public final class CircuitPhysics {
                     }
                 }
             }
-            if (edge.inductor != null) {
-                double historyCurrent = getInductorHistoryCurrent(edge.inductor);
+            if (edge.sourceCurrent != 0.0) {
+                if (a != groundIndex) {
+                    rhs[nodeToMatrixIndex(a, groundIndex)] += edge.sourceCurrent;
+                }
+                if (b != groundIndex) {
+                    rhs[nodeToMatrixIndex(b, groundIndex)] -= edge.sourceCurrent;
+                }
+            }
+            if (edge.inductor != null || isBankedInductor(edge)) {
+                double historyCurrent = edge.inductor != null ? getInductorHistoryCurrent(edge.inductor)
+                        : edge.bank.getHistory()[edge.bankDevice];
                 if (Math.abs(historyCurrent) > 0.0) {
                     if (a != groundIndex) {
                         int ia = nodeToMatrixIndex(a, groundIndex);
@@ -1483,7 +1704,13 @@ public final class CircuitPhysics {
             rhs[row] = battery.getVoltage();
         }
 
-        double[] solution = solveLinearSystem(matrix, rhs);
+        double[] solution = null;
+        if (partition != null) {
+            solution = DomainSolver.solve(matrix, rhs, partition);
+        }
+        if (solution == null) {
+            solution = solveLinearSystem(matrix, rhs);
+        }
         if (solution == null) {
             return null;
         }
@@ -1501,11 +1728,7 @@ public final class CircuitPhysics {
 
     private static double getEdgeConductance(Edge edge, double timeStepSeconds) {
         if (edge.capacitor != null) {
-            double capacitance = Math.max(0.0, edge.capacitor.getCapacitanceFarad());
-            if (!(capacitance > 0.0)) {
-                return 1.0 / POWER_USER_MAX_RESISTANCE;
-            }
-            return Math.max(1.0 / POWER_USER_MAX_RESISTANCE, capacitance / timeStepSeconds);
+            return getCapacitorConductance(edge.capacitor.getCapacitanceFarad(), timeStepSeconds);
         }
         if (edge.diode != null) {
             return 1.0 / getDiodeResistance(edge.diode);
@@ -1516,18 +1739,59 @@ public final class CircuitPhysics {
         if (edge.inductor != null) {
             return getInductorConductance(edge.inductor, timeStepSeconds);
         }
+        if (edge.bank != null) {
+            return switch (edge.bank.getKind(edge.bankDevice)) {
+                case PassiveDeviceBank.CAPACITOR -> getCapacitorConductance(edge.bank.getValue(edge.bankDevice),
+                        timeStepSeconds);
+                case PassiveDeviceBank.INDUCTOR -> getInductorConductance(edge.bank.getValue(edge.bankDevice),
+                        timeStepSeconds);
+                default -> 1.0 / edge.resistance;
+            };
+        }
         return 1.0 / edge.resistance;
     }
 
+    /**
+     * @return companion conductance of a capacitor for the given step
+     */
+    static double getCapacitorConductance(double capacitanceFarad, double timeStepSeconds) {
+        double capacitance = Math.max(0.0, capacitanceFarad);
+        if (!(capacitance > 0.0)) {
+            return 1.0 / POWER_USER_MAX_RESISTANCE;
+        }
+        return Math.max(1.0 / POWER_USER_MAX_RESISTANCE, capacitance / timeStepSeconds);
+    }
+
+    /**
+     * @return conductance of a resistor, clamped like the solver's resistor edges
+     */
+    static double getResistorConductance(double resistance) {
+        return 1.0 / Math.max(MIN_RESISTANCE, resistance);
+    }
+
     private static double getCapacitorHistoryCurrent(Capacitor capacitor, double timeStepSeconds) {
         if (capacitor == null) {
             return 0.0;
         }
-        double capacitance = Math.max(0.0, capacitor.getCapacitanceFarad());
+        return getCapacitorHistoryCurrent(capacitor.getCapacitanceFarad(), capacitor.getPreviousVoltage(),
+                timeStepSeconds);
+    }
+
+    private static double getCapacitorHistoryCurrent(double capacitanceFarad, double previousVoltage,
+                                                     double timeStepSeconds) {
+        double capacitance = Math.max(0.0, capacitanceFarad);
         if (!(capacitance > 0.0)) {
             return 0.0;
         }
-        return (capacitance / timeStepSeconds) * capacitor.getPreviousVoltage();
+        return (capacitance / timeStepSeconds) * previousVoltage;
+    }
+
+    private static boolean isBankedCapacitor(Edge edge) {
+        return edge.bank != null && edge.bank.getKind(edge.bankDevice) == PassiveDeviceBank.CAPACITOR;
+    }
+
+    private static boolean isBankedInductor(Edge edge) {
+        return edge.bank != null && edge.bank.getKind(edge.bankDevice) == PassiveDeviceBank.INDUCTOR;
     }
 
     private static double getEdgeCurrent(Edge edge, double voltage, double timeStepSeconds) {
@@ -1551,7 +1815,20 @@ public final class CircuitPhysics {
         if (edge.inductor != null) {
             return edge.inductor.getPreviousCurrent() + (getInductorConductance(edge.inductor, timeStepSeconds) * voltage);
         }
-        return voltage / edge.resistance;
+        if (isBankedCapacitor(edge)) {
+            double capacitance = Math.max(0.0, edge.bank.getValue(edge.bankDevice));
+            if (!(capacitance > 0.0)) {
+                return 0.0;
+            }
+            return (capacitance / timeStepSeconds) * (voltage - edge.bank.getHistory()[edge.bankDevice]);
+        }
+        if (isBankedInductor(edge)) {
+            return edge.bank.getHistory()[edge.bankDevice] + (getEdgeConductance(edge, timeStepSeconds) * voltage);
+        }
+        if (edge.bank != null) {
+            return getEdgeConductance(edge, timeStepSeconds) * voltage;
+        }
+        return voltage / edge.resistance - edge.sourceCurrent;
     }
 
     private static double getNpnResistance(NpnTransistor transistor) {
@@ -1570,7 +1847,14 @@ public final class CircuitPhysics {
         if (inductor == null) {
             return INDUCTOR_MIN_CONDUCTANCE;
         }
-        double inductance = Math.max(0.0, inductor.getInductanceHenry());
+        return getInductorConductance(inductor.getInductanceHenry(), timeStepSeconds);
+    }
+
+    /**
+     * @return companion conductance of an inductor for the given step
+     */
+    static double getInductorConductance(double inductanceHenry, double timeStepSeconds) {
+        double inductance = Math.max(0.0, inductanceHenry);
         if (!(inductance > 0.0)) {
             return 1.0 / MIN_RESISTANCE;
         }
@@ -1659,20 +1943,6 @@ public final class CircuitPhysics {
         return b;
     }
 
-    /**
-     * Returns the node index for a point, creating one if missing.
-     */
-    private static int getNodeIndex(Map<Point, Integer> nodeIndex, int x, int y) {
-        Point key = new Point(Grid.snap(x), Grid.snap(y));
-        Integer existing = nodeIndex.get(key);
-        if (existing != null) {
-            return existing;
-        }
-        int index = nodeIndex.size();
-        nodeIndex.put(key, index);
-        return index;
-    }
-
     /**
      * Edge between two nodes, optionally tied to a component.
      */
@@ -1691,6 +1961,9 @@ public final class CircuitPhysics {
         private final LightBulb lightBulb;
         private final Ammeter ammeter;
         private final SwitchLike circuitSwitch;
+        private final double sourceCurrent;
+        private final PassiveDeviceBank bank;
+        private final int bankDevice;
 
         /**
          * @param aIndex node A index
@@ -1712,6 +1985,35 @@ public final class CircuitPhysics {
             this.lightBulb = null;
             this.ammeter = null;
             this.circuitSwitch = null;
+            this.sourceCurrent = 0.0;
+            this.bank = null;
+            this.bankDevice = -1;
+        }
+
+        /**
+         * @param aIndex node A index
+         * @param bIndex node B index
+         * @param resistance resistance value
+         * @param sourceCurrent current driven from node B into node A
+         */
+        private Edge(int aIndex, int bIndex, double resistance, double sourceCurrent) {
+            this.aIndex = aIndex;
+            this.bIndex = bIndex;
+            this.resistance = resistance;
+            this.wire = null;
+            this.resistor = null;
+            this.powerUser = null;
+            this.capacitor = null;
+            this.diode = null;
+            this.npnTransistor = null;
+            this.controlIndex = -1;
+            this.inductor = null;
+            this.lightBulb = null;
+            this.ammeter = null;
+            this.circuitSwitch = null;
+            this.sourceCurrent = sourceCurrent;
+            this.bank = null;
+            this.bankDevice = -1;
         }
 
         /**
@@ -1735,6 +2037,9 @@ public final class CircuitPhysics {
             this.lightBulb = null;
             this.ammeter = null;
             this.circuitSwitch = null;
+            this.sourceCurrent = 0.0;
+            this.bank = null;
+            this.bankDevice = -1;
         }
 
         /**
@@ -1758,6 +2063,9 @@ public final class CircuitPhysics {
             this.lightBulb = null;
             this.ammeter = null;
             this.circuitSwitch = null;
+            this.sourceCurrent = 0.0;
+            this.bank = null;
+            this.bankDevice = -1;
         }
 
         /**
@@ -1781,6 +2089,9 @@ public final class CircuitPhysics {
             this.lightBulb = null;
             this.ammeter = null;
             this.circuitSwitch = null;
+            this.sourceCurrent = 0.0;
+            this.bank = null;
+            this.bankDevice = -1;
         }
 
         /**
@@ -1804,6 +2115,9 @@ public final class CircuitPhysics {
             this.lightBulb = null;
             this.ammeter = null;
             this.circuitSwitch = null;
+            this.sourceCurrent = 0.0;
+            this.bank = null;
+            this.bankDevice = -1;
         }
 
         private Edge(int aIndex, int bIndex, double resistance, Diode diode) {
@@ -1821,6 +2135,9 @@ public final class CircuitPhysics {
             this.lightBulb = null;
             this.ammeter = null;
             this.circuitSwitch = null;
+            this.sourceCurrent = 0.0;
+            this.bank = null;
+            this.bankDevice = -1;
         }
 
         private Edge(int aIndex, int bIndex, double resistance, NpnTransistor npnTransistor, int controlIndex) {
@@ -1838,6 +2155,9 @@ public final class CircuitPhysics {
             this.lightBulb = null;
             this.ammeter = null;
             this.circuitSwitch = null;
+            this.sourceCurrent = 0.0;
+            this.bank = null;
+            this.bankDevice = -1;
         }
 
         private Edge(int aIndex, int bIndex, double resistance, Inductor inductor) {
@@ -1855,6 +2175,9 @@ public final class CircuitPhysics {
             this.lightBulb = null;
             this.ammeter = null;
             this.circuitSwitch = null;
+            this.sourceCurrent = 0.0;
+            this.bank = null;
+            this.bankDevice = -1;
         }
 
         /**
@@ -1878,6 +2201,9 @@ public final class CircuitPhysics {
             this.lightBulb = lightBulb;
             this.ammeter = null;
             this.circuitSwitch = null;
+            this.sourceCurrent = 0.0;
+            this.bank = null;
+            this.bankDevice = -1;
         }
 
         /**
@@ -1901,6 +2227,9 @@ public final class CircuitPhysics {
             this.lightBulb = null;
             this.ammeter = ammeter;
             this.circuitSwitch = null;
+            this.sourceCurrent = 0.0;
+            this.bank = null;
+            this.bankDevice = -1;
         }
 
         /**
@@ -1924,6 +2253,36 @@ public final class CircuitPhysics {
             this.lightBulb = null;
             this.ammeter = null;
             this.circuitSwitch = circuitSwitch;
+            this.sourceCurrent = 0.0;
+            this.bank = null;
+            this.bankDevice = -1;
+        }
+
+        /**
+         * @param aIndex node A index
+         * @param bIndex node B index
+         * @param resistance resistance value
+         * @param bank passive device bank holding the device
+         * @param bankDevice device index within the bank
+         */
+        private Edge(int aIndex, int bIndex, double resistance, PassiveDeviceBank bank, int bankDevice) {
+            this.aIndex = aIndex;
+            this.bIndex = bIndex;
+            this.resistance = resistance;
+            this.wire = null;
+            this.resistor = null;
+            this.powerUser = null;
+            this.capacitor = null;
+            this.diode = null;
+            this.npnTransistor = null;
+            this.controlIndex = -1;
+            this.inductor = null;
+            this.lightBulb = null;
+            this.ammeter = null;
+            this.circuitSwitch = null;
+            this.sourceCurrent = 0.0;
+            this.bank = bank;
+            this.bankDevice = bankDevice;
         }
     }
 
@@ -1946,6 +2305,7 @@ public final class CircuitPhysics {
         private final java.util.Set<LightBulb> lightBulbs;
         private final java.util.Set<Ammeter> ammeters;
         private final java.util.Set<SwitchLike> switches;
+        private final java.util.Set<PassiveDeviceBank> banks;
         private final int[] nodeRemap;
 
         /**
@@ -1958,6 +2318,7 @@ public final class CircuitPhysics {
          * @param resistors pruned resistors
          * @param ammeters pruned ammeters
          * @param switches pruned switches
+         * @param banks pruned passive device banks
          * @param nodeRemap remap table from original to pruned indices
          */
         private GraphView(int nodeCount, int groundIndex, int positiveIndex, List<Edge> edges,
@@ -1966,7 +2327,7 @@ public final class CircuitPhysics {
                 java.util.Set<NpnTransistor> npnTransistors,
                 java.util.Set<Inductor> inductors,
                 java.util.Set<LightBulb> lightBulbs, java.util.Set<Ammeter> ammeters,
-                java.util.Set<SwitchLike> switches, int[] nodeRemap) {
+                java.util.Set<SwitchLike> switches, java.util.Set<PassiveDeviceBank> banks, int[] nodeRemap) {
             this.nodeCount = nodeCount;
             this.groundIndex = groundIndex;
             this.positiveIndex = positiveIndex;
@@ -1982,6 +2343,7 @@ public final class CircuitPhysics {
             this.lightBulbs = lightBulbs;
             this.ammeters = ammeters;
             this.switches = switches;
+            this.banks = banks;
             this.nodeRemap = nodeRemap;
         }
     }
@@ -2078,6 +2440,7 @@ public final class CircuitPhysics {
         java.util.Set<LightBulb> prunedLightBulbs = new java.util.HashSet<>();
         java.util.Set<Ammeter> prunedAmmeters = new java.util.HashSet<>();
         java.util.Set<SwitchLike> prunedSwitches = new java.util.HashSet<>();
+        java.util.Set<PassiveDeviceBank> prunedBanks = new java.util.HashSet<>();
         for (Edge edge : edges) {
             int a = remap[edge.aIndex];
             int b = remap[edge.bIndex];
@@ -2114,6 +2477,11 @@ public final class CircuitPhysics {
                 } else if (edge.circuitSwitch != null) {
                     remapped = new Edge(a, b, edge.resistance, edge.circuitSwitch);
                     prunedSwitches.add(edge.circuitSwitch);
+                } else if (edge.bank != null) {
+                    remapped = new Edge(a, b, edge.resistance, edge.bank, edge.bankDevice);
+                    prunedBanks.add(edge.bank);
+                } else if (edge.sourceCurrent != 0.0) {
+                    remapped = new Edge(a, b, edge.resistance, edge.sourceCurrent);
                 } else {
                     remapped = new Edge(a, b, edge.resistance);
                 }
@@ -2136,12 +2504,13 @@ public final class CircuitPhysics {
             return new GraphView(0, remappedGround, remappedPositive, java.util.Collections.emptyList(),
                     java.util.Collections.emptyList(), prunedWires, prunedResistors, prunedPowerUsers,
                     prunedCapacitors, prunedDiodes, prunedNpnTransistors, prunedInductors,
-                    prunedLightBulbs, prunedAmmeters, prunedSwitches,
+                    prunedLightBulbs, prunedAmmeters, prunedSwitches, prunedBanks,
                     remap);
         }
         return new GraphView(newCount, remappedGround, remappedPositive, prunedEdges,
                 prunedBatteries, prunedWires, prunedResistors, prunedPowerUsers, prunedCapacitors, prunedDiodes,
-                prunedNpnTransistors, prunedInductors, prunedLightBulbs, prunedAmmeters, prunedSwitches, remap);
+                prunedNpnTransistors, prunedInductors, prunedLightBulbs, prunedAmmeters, prunedSwitches, prunedBanks,
+                remap);
     }
 
     private static int remapNodeIndex(int nodeIndex, int[] nodeRemap) {
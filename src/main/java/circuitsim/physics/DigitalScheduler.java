@@ -0,0 +1,107 @@
+package circuitsim.physics;
+
+import circuitsim.components.electrical.Clock;
+import java.util.List;
+
+/**
+ * Advances clock sources on an integer nanosecond timeline, independent of the render rate.
+ * Edges that fall inside one simulation step are applied in batches (clocks sharing a timestamp switch
+ * together) and each batch is settled by a logic-only pass; the caller's analog solve then runs once on
+ * the final levels. Batches are capped by a wall-time budget per frame: when a frame's steps hold more
+ * edges than fit in the budget, simulated time slows down instead of dropping edges.
+ */
+public final class DigitalScheduler {
+    public static final long TICKS_PER_SECOND = 1_000_000_000L;
+    private static final long DEFAULT_FRAME_BUDGET_NANOS = 8_000_000L;
+    private static final long FRAME_BUDGET_NANOS = resolveFrameBudget();
+
+    private long tick;
+    private double fractionalTicks;
+    private int lastBatchCount;
+    private long frameStart = System.nanoTime();
+
+    /**
+     * @return current simulated time in ticks
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return edge batches processed during the last step
+     */
+    public int getLastBatchCount() {
+        return lastBatchCount;
+    }
+
+    /**
+     * Restarts the timeline at zero.
+     */
+    public void reset() {
+        tick = 0;
+        fractionalTicks = 0.0;
+        lastBatchCount = 0;
+    }
+
+    /**
+     * Starts the wall-time budget shared by the steps of one frame.
+     */
+    public void beginFrame() {
+        frameStart = System.nanoTime();
+    }
+
+    /**
+     * Advances simulated time by one step, running {@code settle} after every edge batch. At least one due
+     * batch runs per step; once the frame budget is spent the step stops early and its remaining time is dropped.
+     * Clock levels are left at the final batch so the following full update picks them up.
+     *
+     * @return number of edge batches in this step
+     */
+    public int advance(List<Clock> clocks, double dtSeconds, Runnable settle) {
+        fractionalTicks += dtSeconds * TICKS_PER_SECOND;
+        long stepTicks = (long) fractionalTicks;
+        fractionalTicks -= stepTicks;
+        long target = tick + stepTicks;
+        lastBatchCount = 0;
+        if (clocks.isEmpty()) {
+            tick = target;
+            return 0;
+        }
+        for (Clock clock : clocks) {
+            clock.setLevel(clock.levelAt(tick));
+        }
+        boolean throttled = false;
+        while (!throttled) {
+            long next = Long.MAX_VALUE;
+            for (Clock clock : clocks) {
+                next = Math.min(next, clock.nextEdgeAfter(tick));
+            }
+            if (next > target) {
+                break;
+            }
+            tick = next;
+            for (Clock clock : clocks) {
+                clock.setLevel(clock.levelAt(tick));
+            }
+            settle.run();
+            lastBatchCount++;
+            throttled = System.nanoTime() - frameStart >= FRAME_BUDGET_NANOS;
+        }
+        if (!throttled) {
+            tick = target;
+        }
+        return lastBatchCount;
+    }
+
+    private static long resolveFrameBudget() {
+        String configured = System.getProperty("circuitsim.clockFrameBudgetMillis");
+        if (configured == null) {
+            return DEFAULT_FRAME_BUDGET_NANOS;
+        }
+        try {
+            return Math.max(1L, Long.parseLong(configured.trim())) * 1_000_000L;
+        } catch (NumberFormatException ignored) {
+            return DEFAULT_FRAME_BUDGET_NANOS;
+        }
+    }
+}
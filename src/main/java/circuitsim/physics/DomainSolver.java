@@ -0,0 +1,407 @@
+package circuitsim.physics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Solves an assembled nodal system by domain decomposition along custom component boundaries.
+ * Unknowns labelled with the same instance form a domain. Each domain block is factored on its own, in parallel
+ * once the system is large, and condensed onto the interface unknowns it touches; the small interface system
+ * is solved and the domain unknowns are then recovered by back-substitution, again in parallel.
+ * The refined labels only depend on which entries of the matrix may be nonzero, so they are computed once per
+ * island from its element list as a {@link Partition} and reused by every solve of that island.
+ */
+final class DomainSolver {
+    static final int INTERFACE = -1;
+    static final int UNASSIGNED = -2;
+    private static final double MIN_PIVOT = 1e-12;
+    private static final int MIN_UNKNOWNS = 48;
+    private static final int PARALLEL_MIN_UNKNOWNS = 256;
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(
+            System.getProperty("circuitsim.hierarchicalSolve"));
+
+    /**
+     * Prevent instantiation.
+     */
+    private DomainSolver() {
+    }
+
+    /**
+     * @return false when disabled with {@code -Dcircuitsim.hierarchicalSolve=false}
+     */
+    static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Refines domain labels against the coupling of a system so that no two domains are coupled directly.
+     *
+     * @param labels domain per unknown, {@link #INTERFACE} or {@link #UNASSIGNED}; refined in place
+     * @param first row of each matrix entry that may be nonzero
+     * @param second column of each such entry; either orientation of a pair may be given, repeats are allowed
+     * @param count number of entries
+     * @return the partition, or null when the system is too small to split
+     */
+    static Partition partition(int[] labels, int[] first, int[] second, int count) {
+        int n = labels.length;
+        if (n < MIN_UNKNOWNS) {
+            return null;
+        }
+        long[] pairs = new long[count * 2];
+        int pairCount = 0;
+        for (int k = 0; k < count; k++) {
+            if (first[k] != second[k]) {
+                pairs[pairCount++] = ((long) first[k] << 32) | second[k];
+                pairs[pairCount++] = ((long) second[k] << 32) | first[k];
+            }
+        }
+        Arrays.sort(pairs, 0, pairCount);
+        int[] degree = new int[n];
+        for (int k = 0; k < pairCount; k++) {
+            if (k == 0 || pairs[k] != pairs[k - 1]) {
+                degree[(int) (pairs[k] >>> 32)]++;
+            }
+        }
+        int[][] neighbors = new int[n][];
+        for (int i = 0; i < n; i++) {
+            neighbors[i] = new int[degree[i]];
+            degree[i] = 0;
+        }
+        for (int k = 0; k < pairCount; k++) {
+            if (k == 0 || pairs[k] != pairs[k - 1]) {
+                int row = (int) (pairs[k] >>> 32);
+                neighbors[row][degree[row]++] = (int) pairs[k];
+            }
+        }
+        separate(neighbors, labels);
+        absorb(neighbors, labels);
+        return new Partition(labels, neighbors);
+    }
+
+    /**
+     * Solves {@code matrix * x = rhs} without modifying the inputs.
+     *
+     * @param partition refined labels of a system with the same coupling
+     * @return the solution, or null when the system has fewer than two domains or a block is singular; the caller
+     * then solves it flat
+     */
+    static double[] solve(double[][] matrix, double[] rhs, Partition partition) {
+        int n = rhs.length;
+        if (partition.labels.length != n) {
+            return null;
+        }
+        int[] labels = partition.labels;
+        int[][] neighbors = partition.neighbors;
+
+        int maxLabel = INTERFACE;
+        for (int label : labels) {
+            maxLabel = Math.max(maxLabel, label);
+        }
+        int[] sizes = new int[maxLabel + 1];
+        int[] interfacePosition = new int[n];
+        int interfaceCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (labels[i] >= 0) {
+                sizes[labels[i]]++;
+                interfacePosition[i] = -1;
+            } else {
+                interfacePosition[i] = interfaceCount++;
+            }
+        }
+        List<Domain> domainList = new ArrayList<>();
+        int[] domainOfLabel = new int[maxLabel + 1];
+        for (int label = 0; label <= maxLabel; label++) {
+            domainOfLabel[label] = sizes[label] == 0 ? -1 : domainList.size();
+            if (sizes[label] > 0) {
+                domainList.add(new Domain(sizes[label]));
+            }
+        }
+        if (domainList.size() < 2) {
+            return null;
+        }
+        int[] interfaceUnknowns = new int[interfaceCount];
+        for (int i = 0; i < n; i++) {
+            if (labels[i] >= 0) {
+                Domain domain = domainList.get(domainOfLabel[labels[i]]);
+                domain.unknowns[domain.filled++] = i;
+            } else {
+                interfaceUnknowns[interfacePosition[i]] = i;
+            }
+        }
+        Domain[] domains = domainList.toArray(new Domain[0]);
+        int boundarySize = interfaceCount;
+        IntStream tasks = IntStream.range(0, domains.length);
+        if (n >= PARALLEL_MIN_UNKNOWNS) {
+            tasks = tasks.parallel();
+        }
+        tasks.forEach(d -> domains[d].condense(matrix, rhs, neighbors, interfacePosition, boundarySize));
+
+        double[][] interfaceMatrix = new double[interfaceCount][interfaceCount + 1];
+        for (int row = 0; row < interfaceCount; row++) {
+            int unknown = interfaceUnknowns[row];
+            for (int col = 0; col < interfaceCount; col++) {
+                interfaceMatrix[row][col] = matrix[unknown][interfaceUnknowns[col]];
+            }
+            interfaceMatrix[row][interfaceCount] = rhs[unknown];
+        }
+        for (Domain domain : domains) {
+            if (domain.solved == null) {
+                return null;
+            }
+            int[] boundary = domain.boundary;
+            for (int row = 0; row < boundary.length; row++) {
+                double[] target = interfaceMatrix[boundary[row]];
+                for (int col = 0; col < boundary.length; col++) {
+                    target[boundary[col]] -= domain.schur[row][col];
+                }
+                target[interfaceCount] -= domain.schur[row][boundary.length];
+            }
+        }
+        double[] interfaceValues = new double[interfaceCount];
+        if (interfaceCount > 0) {
+            double[][] squared = new double[interfaceCount][];
+            double[][] column = new double[interfaceCount][1];
+            for (int row = 0; row < interfaceCount; row++) {
+                squared[row] = Arrays.copyOf(interfaceMatrix[row], interfaceCount);
+                column[row][0] = interfaceMatrix[row][interfaceCount];
+            }
+            double[][] solvedInterface = solveColumns(squared, column, MIN_PIVOT);
+            if (solvedInterface == null) {
+                return null;
+            }
+            for (int row = 0; row < interfaceCount; row++) {
+                interfaceValues[row] = solvedInterface[row][0];
+            }
+        }
+
+        double[] solution = new double[n];
+        for (int row = 0; row < interfaceCount; row++) {
+            solution[interfaceUnknowns[row]] = interfaceValues[row];
+        }
+        IntStream backSubstitution = IntStream.range(0, domains.length);
+        if (n >= PARALLEL_MIN_UNKNOWNS) {
+            backSubstitution = backSubstitution.parallel();
+        }
+        backSubstitution.forEach(d -> domains[d].recover(interfaceValues, solution));
+        return solution;
+    }
+
+    /**
+     * Solves {@code a * x = rhs} for every right-hand-side column with partial pivoting; both arguments are
+     * overwritten and the solution is returned in {@code rhs}.
+     *
+     * @return the solution, or null when a pivot falls below {@code minPivot}
+     */
+    static double[][] solveColumns(double[][] a, double[][] rhs, double minPivot) {
+        int n = a.length;
+        int columns = rhs.length == 0 ? 0 : rhs[0].length;
+        for (int pivot = 0; pivot < n; pivot++) {
+            int maxRow = pivot;
+            for (int row = pivot + 1; row < n; row++) {
+                if (Math.abs(a[row][pivot]) > Math.abs(a[maxRow][pivot])) {
+                    maxRow = row;
+                }
+            }
+            if (Math.abs(a[maxRow][pivot]) < minPivot) {
+                return null;
+            }
+            double[] swap = a[pivot];
+            a[pivot] = a[maxRow];
+            a[maxRow] = swap;
+            swap = rhs[pivot];
+            rhs[pivot] = rhs[maxRow];
+            rhs[maxRow] = swap;
+            double pivotValue = a[pivot][pivot];
+            for (int row = pivot + 1; row < n; row++) {
+                double factor = a[row][pivot] / pivotValue;
+                if (factor == 0.0) {
+                    continue;
+                }
+                for (int col = pivot; col < n; col++) {
+                    a[row][col] -= factor * a[pivot][col];
+                }
+                for (int col = 0; col < columns; col++) {
+                    rhs[row][col] -= factor * rhs[pivot][col];
+                }
+            }
+        }
+        for (int row = n - 1; row >= 0; row--) {
+            for (int col = 0; col < columns; col++) {
+                double sum = rhs[row][col];
+                for (int k = row + 1; k < n; k++) {
+                    sum -= a[row][k] * rhs[k][col];
+                }
+                rhs[row][col] = sum / a[row][row];
+            }
+        }
+        return rhs;
+    }
+
+    /**
+     * Moves unknowns that couple two domains to the interface, most-shared first, so a hub shared by many
+     * instances (e.g., a common reference node) is split off instead of every unknown around it.
+     */
+    private static void separate(int[][] neighbors, int[] labels) {
+        int n = labels.length;
+        int[] foreign = new int[n];
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (labels[i] < 0) {
+                continue;
+            }
+            for (int j : neighbors[i]) {
+                if (labels[j] >= 0 && labels[j] != labels[i]) {
+                    foreign[i]++;
+                }
+            }
+            if (foreign[i] > 0) {
+                candidates.add(i);
+            }
+        }
+        candidates.sort((a, b) -> Integer.compare(foreign[b], foreign[a]));
+        for (int i : candidates) {
+            for (int j : neighbors[i]) {
+                if (labels[j] >= 0 && labels[j] != labels[i]) {
+                    labels[i] = INTERFACE;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Pulls solver-created unknowns (battery rows and internal nodes) into the single domain they touch.
+     */
+    private static void absorb(int[][] neighbors, int[] labels) {
+        int n = labels.length;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < n; i++) {
+                if (labels[i] != UNASSIGNED) {
+                    continue;
+                }
+                int domain = UNASSIGNED;
+                for (int j : neighbors[i]) {
+                    if (labels[j] < 0) {
+                        continue;
+                    }
+                    domain = domain == UNASSIGNED || domain == labels[j] ? labels[j] : INTERFACE;
+                    if (domain == INTERFACE) {
+                        break;
+                    }
+                }
+                if (domain >= 0) {
+                    labels[i] = domain;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (labels[i] == UNASSIGNED) {
+                labels[i] = INTERFACE;
+            }
+        }
+    }
+
+    /**
+     * Refined domain labels of one island's unknowns and the coupling they were refined against.
+     */
+    static final class Partition {
+        private final int[] labels;
+        private final int[][] neighbors;
+
+        private Partition(int[] labels, int[][] neighbors) {
+            this.labels = labels;
+            this.neighbors = neighbors;
+        }
+    }
+
+    /**
+     * One domain's block, its condensation onto the interface and its back-substitution.
+     */
+    private static final class Domain {
+        private final int[] unknowns;
+        private int filled;
+        private int[] boundary;
+        private double[][] solved;
+        private double[][] schur;
+
+        private Domain(int size) {
+            unknowns = new int[size];
+        }
+
+        /**
+         * Computes {@code A_DD^-1 [A_DS | b_D]} and its Schur contribution {@code A_SD A_DD^-1 [A_DS | b_D]}.
+         */
+        private void condense(double[][] matrix, double[] rhs, int[][] neighbors, int[] interfacePosition,
+                              int interfaceCount) {
+            int size = unknowns.length;
+            boolean[] touched = new boolean[interfaceCount];
+            int touchedCount = 0;
+            for (int unknown : unknowns) {
+                for (int j : neighbors[unknown]) {
+                    int position = interfacePosition[j];
+                    if (position >= 0 && !touched[position]) {
+                        touched[position] = true;
+                        touchedCount++;
+                    }
+                }
+            }
+            boundary = new int[touchedCount];
+            int[] boundaryUnknowns = new int[touchedCount];
+            for (int j = 0, next = 0; j < matrix.length; j++) {
+                int position = interfacePosition[j];
+                if (position >= 0 && touched[position]) {
+                    boundary[next] = position;
+                    boundaryUnknowns[next++] = j;
+                }
+            }
+            double[][] block = new double[size][size];
+            double[][] columns = new double[size][touchedCount + 1];
+            for (int row = 0; row < size; row++) {
+                double[] source = matrix[unknowns[row]];
+                for (int col = 0; col < size; col++) {
+                    block[row][col] = source[unknowns[col]];
+                }
+                for (int col = 0; col < touchedCount; col++) {
+                    columns[row][col] = source[boundaryUnknowns[col]];
+                }
+                columns[row][touchedCount] = rhs[unknowns[row]];
+            }
+            double[][] result = solveColumns(block, columns, MIN_PIVOT);
+            if (result == null) {
+                return;
+            }
+            schur = new double[touchedCount][touchedCount + 1];
+            for (int row = 0; row < touchedCount; row++) {
+                double[] source = matrix[boundaryUnknowns[row]];
+                for (int k = 0; k < size; k++) {
+                    double coupling = source[unknowns[k]];
+                    if (coupling == 0.0) {
+                        continue;
+                    }
+                    double[] solvedRow = result[k];
+                    for (int col = 0; col <= touchedCount; col++) {
+                        schur[row][col] += coupling * solvedRow[col];
+                    }
+                }
+            }
+            solved = result;
+        }
+
+        /**
+         * Writes {@code x_D = A_DD^-1 (b_D - A_DS x_S)} into the solution.
+         */
+        private void recover(double[] interfaceValues, double[] solution) {
+            int touchedCount = boundary.length;
+            for (int row = 0; row < unknowns.length; row++) {
+                double[] solvedRow = solved[row];
+                double value = solvedRow[touchedCount];
+                for (int col = 0; col < touchedCount; col++) {
+                    value -= solvedRow[col] * interfaceValues[boundary[col]];
+                }
+                solution[unknowns[row]] = value;
+            }
+        }
+    }
+}
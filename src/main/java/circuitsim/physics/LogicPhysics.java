@@ -2,9 +2,11 @@ package circuitsim.physics;
 
 import circuitsim.components.core.CircuitComponent;
 import circuitsim.components.core.ConnectionPoint;
+import circuitsim.components.electrical.Clock;
 import circuitsim.components.electrical.Source;
 import circuitsim.components.logic.ANDGate;
 import circuitsim.components.logic.LogicGate;
+import circuitsim.components.logic.LogicLookupTable;
 import circuitsim.components.logic.NANDGate;
 import circuitsim.components.logic.NOTGate;
 import circuitsim.components.logic.ORGate;
@@ -12,9 +14,6 @@ import circuitsim.components.logic.XORGate;
 import circuitsim.components.ports.CustomInputPort;
 import circuitsim.components.ports.CustomOutputPort;
 import circuitsim.components.wiring.Wire;
-import circuitsim.components.wiring.WireNode;
-import circuitsim.ui.Grid;
-import java.awt.Point;
 import java.util.Collection;
 import java.util.List;
 
@@ -24,12 +23,21 @@ import java.util.List;
  */
 public final class LogicPhysics {
     
-    private static final float HIGH_VOLTAGE = 5f;
-    private static final float LOW_VOLTAGE = 0f;
     private static final float THRESHOLD_VOLTAGE = 2.5f;
     private static final int MAX_STABILIZATION_PASSES = 32;
-    private static final java.util.Map<java.awt.Point, Boolean> OUTPUT_MEMORY =
-            new java.util.HashMap<>();
+    private static final int NO_NET = -1;
+    private static final byte NET_LOW = 1;
+    private static final byte NET_HIGH = 2;
+    private static final float DIGITAL_HIGH_VOLTAGE = 5f;
+
+    /**
+     * Settling outcome of a strongly connected group of gates (a feedback loop).
+     */
+    public enum LoopStatus {
+        STABLE,
+        OSCILLATING,
+        DIVERGENT
+    }
 
     public static final class LogicGateInputs {
         private final float[] voltages;
@@ -53,456 +61,664 @@ public final class LogicPhysics {
         if (components == null || wires == null) {
             return;
         }
+        updateLogicComponents(components, wires, WireNetIndex.of(wires));
+    }
 
-        // Digital feedback (e.g., SR latches) requires repeated evaluation until outputs settle.
-        // Use an asynchronous relaxation update (Gauss-Seidel style) so feedback loops converge
-        // instead of oscillating between global states.
-        Connectivity connectivity = new Connectivity(wires);
-        java.util.List<LogicGate> logicGates = new java.util.ArrayList<>();
-        java.util.List<CustomOutputPort> outputPorts = new java.util.ArrayList<>();
-        java.util.List<Seed> seeds = new java.util.ArrayList<>();
-
-        for (CircuitComponent component : components) {
-            switch (component) {
-                case LogicGate gate -> logicGates.add(gate);
-                case CustomOutputPort outputPort -> outputPorts.add(outputPort);
-                case CustomInputPort inputPort -> {
-                    if (inputPort.isActive()) {
-                        java.awt.Point seedPoint = getPrimaryPoint(inputPort);
-                        if (seedPoint != null) {
-                            seeds.add(new Seed(seedPoint, true));
+    /**
+     * Updates all logic components using a prebuilt net index over the same wires.
+     */
+    public static void updateLogicComponents(Collection<CircuitComponent> components, Collection<Wire> wires,
+                                             WireNetIndex netIndex) {
+        if (components == null || wires == null || netIndex == null) {
+            return;
+        }
+        compile(components, wires, netIndex).settle(false);
+    }
+
+    /**
+     * Settles logic between analog solves (e.g., intermediate clock edges). Nets driven by gates or sources
+     * ignore the stale analog voltages and get their voltage rewritten from the digital result, so the next
+     * full update starts from the settled state.
+     */
+    public static void settleDigital(Collection<CircuitComponent> components, Collection<Wire> wires,
+                                     WireNetIndex netIndex) {
+        if (components == null || wires == null || netIndex == null) {
+            return;
+        }
+        compile(components, wires, netIndex).settle(true);
+    }
+
+    /**
+     * Resolves every logic pin of the components to a net once, so repeated settles (e.g., every clock edge
+     * of a step) skip net resolution. The result stays valid while the components keep their places and the
+     * net index is unchanged.
+     */
+    public static Netlist compile(Collection<CircuitComponent> components, Collection<Wire> wires,
+                                  WireNetIndex netIndex) {
+        return new Netlist(components, wires, netIndex);
+    }
+
+    /**
+     * Logic gates, ports, sources and wires of one circuit with every pin resolved to a net. Keeps the net
+     * values of its last digital settle, so later clock edges only re-evaluate the gates their nets reach.
+     */
+    public static final class Netlist {
+        private final java.util.List<LogicGate> logicGates = new java.util.ArrayList<>();
+        private final java.util.List<CustomOutputPort> outputPorts = new java.util.ArrayList<>();
+        private final java.util.List<CircuitComponent> seedParts = new java.util.ArrayList<>();
+        private final java.util.List<Clock> clocks = new java.util.ArrayList<>();
+        private final java.util.List<Wire> wires = new java.util.ArrayList<>();
+        private final int[] inputStart;
+        private final int[] outputStart;
+        private final int[] inputNets;
+        private final int[] outputNets;
+        private final int[] outputOwner;
+        private final int[] seedNets;
+        private final int[] clockNets;
+        private final int[] outputPortNets;
+        private final int[] wireNets;
+        private final boolean[] digitallyDriven;
+        private final int[] groupOf;
+        private final int groupCount;
+        // Per-net adjacency, CSR-style: reading gates, wires, driving output slots and seed parts.
+        private final int[] readerStart;
+        private final int[] readers;
+        private final int[] wireStart;
+        private final int[] netWires;
+        private final int[] driverStart;
+        private final int[] drivers;
+        private final int[] seedStart;
+        private final int[] netSeeds;
+        // State of the last settle, advanced in place by propagateClockEdges.
+        private final byte[] networkValue;
+        private final boolean[] fixedHigh;
+        private final boolean[] analogHigh;
+        private final boolean[] clockLevels;
+        private final java.util.BitSet pending;
+        private final int[] changedNets;
+        private final boolean[] netChanged;
+        private int changedCount;
+        private boolean settled;
+
+        private Netlist(Collection<CircuitComponent> components, Collection<Wire> allWires, WireNetIndex netIndex) {
+            for (CircuitComponent component : components) {
+                switch (component) {
+                    case LogicGate gate -> logicGates.add(gate);
+                    case CustomOutputPort outputPort -> outputPorts.add(outputPort);
+                    case CustomInputPort inputPort -> seedParts.add(inputPort);
+                    case Source source -> {
+                        seedParts.add(source);
+                        if (source instanceof Clock clock) {
+                            clocks.add(clock);
                         }
                     }
-                }
-                case Source source -> {
-                    if (source.isActive()) {
-                        java.awt.Point seedPoint = getPrimaryPoint(source);
-                        if (seedPoint != null) {
-                            seeds.add(new Seed(seedPoint, true));
-                        }
+                    default -> {
                     }
                 }
-                default -> {
+            }
+            for (Wire wire : allWires) {
+                if (wire.getStart() != null && wire.getEnd() != null) {
+                    wires.add(wire);
                 }
             }
-        }
-
-        java.util.Map<java.awt.Point, Boolean> fixedHigh = new java.util.HashMap<>();
-        java.util.Map<java.awt.Point, Boolean> networkValue = new java.util.HashMap<>();
 
-        // Seed from explicit sources/inputs (fixed HIGH).
-        for (Seed seed : seeds) {
-            int root = connectivity.root(connectivity.getOrCreate(seed.point));
-            java.awt.Point rep = connectivity.representative(root);
-            if (rep != null && seed.high) {
-                fixedHigh.put(rep, true);
-                networkValue.put(rep, true);
+            // Terminals no wire ends at are numbered in an overlay so compiling never grows the shared index.
+            WireNetIndex.Overlay netIds = netIndex.overlay();
+            // Gate pins are stored CSR-style so multi-output elements (lookup tables) share the same loop.
+            int gateCount = logicGates.size();
+            inputStart = new int[gateCount + 1];
+            outputStart = new int[gateCount + 1];
+            for (int i = 0; i < gateCount; i++) {
+                LogicGate gate = logicGates.get(i);
+                inputStart[i + 1] = inputStart[i] + gate.getInputPoints().size();
+                outputStart[i + 1] = outputStart[i] + gate.getOutputPoints().size();
+            }
+            inputNets = new int[inputStart[gateCount]];
+            int[] inputOwner = new int[inputNets.length];
+            outputNets = new int[outputStart[gateCount]];
+            outputOwner = new int[outputNets.length];
+            for (int i = 0; i < gateCount; i++) {
+                LogicGate gate = logicGates.get(i);
+                List<ConnectionPoint> inputs = gate.getInputPoints();
+                for (int k = 0; k < inputs.size(); k++) {
+                    inputNets[inputStart[i] + k] = resolveNet(netIds, gate, inputs.get(k));
+                    inputOwner[inputStart[i] + k] = i;
+                }
+                List<ConnectionPoint> outputs = gate.getOutputPoints();
+                for (int k = 0; k < outputs.size(); k++) {
+                    ConnectionPoint output = outputs.get(k);
+                    int slot = outputStart[i] + k;
+                    outputNets[slot] = resolveNet(netIds, gate, output);
+                    outputOwner[slot] = i;
+                }
             }
-        }
-
-        // Seed from analog voltage (fixed HIGH).
-        for (Wire wire : wires) {
-            if (wire.getStart() == null || wire.getEnd() == null) {
-                continue;
+            seedNets = new int[seedParts.size()];
+            for (int i = 0; i < seedNets.length; i++) {
+                seedNets[i] = resolveTerminal(netIds, seedParts.get(i));
             }
-            if (wire.getComputedVoltage() < THRESHOLD_VOLTAGE) {
-                continue;
+            clockNets = new int[clocks.size()];
+            for (int i = 0; i < clockNets.length; i++) {
+                clockNets[i] = resolveTerminal(netIds, clocks.get(i));
             }
-            java.awt.Point start = snapPoint(wire.getStart().getX(), wire.getStart().getY());
-            int root = connectivity.root(connectivity.getOrCreate(start));
-            java.awt.Point rep = connectivity.representative(root);
-            if (rep != null) {
-                fixedHigh.put(rep, true);
-                networkValue.put(rep, true);
+            outputPortNets = new int[outputPorts.size()];
+            for (int i = 0; i < outputPortNets.length; i++) {
+                outputPortNets[i] = resolveTerminal(netIds, outputPorts.get(i));
+            }
+            wireNets = new int[wires.size()];
+            for (int i = 0; i < wireNets.length; i++) {
+                wireNets[i] = netIndex.netIdOf(wires.get(i));
             }
-        }
 
-        // Initialize from previous tick memory for deterministic latch startup.
-        for (LogicGate gate : logicGates) {
-            java.awt.Point outputKey = getOutputKey(gate);
-            if (outputKey == null) {
-                continue;
+            int netCount = netIds.getIdBound();
+            digitallyDriven = new boolean[netCount];
+            for (int net : outputNets) {
+                if (net >= 0) {
+                    digitallyDriven[net] = true;
+                }
             }
-            int root = connectivity.root(connectivity.getOrCreate(outputKey));
-            java.awt.Point rep = connectivity.representative(root);
-            if (rep == null || fixedHigh.containsKey(rep)) {
-                continue;
+            for (int i = 0; i < seedNets.length; i++) {
+                if (seedNets[i] >= 0 && seedParts.get(i) instanceof Source) {
+                    digitallyDriven[seedNets[i]] = true;
+                }
             }
-            boolean remembered = OUTPUT_MEMORY.getOrDefault(outputKey, gate.isOutputPowered());
-            networkValue.put(rep, remembered);
-        }
-
-        for (int pass = 0; pass < MAX_STABILIZATION_PASSES; pass++) {
-            boolean changed = false;
-            for (LogicGate gate : logicGates) {
-                GateState state = evaluateGate(gate, connectivity, networkValue);
-                gate.setInputPowered(0, state.inputAHigh);
-                gate.setInputPowered(1, state.inputBHigh);
-
-                boolean previousOutput = gate.isOutputPowered();
-                gate.setOutputPowered(state.outputHigh);
-                if (previousOutput != state.outputHigh) {
-                    changed = true;
+            readerStart = netOffsets(inputNets, netCount);
+            readers = netMembers(inputNets, readerStart, inputOwner);
+            wireStart = netOffsets(wireNets, netCount);
+            netWires = netMembers(wireNets, wireStart, null);
+            driverStart = netOffsets(outputNets, netCount);
+            drivers = netMembers(outputNets, driverStart, null);
+            seedStart = netOffsets(seedNets, netCount);
+            netSeeds = netMembers(seedNets, seedStart, null);
+
+            groupOf = computeFeedbackGroups(outputStart, outputNets, readerStart, readers);
+            int groups = 0;
+            for (int group : groupOf) {
+                groups = Math.max(groups, group + 1);
+            }
+            groupCount = groups;
+
+            networkValue = new byte[netCount];
+            fixedHigh = new boolean[netCount];
+            analogHigh = new boolean[netCount];
+            clockLevels = new boolean[clocks.size()];
+            pending = new java.util.BitSet(gateCount);
+            changedNets = new int[netCount];
+            netChanged = new boolean[netCount];
+        }
+
+        /**
+         * @return clocks among the netlist's sources
+         */
+        public java.util.List<Clock> getClocks() {
+            return java.util.Collections.unmodifiableList(clocks);
+        }
+
+        /**
+         * Settles logic between analog solves like {@link LogicPhysics#settleDigital} and keeps the result for
+         * {@link #propagateClockEdges()}.
+         */
+        public void settle() {
+            settle(true);
+        }
+
+        /**
+         * Drops the kept settle; call whenever net values may have changed outside this netlist (an analog
+         * solve, toggled inputs or sources).
+         */
+        public void invalidate() {
+            settled = false;
+        }
+
+        /**
+         * Applies the clock level changes since the last settle and re-evaluates only the gates reachable from
+         * the toggled clock nets, sweeping them in the same order as a full settle so races resolve alike. Runs
+         * a full settle instead when none is kept, or when changes are still propagating after the pass budget
+         * (a feedback loop that does not settle).
+         */
+        public void propagateClockEdges() {
+            if (!settled) {
+                settle(true);
+                return;
+            }
+            for (int c = 0; c < clockNets.length; c++) {
+                boolean level = clocks.get(c).isOutputHigh();
+                if (level == clockLevels[c]) {
+                    continue;
+                }
+                clockLevels[c] = level;
+                if (clockNets[c] >= 0) {
+                    refreshNet(clockNets[c]);
+                }
+            }
+            // Gates marked behind the sweep position wait for the next pass, as in the full relaxation.
+            int passes = 0;
+            int next = 0;
+            while (!pending.isEmpty()) {
+                int i = pending.nextSetBit(next);
+                if (i < 0) {
+                    if (++passes == MAX_STABILIZATION_PASSES) {
+                        discardPending();
+                        settle(true);
+                        return;
+                    }
+                    next = 0;
+                    continue;
+                }
+                pending.clear(i);
+                next = i + 1;
+                LogicGate gate = logicGates.get(i);
+                long outputMask = evaluateLogic(gate, applyInputs(i));
+                for (int slot = outputStart[i]; slot < outputStart[i + 1]; slot++) {
+                    int outputIndex = slot - outputStart[i];
+                    boolean outputHigh = (outputMask & (1L << outputIndex)) != 0;
+                    gate.setOutputPowered(outputIndex, outputHigh);
+                    int net = outputNets[slot];
+                    if (net >= 0 && !fixedHigh[net]) {
+                        setNet(net, outputHigh ? NET_HIGH : NET_LOW);
+                    }
                 }
+            }
+            if (changedCount == 0) {
+                return;
+            }
+            for (int c = 0; c < changedCount; c++) {
+                int net = changedNets[c];
+                netChanged[net] = false;
+                boolean high = networkValue[net] == NET_HIGH;
+                for (int w = wireStart[net]; w < wireStart[net + 1]; w++) {
+                    Wire wire = wires.get(netWires[w]);
+                    wire.setLogicPowered(high);
+                    if (digitallyDriven[net]) {
+                        applyDigitalVoltage(wire, high);
+                    }
+                }
+            }
+            changedCount = 0;
+            updateOutputPorts();
+        }
+
+        private void settle(boolean digitalOnly) {
+            // Digital feedback (e.g., SR latches) requires repeated evaluation until outputs settle.
+            // Use an asynchronous relaxation update (Gauss-Seidel style) so feedback loops converge
+            // instead of oscillating between global states.
+            discardPending();
+            java.util.Arrays.fill(networkValue, (byte) 0);
+            java.util.Arrays.fill(fixedHigh, false);
+            java.util.Arrays.fill(analogHigh, false);
+
+            // Seed from explicit sources/inputs (fixed HIGH).
+            for (int i = 0; i < seedNets.length; i++) {
+                int net = seedNets[i];
+                if (net >= 0 && isSeedHigh(seedParts.get(i))) {
+                    fixedHigh[net] = true;
+                    networkValue[net] = NET_HIGH;
+                }
+            }
 
-                java.awt.Point outputKey = getOutputKey(gate);
-                if (outputKey == null) {
+            // Seed from analog voltage (fixed HIGH).
+            for (int i = 0; i < wireNets.length; i++) {
+                int net = wireNets[i];
+                if (net < 0 || wires.get(i).getComputedVoltage() < THRESHOLD_VOLTAGE
+                        || (digitalOnly && digitallyDriven[net])) {
                     continue;
                 }
-                int root = connectivity.root(connectivity.getOrCreate(outputKey));
-                java.awt.Point rep = connectivity.representative(root);
-                if (rep == null || fixedHigh.containsKey(rep)) {
+                analogHigh[net] = true;
+                fixedHigh[net] = true;
+                networkValue[net] = NET_HIGH;
+            }
+
+            // Initialize from each gate's own previous outputs for deterministic latch startup. The state lives on
+            // the gate instance, so a part placed where another one used to be starts from its own outputs.
+            for (int slot = 0; slot < outputNets.length; slot++) {
+                int net = outputNets[slot];
+                if (net < 0 || fixedHigh[net]) {
                     continue;
                 }
-                Boolean previous = networkValue.put(rep, state.outputHigh);
-                if (previous == null || previous.booleanValue() != state.outputHigh) {
-                    changed = true;
+                LogicGate gate = logicGates.get(outputOwner[slot]);
+                networkValue[net] = gate.isOutputPowered(slot - outputStart[outputOwner[slot]]) ? NET_HIGH : NET_LOW;
+            }
+
+            // Only feedback groups can fail to settle; track the pass-by-pass output state for them so a
+            // repeated state proves a cycle and iteration can stop early.
+            int gateCount = logicGates.size();
+            int stateBits = outputNets.length;
+            long[][] history = groupCount > 0 ? new long[MAX_STABILIZATION_PASSES][(stateBits + 63) >>> 6] : null;
+            int[] historyHash = groupCount > 0 ? new int[MAX_STABILIZATION_PASSES] : null;
+            int cycleStart = -1;
+            int cycleEnd = -1;
+            boolean stable = false;
+            int passes = 0;
+
+            for (int pass = 0; pass < MAX_STABILIZATION_PASSES; pass++) {
+                boolean changed = false;
+                passes = pass + 1;
+                for (int i = 0; i < gateCount; i++) {
+                    LogicGate gate = logicGates.get(i);
+                    long outputMask = evaluateLogic(gate, applyInputs(i));
+                    for (int slot = outputStart[i]; slot < outputStart[i + 1]; slot++) {
+                        int outputIndex = slot - outputStart[i];
+                        boolean outputHigh = (outputMask & (1L << outputIndex)) != 0;
+                        boolean previousOutput = gate.isOutputPowered(outputIndex);
+                        gate.setOutputPowered(outputIndex, outputHigh);
+                        if (previousOutput != outputHigh) {
+                            changed = true;
+                        }
+
+                        int net = outputNets[slot];
+                        if (net < 0 || fixedHigh[net]) {
+                            continue;
+                        }
+                        byte next = outputHigh ? NET_HIGH : NET_LOW;
+                        if (networkValue[net] != next) {
+                            networkValue[net] = next;
+                            changed = true;
+                        }
+                    }
+                }
+                if (!changed) {
+                    stable = true;
+                    break;
+                }
+                if (history != null) {
+                    long[] words = history[pass];
+                    for (int slot = 0; slot < stateBits; slot++) {
+                        LogicGate gate = logicGates.get(outputOwner[slot]);
+                        if (gate.isOutputPowered(slot - outputStart[outputOwner[slot]])) {
+                            words[slot >>> 6] |= 1L << slot;
+                        }
+                    }
+                    historyHash[pass] = java.util.Arrays.hashCode(words);
+                    int repeat = findRepeatedState(history, historyHash, pass);
+                    if (repeat >= 0) {
+                        cycleStart = repeat;
+                        cycleEnd = pass;
+                        break;
+                    }
                 }
             }
-            if (!changed) {
-                break;
+
+            for (LogicGate gate : logicGates) {
+                gate.setLoopStatus(LoopStatus.STABLE, 0);
+            }
+            if (!stable && history != null) {
+                classifyFeedbackGroups(logicGates, groupOf, groupCount, outputOwner, history, passes,
+                        cycleStart, cycleEnd);
             }
-        }
 
-        for (LogicGate gate : logicGates) {
-            java.awt.Point outputKey = getOutputKey(gate);
-            if (outputKey != null) {
-                OUTPUT_MEMORY.put(outputKey, gate.isOutputPowered());
+            for (int i = 0; i < wireNets.length; i++) {
+                Wire wire = wires.get(i);
+                int net = wireNets[i];
+                wire.setLogicPowered(isNetHigh(networkValue, net));
+                if (digitalOnly && net >= 0 && digitallyDriven[net]) {
+                    applyDigitalVoltage(wire, networkValue[net] == NET_HIGH);
+                }
+            }
+            updateOutputPorts();
+            for (int c = 0; c < clockLevels.length; c++) {
+                clockLevels[c] = clocks.get(c).isOutputHigh();
+            }
+            settled = digitalOnly;
+        }
+
+        /**
+         * Reads the gate's input nets into its input flags.
+         *
+         * @return input bits (bit k is input k)
+         */
+        private int applyInputs(int i) {
+            LogicGate gate = logicGates.get(i);
+            int inputMask = 0;
+            for (int k = inputStart[i]; k < inputStart[i + 1]; k++) {
+                boolean high = isNetHigh(networkValue, inputNets[k]);
+                gate.setInputPowered(k - inputStart[i], high);
+                if (high) {
+                    inputMask |= 1 << (k - inputStart[i]);
+                }
             }
+            return inputMask;
         }
 
-        applyNetworkPowerToWires(wires, connectivity, networkValue);
-        updateOutputPorts(outputPorts, connectivity, networkValue);
-    }
-    
-    /**
-     * Updates a NAND gate based on input voltages and drives output wires.
-     */
-    private static void updateNANDGate(NANDGate nandGate, Collection<Wire> wires) {
-        List<ConnectionPoint> points = nandGate.getConnectionPoints();
-        if (points.size() < 3) {
-            return;
+        /**
+         * Recomputes a net after one of its seeds switched: HIGH while any seed or the analog solve holds it
+         * high, otherwise whatever its driving gate outputs.
+         */
+        private void refreshNet(int net) {
+            boolean high = analogHigh[net];
+            for (int s = seedStart[net]; s < seedStart[net + 1] && !high; s++) {
+                high = isSeedHigh(seedParts.get(netSeeds[s]));
+            }
+            fixedHigh[net] = high;
+            byte value = high ? NET_HIGH : 0;
+            for (int d = driverStart[net]; d < driverStart[net + 1] && !high; d++) {
+                int slot = drivers[d];
+                LogicGate gate = logicGates.get(outputOwner[slot]);
+                value = gate.isOutputPowered(slot - outputStart[outputOwner[slot]]) ? NET_HIGH : NET_LOW;
+            }
+            setNet(net, value);
         }
-        
-        // Get input voltages from connected wires
-        float inputA = getVoltageAtConnection(points.get(0), wires);
-        float inputB = getVoltageAtConnection(points.get(1), wires);
-        
-        // Apply NAND logic: output is LOW only when both inputs are HIGH
-        boolean aHigh = inputA >= THRESHOLD_VOLTAGE;
-        boolean bHigh = inputB >= THRESHOLD_VOLTAGE;
-        float outputVoltage = (aHigh && bHigh) ? LOW_VOLTAGE : HIGH_VOLTAGE;
-
-        nandGate.setInputPowered(0, aHigh);
-        nandGate.setInputPowered(1, bHigh);
-        nandGate.setOutputPowered(outputVoltage >= THRESHOLD_VOLTAGE);
-        
-        // Drive output wires with computed voltage
-        driveOutputWires(points.get(2), outputVoltage, wires);
-    }
 
-    private static void updateANDGate(ANDGate andGate, Collection<Wire> wires) {
-        List<ConnectionPoint> points = andGate.getConnectionPoints();
-        if (points.size() < 3) {
-            return;
+        private void setNet(int net, byte value) {
+            if (networkValue[net] == value) {
+                return;
+            }
+            networkValue[net] = value;
+            if (!netChanged[net]) {
+                netChanged[net] = true;
+                changedNets[changedCount++] = net;
+            }
+            for (int r = readerStart[net]; r < readerStart[net + 1]; r++) {
+                pending.set(readers[r]);
+            }
         }
-        float inputA = getVoltageAtConnection(points.get(0), wires);
-        float inputB = getVoltageAtConnection(points.get(1), wires);
-        boolean aHigh = inputA >= THRESHOLD_VOLTAGE;
-        boolean bHigh = inputB >= THRESHOLD_VOLTAGE;
-        float outputVoltage = (aHigh && bHigh) ? HIGH_VOLTAGE : LOW_VOLTAGE;
-        andGate.setInputPowered(0, aHigh);
-        andGate.setInputPowered(1, bHigh);
-        andGate.setOutputPowered(outputVoltage >= THRESHOLD_VOLTAGE);
-        driveOutputWires(points.get(2), outputVoltage, wires);
-    }
 
-    private static void updateORGate(ORGate orGate, Collection<Wire> wires) {
-        List<ConnectionPoint> points = orGate.getConnectionPoints();
-        if (points.size() < 3) {
-            return;
+        private void discardPending() {
+            pending.clear();
+            for (int c = 0; c < changedCount; c++) {
+                netChanged[changedNets[c]] = false;
+            }
+            changedCount = 0;
         }
-        float inputA = getVoltageAtConnection(points.get(0), wires);
-        float inputB = getVoltageAtConnection(points.get(1), wires);
-        boolean aHigh = inputA >= THRESHOLD_VOLTAGE;
-        boolean bHigh = inputB >= THRESHOLD_VOLTAGE;
-        float outputVoltage = (aHigh || bHigh) ? HIGH_VOLTAGE : LOW_VOLTAGE;
-        orGate.setInputPowered(0, aHigh);
-        orGate.setInputPowered(1, bHigh);
-        orGate.setOutputPowered(outputVoltage >= THRESHOLD_VOLTAGE);
-        driveOutputWires(points.get(2), outputVoltage, wires);
-    }
 
-    private static void updateXORGate(XORGate xorGate, Collection<Wire> wires) {
-        List<ConnectionPoint> points = xorGate.getConnectionPoints();
-        if (points.size() < 3) {
-            return;
+        private void updateOutputPorts() {
+            for (int i = 0; i < outputPorts.size(); i++) {
+                outputPorts.get(i).setActiveIndicator(isNetHigh(networkValue, outputPortNets[i]));
+            }
         }
-        float inputA = getVoltageAtConnection(points.get(0), wires);
-        float inputB = getVoltageAtConnection(points.get(1), wires);
-        boolean aHigh = inputA >= THRESHOLD_VOLTAGE;
-        boolean bHigh = inputB >= THRESHOLD_VOLTAGE;
-        float outputVoltage = (aHigh ^ bHigh) ? HIGH_VOLTAGE : LOW_VOLTAGE;
-        xorGate.setInputPowered(0, aHigh);
-        xorGate.setInputPowered(1, bHigh);
-        xorGate.setOutputPowered(outputVoltage >= THRESHOLD_VOLTAGE);
-        driveOutputWires(points.get(2), outputVoltage, wires);
     }
 
-    private static void updateNOTGate(NOTGate notGate, Collection<Wire> wires) {
-        List<ConnectionPoint> points = notGate.getConnectionPoints();
-        if (points.size() < 2) {
-            return;
-        }
-        float inputA = getVoltageAtConnection(points.get(0), wires);
-        boolean aHigh = inputA >= THRESHOLD_VOLTAGE;
-        float outputVoltage = aHigh ? LOW_VOLTAGE : HIGH_VOLTAGE;
-        notGate.setInputPowered(0, aHigh);
-        notGate.setOutputPowered(outputVoltage >= THRESHOLD_VOLTAGE);
-        driveOutputWires(points.get(1), outputVoltage, wires);
-    }
-    
     /**
-     * Gets the voltage at a connection point from connected wires.
+     * @return earlier pass index whose output state equals the given pass, or -1
      */
-    private static float getVoltageAtConnection(ConnectionPoint point, Collection<Wire> wires) {
-        int pointX = point.getOwner().getConnectionPointWorldX(point);
-        int pointY = point.getOwner().getConnectionPointWorldY(point);
-        Point snappedPoint = new Point(Grid.snap(pointX), Grid.snap(pointY));
-        
-        float maxVoltage = 0f;
-        boolean hasConnection = false;
-        
-        for (Wire wire : wires) {
-            if (wire.getStart() != null && wire.getEnd() != null) {
-                Point start = new Point(Grid.snap(wire.getStart().getX()), 
-                                       Grid.snap(wire.getStart().getY()));
-                Point end = new Point(Grid.snap(wire.getEnd().getX()), 
-                                     Grid.snap(wire.getEnd().getY()));
-                
-                // Check if wire connects to this point
-                if (start.equals(snappedPoint) || end.equals(snappedPoint)) {
-                    hasConnection = true;
-                    maxVoltage = Math.max(maxVoltage, wire.getComputedVoltage());
-                    if (wire.isLogicPowered()) {
-                        return HIGH_VOLTAGE;
-                    }
-                }
+    private static int findRepeatedState(long[][] history, int[] historyHash, int pass) {
+        for (int earlier = pass - 1; earlier >= 0; earlier--) {
+            if (historyHash[earlier] == historyHash[pass]
+                    && java.util.Arrays.equals(history[earlier], history[pass])) {
+                return earlier;
             }
         }
-
-        if (!hasConnection) {
-            return 0f;
-        }
-        return maxVoltage;
+        return -1;
     }
-    
+
     /**
-     * Drives output voltage to all wires connected to the given connection point.
+     * Marks each feedback group as oscillating (with its own period) when its outputs change inside the
+     * proven cycle, or divergent when no cycle was found before the pass limit.
      */
-    private static void driveOutputWires(ConnectionPoint outputPoint, float voltage, Collection<Wire> wires) {
-        int pointX = outputPoint.getOwner().getConnectionPointWorldX(outputPoint);
-        int pointY = outputPoint.getOwner().getConnectionPointWorldY(outputPoint);
-        Point snappedPoint = new Point(Grid.snap(pointX), Grid.snap(pointY));
-        
-        for (Wire wire : wires) {
-            if (wire.getStart() != null && wire.getEnd() != null) {
-                Point start = new Point(Grid.snap(wire.getStart().getX()), 
-                                       Grid.snap(wire.getStart().getY()));
-                Point end = new Point(Grid.snap(wire.getEnd().getX()), 
-                                     Grid.snap(wire.getEnd().getY()));
-                
-                // Check if wire connects to this output point
-                if (start.equals(snappedPoint) || end.equals(snappedPoint)) {
-                    wire.setComputedVoltage(voltage);
-                    wire.setComputedAmpere(voltage > THRESHOLD_VOLTAGE ? 0.001f : 0f);
-                    wire.setLogicPowered(voltage > THRESHOLD_VOLTAGE);
+    private static void classifyFeedbackGroups(java.util.List<LogicGate> logicGates, int[] groupOf, int groupCount,
+                                               int[] outputOwner, long[][] history, int passes,
+                                               int cycleStart, int cycleEnd) {
+        for (int group = 0; group < groupCount; group++) {
+            if (cycleStart < 0) {
+                // No repeat within the pass budget: report groups still toggling on the last pass.
+                boolean toggling = passes < 2 || !sameGroupState(history[passes - 1], history[passes - 2],
+                        groupOf, outputOwner, group);
+                if (toggling) {
+                    markGroup(logicGates, groupOf, group, LoopStatus.DIVERGENT, 0);
                 }
+                continue;
             }
-        }
-    }
-
-    private static void seedLogicInputs(Collection<CircuitComponent> components, Collection<Wire> wires) {
-        for (CircuitComponent component : components) {
-            switch (component) {
-                case CustomInputPort input -> {
-                    if (input.isActive()) {
-                        markWiresPowered(input.getConnectionPoints(), input, wires);
-                    }
+            int length = cycleEnd - cycleStart;
+            int period = length;
+            for (int candidate = 1; candidate < length; candidate++) {
+                if (length % candidate != 0) {
+                    continue;
                 }
-                case Source source -> {
-                    if (source.isActive()) {
-                        markWiresPowered(source.getConnectionPoints(), source, wires);
-                    }
+                boolean repeats = true;
+                for (int t = 0; t < length && repeats; t++) {
+                    int a = cycleStart + t;
+                    int b = cycleStart + ((t + candidate) % length);
+                    repeats = sameGroupState(history[a], history[b], groupOf, outputOwner, group);
                 }
-                default -> {
+                if (repeats) {
+                    period = candidate;
+                    break;
                 }
             }
-        }
-    }
-
-    private static void markWiresPowered(List<ConnectionPoint> points, CircuitComponent owner,
-                                         Collection<Wire> wires) {
-        if (points.isEmpty()) {
-            return;
-        }
-        ConnectionPoint point = points.get(0);
-        int pointX = owner.getConnectionPointWorldX(point);
-        int pointY = owner.getConnectionPointWorldY(point);
-        Point snappedPoint = new Point(Grid.snap(pointX), Grid.snap(pointY));
-        for (Wire wire : wires) {
-            if (wire.getStart() == null || wire.getEnd() == null) {
+            if (period == 1) {
                 continue;
             }
-            Point start = new Point(Grid.snap(wire.getStart().getX()),
-                    Grid.snap(wire.getStart().getY()));
-            Point end = new Point(Grid.snap(wire.getEnd().getX()),
-                    Grid.snap(wire.getEnd().getY()));
-            if (start.equals(snappedPoint) || end.equals(snappedPoint)) {
-                wire.setLogicPowered(true);
-            }
+            markGroup(logicGates, groupOf, group, LoopStatus.OSCILLATING, period);
         }
     }
 
-    private static void updateCustomOutputPorts(Collection<CircuitComponent> components, Collection<Wire> wires) {
-        for (CircuitComponent component : components) {
-            if (!(component instanceof CustomOutputPort outputPort)) {
+    private static boolean sameGroupState(long[] a, long[] b, int[] groupOf, int[] outputOwner, int group) {
+        for (int slot = 0; slot < outputOwner.length; slot++) {
+            if (groupOf[outputOwner[slot]] != group) {
                 continue;
             }
-            List<ConnectionPoint> points = outputPort.getConnectionPoints();
-            if (points.isEmpty()) {
-                outputPort.setActiveIndicator(false);
-                continue;
-            }
-            ConnectionPoint point = points.get(0);
-            boolean powered = isLogicPoweredAtPoint(point, outputPort, wires);
-            outputPort.setActiveIndicator(powered);
-            if (powered) {
-                markWiresPowered(points, outputPort, wires);
+            long mask = 1L << slot;
+            if ((a[slot >>> 6] & mask) != (b[slot >>> 6] & mask)) {
+                return false;
             }
         }
+        return true;
     }
 
-    private static boolean isLogicPoweredAtPoint(ConnectionPoint point, CircuitComponent owner,
-                                                 Collection<Wire> wires) {
-        int pointX = owner.getConnectionPointWorldX(point);
-        int pointY = owner.getConnectionPointWorldY(point);
-        Point snappedPoint = new Point(Grid.snap(pointX), Grid.snap(pointY));
-        for (Wire wire : wires) {
-            if (wire.getStart() == null || wire.getEnd() == null) {
-                continue;
-            }
-            Point start = new Point(Grid.snap(wire.getStart().getX()),
-                    Grid.snap(wire.getStart().getY()));
-            Point end = new Point(Grid.snap(wire.getEnd().getX()),
-                    Grid.snap(wire.getEnd().getY()));
-            if ((start.equals(snappedPoint) || end.equals(snappedPoint)) && wire.isLogicPowered()) {
-                return true;
+    private static void markGroup(java.util.List<LogicGate> logicGates, int[] groupOf, int group,
+                                  LoopStatus status, int period) {
+        for (int i = 0; i < groupOf.length; i++) {
+            if (groupOf[i] == group) {
+                logicGates.get(i).setLoopStatus(status, period);
             }
         }
-        return false;
     }
 
-    private static void propagateLogicPower(Collection<Wire> wires) {
-        if (wires == null || wires.isEmpty()) {
-            return;
-        }
-        java.util.Map<Point, java.util.List<Wire>> nodeWires = new java.util.HashMap<>();
-        for (Wire wire : wires) {
-            if (wire.getStart() == null || wire.getEnd() == null) {
-                continue;
+    /**
+     * Groups gates into strongly connected components of the output-to-input graph (Tarjan).
+     *
+     * @return feedback group id per gate, or -1 for gates that are not part of a loop
+     */
+    private static int[] computeFeedbackGroups(int[] outputStart, int[] outputNets, int[] readerOffsets,
+                                               int[] readers) {
+        int gateCount = outputStart.length - 1;
+        int[] groupOf = new int[gateCount];
+        java.util.Arrays.fill(groupOf, -1);
+        if (gateCount == 0) {
+            return groupOf;
+        }
+        // Flatten successor lists: gate i feeds every reader of each of its output nets.
+        int[] successorStart = new int[gateCount + 1];
+        for (int i = 0; i < gateCount; i++) {
+            int count = 0;
+            for (int k = outputStart[i]; k < outputStart[i + 1]; k++) {
+                int net = outputNets[k];
+                if (net >= 0) {
+                    count += readerOffsets[net + 1] - readerOffsets[net];
+                }
             }
-            Point start = new Point(Grid.snap(wire.getStart().getX()),
-                    Grid.snap(wire.getStart().getY()));
-            Point end = new Point(Grid.snap(wire.getEnd().getX()),
-                    Grid.snap(wire.getEnd().getY()));
-            nodeWires.computeIfAbsent(start, key -> new java.util.ArrayList<>()).add(wire);
-            nodeWires.computeIfAbsent(end, key -> new java.util.ArrayList<>()).add(wire);
+            successorStart[i + 1] = successorStart[i] + count;
         }
-        java.util.ArrayDeque<Point> queue = new java.util.ArrayDeque<>();
-        java.util.HashSet<Point> visited = new java.util.HashSet<>();
-        for (Wire wire : wires) {
-            if (!wire.isLogicPowered() || wire.getStart() == null || wire.getEnd() == null) {
-                continue;
-            }
-            Point start = new Point(Grid.snap(wire.getStart().getX()),
-                    Grid.snap(wire.getStart().getY()));
-            Point end = new Point(Grid.snap(wire.getEnd().getX()),
-                    Grid.snap(wire.getEnd().getY()));
-            if (visited.add(start)) {
-                queue.add(start);
-            }
-            if (visited.add(end)) {
-                queue.add(end);
+        int[] successors = new int[successorStart[gateCount]];
+        boolean[] selfLoop = new boolean[gateCount];
+        for (int i = 0; i < gateCount; i++) {
+            int position = successorStart[i];
+            for (int k = outputStart[i]; k < outputStart[i + 1]; k++) {
+                int net = outputNets[k];
+                if (net < 0) {
+                    continue;
+                }
+                for (int r = readerOffsets[net]; r < readerOffsets[net + 1]; r++) {
+                    successors[position++] = readers[r];
+                    if (readers[r] == i) {
+                        selfLoop[i] = true;
+                    }
+                }
             }
         }
-        while (!queue.isEmpty()) {
-            Point node = queue.removeFirst();
-            java.util.List<Wire> attached = nodeWires.get(node);
-            if (attached == null) {
+
+        int[] index = new int[gateCount];
+        int[] low = new int[gateCount];
+        int[] edge = new int[gateCount];
+        int[] stack = new int[gateCount];
+        int[] callStack = new int[gateCount];
+        boolean[] onStack = new boolean[gateCount];
+        java.util.Arrays.fill(index, -1);
+        int counter = 0;
+        int stackSize = 0;
+        int groupCount = 0;
+        for (int root = 0; root < gateCount; root++) {
+            if (index[root] >= 0) {
                 continue;
             }
-            for (Wire wire : attached) {
-                if (!wire.isLogicPowered()) {
-                    wire.setLogicPowered(true);
-                }
-                WireNode startNode = wire.getStart();
-                WireNode endNode = wire.getEnd();
-                if (startNode != null) {
-                    Point start = new Point(Grid.snap(startNode.getX()), Grid.snap(startNode.getY()));
-                    if (visited.add(start)) {
-                        queue.add(start);
+            int depth = 0;
+            callStack[depth++] = root;
+            index[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            edge[root] = successorStart[root];
+            while (depth > 0) {
+                int v = callStack[depth - 1];
+                if (edge[v] < successorStart[v + 1]) {
+                    int w = successors[edge[v]++];
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        edge[w] = successorStart[w];
+                        callStack[depth++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
                     }
+                    continue;
+                }
+                depth--;
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+                if (low[v] != index[v]) {
+                    continue;
                 }
-                if (endNode != null) {
-                    Point end = new Point(Grid.snap(endNode.getX()), Grid.snap(endNode.getY()));
-                    if (visited.add(end)) {
-                        queue.add(end);
+                int top = stackSize;
+                int member;
+                do {
+                    member = stack[--top];
+                    onStack[member] = false;
+                } while (member != v);
+                if (stackSize - top > 1 || selfLoop[v]) {
+                    for (int i = top; i < stackSize; i++) {
+                        groupOf[stack[i]] = groupCount;
                     }
+                    groupCount++;
                 }
+                stackSize = top;
             }
         }
+        return groupOf;
     }
 
-    private static final class Seed {
-        private final java.awt.Point point;
-        private final boolean high;
-
-        private Seed(java.awt.Point point, boolean high) {
-            this.point = point;
-            this.high = high;
-        }
-    }
-
-    private static final class GateState {
-        private final boolean inputAHigh;
-        private final boolean inputBHigh;
-        private final boolean outputHigh;
-
-        private GateState(boolean inputAHigh, boolean inputBHigh, boolean outputHigh) {
-            this.inputAHigh = inputAHigh;
-            this.inputBHigh = inputBHigh;
-            this.outputHigh = outputHigh;
-        }
-    }
-
-    private static GateState evaluateGate(LogicGate gate, Connectivity connectivity,
-                                          java.util.Map<java.awt.Point, Boolean> networkHigh) {
-        if (gate == null) {
-            return new GateState(false, false, false);
-        }
-        List<ConnectionPoint> points = gate.getConnectionPoints();
-        boolean inputA = false;
-        boolean inputB = false;
-        if (!points.isEmpty()) {
-            inputA = isHighAtPoint(gate, points.get(0), connectivity, networkHigh);
-            if (points.size() > 1) {
-                inputB = isHighAtPoint(gate, points.get(1), connectivity, networkHigh);
-            }
-        }
-
+    /**
+     * Evaluates a logic element for the given input bits (bit k is input k).
+     *
+     * @return output bits (bit k is output k)
+     */
+    static long evaluateLogic(LogicGate gate, int inputMask) {
+        boolean inputA = (inputMask & 1) != 0;
+        boolean inputB = (inputMask & 2) != 0;
         boolean outputHigh;
         switch (gate) {
+            case LogicLookupTable table -> {
+                return table.lookup(inputMask);
+            }
             case NANDGate ignored -> outputHigh = !(inputA && inputB);
             case ANDGate ignored -> outputHigh = inputA && inputB;
             case ORGate ignored -> outputHigh = inputA || inputB;
@@ -510,138 +726,66 @@ public final class LogicPhysics {
             case NOTGate ignored -> outputHigh = !inputA;
             default -> outputHigh = gate.isOutputPowered();
         }
-
-        // For NOT gates, treat the second input marker as unused.
-        boolean effectiveInputB = gate instanceof NOTGate ? false : inputB;
-        return new GateState(inputA, effectiveInputB, outputHigh);
+        return outputHigh ? 1L : 0L;
     }
 
-    private static boolean isHighAtPoint(CircuitComponent owner, ConnectionPoint point,
-                                         Connectivity connectivity,
-                                         java.util.Map<java.awt.Point, Boolean> networkHigh) {
-        if (owner == null || point == null) {
-            return false;
-        }
-        java.awt.Point snapped = snapPoint(owner.getConnectionPointWorldX(point),
-                owner.getConnectionPointWorldY(point));
-        int root = connectivity.root(connectivity.getOrCreate(snapped));
-        return Boolean.TRUE.equals(networkHigh.get(connectivity.representative(root)));
+    private static boolean isNetHigh(byte[] networkValue, int net) {
+        return net >= 0 && net < networkValue.length && networkValue[net] == NET_HIGH;
     }
 
-    private static java.awt.Point getPrimaryPoint(CircuitComponent component) {
-        if (component == null || component.getConnectionPoints().isEmpty()) {
-            return null;
+    private static int resolveNet(WireNetIndex.Overlay netIds, CircuitComponent owner, ConnectionPoint point) {
+        if (owner == null || point == null) {
+            return NO_NET;
         }
-        ConnectionPoint point = component.getConnectionPoints().get(0);
-        return snapPoint(component.getConnectionPointWorldX(point),
-                component.getConnectionPointWorldY(point));
+        return netIds.resolveNetId(owner.getConnectionPointWorldX(point), owner.getConnectionPointWorldY(point));
     }
 
-    private static java.awt.Point snapPoint(int x, int y) {
-        return new java.awt.Point(Grid.snap(x), Grid.snap(y));
+    /**
+     * @return net of the component's single terminal, or -1 when it has none
+     */
+    private static int resolveTerminal(WireNetIndex.Overlay netIds, CircuitComponent component) {
+        return component.getConnectionPoints().isEmpty() ? NO_NET
+                : resolveNet(netIds, component, component.getConnectionPoints().get(0));
     }
 
-    private static java.awt.Point getOutputKey(LogicGate gate) {
-        if (gate == null) {
-            return null;
+    /**
+     * @return CSR offsets grouping items by net; items with a negative net are left out
+     */
+    private static int[] netOffsets(int[] netOfItem, int netCount) {
+        int[] offsets = new int[netCount + 1];
+        for (int net : netOfItem) {
+            if (net >= 0) {
+                offsets[net + 1]++;
+            }
         }
-        ConnectionPoint output = gate.getOutputPoint();
-        if (output == null) {
-            return null;
+        for (int net = 0; net < netCount; net++) {
+            offsets[net + 1] += offsets[net];
         }
-        return snapPoint(gate.getConnectionPointWorldX(output), gate.getConnectionPointWorldY(output));
+        return offsets;
     }
 
-    private static void applyNetworkPowerToWires(Collection<Wire> wires,
-                                                 Connectivity connectivity,
-                                                 java.util.Map<java.awt.Point, Boolean> networkHigh) {
-        for (Wire wire : wires) {
-            if (wire.getStart() == null || wire.getEnd() == null) {
-                continue;
+    /**
+     * @return per-net members for the given offsets: {@code values[item]}, or the item index itself
+     */
+    private static int[] netMembers(int[] netOfItem, int[] offsets, int[] values) {
+        int[] members = new int[offsets[offsets.length - 1]];
+        int[] fill = java.util.Arrays.copyOf(offsets, offsets.length - 1);
+        for (int item = 0; item < netOfItem.length; item++) {
+            int net = netOfItem[item];
+            if (net >= 0) {
+                members[fill[net]++] = values == null ? item : values[item];
             }
-            java.awt.Point start = snapPoint(wire.getStart().getX(), wire.getStart().getY());
-            int root = connectivity.root(connectivity.getOrCreate(start));
-            boolean high = Boolean.TRUE.equals(networkHigh.get(connectivity.representative(root)));
-            wire.setLogicPowered(high);
         }
+        return members;
     }
 
-    private static void updateOutputPorts(java.util.List<CustomOutputPort> outputPorts,
-                                          Connectivity connectivity,
-                                          java.util.Map<java.awt.Point, Boolean> networkHigh) {
-        for (CustomOutputPort outputPort : outputPorts) {
-            if (outputPort.getConnectionPoints().isEmpty()) {
-                outputPort.setActiveIndicator(false);
-                continue;
-            }
-            ConnectionPoint point = outputPort.getConnectionPoints().get(0);
-            boolean high = isHighAtPoint(outputPort, point, connectivity, networkHigh);
-            outputPort.setActiveIndicator(high);
-        }
+    private static boolean isSeedHigh(CircuitComponent seed) {
+        return seed instanceof CustomInputPort inputPort ? inputPort.isActive() : ((Source) seed).isOutputHigh();
     }
 
-    private static final class Connectivity {
-        private final java.util.Map<java.awt.Point, Integer> indexByPoint = new java.util.HashMap<>();
-        private final java.util.List<java.awt.Point> points = new java.util.ArrayList<>();
-        private final java.util.List<Integer> parent = new java.util.ArrayList<>();
-
-        private Connectivity(Collection<Wire> wires) {
-            if (wires == null) {
-                return;
-            }
-            for (Wire wire : wires) {
-                if (wire.getStart() == null || wire.getEnd() == null) {
-                    continue;
-                }
-                java.awt.Point start = snapPoint(wire.getStart().getX(), wire.getStart().getY());
-                java.awt.Point end = snapPoint(wire.getEnd().getX(), wire.getEnd().getY());
-                union(getOrCreate(start), getOrCreate(end));
-            }
-        }
-
-        private int getOrCreate(java.awt.Point point) {
-            if (point == null) {
-                return -1;
-            }
-            Integer existing = indexByPoint.get(point);
-            if (existing != null) {
-                return existing;
-            }
-            int index = points.size();
-            java.awt.Point stored = new java.awt.Point(point);
-            points.add(stored);
-            indexByPoint.put(stored, index);
-            parent.add(index);
-            return index;
-        }
-
-        private int root(int index) {
-            if (index < 0 || index >= parent.size()) {
-                return -1;
-            }
-            int p = parent.get(index);
-            if (p == index) {
-                return index;
-            }
-            int r = root(p);
-            parent.set(index, r);
-            return r;
-        }
-
-        private java.awt.Point representative(int root) {
-            if (root < 0 || root >= points.size()) {
-                return null;
-            }
-            return points.get(root);
-        }
-
-        private void union(int a, int b) {
-            int ra = root(a);
-            int rb = root(b);
-            if (ra < 0 || rb < 0 || ra == rb) {
-                return;
-            }
-            parent.set(rb, ra);
+    private static void applyDigitalVoltage(Wire wire, boolean high) {
+        if (high != (wire.getComputedVoltage() >= THRESHOLD_VOLTAGE)) {
+            wire.setComputedVoltage(high ? DIGITAL_HIGH_VOLTAGE : 0f);
         }
     }
 }
@@ -0,0 +1,57 @@
+package circuitsim.physics;
+
+import java.util.Arrays;
+
+/**
+ * Dense solver node numbers for the snapped points of one solve. Points are looked up through the node ids of the
+ * caller's {@link WireNetIndex}, so numbering a terminal neither allocates nor hashes a point, and points joined by
+ * bindings get the same node. Terminals no wire ends at are numbered in an overlay that is dropped with the solve.
+ */
+final class NodeNumbering {
+    private final WireNetIndex.Overlay pointIds;
+    private int[] nodeOfId;
+    private int size;
+
+    NodeNumbering(WireNetIndex netIndex) {
+        this.pointIds = netIndex.overlay();
+        this.nodeOfId = new int[Math.max(16, netIndex.getSlotCount())];
+        Arrays.fill(nodeOfId, -1);
+    }
+
+    /**
+     * @return node number of the snapped point, assigning the next free one on first use
+     */
+    int resolve(int x, int y) {
+        int id = pointIds.resolveNodeId(x, y);
+        if (id >= nodeOfId.length) {
+            int oldLength = nodeOfId.length;
+            nodeOfId = Arrays.copyOf(nodeOfId, Math.max(id + 1, oldLength * 2));
+            Arrays.fill(nodeOfId, oldLength, nodeOfId.length, -1);
+        }
+        int node = nodeOfId[id];
+        if (node < 0) {
+            node = size++;
+            nodeOfId[id] = node;
+        }
+        return node;
+    }
+
+    /**
+     * @return node number of the snapped point, or -1 when it was never numbered
+     */
+    int find(int x, int y) {
+        int id = pointIds.nodeIdAt(x, y);
+        return id < 0 || id >= nodeOfId.length ? -1 : nodeOfId[id];
+    }
+
+    /**
+     * @return number of nodes assigned so far
+     */
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,557 @@
+package circuitsim.physics;
+
+import circuitsim.components.core.CircuitComponent;
+import circuitsim.components.core.ConnectionPoint;
+import circuitsim.components.electrical.Capacitor;
+import circuitsim.components.electrical.Inductor;
+import circuitsim.components.electrical.Resistor;
+import circuitsim.components.electrical.Switch;
+import circuitsim.components.electrical.VariableResistor;
+import circuitsim.components.instruments.Ammeter;
+import circuitsim.components.instruments.Voltmeter;
+import circuitsim.components.ports.CustomInputPort;
+import circuitsim.components.ports.CustomOutputPort;
+import circuitsim.components.wiring.Wire;
+import circuitsim.ui.Grid;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Port-level equivalent of a custom component built only from linear passives.
+ * For each connected part the internal nodes are eliminated once per time step (Schur complement of the
+ * nodal matrix), leaving a conductance matrix between the port nets plus companion-history injections for
+ * capacitors. Internal voltages are recovered by back-substitution only to advance that history. Inductors
+ * carry no history because the solver clears inductor current before every solve. The model is shared by
+ * every instance; each instance keeps its own history array.
+ */
+public final class PortReducedModel {
+    private static final int RESISTOR = 0;
+    private static final int CAPACITOR = 1;
+    private static final int INDUCTOR = 2;
+
+    private final int[] portGroup;
+    private final int[] groupPort;
+    private final int[] groupPart;
+    private final int[] groupLocal;
+    private final Part[] parts;
+    private final int historySize;
+
+    private PortReducedModel(int[] portGroup, int[] groupPort, int[] groupPart, int[] groupLocal, Part[] parts,
+                             int historySize) {
+        this.portGroup = portGroup;
+        this.groupPort = groupPort;
+        this.groupPart = groupPart;
+        this.groupLocal = groupLocal;
+        this.parts = parts;
+        this.historySize = historySize;
+    }
+
+    /**
+     * Compiles a flat definition. Input ports and then output ports are numbered in list order.
+     *
+     * @param maxInternalNodes largest number of internal nodes worth eliminating in one part
+     * @return the model, or null when the circuit holds anything but resistors, capacitors, inductors,
+     * switches, meters and inactive ports, or a part exceeds {@code maxInternalNodes}
+     */
+    public static PortReducedModel compile(List<CircuitComponent> components, Collection<Wire> wires,
+                                           int maxInternalNodes) {
+        NodeSet nodes = new NodeSet();
+        List<Integer> inputs = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        List<double[]> elements = new ArrayList<>();
+        for (CircuitComponent component : components) {
+            List<ConnectionPoint> points = component.getConnectionPoints();
+            switch (component) {
+                case Resistor resistor -> {
+                    if (points.size() >= 2) {
+                        elements.add(element(RESISTOR, nodes.at(component, points.get(0)),
+                                nodes.at(component, points.get(1)),
+                                CircuitPhysics.getResistorConductance(resistor.getResistance())));
+                    }
+                }
+                case VariableResistor slider -> {
+                    if (points.size() >= 3) {
+                        int left = nodes.at(component, points.get(0));
+                        int right = nodes.at(component, points.get(1));
+                        int wiper = nodes.at(component, points.get(2));
+                        double total = Math.max(0.0, slider.getResistance());
+                        double ratio = Math.max(0.0, Math.min(1.0, slider.getWiperPosition()));
+                        elements.add(element(RESISTOR, left, wiper,
+                                CircuitPhysics.getResistorConductance(total * ratio)));
+                        elements.add(element(RESISTOR, wiper, right,
+                                CircuitPhysics.getResistorConductance(total * (1.0 - ratio))));
+                    }
+                }
+                case Capacitor capacitor -> {
+                    if (points.size() >= 2) {
+                        elements.add(element(CAPACITOR, nodes.at(component, points.get(0)),
+                                nodes.at(component, points.get(1)), capacitor.getCapacitanceFarad()));
+                    }
+                }
+                case Inductor inductor -> {
+                    if (points.size() >= 2) {
+                        elements.add(element(INDUCTOR, nodes.at(component, points.get(0)),
+                                nodes.at(component, points.get(1)), inductor.getInductanceHenry()));
+                    }
+                }
+                case Switch circuitSwitch -> {
+                    if (circuitSwitch.isClosed() && points.size() >= 2) {
+                        nodes.union(nodes.at(component, points.get(0)), nodes.at(component, points.get(1)));
+                    }
+                }
+                case Ammeter ammeter -> {
+                    if (points.size() >= 2) {
+                        nodes.union(nodes.at(component, points.get(0)), nodes.at(component, points.get(1)));
+                    }
+                }
+                case Voltmeter voltmeter -> {
+                }
+                case CustomInputPort inputPort -> {
+                    if (inputPort.isActive() || points.isEmpty()) {
+                        return null;
+                    }
+                    inputs.add(nodes.at(component, points.get(0)));
+                }
+                case CustomOutputPort outputPort -> {
+                    if (points.isEmpty()) {
+                        return null;
+                    }
+                    outputs.add(nodes.at(component, points.get(0)));
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+        for (Wire wire : wires) {
+            if (wire.getStart() == null || wire.getEnd() == null) {
+                continue;
+            }
+            nodes.union(nodes.at(wire.getStart().getX(), wire.getStart().getY()),
+                    nodes.at(wire.getEnd().getX(), wire.getEnd().getY()));
+        }
+
+        List<Integer> ports = new ArrayList<>(inputs);
+        ports.addAll(outputs);
+        int nodeCount = nodes.size();
+        // Parts: nets joined by elements. Self-loops carry no current and are dropped.
+        NodeSet.Forest partForest = new NodeSet.Forest(nodeCount);
+        List<double[]> live = new ArrayList<>();
+        for (double[] element : elements) {
+            int a = nodes.find((int) element[1]);
+            int b = nodes.find((int) element[2]);
+            if (a != b) {
+                live.add(new double[] {element[0], a, b, element[3]});
+                partForest.union(a, b);
+            }
+        }
+
+        int[] portGroup = new int[ports.size()];
+        List<Integer> groupRoots = new ArrayList<>();
+        List<Integer> groupPorts = new ArrayList<>();
+        Map<Integer, Integer> groupOfRoot = new HashMap<>();
+        for (int port = 0; port < ports.size(); port++) {
+            int root = nodes.find(ports.get(port));
+            Integer group = groupOfRoot.get(root);
+            if (group == null) {
+                group = groupRoots.size();
+                groupOfRoot.put(root, group);
+                groupRoots.add(root);
+                groupPorts.add(port);
+            }
+            portGroup[port] = group;
+        }
+        int groupCount = groupRoots.size();
+        int[] groupPart = new int[groupCount];
+        int[] groupLocal = new int[groupCount];
+        Arrays.fill(groupPart, -1);
+
+        Map<Integer, List<Integer>> groupsByPart = new java.util.LinkedHashMap<>();
+        for (int group = 0; group < groupCount; group++) {
+            groupsByPart.computeIfAbsent(partForest.find(groupRoots.get(group)), ignored -> new ArrayList<>())
+                    .add(group);
+        }
+        List<Part> parts = new ArrayList<>();
+        int historyOffset = 0;
+        for (Map.Entry<Integer, List<Integer>> entry : groupsByPart.entrySet()) {
+            int partRoot = entry.getKey();
+            List<Integer> groups = entry.getValue();
+            int[] local = new int[nodeCount];
+            Arrays.fill(local, -1);
+            for (int i = 0; i < groups.size(); i++) {
+                local[groupRoots.get(groups.get(i))] = i;
+            }
+            int localCount = groups.size();
+            List<double[]> partElements = new ArrayList<>();
+            for (double[] element : live) {
+                int a = (int) element[1];
+                if (partForest.find(a) != partRoot) {
+                    continue;
+                }
+                for (int end = 1; end <= 2; end++) {
+                    int node = (int) element[end];
+                    if (local[node] < 0) {
+                        local[node] = localCount++;
+                    }
+                }
+                partElements.add(element);
+            }
+            if (partElements.isEmpty()) {
+                continue;
+            }
+            if (localCount - groups.size() > maxInternalNodes) {
+                return null;
+            }
+            Part part = new Part(groups, localCount, partElements, local, historyOffset);
+            historyOffset += part.reactive.length;
+            for (int i = 0; i < groups.size(); i++) {
+                groupPart[groups.get(i)] = parts.size();
+                groupLocal[groups.get(i)] = i;
+            }
+            parts.add(part);
+        }
+        int[] groupPortArray = new int[groupCount];
+        for (int group = 0; group < groupCount; group++) {
+            groupPortArray[group] = groupPorts.get(group);
+        }
+        return new PortReducedModel(portGroup, groupPortArray, groupPart, groupLocal,
+                parts.toArray(new Part[0]), historyOffset);
+    }
+
+    /**
+     * @return number of ports, inputs first
+     */
+    public int getPortCount() {
+        return portGroup.length;
+    }
+
+    /**
+     * @return number of distinct port nets
+     */
+    public int getGroupCount() {
+        return groupPort.length;
+    }
+
+    /**
+     * @return port net of the given port; ports sharing a net are shorted inside the definition
+     */
+    public int getPortGroup(int port) {
+        return portGroup[port];
+    }
+
+    /**
+     * @return first port on the given port net
+     */
+    public int getGroupPort(int group) {
+        return groupPort[group];
+    }
+
+    /**
+     * @return length of the per-instance history array
+     */
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    /**
+     * Reduces every part for the given time step, reusing the previous reduction when it did not change.
+     */
+    synchronized void prepare(double timeStepSeconds) {
+        for (Part part : parts) {
+            part.reduce(timeStepSeconds);
+        }
+    }
+
+    /**
+     * @return equivalent conductance between two port nets (zero across parts)
+     */
+    double getConductance(int groupA, int groupB) {
+        int part = groupPart[groupA];
+        if (part < 0 || part != groupPart[groupB] || parts[part].conductance == null) {
+            return 0.0;
+        }
+        return -parts[part].conductance[groupLocal[groupA]][groupLocal[groupB]];
+    }
+
+    /**
+     * @return port net that balances the history injection of the given net, or -1 when it has none
+     */
+    int getInjectionReference(int group) {
+        int part = groupPart[group];
+        return part < 0 ? -1 : parts[part].groups[0];
+    }
+
+    /**
+     * @return history current injected into each port net; the injections of a part sum to zero
+     */
+    double[] computeInjections(double[] history) {
+        double[] injections = new double[groupPort.length];
+        for (Part part : parts) {
+            if (part.injection == null) {
+                continue;
+            }
+            for (int row = 0; row < part.groups.length; row++) {
+                double sum = 0.0;
+                for (int col = 0; col < part.reactive.length; col++) {
+                    sum += part.injection[row][col] * history[part.historyOffset + col];
+                }
+                injections[part.groups[row]] = sum;
+            }
+        }
+        return injections;
+    }
+
+    /**
+     * Advances the history after a solve; parts whose port nets were not solved (NaN) keep their history.
+     */
+    void advance(double[] history, double[] groupVoltages) {
+        for (Part part : parts) {
+            part.advance(history, groupVoltages);
+        }
+    }
+
+    private static double[] element(int kind, int a, int b, double value) {
+        return new double[] {kind, a, b, value};
+    }
+
+    private static double getElementConductance(int kind, double value, double timeStepSeconds) {
+        return switch (kind) {
+            case CAPACITOR -> CircuitPhysics.getCapacitorConductance(value, timeStepSeconds);
+            case INDUCTOR -> CircuitPhysics.getInductorConductance(value, timeStepSeconds);
+            default -> value;
+        };
+    }
+
+    /**
+     * Connected piece of the definition; local nodes are its port nets first, then internal nodes.
+     */
+    private static final class Part {
+        private final int[] groups;
+        private final int nodeCount;
+        private final int[] kinds;
+        private final int[] aNodes;
+        private final int[] bNodes;
+        private final double[] values;
+        private final int[] reactive;
+        private final int historyOffset;
+        private double reducedTimeStep = Double.NaN;
+        private double[][] conductance;
+        private double[][] injection;
+        private double[][] portGain;
+        private double[][] historyGain;
+
+        private Part(List<Integer> groups, int nodeCount, List<double[]> elements, int[] local, int historyOffset) {
+            this.groups = new int[groups.size()];
+            for (int i = 0; i < this.groups.length; i++) {
+                this.groups[i] = groups.get(i);
+            }
+            this.nodeCount = nodeCount;
+            this.historyOffset = historyOffset;
+            kinds = new int[elements.size()];
+            aNodes = new int[elements.size()];
+            bNodes = new int[elements.size()];
+            values = new double[elements.size()];
+            int reactiveCount = 0;
+            for (int i = 0; i < kinds.length; i++) {
+                double[] element = elements.get(i);
+                kinds[i] = (int) element[0];
+                aNodes[i] = local[(int) element[1]];
+                bNodes[i] = local[(int) element[2]];
+                values[i] = element[3];
+                if (kinds[i] == CAPACITOR) {
+                    reactiveCount++;
+                }
+            }
+            reactive = new int[reactiveCount];
+            for (int i = 0, next = 0; i < kinds.length; i++) {
+                if (kinds[i] == CAPACITOR) {
+                    reactive[next++] = i;
+                }
+            }
+        }
+
+        private void reduce(double timeStepSeconds) {
+            if (timeStepSeconds == reducedTimeStep) {
+                return;
+            }
+            reducedTimeStep = timeStepSeconds;
+            int ports = groups.length;
+            int internal = nodeCount - ports;
+            int histories = reactive.length;
+            double[][] g = new double[nodeCount][nodeCount];
+            for (int i = 0; i < kinds.length; i++) {
+                double value = getElementConductance(kinds[i], values[i], timeStepSeconds);
+                int a = aNodes[i];
+                int b = bNodes[i];
+                g[a][a] += value;
+                g[b][b] += value;
+                g[a][b] -= value;
+                g[b][a] -= value;
+            }
+            // History columns use the solver's companion convention: +I into node a, -I out of node b.
+            double[][] h = new double[nodeCount][histories];
+            for (int col = 0; col < histories; col++) {
+                int i = reactive[col];
+                double gain = values[i] > 0.0 ? values[i] / timeStepSeconds : 0.0;
+                h[aNodes[i]][col] += gain;
+                h[bNodes[i]][col] -= gain;
+            }
+            conductance = new double[ports][ports];
+            injection = new double[ports][histories];
+            if (internal == 0) {
+                for (int row = 0; row < ports; row++) {
+                    System.arraycopy(g[row], 0, conductance[row], 0, ports);
+                    System.arraycopy(h[row], 0, injection[row], 0, histories);
+                }
+                portGain = new double[0][ports];
+                historyGain = new double[0][histories];
+                return;
+            }
+            double[][] gii = new double[internal][internal];
+            double[][] rhs = new double[internal][ports + histories];
+            for (int row = 0; row < internal; row++) {
+                System.arraycopy(g[ports + row], ports, gii[row], 0, internal);
+                System.arraycopy(g[ports + row], 0, rhs[row], 0, ports);
+                System.arraycopy(h[ports + row], 0, rhs[row], ports, histories);
+            }
+            double[][] solved = DomainSolver.solveColumns(gii, rhs, 1e-300);
+            if (solved == null) {
+                conductance = null;
+                injection = null;
+                return;
+            }
+            portGain = new double[internal][ports];
+            historyGain = new double[internal][histories];
+            for (int row = 0; row < internal; row++) {
+                System.arraycopy(solved[row], 0, portGain[row], 0, ports);
+                System.arraycopy(solved[row], ports, historyGain[row], 0, histories);
+            }
+            for (int row = 0; row < ports; row++) {
+                for (int col = 0; col < ports; col++) {
+                    double sum = g[row][col];
+                    for (int k = 0; k < internal; k++) {
+                        sum -= g[row][ports + k] * portGain[k][col];
+                    }
+                    conductance[row][col] = sum;
+                }
+                for (int col = 0; col < histories; col++) {
+                    double sum = h[row][col];
+                    for (int k = 0; k < internal; k++) {
+                        sum -= g[row][ports + k] * historyGain[k][col];
+                    }
+                    injection[row][col] = sum;
+                }
+            }
+        }
+
+        private void advance(double[] history, double[] groupVoltages) {
+            if (reactive.length == 0) {
+                return;
+            }
+            if (conductance == null) {
+                return;
+            }
+            for (int group : groups) {
+                if (Double.isNaN(groupVoltages[group])) {
+                    return;
+                }
+            }
+            int ports = groups.length;
+            double[] voltages = new double[nodeCount];
+            for (int i = 0; i < ports; i++) {
+                voltages[i] = groupVoltages[groups[i]];
+            }
+            for (int row = 0; row < nodeCount - ports; row++) {
+                double sum = 0.0;
+                for (int col = 0; col < reactive.length; col++) {
+                    sum += historyGain[row][col] * history[historyOffset + col];
+                }
+                for (int col = 0; col < ports; col++) {
+                    sum -= portGain[row][col] * voltages[col];
+                }
+                voltages[ports + row] = sum;
+            }
+            for (int col = 0; col < reactive.length; col++) {
+                int i = reactive[col];
+                history[historyOffset + col] = voltages[aNodes[i]] - voltages[bNodes[i]];
+            }
+        }
+    }
+
+    /**
+     * Union-find over snapped grid points.
+     */
+    private static final class NodeSet {
+        private final Map<Long, Integer> ids = new HashMap<>();
+        private final Forest forest = new Forest(0);
+
+        private int at(CircuitComponent component, ConnectionPoint point) {
+            return at(component.getConnectionPointWorldX(point), component.getConnectionPointWorldY(point));
+        }
+
+        private int at(int x, int y) {
+            long key = ((long) Grid.snap(x) << 32) | (Grid.snap(y) & 0xffffffffL);
+            Integer existing = ids.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            int id = ids.size();
+            ids.put(key, id);
+            forest.add();
+            return id;
+        }
+
+        private int size() {
+            return ids.size();
+        }
+
+        private int find(int node) {
+            return forest.find(node);
+        }
+
+        private void union(int a, int b) {
+            forest.union(a, b);
+        }
+
+        private static final class Forest {
+            private int[] parent;
+            private int size;
+
+            private Forest(int capacity) {
+                parent = new int[Math.max(1, capacity)];
+                for (int i = 0; i < capacity; i++) {
+                    parent[i] = i;
+                }
+                size = capacity;
+            }
+
+            private void add() {
+                if (size == parent.length) {
+                    parent = Arrays.copyOf(parent, size * 2);
+                }
+                parent[size] = size;
+                size++;
+            }
+
+            private int find(int node) {
+                while (parent[node] != node) {
+                    parent[node] = parent[parent[node]];
+                    node = parent[node];
+                }
+                return node;
+            }
+
+            private void union(int a, int b) {
+                int rootA = find(a);
+                int rootB = find(b);
+                if (rootA != rootB) {
+                    parent[rootB] = rootA;
+                }
+            }
+        }
+    }
+}
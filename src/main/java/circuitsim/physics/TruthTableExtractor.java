@@ -0,0 +1,197 @@
+package circuitsim.physics;
+
+import circuitsim.components.core.CircuitComponent;
+import circuitsim.components.core.ConnectionPoint;
+import circuitsim.components.logic.LogicGate;
+import circuitsim.components.logic.LogicLookupTable;
+import circuitsim.components.ports.CustomInputPort;
+import circuitsim.components.ports.CustomOutputPort;
+import circuitsim.components.wiring.Wire;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Extracts exhaustive truth tables from purely combinational gate networks (custom component internals).
+ */
+public final class TruthTableExtractor {
+    private static final int MAX_OUTPUTS = 64;
+    private static final int NO_NET = -1;
+
+    /**
+     * Prevent instantiation.
+     */
+    private TruthTableExtractor() {
+    }
+
+    /**
+     * Enumerates every input combination of the network.
+     * Input ports and output ports are numbered in list order.
+     *
+     * @return output bit masks indexed by input bit mask, or null when the network contains anything other
+     * than gates and ports, has feedback, has contended or undriven outputs, or exceeds {@code maxInputs}
+     */
+    public static long[] extract(List<CircuitComponent> components, Collection<Wire> wires, int maxInputs) {
+        if (components == null || wires == null) {
+            return null;
+        }
+        List<LogicGate> gates = new ArrayList<>();
+        List<CustomInputPort> inputs = new ArrayList<>();
+        List<CustomOutputPort> outputs = new ArrayList<>();
+        for (CircuitComponent component : components) {
+            switch (component) {
+                case LogicLookupTable ignored -> {
+                    return null;
+                }
+                case LogicGate gate -> gates.add(gate);
+                case CustomInputPort input -> inputs.add(input);
+                case CustomOutputPort output -> outputs.add(output);
+                default -> {
+                    return null;
+                }
+            }
+        }
+        if (inputs.size() > Math.min(maxInputs, 30) || outputs.size() > MAX_OUTPUTS) {
+            return null;
+        }
+
+        WireNetIndex.Overlay netIds = WireNetIndex.of(wires).overlay();
+        int[] inputNets = new int[inputs.size()];
+        int forcedMask = 0;
+        for (int i = 0; i < inputNets.length; i++) {
+            inputNets[i] = resolvePrimaryNet(netIds, inputs.get(i));
+            if (inputs.get(i).isActive()) {
+                forcedMask |= 1 << i;
+            }
+        }
+        int[] outputPortNets = new int[outputs.size()];
+        for (int i = 0; i < outputPortNets.length; i++) {
+            outputPortNets[i] = resolvePrimaryNet(netIds, outputs.get(i));
+        }
+        int gateCount = gates.size();
+        int[][] gateInputNets = new int[gateCount][];
+        int[] gateOutputNets = new int[gateCount];
+        for (int g = 0; g < gateCount; g++) {
+            LogicGate gate = gates.get(g);
+            List<ConnectionPoint> gateInputs = gate.getInputPoints();
+            gateInputNets[g] = new int[gateInputs.size()];
+            for (int k = 0; k < gateInputs.size(); k++) {
+                gateInputNets[g][k] = resolveNet(netIds, gate, gateInputs.get(k));
+            }
+            gateOutputNets[g] = resolveNet(netIds, gate, gate.getOutputPoint());
+        }
+
+        int netCount = netIds.getIdBound();
+        int[] driver = new int[netCount];
+        Arrays.fill(driver, NO_NET);
+        for (int g = 0; g < gateCount; g++) {
+            int net = gateOutputNets[g];
+            if (net < 0) {
+                continue;
+            }
+            if (driver[net] >= 0) {
+                return null;
+            }
+            driver[net] = g;
+        }
+        for (int net : inputNets) {
+            if (net < 0 || driver[net] >= 0) {
+                return null;
+            }
+        }
+        for (int net : outputPortNets) {
+            if (net < 0 || driver[net] < 0) {
+                return null;
+            }
+        }
+
+        int[] order = topologicalOrder(gateInputNets, driver);
+        if (order == null) {
+            return null;
+        }
+
+        long[] table = new long[1 << inputs.size()];
+        boolean[] high = new boolean[netCount];
+        for (int mask = 0; mask < table.length; mask++) {
+            Arrays.fill(high, false);
+            int effective = mask | forcedMask;
+            for (int i = 0; i < inputNets.length; i++) {
+                if ((effective & (1 << i)) != 0) {
+                    high[inputNets[i]] = true;
+                }
+            }
+            for (int g : order) {
+                int gateMask = 0;
+                int[] nets = gateInputNets[g];
+                for (int k = 0; k < nets.length; k++) {
+                    if (nets[k] >= 0 && high[nets[k]]) {
+                        gateMask |= 1 << k;
+                    }
+                }
+                if (gateOutputNets[g] >= 0) {
+                    high[gateOutputNets[g]] = (LogicPhysics.evaluateLogic(gates.get(g), gateMask) & 1L) != 0;
+                }
+            }
+            long outputMask = 0L;
+            for (int i = 0; i < outputPortNets.length; i++) {
+                if (high[outputPortNets[i]]) {
+                    outputMask |= 1L << i;
+                }
+            }
+            table[mask] = outputMask;
+        }
+        return table;
+    }
+
+    /**
+     * Kahn ordering of gates by net dependencies.
+     *
+     * @return evaluation order, or null when the network has feedback
+     */
+    private static int[] topologicalOrder(int[][] gateInputNets, int[] driver) {
+        int gateCount = gateInputNets.length;
+        int[] pending = new int[gateCount];
+        List<List<Integer>> dependents = new ArrayList<>(gateCount);
+        for (int g = 0; g < gateCount; g++) {
+            dependents.add(new ArrayList<>());
+        }
+        for (int g = 0; g < gateCount; g++) {
+            for (int net : gateInputNets[g]) {
+                if (net >= 0 && driver[net] >= 0) {
+                    pending[g]++;
+                    dependents.get(driver[net]).add(g);
+                }
+            }
+        }
+        int[] order = new int[gateCount];
+        int head = 0;
+        int tail = 0;
+        for (int g = 0; g < gateCount; g++) {
+            if (pending[g] == 0) {
+                order[tail++] = g;
+            }
+        }
+        while (head < tail) {
+            int g = order[head++];
+            for (int next : dependents.get(g)) {
+                if (--pending[next] == 0) {
+                    order[tail++] = next;
+                }
+            }
+        }
+        return tail == gateCount ? order : null;
+    }
+
+    private static int resolvePrimaryNet(WireNetIndex.Overlay netIds, CircuitComponent component) {
+        List<ConnectionPoint> points = component.getConnectionPoints();
+        return points.isEmpty() ? NO_NET : resolveNet(netIds, component, points.get(0));
+    }
+
+    private static int resolveNet(WireNetIndex.Overlay netIds, CircuitComponent owner, ConnectionPoint point) {
+        if (point == null) {
+            return NO_NET;
+        }
+        return netIds.resolveNetId(owner.getConnectionPointWorldX(point), owner.getConnectionPointWorldY(point));
+    }
+}
@@ -0,0 +1,309 @@
+package circuitsim.physics;
+
+import circuitsim.components.core.CircuitComponent;
+import circuitsim.components.electrical.Source;
+import circuitsim.components.ports.CustomInputPort;
+import circuitsim.components.ports.CustomOutputPort;
+import circuitsim.components.wiring.Wire;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Change-only logic analyzer over probed wires and ports.
+ * Transitions are stored with their simulated tick in a fixed-size primitive ring buffer, so sampling
+ * never allocates; once the buffer is full the oldest transitions are folded into per-probe base values.
+ */
+public final class WaveformRecorder {
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final byte UNKNOWN = -1;
+
+    private final long[] eventTicks;
+    private final int[] eventProbes;
+    private final boolean[] eventValues;
+    private int head;
+    private int size;
+    private final List<Probe> probes = new ArrayList<>();
+    private Probe[] activeProbes = new Probe[0];
+    private byte[] lastValues = new byte[0];
+    private byte[] baseValues = new byte[0];
+    private long startTick = -1L;
+    private long lastTick;
+    private int nextProbeId;
+    private int version;
+
+    public WaveformRecorder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public WaveformRecorder(int capacity) {
+        int resolved = Math.max(16, capacity);
+        eventTicks = new long[resolved];
+        eventProbes = new int[resolved];
+        eventValues = new boolean[resolved];
+    }
+
+    /**
+     * Probed signal: a wire or a port-like component.
+     */
+    public static final class Probe {
+        private final int id;
+        private final String name;
+        private final Wire wire;
+        private final CircuitComponent component;
+
+        private Probe(int id, String name, Wire wire, CircuitComponent component) {
+            this.id = id;
+            this.name = name;
+            this.wire = wire;
+            this.component = component;
+        }
+
+        /**
+         * @return stable id used by recorded events
+         */
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        private Object getTarget() {
+            return wire != null ? wire : component;
+        }
+
+        private boolean read() {
+            if (wire != null) {
+                return wire.isLogicPowered();
+            }
+            return switch (component) {
+                case Source source -> source.isOutputHigh();
+                case CustomInputPort inputPort -> inputPort.isActive();
+                case CustomOutputPort outputPort -> outputPort.isActiveIndicator();
+                default -> false;
+            };
+        }
+    }
+
+    /**
+     * @return true when the component kind can be probed
+     */
+    public static boolean isProbeable(CircuitComponent component) {
+        return component instanceof Source || component instanceof CustomInputPort
+                || component instanceof CustomOutputPort;
+    }
+
+    /**
+     * @return true when the wire or component is probed
+     */
+    public boolean isProbed(Object target) {
+        return findProbe(target) != null;
+    }
+
+    /**
+     * Adds a wire probe.
+     */
+    public void addProbe(Wire wire, String name) {
+        if (wire != null && !isProbed(wire)) {
+            registerProbe(new Probe(nextProbeId++, name, wire, null));
+        }
+    }
+
+    /**
+     * Adds a component probe.
+     */
+    public void addProbe(CircuitComponent component, String name) {
+        if (isProbeable(component) && !isProbed(component)) {
+            registerProbe(new Probe(nextProbeId++, name, null, component));
+        }
+    }
+
+    /**
+     * Removes the probe for the wire or component, keeping its recorded events out of later reads.
+     */
+    public void removeProbe(Object target) {
+        Probe probe = findProbe(target);
+        if (probe != null) {
+            probes.remove(probe);
+            refreshActiveProbes();
+        }
+    }
+
+    /**
+     * Drops probes whose targets are no longer on the board.
+     */
+    public void retainProbes(Collection<CircuitComponent> components, Collection<Wire> wires) {
+        if (probes.isEmpty()) {
+            return;
+        }
+        java.util.Set<Object> present = java.util.Collections.newSetFromMap(new java.util.IdentityHashMap<>());
+        present.addAll(components);
+        present.addAll(wires);
+        if (probes.removeIf(probe -> !present.contains(probe.getTarget()))) {
+            refreshActiveProbes();
+        }
+    }
+
+    /**
+     * Removes all probes and recorded events.
+     */
+    public void reset() {
+        probes.clear();
+        refreshActiveProbes();
+        clearEvents();
+    }
+
+    /**
+     * Discards recorded events while keeping the probes.
+     */
+    public void clearEvents() {
+        head = 0;
+        size = 0;
+        startTick = -1L;
+        Arrays.fill(lastValues, UNKNOWN);
+        Arrays.fill(baseValues, UNKNOWN);
+        version++;
+    }
+
+    /**
+     * Records transitions of every probe at the given simulated tick; allocation-free.
+     */
+    public void sample(long tick) {
+        Probe[] current = activeProbes;
+        if (current.length == 0) {
+            return;
+        }
+        if (startTick < 0) {
+            startTick = tick;
+        }
+        lastTick = tick;
+        for (Probe probe : current) {
+            byte value = probe.read() ? (byte) 1 : (byte) 0;
+            if (lastValues[probe.id] == value) {
+                continue;
+            }
+            lastValues[probe.id] = value;
+            append(tick, probe.id, value == 1);
+        }
+    }
+
+    /**
+     * @return snapshot of the active probes in display order
+     */
+    public List<Probe> getProbes() {
+        return new ArrayList<>(probes);
+    }
+
+    /**
+     * @return counter bumped whenever recorded data changes
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return tick of the first retained sample, or -1 when nothing was recorded
+     */
+    public long getStartTick() {
+        if (size == eventTicks.length) {
+            return eventTicks[head];
+        }
+        return startTick;
+    }
+
+    /**
+     * @return tick of the latest sample
+     */
+    public long getLastTick() {
+        return lastTick;
+    }
+
+    /**
+     * @return value of the probe before the first retained event: 1, 0, or -1 when unknown
+     */
+    public int getBaseValue(int probeId) {
+        return probeId >= 0 && probeId < baseValues.length ? baseValues[probeId] : UNKNOWN;
+    }
+
+    /**
+     * @return number of retained events
+     */
+    public int getEventCount() {
+        return size;
+    }
+
+    /**
+     * @return tick of the i-th retained event, oldest first
+     */
+    public long getEventTick(int i) {
+        return eventTicks[slot(i)];
+    }
+
+    /**
+     * @return probe id of the i-th retained event, oldest first
+     */
+    public int getEventProbe(int i) {
+        return eventProbes[slot(i)];
+    }
+
+    /**
+     * @return value of the i-th retained event, oldest first
+     */
+    public boolean getEventValue(int i) {
+        return eventValues[slot(i)];
+    }
+
+    private void append(long tick, int probeId, boolean value) {
+        int capacity = eventTicks.length;
+        int index;
+        if (size < capacity) {
+            index = (head + size) % capacity;
+            size++;
+        } else {
+            index = head;
+            baseValues[eventProbes[index]] = eventValues[index] ? (byte) 1 : (byte) 0;
+            head = (head + 1) % capacity;
+        }
+        eventTicks[index] = tick;
+        eventProbes[index] = probeId;
+        eventValues[index] = value;
+        version++;
+    }
+
+    private int slot(int i) {
+        return (head + i) % eventTicks.length;
+    }
+
+    private Probe findProbe(Object target) {
+        if (target == null) {
+            return null;
+        }
+        for (Probe probe : probes) {
+            if (probe.getTarget() == target) {
+                return probe;
+            }
+        }
+        return null;
+    }
+
+    private void registerProbe(Probe probe) {
+        probes.add(probe);
+        if (probe.id >= lastValues.length) {
+            int capacity = Math.max(8, lastValues.length * 2);
+            int previous = lastValues.length;
+            lastValues = Arrays.copyOf(lastValues, capacity);
+            baseValues = Arrays.copyOf(baseValues, capacity);
+            Arrays.fill(lastValues, previous, capacity, UNKNOWN);
+            Arrays.fill(baseValues, previous, capacity, UNKNOWN);
+        }
+        refreshActiveProbes();
+    }
+
+    private void refreshActiveProbes() {
+        activeProbes = probes.toArray(new Probe[0]);
+        version++;
+    }
+}
@@ -0,0 +1,513 @@
+package circuitsim.physics;
+
+import circuitsim.components.core.BoardGeometry;
+import circuitsim.components.wiring.Wire;
+import circuitsim.components.wiring.WireNode;
+import circuitsim.ui.Grid;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Incrementally maintained union-find over snapped wire endpoints.
+ * Additions are merged in place; removals and moves mark the index stale and it is rebuilt
+ * on the next query (deletion via rebuild-on-split). Moves are detected through the wire version of the
+ * board the index was created for; an index without a board only sees the edits made through it.
+ * Bindings join two points into one net without a wire (used for flattened custom component ports); bound
+ * points also share one node id, so the solver stamps them as a single node instead of a connecting edge.
+ */
+public final class WireNetIndex {
+    private static final int NO_SLOT = -1;
+    private static final long EMPTY_KEY = Long.MIN_VALUE;
+
+    private final Set<Wire> trackedWires = new LinkedHashSet<>();
+    private long[] tableKeys = new long[64];
+    private int[] tableSlots = new int[64];
+    private int tableSize;
+    private int[] parent = new int[32];
+    private int[] rank = new int[32];
+    private int[] boundParent = new int[32];
+    private Wire[][] incident = new Wire[32][];
+    private int[] incidentCount = new int[32];
+    private int[] bindings = new int[16];
+    private int bindingCount;
+    private int slotCount;
+    private boolean stale;
+    private final BoardGeometry boardGeometry;
+    private long builtGeometryVersion;
+    private int version;
+
+    public WireNetIndex() {
+        this(null);
+    }
+
+    /**
+     * @param boardGeometry geometry of the board whose wires are tracked, or null for a fixed set of wires
+     */
+    public WireNetIndex(BoardGeometry boardGeometry) {
+        this.boardGeometry = boardGeometry;
+        this.builtGeometryVersion = boardGeometry == null ? 0L : boardGeometry.getWireVersion();
+        Arrays.fill(tableKeys, EMPTY_KEY);
+    }
+
+    /**
+     * @return index built from the provided wires
+     */
+    public static WireNetIndex of(Collection<Wire> wires) {
+        WireNetIndex index = new WireNetIndex();
+        if (wires != null) {
+            for (Wire wire : wires) {
+                index.addWire(wire);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return independent copy that can be extended without touching this index
+     */
+    public WireNetIndex copy() {
+        ensureCurrent();
+        WireNetIndex copy = new WireNetIndex(boardGeometry);
+        copy.trackedWires.addAll(trackedWires);
+        copy.tableKeys = tableKeys.clone();
+        copy.tableSlots = tableSlots.clone();
+        copy.tableSize = tableSize;
+        copy.parent = parent.clone();
+        copy.rank = rank.clone();
+        copy.boundParent = boundParent.clone();
+        copy.incident = new Wire[incident.length][];
+        for (int i = 0; i < slotCount; i++) {
+            copy.incident[i] = incident[i] == null ? null : incident[i].clone();
+        }
+        copy.incidentCount = incidentCount.clone();
+        copy.bindings = bindings.clone();
+        copy.bindingCount = bindingCount;
+        copy.slotCount = slotCount;
+        copy.builtGeometryVersion = builtGeometryVersion;
+        return copy;
+    }
+
+    /**
+     * Adds a wire and merges its endpoint nets.
+     */
+    public void addWire(Wire wire) {
+        if (wire == null || !trackedWires.add(wire)) {
+            return;
+        }
+        version++;
+        if (!stale) {
+            link(wire);
+        }
+    }
+
+    /**
+     * Joins two points into the same net without a wire.
+     */
+    public void bind(int ax, int ay, int bx, int by) {
+        int offset = bindingCount * 4;
+        if (offset + 4 > bindings.length) {
+            bindings = Arrays.copyOf(bindings, bindings.length * 2);
+        }
+        bindings[offset] = Grid.snap(ax);
+        bindings[offset + 1] = Grid.snap(ay);
+        bindings[offset + 2] = Grid.snap(bx);
+        bindings[offset + 3] = Grid.snap(by);
+        bindingCount++;
+        version++;
+        if (!stale) {
+            linkBinding(bindingCount - 1);
+        }
+    }
+
+    /**
+     * Removes a wire; the affected net may split, so the index is rebuilt lazily.
+     */
+    public void removeWire(Wire wire) {
+        if (wire != null && trackedWires.remove(wire)) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Removes all wires.
+     */
+    public void clear() {
+        trackedWires.clear();
+        bindingCount = 0;
+        invalidate();
+    }
+
+    /**
+     * Marks the index stale after wire endpoints moved or were rewired.
+     */
+    public void invalidate() {
+        stale = true;
+        version++;
+    }
+
+    /**
+     * @return counter bumped whenever connectivity may have changed
+     */
+    public int getVersion() {
+        ensureCurrent();
+        return version;
+    }
+
+    /**
+     * @return number of slots; ids of indexed points are always below this bound
+     */
+    public int getSlotCount() {
+        ensureCurrent();
+        return slotCount;
+    }
+
+    /**
+     * @return net id for the snapped point, or -1 when no wire ends there
+     */
+    public int netIdAt(int x, int y) {
+        ensureCurrent();
+        int slot = findSlot(pack(Grid.snap(x), Grid.snap(y)));
+        return slot < 0 ? NO_SLOT : root(slot);
+    }
+
+    /**
+     * @return node id of the snapped point, or -1 when nothing ends there; points joined by bindings share a node
+     * id while wires keep their end points apart, and node ids are below {@link #getSlotCount()}
+     */
+    public int nodeIdAt(int x, int y) {
+        ensureCurrent();
+        int slot = findSlot(pack(Grid.snap(x), Grid.snap(y)));
+        return slot < 0 ? NO_SLOT : boundRoot(slot);
+    }
+
+    /**
+     * @return overlay numbering points for one compile or solve without inserting them into this index
+     */
+    Overlay overlay() {
+        ensureCurrent();
+        return new Overlay();
+    }
+
+    /**
+     * @return true if any wire ends at the snapped point
+     */
+    public boolean hasWireAt(int x, int y) {
+        ensureCurrent();
+        int slot = findSlot(pack(Grid.snap(x), Grid.snap(y)));
+        return slot >= 0 && incidentCount[slot] > 0;
+    }
+
+    /**
+     * @return true if a wire ending at the snapped point carries logic power or current
+     */
+    public boolean isWirePoweredAt(int x, int y, float currentThreshold) {
+        ensureCurrent();
+        int slot = findSlot(pack(Grid.snap(x), Grid.snap(y)));
+        if (slot < 0) {
+            return false;
+        }
+        Wire[] attached = incident[slot];
+        for (int i = 0; i < incidentCount[slot]; i++) {
+            Wire wire = attached[i];
+            if (wire.isLogicPowered() || wire.getComputedAmpere() > currentThreshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return net id of the wire's start node, or -1 for detached wires
+     */
+    public int netIdOf(Wire wire) {
+        if (wire == null || wire.getStart() == null) {
+            return NO_SLOT;
+        }
+        return netIdAt(wire.getStart().getX(), wire.getStart().getY());
+    }
+
+    /**
+     * @return snapshot of the tracked wires
+     */
+    public List<Wire> getWires() {
+        return new ArrayList<>(trackedWires);
+    }
+
+    private void ensureCurrent() {
+        long geometryVersion = boardGeometry == null ? 0L : boardGeometry.getWireVersion();
+        if (geometryVersion != builtGeometryVersion) {
+            builtGeometryVersion = geometryVersion;
+            stale = true;
+            version++;
+        }
+        if (stale) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        Arrays.fill(tableKeys, EMPTY_KEY);
+        tableSize = 0;
+        for (int i = 0; i < slotCount; i++) {
+            if (incident[i] != null) {
+                Arrays.fill(incident[i], 0, incidentCount[i], null);
+            }
+            incidentCount[i] = 0;
+        }
+        slotCount = 0;
+        stale = false;
+        for (Wire wire : trackedWires) {
+            link(wire);
+        }
+        for (int i = 0; i < bindingCount; i++) {
+            linkBinding(i);
+        }
+    }
+
+    private void linkBinding(int index) {
+        int offset = index * 4;
+        int a = getOrCreateSlot(pack(bindings[offset], bindings[offset + 1]));
+        int b = getOrCreateSlot(pack(bindings[offset + 2], bindings[offset + 3]));
+        union(a, b);
+        int boundA = boundRoot(a);
+        int boundB = boundRoot(b);
+        if (boundA != boundB) {
+            boundParent[Math.max(boundA, boundB)] = Math.min(boundA, boundB);
+        }
+    }
+
+    private void link(Wire wire) {
+        WireNode start = wire.getStart();
+        WireNode end = wire.getEnd();
+        if (start == null || end == null) {
+            return;
+        }
+        int a = getOrCreateSlot(pack(Grid.snap(start.getX()), Grid.snap(start.getY())));
+        int b = getOrCreateSlot(pack(Grid.snap(end.getX()), Grid.snap(end.getY())));
+        addIncident(a, wire);
+        if (b != a) {
+            addIncident(b, wire);
+        }
+        union(a, b);
+    }
+
+    private void addIncident(int slot, Wire wire) {
+        Wire[] attached = incident[slot];
+        int count = incidentCount[slot];
+        if (attached == null) {
+            attached = new Wire[2];
+            incident[slot] = attached;
+        } else if (count == attached.length) {
+            attached = Arrays.copyOf(attached, count * 2);
+            incident[slot] = attached;
+        }
+        attached[count] = wire;
+        incidentCount[slot] = count + 1;
+    }
+
+    private int root(int slot) {
+        int r = slot;
+        while (parent[r] != r) {
+            r = parent[r];
+        }
+        while (parent[slot] != r) {
+            int next = parent[slot];
+            parent[slot] = r;
+            slot = next;
+        }
+        return r;
+    }
+
+    private int boundRoot(int slot) {
+        while (boundParent[slot] != slot) {
+            boundParent[slot] = boundParent[boundParent[slot]];
+            slot = boundParent[slot];
+        }
+        return slot;
+    }
+
+    private void union(int a, int b) {
+        int ra = root(a);
+        int rb = root(b);
+        if (ra == rb) {
+            return;
+        }
+        if (rank[ra] < rank[rb]) {
+            parent[ra] = rb;
+        } else if (rank[ra] > rank[rb]) {
+            parent[rb] = ra;
+        } else {
+            parent[rb] = ra;
+            rank[ra]++;
+        }
+    }
+
+    private int findSlot(long key) {
+        int mask = tableKeys.length - 1;
+        int i = mix(key) & mask;
+        while (tableKeys[i] != EMPTY_KEY) {
+            if (tableKeys[i] == key) {
+                return tableSlots[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return NO_SLOT;
+    }
+
+    private int getOrCreateSlot(long key) {
+        int existing = findSlot(key);
+        if (existing >= 0) {
+            return existing;
+        }
+        if ((tableSize + 1) * 2 > tableKeys.length) {
+            growTable();
+        }
+        int slot = slotCount++;
+        if (slot == parent.length) {
+            int capacity = parent.length * 2;
+            parent = Arrays.copyOf(parent, capacity);
+            rank = Arrays.copyOf(rank, capacity);
+            boundParent = Arrays.copyOf(boundParent, capacity);
+            incident = Arrays.copyOf(incident, capacity);
+            incidentCount = Arrays.copyOf(incidentCount, capacity);
+        }
+        parent[slot] = slot;
+        rank[slot] = 0;
+        boundParent[slot] = slot;
+        insert(key, slot);
+        return slot;
+    }
+
+    private void growTable() {
+        long[] oldKeys = tableKeys;
+        int[] oldSlots = tableSlots;
+        tableKeys = new long[oldKeys.length * 2];
+        tableSlots = new int[oldSlots.length * 2];
+        Arrays.fill(tableKeys, EMPTY_KEY);
+        tableSize = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                insert(oldKeys[i], oldSlots[i]);
+            }
+        }
+    }
+
+    private void insert(long key, int slot) {
+        int mask = tableKeys.length - 1;
+        int i = mix(key) & mask;
+        while (tableKeys[i] != EMPTY_KEY) {
+            i = (i + 1) & mask;
+        }
+        tableKeys[i] = key;
+        tableSlots[i] = slot;
+        tableSize++;
+    }
+
+    /**
+     * Point ids for one compile or solve. Points known to the index keep its net and node ids; any other point
+     * (a terminal no wire ends at) gets an id at or above the index's slot count that lives only as long as the
+     * overlay, so looking points up never grows the shared index. Only {@link #addWire} and {@link #bind}
+     * insert slots.
+     */
+    final class Overlay {
+        private final int base = slotCount;
+        private long[] keys = new long[16];
+        private int[] ids = new int[16];
+        private int size;
+
+        private Overlay() {
+            Arrays.fill(keys, EMPTY_KEY);
+        }
+
+        /**
+         * @return net id of the snapped point, numbering it in this overlay when no wire ends there
+         */
+        int resolveNetId(int x, int y) {
+            long key = pack(Grid.snap(x), Grid.snap(y));
+            int slot = findSlot(key);
+            return slot >= 0 ? root(slot) : resolveExtra(key);
+        }
+
+        /**
+         * @return node id of the snapped point, numbering it in this overlay when nothing ends there
+         */
+        int resolveNodeId(int x, int y) {
+            long key = pack(Grid.snap(x), Grid.snap(y));
+            int slot = findSlot(key);
+            return slot >= 0 ? boundRoot(slot) : resolveExtra(key);
+        }
+
+        /**
+         * @return node id of the snapped point, or -1 when neither the index nor this overlay knows it
+         */
+        int nodeIdAt(int x, int y) {
+            long key = pack(Grid.snap(x), Grid.snap(y));
+            int slot = findSlot(key);
+            return slot >= 0 ? boundRoot(slot) : findExtra(key);
+        }
+
+        /**
+         * @return bound on every id handed out so far
+         */
+        int getIdBound() {
+            return base + size;
+        }
+
+        private int findExtra(long key) {
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (keys[i] != EMPTY_KEY) {
+                if (keys[i] == key) {
+                    return ids[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return NO_SLOT;
+        }
+
+        private int resolveExtra(long key) {
+            int existing = findExtra(key);
+            if (existing >= 0) {
+                return existing;
+            }
+            if ((size + 1) * 2 > keys.length) {
+                long[] oldKeys = keys;
+                int[] oldIds = ids;
+                keys = new long[oldKeys.length * 2];
+                ids = new int[oldIds.length * 2];
+                Arrays.fill(keys, EMPTY_KEY);
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != EMPTY_KEY) {
+                        put(oldKeys[i], oldIds[i]);
+                    }
+                }
+            }
+            int id = base + size++;
+            put(key, id);
+            return id;
+        }
+
+        private void put(long key, int id) {
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (keys[i] != EMPTY_KEY) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            ids[i] = id;
+        }
+    }
+
+    private static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -19,6 +19,19 @@ final class BoardFileIO {
 
     void save(JComponent parent, Supplier<BoardState> snapshot,
               java.util.function.BiConsumer<String, Exception> showError) {
+        save(parent, snapshot, BoardStateIO::toJson, showError);
+    }
+
+    /**
+     * Saves in the version 1 layout, for opening the board in builds that predate version 2.
+     */
+    void saveForOlderVersions(JComponent parent, Supplier<BoardState> snapshot,
+                              java.util.function.BiConsumer<String, Exception> showError) {
+        save(parent, snapshot, BoardStateIO::toLegacyJson, showError);
+    }
+
+    private void save(JComponent parent, Supplier<BoardState> snapshot, Function<BoardState, String> writer,
+                      java.util.function.BiConsumer<String, Exception> showError) {
         if (parent == null || snapshot == null) {
             return;
         }
@@ -34,7 +47,7 @@ final class BoardFileIO {
         Path path = ensureJsonExtension(selected);
         BoardState state = snapshot.get();
         try {
-            Files.writeString(path, BoardStateIO.toJson(state));
+            Files.writeString(path, writer.apply(state));
             lastBoardPath = path;
         } catch (IOException ex) {
             if (showError != null) {
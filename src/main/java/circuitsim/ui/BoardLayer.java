@@ -0,0 +1,230 @@
+package circuitsim.ui;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import javax.swing.JComponent;
+
+/**
+ * Keeps the grid, wires and components of the board rasterized in an offscreen image between frames, so a frame
+ * only re-renders the areas whose content changed and copies the rest. The image is re-rendered entirely when the
+ * zoom, the panel size or the board geometry changes; a pan shifts the existing pixels and renders only the newly
+ * exposed strips.
+ */
+final class BoardLayer {
+    private static final int MAX_STALE_AREAS = 8;
+    private static final int MAX_RENDER_ATTEMPTS = 3;
+    private static final int ALLOWED_TRANSFORM_TYPES = AffineTransform.TYPE_TRANSLATION
+            | AffineTransform.TYPE_UNIFORM_SCALE | AffineTransform.TYPE_GENERAL_SCALE;
+
+    private final List<Rectangle> staleWorldAreas = new ArrayList<>();
+    private final List<Rectangle> exposedAreas = new ArrayList<>();
+    private Image image;
+    private boolean allStale = true;
+    private int width;
+    private int height;
+    private double scaleX;
+    private double scaleY;
+    private int offsetX;
+    private int offsetY;
+    private double zoomFactor;
+    private long geometryVersion;
+
+    /**
+     * Marks a world area for re-rendering on the next paint.
+     */
+    void invalidate(Rectangle world) {
+        if (allStale || world == null) {
+            return;
+        }
+        staleWorldAreas.add(new Rectangle(world));
+        if (staleWorldAreas.size() > MAX_STALE_AREAS) {
+            Rectangle union = new Rectangle(staleWorldAreas.get(0));
+            for (Rectangle area : staleWorldAreas) {
+                union.add(area);
+            }
+            staleWorldAreas.clear();
+            staleWorldAreas.add(union);
+        }
+    }
+
+    /**
+     * Marks the whole layer for re-rendering on the next paint.
+     */
+    void invalidateAll() {
+        allStale = true;
+        staleWorldAreas.clear();
+        exposedAreas.clear();
+    }
+
+    /**
+     * Copies the layer onto the panel, first re-rendering whatever is stale. Printing and rotated or flipped
+     * graphics are painted directly instead.
+     *
+     * @param geometryVersion board geometry version; the layer is re-rendered entirely when it moves
+     * @param painter draws board content into graphics already in world coordinates, limited to the given
+     *                world area
+     */
+    void paint(Graphics2D g2, JComponent owner, ViewTransform view, long geometryVersion,
+               BiConsumer<Graphics2D, Rectangle> painter) {
+        int panelWidth = owner.getWidth();
+        int panelHeight = owner.getHeight();
+        if (panelWidth <= 0 || panelHeight <= 0) {
+            return;
+        }
+        AffineTransform base = g2.getTransform();
+        if (owner.isPaintingForPrint() || (base.getType() & ~ALLOWED_TRANSFORM_TYPES) != 0) {
+            paintDirect(g2, view, panelWidth, panelHeight, painter);
+            return;
+        }
+        for (int attempt = 0; attempt < MAX_RENDER_ATTEMPTS; attempt++) {
+            prepare(owner, view, geometryVersion, panelWidth, panelHeight, base.getScaleX(), base.getScaleY());
+            render(g2, owner.getBackground(), view, painter);
+            if (!(image instanceof VolatileImage volatileImage) || !volatileImage.contentsLost()) {
+                break;
+            }
+            invalidateAll();
+        }
+        g2.setTransform(AffineTransform.getTranslateInstance(base.getTranslateX(), base.getTranslateY()));
+        g2.drawImage(image, 0, 0, null);
+        g2.setTransform(base);
+        if (image instanceof VolatileImage volatileImage && volatileImage.contentsLost()) {
+            invalidateAll();
+            owner.repaint();
+        }
+    }
+
+    private static void paintDirect(Graphics2D g2, ViewTransform view, int panelWidth, int panelHeight,
+                                    BiConsumer<Graphics2D, Rectangle> painter) {
+        Graphics2D board = (Graphics2D) g2.create();
+        view.apply(board);
+        Rectangle visibleWorld = board.getClipBounds();
+        if (visibleWorld == null) {
+            visibleWorld = view.toWorld(new Rectangle(0, 0, panelWidth, panelHeight));
+        }
+        painter.accept(board, visibleWorld);
+        board.dispose();
+    }
+
+    /**
+     * Makes sure the image matches the panel and view, marking what the current pixels no longer cover.
+     */
+    private void prepare(JComponent owner, ViewTransform view, long currentGeometryVersion, int panelWidth,
+                         int panelHeight, double currentScaleX, double currentScaleY) {
+        ensureImage(owner, (int) Math.ceil(panelWidth * currentScaleX),
+                (int) Math.ceil(panelHeight * currentScaleY));
+        if (panelWidth != width || panelHeight != height || currentScaleX != scaleX || currentScaleY != scaleY
+                || view.getZoomFactor() != zoomFactor || currentGeometryVersion != geometryVersion) {
+            invalidateAll();
+        } else if (!allStale && (view.getOffsetX() != offsetX || view.getOffsetY() != offsetY)) {
+            shift(view.getOffsetX() - offsetX, view.getOffsetY() - offsetY);
+        }
+        width = panelWidth;
+        height = panelHeight;
+        scaleX = currentScaleX;
+        scaleY = currentScaleY;
+        zoomFactor = view.getZoomFactor();
+        offsetX = view.getOffsetX();
+        offsetY = view.getOffsetY();
+        geometryVersion = currentGeometryVersion;
+    }
+
+    private void ensureImage(JComponent owner, int imageWidth, int imageHeight) {
+        GraphicsConfiguration configuration = owner.getGraphicsConfiguration();
+        if (image instanceof VolatileImage volatileImage) {
+            int status = configuration == null ? VolatileImage.IMAGE_INCOMPATIBLE
+                    : volatileImage.validate(configuration);
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                image.flush();
+                image = null;
+            } else if (status == VolatileImage.IMAGE_RESTORED) {
+                invalidateAll();
+            }
+        }
+        if (image != null && image.getWidth(null) == imageWidth && image.getHeight(null) == imageHeight) {
+            return;
+        }
+        if (image != null) {
+            image.flush();
+        }
+        image = configuration == null
+                ? new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB)
+                : configuration.createCompatibleVolatileImage(imageWidth, imageHeight, Transparency.OPAQUE);
+        invalidateAll();
+    }
+
+    /**
+     * Moves the current pixels by a pan of whole device pixels and marks the exposed strips; any other pan
+     * re-renders everything.
+     */
+    private void shift(int dx, int dy) {
+        double deviceDx = dx * scaleX;
+        double deviceDy = dy * scaleY;
+        if (Math.abs(dx) >= width || Math.abs(dy) >= height
+                || deviceDx != Math.rint(deviceDx) || deviceDy != Math.rint(deviceDy)) {
+            invalidateAll();
+            return;
+        }
+        Graphics2D g2 = (Graphics2D) image.getGraphics();
+        g2.copyArea(0, 0, image.getWidth(null), image.getHeight(null), (int) deviceDx, (int) deviceDy);
+        g2.dispose();
+        if (dx > 0) {
+            exposedAreas.add(new Rectangle(0, 0, dx, height));
+        } else if (dx < 0) {
+            exposedAreas.add(new Rectangle(width + dx, 0, -dx, height));
+        }
+        if (dy > 0) {
+            exposedAreas.add(new Rectangle(0, 0, width, dy));
+        } else if (dy < 0) {
+            exposedAreas.add(new Rectangle(0, height + dy, width, -dy));
+        }
+    }
+
+    private void render(Graphics2D target, Color background, ViewTransform view,
+                        BiConsumer<Graphics2D, Rectangle> painter) {
+        List<Rectangle> areas = new ArrayList<>();
+        if (allStale) {
+            areas.add(new Rectangle(0, 0, width, height));
+        } else {
+            areas.addAll(exposedAreas);
+            for (Rectangle world : staleWorldAreas) {
+                Rectangle screen = view.toScreen(world);
+                // A pixel of slack so fractional device scales leave no seams between re-rendered areas.
+                screen.grow(1, 1);
+                areas.add(screen);
+            }
+        }
+        allStale = false;
+        staleWorldAreas.clear();
+        exposedAreas.clear();
+        Rectangle viewport = new Rectangle(0, 0, width, height);
+        Graphics2D g2 = (Graphics2D) image.getGraphics();
+        g2.setRenderingHints(target.getRenderingHints());
+        g2.setFont(target.getFont());
+        g2.scale(scaleX, scaleY);
+        AffineTransform panelTransform = g2.getTransform();
+        for (Rectangle area : areas) {
+            Rectangle clip = area.intersection(viewport);
+            if (clip.isEmpty()) {
+                continue;
+            }
+            g2.setTransform(panelTransform);
+            g2.setClip(clip);
+            g2.setColor(background);
+            g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+            g2.setColor(target.getColor());
+            view.apply(g2);
+            painter.accept(g2, g2.getClipBounds());
+        }
+        g2.dispose();
+    }
+}
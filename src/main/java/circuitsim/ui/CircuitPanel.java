@@ -1,8 +1,10 @@
 package circuitsim.ui;
 
+import circuitsim.components.core.BoardGeometry;
 import circuitsim.components.core.CircuitComponent;
 import circuitsim.components.core.ComponentRegistry;
 import circuitsim.components.core.ConnectionPoint;
+import circuitsim.components.core.DetailLevel;
 import circuitsim.components.electrical.Switch;
 import circuitsim.components.instruments.Ammeter;
 import circuitsim.components.instruments.Voltmeter;
@@ -16,6 +18,10 @@ import circuitsim.custom.CustomComponentDefinition;
 import circuitsim.io.BoardState;
 import circuitsim.io.BoardStateIO;
 import circuitsim.physics.CircuitPhysics;
+import circuitsim.physics.DigitalScheduler;
+import circuitsim.physics.LogicPhysics;
+import circuitsim.physics.WaveformRecorder;
+import circuitsim.physics.WireNetIndex;
 import circuitsim.ui.Geometry2D;
 import java.awt.AlphaComposite;
 import java.awt.Color;
@@ -50,13 +56,30 @@ import javax.swing.SwingUtilities;
  * Main canvas for circuit editing, rendering, and interaction.
  */
 public class CircuitPanel extends JPanel {
-    final List<CircuitComponent> components = new ArrayList<>();
+    private final BoardGeometry boardGeometry = new BoardGeometry();
+    final VersionedList<CircuitComponent> components =
+            new VersionedList<>(component -> component.setBoardGeometry(boardGeometry));
     private final ComponentPropertiesPanel propertiesPanel;
-    private final List<Wire> wires = new ArrayList<>();
+    private final VersionedList<Wire> wires = new VersionedList<>(wire -> wire.setBoardGeometry(boardGeometry));
+    private final RenderWireCache renderWireCache = new RenderWireCache(boardGeometry, WIRE_OFFSET_STEP);
+    private final WireCrossingCache wireCrossings = new WireCrossingCache(renderWireCache.trackChanges());
+    private final SpatialIndex spatialIndex =
+            new SpatialIndex(boardGeometry, components, wires, renderWireCache.trackChanges());
+    private final WireNetIndex wireNetIndex = new WireNetIndex(boardGeometry);
+    private final DigitalScheduler digitalScheduler = new DigitalScheduler();
+    private final SimulationViewBuilder simulationViewBuilder = new SimulationViewBuilder();
+    private LogicPhysics.Netlist logicNetlist;
+    private SimulationViewBuilder.SimulationView logicNetlistView;
+    private long logicNetlistComponentVersion;
+    private final WaveformRecorder waveformRecorder = new WaveformRecorder();
+    private javax.swing.JDialog logicAnalyzerDialog;
+    private LogicAnalyzerPanel logicAnalyzerPanel;
     final SelectionController selection;
     private final Map<CircuitComponent, Integer> selectionBaseRotations = new HashMap<>();
     private final ShortCircuitPopup shortCircuitPopup = new ShortCircuitPopup();
     private boolean lastShortCircuit = false;
+    private LogicPhysics.LoopStatus logicLoopStatus = LogicPhysics.LoopStatus.STABLE;
+    private int logicLoopPeriod;
     CircuitComponent draggedComponent;
     // Selection state is managed by selection controller.
     WireNode newWireStartNode;
@@ -92,6 +115,9 @@ public class CircuitPanel extends JPanel {
     private List<RenderWire> lastRenderWires = new ArrayList<>();
     private static final int WIRE_OFFSET_STEP = 6;
     private static final int CROSSING_RADIUS = 7;
+    private static final java.awt.Stroke SELECTED_WIRE_STROKE = new java.awt.BasicStroke(5f);
+    // Covers endpoint stubs, crossing arcs and data labels drawn beside a wire.
+    private static final int WIRE_PAINT_MARGIN = Grid.SIZE * 2;
     Wire pendingWireStartAnchor;
     final ViewTransform viewTransform = new ViewTransform();
     boolean panningView;
@@ -115,6 +141,7 @@ public class CircuitPanel extends JPanel {
     private java.util.function.Function<String, circuitsim.custom.CustomComponentDefinition> customDefinitionResolver =
             id -> null;
     private final Map<String, circuitsim.custom.CustomComponentDefinition> embeddedCustomDefinitions = new HashMap<>();
+    private final CustomInstanceIndex customInstanceIndex = new CustomInstanceIndex();
     private java.util.function.Function<BoardState, BoardState> boardLoadTransform = state -> state;
     private boolean treatCustomOutputsAsGround;
     private Runnable changeListener = () -> {};
@@ -134,6 +161,9 @@ public class CircuitPanel extends JPanel {
     private static final double SIMULATION_STEP_SECONDS = SIMULATION_FRAME_SECONDS / SIMULATION_SUBSTEPS;
     private final javax.swing.Timer simulationTimer;
     private boolean simulationPaused;
+    private final DirtyRegionTracker dirtyRegions = new DirtyRegionTracker();
+    private final BoardLayer boardLayer = new BoardLayer();
+    private final GridRenderer gridRenderer = new GridRenderer();
 
     /**
      * @param propertiesPanel panel used to edit component properties
@@ -193,21 +223,22 @@ public class CircuitPanel extends JPanel {
     }
 
     /**
-     * Paints the grid, wires, components, and selection overlays.
+     * Paints the cached board layer, then the selection and editing overlays on top.
      */
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         Graphics2D g2 = (Graphics2D) g;
+        boardLayer.paint(g2, this, viewTransform, getBoardGeometryVersion(), this::paintBoard);
         java.awt.geom.AffineTransform originalTransform = g2.getTransform();
         viewTransform.apply(g2);
-        drawGrid(g2);
-        drawWires(g2);
+        java.awt.Rectangle visibleWorld = g2.getClipBounds();
+        if (visibleWorld == null) {
+            visibleWorld = viewTransform.toWorld(new java.awt.Rectangle(0, 0, getWidth(), getHeight()));
+        }
         drawWirePreview(g2);
         drawSelectedWires(g2);
-        for (CircuitComponent component : components) {
-            component.draw(g2);
-        }
+        drawUnstableLoopMarkers(g2, visibleWorld);
         drawPlacementPreview(g2);
         if (!selection.selectedComponents.isEmpty()) {
             boolean drawHandles = selection.selectedComponents.size() == 1 && selection.selectedWires.isEmpty();
@@ -221,8 +252,26 @@ public class CircuitPanel extends JPanel {
         g2.setTransform(originalTransform);
         drawCoordinatesHud(g2);
         drawSimulationHud(g2);
-        if (isShowing()) {
-            repaint(33);
+        drawLogicLoopHud(g2);
+    }
+
+    /**
+     * @return counter that advances whenever a component or wire of this board is added, moved, resized, rotated
+     * or removed; displayed value changes reach the board layer through {@link #collectChanges()} instead
+     */
+    private long getBoardGeometryVersion() {
+        return boardGeometry.getVersion() + components.getVersion() + wires.getVersion();
+    }
+
+    /**
+     * Draws the grid, wires and components inside the given world area into the board layer.
+     */
+    private void paintBoard(Graphics2D g2, java.awt.Rectangle visibleWorld) {
+        gridRenderer.draw(g2, visibleWorld, viewTransform.getZoomFactor(), getBackground());
+        drawWires(g2, visibleWorld);
+        double zoomFactor = viewTransform.getZoomFactor();
+        for (CircuitComponent component : spatialIndex.componentsIn(visibleWorld)) {
+            component.draw(g2, zoomFactor);
         }
     }
 
@@ -236,6 +285,39 @@ public class CircuitPanel extends JPanel {
         g2.setColor(originalColor);
     }
 
+    private void drawLogicLoopHud(Graphics2D g2) {
+        if (logicLoopStatus == LogicPhysics.LoopStatus.STABLE) {
+            return;
+        }
+        String message = logicLoopStatus == LogicPhysics.LoopStatus.OSCILLATING
+                ? "Logic feedback loop oscillating (period " + logicLoopPeriod + ")"
+                : "Logic feedback loop not settling";
+        int baseline = getHeight() - (simulationPaused ? 30 : 12);
+        Color originalColor = g2.getColor();
+        g2.setColor(Colors.LOGIC_LOOP_WARNING);
+        g2.drawString(message, 12, baseline);
+        g2.setColor(originalColor);
+    }
+
+    /**
+     * Outlines board gates whose feedback loop did not settle in the last step.
+     */
+    private void drawUnstableLoopMarkers(Graphics2D g2, java.awt.Rectangle visibleWorld) {
+        if (logicLoopStatus == LogicPhysics.LoopStatus.STABLE) {
+            return;
+        }
+        Color originalColor = g2.getColor();
+        g2.setColor(Colors.LOGIC_LOOP_WARNING);
+        for (CircuitComponent component : spatialIndex.componentsIn(visibleWorld)) {
+            if (component instanceof circuitsim.components.logic.LogicGate gate
+                    && gate.getLoopStatus() != LogicPhysics.LoopStatus.STABLE) {
+                java.awt.Rectangle bounds = gate.getBounds();
+                g2.drawRect(bounds.x - 3, bounds.y - 3, bounds.width + 6, bounds.height + 6);
+            }
+        }
+        g2.setColor(originalColor);
+    }
+
     private void drawCoordinatesHud(Graphics2D g2) {
         int worldX = hasLastMouseWorld ? lastMouseWorldX : viewTransform.toWorldX(getWidth() / 2);
         int worldY = hasLastMouseWorld ? lastMouseWorldY : viewTransform.toWorldY(getHeight() / 2);
@@ -267,29 +349,34 @@ public class CircuitPanel extends JPanel {
         java.awt.Composite originalComposite = g2.getComposite();
         g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.5f));
         placementPreview.setPosition(placementX, placementY);
-        placementPreview.draw(g2);
+        placementPreview.draw(g2, viewTransform.getZoomFactor());
         g2.setComposite(originalComposite);
     }
 
     /**
-     * Updates the circuit physics and renders all wires.
+     * Renders the wires that may show within the visible world area.
      */
-    private void drawWires(Graphics2D g2) {
+    private void drawWires(Graphics2D g2, java.awt.Rectangle visibleWorld) {
         lastRenderWires = buildRenderWires();
-        for (Wire wire : wires) {
-            wire.setShortCircuit(lastShortCircuit);
-        }
-        for (RenderWire renderWire : lastRenderWires) {
-            renderWire.wire.drawAt(g2, renderWire.x1, renderWire.y1, renderWire.x2, renderWire.y2);
+        java.awt.Rectangle area = new java.awt.Rectangle(visibleWorld);
+        area.grow(WIRE_PAINT_MARGIN, WIRE_PAINT_MARGIN);
+        List<RenderWire> visibleWires = spatialIndex.renderWiresIn(lastRenderWires, area);
+        double zoomFactor = viewTransform.getZoomFactor();
+        for (RenderWire renderWire : visibleWires) {
+            renderWire.wire.setShortCircuit(lastShortCircuit);
+            renderWire.wire.drawAt(g2, renderWire.x1, renderWire.y1, renderWire.x2, renderWire.y2, zoomFactor);
             drawWireEndpointStub(g2, renderWire, true);
             drawWireEndpointStub(g2, renderWire, false);
         }
-        drawWireCrossings(g2, lastRenderWires);
+        // Crossing arcs shrink to a few pixels below full detail.
+        if (DetailLevel.forZoom(zoomFactor) == DetailLevel.FULL) {
+            drawWireCrossings(g2, lastRenderWires, visibleWires);
+        }
     }
 
     private void advanceSimulationFrame() {
         if (simulationPaused) {
-            repaint();
+            repaintChanged();
             return;
         }
         runSimulationSteps(SIMULATION_SUBSTEPS);
@@ -299,21 +386,49 @@ public class CircuitPanel extends JPanel {
         runSimulationSteps(SIMULATION_SUBSTEPS);
     }
 
+    /**
+     * @return compiled logic netlist of the view, recompiled when the view changes or a component moves
+     */
+    private LogicPhysics.Netlist logicNetlistFor(SimulationViewBuilder.SimulationView simulationView) {
+        long componentVersion = boardGeometry.getComponentVersion();
+        if (logicNetlist == null || logicNetlistView != simulationView
+                || logicNetlistComponentVersion != componentVersion) {
+            logicNetlist = LogicPhysics.compile(simulationView.components, simulationView.wires,
+                    simulationView.netIndex);
+            logicNetlistView = simulationView;
+            logicNetlistComponentVersion = componentVersion;
+        }
+        return logicNetlist;
+    }
+
     private void runSimulationSteps(int stepCount) {
-        SimulationViewBuilder.SimulationView simulationView = SimulationViewBuilder.build(components, wires,
-                customDefinitionResolver, this::applyComponentState);
+        SimulationViewBuilder.SimulationView simulationView = simulationViewBuilder.build(components, wires,
+                wireNetIndex, customDefinitionResolver, this::applyComponentState);
         boolean shortCircuit = false;
+        LogicPhysics.LoopStatus previousLoopStatus = logicLoopStatus;
+        int previousLoopPeriod = logicLoopPeriod;
         int iterations = Math.max(1, stepCount);
+        LogicPhysics.Netlist netlist = logicNetlistFor(simulationView);
+        Runnable settleClockEdge = () -> {
+            netlist.propagateClockEdges();
+            waveformRecorder.sample(digitalScheduler.getTick());
+        };
+        digitalScheduler.beginFrame();
         for (int i = 0; i < iterations; i++) {
             for (circuitsim.components.core.CircuitComponent component : simulationView.components) {
                 component.beforeSimulation();
             }
+            netlist.invalidate();
+            digitalScheduler.advance(netlist.getClocks(), SIMULATION_STEP_SECONDS, settleClockEdge);
             shortCircuit = CircuitPhysics.update(simulationView.components, simulationView.wires,
-                    treatCustomOutputsAsGround, SIMULATION_STEP_SECONDS);
+                    simulationView.netIndex, simulationView.domains, treatCustomOutputsAsGround,
+                    SIMULATION_STEP_SECONDS);
+            waveformRecorder.sample(digitalScheduler.getTick());
             for (circuitsim.components.core.CircuitComponent component : simulationView.components) {
                 component.afterSimulation();
             }
         }
+        boolean hudChanged = shortCircuit != lastShortCircuit;
         if (shortCircuit != lastShortCircuit) {
             if (shortCircuit) {
                 shortCircuitPopup.showPopup();
@@ -322,11 +437,68 @@ public class CircuitPanel extends JPanel {
             }
             lastShortCircuit = shortCircuit;
         }
+        updateLogicLoopStatus(simulationView.components);
+        hudChanged |= logicLoopStatus != previousLoopStatus || logicLoopPeriod != previousLoopPeriod;
+        if (logicAnalyzerDialog != null && logicAnalyzerDialog.isVisible()) {
+            logicAnalyzerPanel.refresh();
+        }
         for (Wire wire : wires) {
             wire.setShortCircuit(shortCircuit);
         }
         lastRenderWires = buildRenderWires();
-        repaint();
+        if (hudChanged) {
+            collectChanges();
+            repaint();
+        } else {
+            repaintChanged();
+        }
+    }
+
+    /**
+     * Repaints only the areas of components and wires whose geometry or displayed values changed since the
+     * last frame; an idle board is not repainted at all.
+     */
+    private void repaintChanged() {
+        java.awt.Rectangle changed = collectChanges();
+        if (changed != null) {
+            repaint(changed);
+        }
+    }
+
+    /**
+     * Marks the areas whose geometry or displayed values changed since the last call as stale in the board
+     * layer.
+     *
+     * @return screen area to repaint, or null when nothing visible changed
+     */
+    private java.awt.Rectangle collectChanges() {
+        java.awt.Rectangle dirty = dirtyRegions.collect(components, wires);
+        if (dirty == null) {
+            return null;
+        }
+        boardLayer.invalidate(dirty);
+        return viewTransform.toScreen(dirty);
+    }
+
+    private void updateLogicLoopStatus(List<CircuitComponent> simulationComponents) {
+        LogicPhysics.LoopStatus status = LogicPhysics.LoopStatus.STABLE;
+        int period = 0;
+        for (CircuitComponent component : simulationComponents) {
+            if (!(component instanceof circuitsim.components.logic.LogicGate gate)) {
+                continue;
+            }
+            LogicPhysics.LoopStatus gateStatus = gate.getLoopStatus();
+            if (gateStatus == LogicPhysics.LoopStatus.DIVERGENT) {
+                status = gateStatus;
+                break;
+            }
+            if (gateStatus == LogicPhysics.LoopStatus.OSCILLATING) {
+                status = gateStatus;
+                period = Math.max(period, gate.getLoopPeriod());
+            }
+        }
+        logicLoopStatus = status;
+        logicLoopPeriod = period;
     }
 
     private void drawWireEndpointStub(Graphics2D g2, RenderWire renderWire, boolean start) {
@@ -340,7 +512,7 @@ public class CircuitPanel extends JPanel {
         java.awt.Color originalColor = g2.getColor();
         java.awt.Stroke originalStroke = g2.getStroke();
         g2.setColor(renderWire.wire.getColor());
-        g2.setStroke(new java.awt.BasicStroke(Wire.getStrokeWidth()));
+        g2.setStroke(Wire.getStroke());
         g2.drawLine(baseX, baseY, x, y);
         g2.setStroke(originalStroke);
         g2.setColor(originalColor);
@@ -411,13 +583,9 @@ public class CircuitPanel extends JPanel {
         java.awt.Color originalColor = g2.getColor();
         java.awt.Stroke originalStroke = g2.getStroke();
         g2.setColor(Colors.SELECTION);
-        g2.setStroke(new java.awt.BasicStroke(5f));
-        Map<Wire, RenderWire> renderMap = new HashMap<>();
-        for (RenderWire renderWire : lastRenderWires) {
-            renderMap.put(renderWire.wire, renderWire);
-        }
+        g2.setStroke(SELECTED_WIRE_STROKE);
         for (Wire wire : selection.selectedWires) {
-            RenderWire renderWire = renderMap.get(wire);
+            RenderWire renderWire = renderWireCache.getRenderWire(wire);
             if (renderWire == null) {
                 continue;
             }
@@ -438,30 +606,6 @@ public class CircuitPanel extends JPanel {
         g2.setColor(original);
     }
 
-    /**
-     * Draws the background grid based on the current view transform.
-     */
-    private void drawGrid(Graphics2D g2) {
-        Color original = g2.getColor();
-        g2.setColor(Colors.GRID_LINE);
-        int width = getWidth();
-        int height = getHeight();
-        double zoomFactor = viewTransform.getZoomFactor();
-        int leftWorld = (int) Math.floor(-viewTransform.getOffsetX() / zoomFactor);
-        int topWorld = (int) Math.floor(-viewTransform.getOffsetY() / zoomFactor);
-        int rightWorld = (int) Math.ceil((width - viewTransform.getOffsetX()) / zoomFactor);
-        int bottomWorld = (int) Math.ceil((height - viewTransform.getOffsetY()) / zoomFactor);
-        int startX = (int) Math.floor(leftWorld / (double) Grid.SIZE) * Grid.SIZE;
-        int startY = (int) Math.floor(topWorld / (double) Grid.SIZE) * Grid.SIZE;
-        for (int x = startX; x <= rightWorld; x += Grid.SIZE) {
-            g2.drawLine(x, topWorld, x, bottomWorld);
-        }
-        for (int y = startY; y <= bottomWorld; y += Grid.SIZE) {
-            g2.drawLine(leftWorld, y, rightWorld, y);
-        }
-        g2.setColor(original);
-    }
-
     /**
      * Shows a context menu based on what is under the cursor.
      */
@@ -476,6 +620,16 @@ public class CircuitPanel extends JPanel {
                 recordHistoryState();
                 repaint();
             });
+            JCheckBoxMenuItem probeItem = new JCheckBoxMenuItem("Probe",
+                    waveformRecorder.isProbed(wireHit.wire));
+            probeItem.addActionListener(event -> {
+                if (probeItem.isSelected()) {
+                    waveformRecorder.addProbe(wireHit.wire, "wire" + (wires.indexOf(wireHit.wire) + 1));
+                    showLogicAnalyzer();
+                } else {
+                    waveformRecorder.removeProbe(wireHit.wire);
+                }
+            });
             JMenuItem deleteItem = new JMenuItem("Delete");
             deleteItem.addActionListener(event -> {
                 removeWire(wireHit.wire);
@@ -483,6 +637,7 @@ public class CircuitPanel extends JPanel {
                 repaint();
             });
             menu.add(showDataItem);
+            menu.add(probeItem);
             menu.add(deleteItem);
             menu.show(this, e.getX(), e.getY());
             return;
@@ -499,6 +654,9 @@ public class CircuitPanel extends JPanel {
                 addMenu.add(item);
             }
             menu.add(addMenu);
+            JMenuItem analyzerItem = new JMenuItem("Logic Analyzer...");
+            analyzerItem.addActionListener(event -> showLogicAnalyzer());
+            menu.add(analyzerItem);
             menu.show(this, e.getX(), e.getY());
             return;
         }
@@ -512,10 +670,37 @@ public class CircuitPanel extends JPanel {
             recordHistoryState();
             repaint();
         });
+        if (WaveformRecorder.isProbeable(component)) {
+            JCheckBoxMenuItem probeItem = new JCheckBoxMenuItem("Probe", waveformRecorder.isProbed(component));
+            probeItem.addActionListener(event -> {
+                if (probeItem.isSelected()) {
+                    waveformRecorder.addProbe(component, component.getDisplayName());
+                    showLogicAnalyzer();
+                } else {
+                    waveformRecorder.removeProbe(component);
+                }
+            });
+            menu.add(probeItem);
+        }
         menu.add(deleteItem);
         menu.show(this, e.getX(), e.getY());
     }
 
+    /**
+     * Shows the logic analyzer window for probed signals.
+     */
+    void showLogicAnalyzer() {
+        if (logicAnalyzerDialog == null) {
+            logicAnalyzerPanel = new LogicAnalyzerPanel(waveformRecorder);
+            logicAnalyzerDialog = new javax.swing.JDialog(SwingUtilities.getWindowAncestor(this), "Logic Analyzer");
+            logicAnalyzerDialog.setContentPane(logicAnalyzerPanel);
+            logicAnalyzerDialog.pack();
+            logicAnalyzerDialog.setLocationRelativeTo(this);
+        }
+        logicAnalyzerPanel.refresh();
+        logicAnalyzerDialog.setVisible(true);
+    }
+
     /**
      * Adds a component entry at a world position and updates history.
      */
@@ -595,9 +780,21 @@ public class CircuitPanel extends JPanel {
      * Stores the latest mouse position in world coordinates for palette placement.
      */
     void updateLastMouseWorld(int screenX, int screenY) {
-        lastMouseWorldX = viewTransform.toWorldX(screenX);
-        lastMouseWorldY = viewTransform.toWorldY(screenY);
+        int worldX = viewTransform.toWorldX(screenX);
+        int worldY = viewTransform.toWorldY(screenY);
+        boolean hudChanged = !hasLastMouseWorld || Grid.snap(worldX) != Grid.snap(lastMouseWorldX)
+                || Grid.snap(worldY) != Grid.snap(lastMouseWorldY);
+        lastMouseWorldX = worldX;
+        lastMouseWorldY = worldY;
         hasLastMouseWorld = true;
+        if (hudChanged) {
+            java.awt.Rectangle hudBounds = coordinatesOverlay.getRepaintBounds();
+            if (hudBounds == null) {
+                repaint();
+            } else {
+                repaint(hudBounds);
+            }
+        }
     }
 
     void updatePlacementAtScreen(int screenX, int screenY) {
@@ -744,29 +941,47 @@ public class CircuitPanel extends JPanel {
         if (customId == null || definition == null) {
             return;
         }
-        for (int i = 0; i < components.size(); i++) {
-            CircuitComponent component = components.get(i);
-            if (!(component instanceof CustomComponent)) {
-                continue;
-            }
-            CustomComponent custom = (CustomComponent) component;
-            CustomComponentDefinition existing = custom.getDefinition();
-            if (existing == null || !customId.equals(existing.getId())) {
+        updateCustomComponentInstances(java.util.Collections.singletonMap(customId, definition));
+    }
+
+    /**
+     * Swaps updated definitions into their instances in one batch. Instances that only nest an updated
+     * definition keep their shell; the simulation view re-expands them from the once-recompiled template.
+     */
+    public void updateCustomComponentInstances(Map<String, CustomComponentDefinition> updates) {
+        if (updates == null || updates.isEmpty()) {
+            return;
+        }
+        boolean affected = false;
+        for (Map.Entry<String, CustomComponentDefinition> update : updates.entrySet()) {
+            CustomComponentDefinition definition = update.getValue();
+            if (definition == null) {
                 continue;
             }
-            CustomComponent replacement = new CustomComponent(custom.getX(), custom.getY(), definition);
-            replacement.setSize(replacement.getWidth(), replacement.getHeight());
-            replacement.setRotationQuarterTurns(custom.getRotationQuarterTurns());
-            components.set(i, replacement);
-            if (selection.selectedComponents.contains(custom)) {
-                int index = selection.selectedComponents.indexOf(custom);
-                selection.selectedComponents.set(index, replacement);
-            }
-            if (selection.selectedComponent == custom) {
-                selection.selectedComponent = replacement;
+            for (int i : customInstanceIndex.getPositions(components, update.getKey())) {
+                CustomComponent custom = (CustomComponent) components.get(i);
+                affected = true;
+                if (custom.getDefinition() == definition) {
+                    continue;
+                }
+                CustomComponent replacement = new CustomComponent(custom.getX(), custom.getY(), definition);
+                replacement.setSize(replacement.getWidth(), replacement.getHeight());
+                replacement.setRotationQuarterTurns(custom.getRotationQuarterTurns());
+                components.set(i, replacement);
+                customInstanceIndex.replace(i, replacement);
+                int selectedIndex = selection.selectedComponents.indexOf(custom);
+                if (selectedIndex >= 0) {
+                    selection.selectedComponents.set(selectedIndex, replacement);
+                }
+                if (selection.selectedComponent == custom) {
+                    selection.selectedComponent = replacement;
+                }
             }
         }
-        repaint();
+        if (affected || !customInstanceIndex.getNestedDependents(components, updates.keySet(),
+                customDefinitionResolver).isEmpty()) {
+            repaint();
+        }
     }
 
     /**
@@ -803,8 +1018,9 @@ public class CircuitPanel extends JPanel {
      * Finds the topmost component at the provided point.
      */
     CircuitComponent findComponentAtPoint(int mouseX, int mouseY) {
-        for (int i = components.size() - 1; i >= 0; i--) {
-            CircuitComponent component = components.get(i);
+        List<CircuitComponent> candidates = spatialIndex.componentsIn(SpatialIndex.around(mouseX, mouseY, 0));
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            CircuitComponent component = candidates.get(i);
             if (component.contains(mouseX, mouseY)) {
                 return component;
             }
@@ -836,6 +1052,7 @@ public class CircuitPanel extends JPanel {
         }
         wire.detach();
         wires.remove(wire);
+        wireNetIndex.removeWire(wire);
         selection.refresh();
         return true;
     }
@@ -936,6 +1153,7 @@ public class CircuitPanel extends JPanel {
             public void actionPerformed(java.awt.event.ActionEvent e) {
                 if (!simulationPaused) {
                     simulationPaused = true;
+                    repaint();
                 }
                 stepSimulationFrame();
             }
@@ -1017,7 +1235,7 @@ public class CircuitPanel extends JPanel {
     }
 
     /**
-     * Binds the save shortcut.
+     * Binds the save shortcuts; Ctrl+Shift+S saves for builds that predate version 2.
      */
     private void configureSaveKeyBindings() {
         javax.swing.InputMap inputMap = getInputMap(JComponent.WHEN_FOCUSED);
@@ -1033,6 +1251,19 @@ public class CircuitPanel extends JPanel {
                 saveBoardState();
             }
         });
+        inputMap.put(javax.swing.KeyStroke.getKeyStroke(KeyEvent.VK_S,
+                java.awt.event.InputEvent.CTRL_DOWN_MASK | java.awt.event.InputEvent.SHIFT_DOWN_MASK),
+                "saveBoardForOlderVersions");
+        actionMap.put("saveBoardForOlderVersions", new javax.swing.AbstractAction() {
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                boardFileIO.saveForOlderVersions(CircuitPanel.this, CircuitPanel.this::buildBoardState,
+                        CircuitPanel.this::showError);
+            }
+        });
     }
 
     /**
@@ -1355,6 +1586,7 @@ public class CircuitPanel extends JPanel {
                     wire.setEndAnchorWire(resolvedEndAnchor);
                 }
                 wires.add(wire);
+                wireNetIndex.addWire(wire);
                 rebuildWireAttachments();
                 recordHistoryState();
             }
@@ -1502,6 +1734,8 @@ public class CircuitPanel extends JPanel {
         Boolean burnedOut = null;
         Float wiperPosition = null;
         Boolean closed = null;
+        Float frequency = null;
+        Float dutyCycle = null;
         switch (component) {
             case circuitsim.components.electrical.Battery battery -> {
                 voltage = battery.getVoltage();
@@ -1526,6 +1760,12 @@ public class CircuitPanel extends JPanel {
                 wiperPosition = slider.getWiperPosition();
             }
             case circuitsim.components.electrical.Switch toggle -> closed = toggle.isClosed();
+            case circuitsim.components.electrical.Clock clock -> {
+                voltage = clock.getVoltage();
+                closed = clock.isActive();
+                frequency = clock.getFrequency();
+                dutyCycle = clock.getDutyCycle();
+            }
             case circuitsim.components.electrical.Source source -> {
                 voltage = source.getVoltage();
                 closed = source.isActive();
@@ -1543,7 +1783,8 @@ public class CircuitPanel extends JPanel {
         return new BoardState.ComponentState(type, component.getX(), component.getY(),
                 component.getWidth(), component.getHeight(), component.getRotationQuarterTurns(),
                 component.getDisplayName(), customId, component.isShowTitle(), component.isShowingPropertyValues(),
-                voltage, internalResistance, resistance, capacitance, inductance, gain, powerWatt, burnedOut, wiperPosition, closed);
+                voltage, internalResistance, resistance, capacitance, inductance, gain, powerWatt, burnedOut, wiperPosition, closed,
+                frequency, dutyCycle);
     }
 
     /**
@@ -1577,6 +1818,7 @@ public class CircuitPanel extends JPanel {
             Wire wire = Wire.connect(start, end, wireState.getColor());
             wire.setShowData(wireState.isShowData());
             wires.add(wire);
+            wireNetIndex.addWire(wire);
         }
         rebuildWireAttachments();
         selection.clearSelection();
@@ -1693,6 +1935,20 @@ public class CircuitPanel extends JPanel {
                     toggle.setClosed(state.getClosed());
                 }
             }
+            case circuitsim.components.electrical.Clock clock -> {
+                if (state.getVoltage() != null) {
+                    clock.setVoltage(state.getVoltage());
+                }
+                if (state.getClosed() != null) {
+                    clock.setActive(state.getClosed());
+                }
+                if (state.getFrequency() != null) {
+                    clock.setFrequency(state.getFrequency());
+                }
+                if (state.getDutyCycle() != null) {
+                    clock.setDutyCycle(state.getDutyCycle());
+                }
+            }
             case circuitsim.components.electrical.Source source -> {
                 if (state.getVoltage() != null) {
                     source.setVoltage(state.getVoltage());
@@ -1732,6 +1988,7 @@ public class CircuitPanel extends JPanel {
      * Captures the current state for undo history and autosave.
      */
     void recordHistoryState() {
+        waveformRecorder.retainProbes(components, wires);
         if (applyingState) {
             return;
         }
@@ -1771,6 +2028,10 @@ public class CircuitPanel extends JPanel {
             wire.detach();
         }
         wires.clear();
+        wireNetIndex.clear();
+        digitalScheduler.reset();
+        logicNetlist = null;
+        logicNetlistView = null;
         selection.clearSelection();
         recordHistoryState();
         repaint();
@@ -1786,7 +2047,8 @@ public class CircuitPanel extends JPanel {
             return null;
         }
         List<RenderWire> renderWires = lastRenderWires.isEmpty() ? buildRenderWires() : lastRenderWires;
-        for (RenderWire renderWire : renderWires) {
+        for (RenderWire renderWire : spatialIndex.renderWiresIn(renderWires,
+                SpatialIndex.around(mouseX, mouseY, (int) Math.ceil(maxDistance)))) {
             if (Geometry2D.distancePointToSegment(mouseX, mouseY,
                     renderWire.x1, renderWire.y1, renderWire.x2, renderWire.y2)
                     <= maxDistance) {
@@ -1807,12 +2069,12 @@ public class CircuitPanel extends JPanel {
         }
         List<CircuitComponent> areaComponents = new ArrayList<>();
         List<Wire> areaWires = new ArrayList<>();
-        for (CircuitComponent component : components) {
+        for (CircuitComponent component : spatialIndex.componentsIn(area)) {
             if (area.intersects(component.getBounds())) {
                 areaComponents.add(component);
             }
         }
-        for (Wire wire : wires) {
+        for (Wire wire : spatialIndex.wiresIn(area)) {
             if (wireIntersectsArea(wire, area)) {
                 areaWires.add(wire);
             }
@@ -1854,7 +2116,7 @@ public class CircuitPanel extends JPanel {
      */
     WireEndpointHit findWireEndpointAt(int mouseX, int mouseY) {
         int radiusSq = WIRE_ENDPOINT_RADIUS * WIRE_ENDPOINT_RADIUS;
-        for (Wire wire : wires) {
+        for (Wire wire : spatialIndex.wiresIn(SpatialIndex.around(mouseX, mouseY, WIRE_ENDPOINT_RADIUS))) {
             WireNode start = wire.getStart();
             WireNode end = wire.getEnd();
             if (start != null) {
@@ -1879,7 +2141,7 @@ public class CircuitPanel extends JPanel {
      * Returns an existing node at the position or creates a new one.
      */
     WireNode getOrCreateNodeAt(int x, int y) {
-        for (Wire wire : wires) {
+        for (Wire wire : spatialIndex.wiresIn(SpatialIndex.around(x, y, 0))) {
             WireNode start = wire.getStart();
             WireNode end = wire.getEnd();
             if (start != null && start.getX() == x && start.getY() == y) {
@@ -1912,12 +2174,15 @@ public class CircuitPanel extends JPanel {
         boolean showData = target.isShowData();
         target.detach();
         wires.remove(target);
+        wireNetIndex.removeWire(target);
         Wire first = Wire.connect(start, splitNode, color);
         Wire second = Wire.connect(splitNode, end, color);
         first.setShowData(showData);
         second.setShowData(showData);
         wires.add(first);
         wires.add(second);
+        wireNetIndex.addWire(first);
+        wireNetIndex.addWire(second);
         return new WireSplitResult(splitNode, first);
     }
 
@@ -1927,7 +2192,7 @@ public class CircuitPanel extends JPanel {
     private Wire findWireForSplit(int x, int y) {
         double maxDistance = 6.0;
         int endpointRadiusSq = WIRE_ENDPOINT_RADIUS * WIRE_ENDPOINT_RADIUS;
-        for (Wire wire : wires) {
+        for (Wire wire : spatialIndex.wiresIn(SpatialIndex.around(x, y, (int) Math.ceil(maxDistance)))) {
             if (wire.getWireColor() != activeWireColor) {
                 continue;
             }
@@ -1970,24 +2235,24 @@ public class CircuitPanel extends JPanel {
 
 
     /**
-     * Builds render wires with offset calculations applied.
+     * @return render wires with offset calculations applied, patched only where wires moved
      */
     private List<RenderWire> buildRenderWires() {
-        return WireRenderPlanner.buildRenderWires(wires, WIRE_OFFSET_STEP);
+        return renderWireCache.getRenderWires(wires, wires.getVersion());
     }
 
     /**
-     * Draws overpass arcs where wires cross.
+     * Draws overpass arcs where visible wires cross.
      */
-    private void drawWireCrossings(Graphics2D g2, List<RenderWire> renderWires) {
-        Map<Wire, List<WireCrossing>> crossings = WireRenderPlanner.computeWireCrossings(renderWires);
+    private void drawWireCrossings(Graphics2D g2, List<RenderWire> renderWires, List<RenderWire> visibleWires) {
+        Map<Wire, List<WireCrossing>> crossings = wireCrossings.getCrossings(renderWires);
         if (crossings.isEmpty()) {
             return;
         }
         java.awt.Stroke originalStroke = g2.getStroke();
         java.awt.Color originalColor = g2.getColor();
-        g2.setStroke(new java.awt.BasicStroke(Wire.getStrokeWidth()));
-        for (RenderWire renderWire : renderWires) {
+        g2.setStroke(Wire.getStroke());
+        for (RenderWire renderWire : visibleWires) {
             List<WireCrossing> wireCrossings = crossings.get(renderWire.wire);
             if (wireCrossings == null) {
                 continue;
@@ -1996,29 +2261,22 @@ public class CircuitPanel extends JPanel {
                 g2.setColor(Colors.CANVAS_BG);
                 g2.fillOval(crossing.x - CROSSING_RADIUS, crossing.y - CROSSING_RADIUS,
                         CROSSING_RADIUS * 2, CROSSING_RADIUS * 2);
-                java.awt.geom.AffineTransform originalTransform = g2.getTransform();
-                g2.translate(crossing.x, crossing.y);
-                g2.rotate(crossing.angle);
                 g2.setColor(renderWire.wire.getColor());
-                g2.drawArc(-CROSSING_RADIUS, -CROSSING_RADIUS,
-                        CROSSING_RADIUS * 2, CROSSING_RADIUS * 2, 0, 180);
-                g2.setTransform(originalTransform);
+                g2.drawArc(crossing.x - CROSSING_RADIUS, crossing.y - CROSSING_RADIUS,
+                        CROSSING_RADIUS * 2, CROSSING_RADIUS * 2, crossing.arcStartAngle, 180);
             }
         }
         g2.setStroke(originalStroke);
         g2.setColor(originalColor);
     }
 
-    /**
-     * Computes crossings between wire segments.
-     */
-
     /**
      * Finds a connection point near the provided coordinates.
      */
     ConnectionPoint findConnectionPointAt(int mouseX, int mouseY) {
-        for (int i = components.size() - 1; i >= 0; i--) {
-            CircuitComponent component = components.get(i);
+        List<CircuitComponent> candidates = spatialIndex.componentsIn(SpatialIndex.around(mouseX, mouseY, 0));
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            CircuitComponent component = candidates.get(i);
             int radius = component.getConnectionDotSize() / 2;
             for (ConnectionPoint point : component.getConnectionPoints()) {
                 int centerX = component.getConnectionPointWorldX(point);
@@ -13,7 +13,11 @@ public final class Colors {
     public static final Color WIRE = new Color(170, 170, 180);
     public static final Color WIRE_LABEL = new Color(200, 200, 210);
     public static final Color SHORT_LABEL = new Color(220, 60, 60);
+    public static final Color WIRE_POWERED = new Color(220, 60, 60);
+    public static final Color WIRE_POWERED_ON_RED = new Color(160, 40, 40);
+    public static final Color LOGIC_LOOP_WARNING = new Color(240, 170, 60);
     public static final Color COMPONENT_STROKE = new Color(220, 220, 220);
+    public static final Color COMPONENT_OVERVIEW = new Color(140, 140, 150);
     public static final Color CONNECTION_DOT = new Color(220, 60, 60);
     public static final Color PROPERTIES_BG = new Color(45, 45, 50);
     public static final Color PROPERTIES_TEXT = new Color(230, 230, 235);
@@ -35,6 +39,9 @@ public final class Colors {
     public static final Color COMPONENT_DROPDOWN_BORDER = new Color(70, 70, 80);
     public static final Color COMPONENT_ENTRY_HOVER = new Color(60, 80, 110);
     public static final Color COMPONENT_ENTRY_TEXT = new Color(220, 220, 230);
+    public static final Color CLOCK_WAVE_HIGH = new Color(220, 120, 60);
+    public static final Color CLOCK_ENABLED = new Color(80, 200, 120);
+    public static final Color CLOCK_DISABLED = new Color(120, 120, 130);
 
     /**
      * Prevent instantiation.
@@ -20,6 +20,21 @@ public final class CoordinatesOverlay {
     private static final float BG_ALPHA = 0.75f;
     private static final float FONT_SCALE = 0.9f;
     private static final float MIN_FONT_SIZE = 12f;
+    private static final int TEXT_GROWTH = 80;
+
+    private java.awt.Rectangle lastBox;
+
+    /**
+     * @return screen area to repaint when only the coordinates changed, widened to the left for longer text,
+     * or null before the overlay was first drawn
+     */
+    public java.awt.Rectangle getRepaintBounds() {
+        if (lastBox == null) {
+            return null;
+        }
+        return new java.awt.Rectangle(lastBox.x - TEXT_GROWTH, lastBox.y - 1,
+                lastBox.width + TEXT_GROWTH + 1, lastBox.height + 2);
+    }
 
     /**
      * Draws the overlay in screen space.
@@ -63,6 +78,7 @@ public final class CoordinatesOverlay {
         g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, BG_ALPHA));
         g2.setColor(Colors.PROPERTIES_BG);
         g2.fillRoundRect(boxX, boxY, boxW, boxH, ARC, ARC);
+        lastBox = new java.awt.Rectangle(boxX, boxY, boxW, boxH);
         g2.setComposite(originalComposite);
         g2.setColor(Colors.PROPERTIES_TEXT);
         g2.drawString(text, boxX + PAD_X, boxY + PAD_Y + metrics.getAscent());
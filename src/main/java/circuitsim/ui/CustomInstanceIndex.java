@@ -0,0 +1,121 @@
+package circuitsim.ui;
+
+import circuitsim.components.core.CircuitComponent;
+import circuitsim.components.ports.CustomComponent;
+import circuitsim.custom.CustomComponentDefinition;
+import circuitsim.io.BoardState;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Tracks which board positions hold instances of which custom component definitions, and which instances nest
+ * a definition inside their own. The position map is rebuilt only when the component list changes.
+ */
+final class CustomInstanceIndex {
+    private static final Map<CustomComponentDefinition, Set<String>> CHILD_IDS = new java.util.WeakHashMap<>();
+
+    private CircuitComponent[] snapshot = new CircuitComponent[0];
+    private final Map<String, List<Integer>> positionsById = new HashMap<>();
+
+    /**
+     * @return board positions of the instances whose definition has the given id
+     */
+    List<Integer> getPositions(List<CircuitComponent> components, String customId) {
+        refresh(components);
+        List<Integer> positions = positionsById.get(customId);
+        return positions == null ? Collections.emptyList() : positions;
+    }
+
+    /**
+     * Records an in-place replacement so the index stays valid for the rest of a batch.
+     */
+    void replace(int position, CircuitComponent replacement) {
+        if (position >= 0 && position < snapshot.length) {
+            snapshot[position] = replacement;
+        }
+    }
+
+    /**
+     * @return board positions of instances that use one of the ids somewhere inside their definition
+     */
+    List<Integer> getNestedDependents(List<CircuitComponent> components, Collection<String> customIds,
+                                      Function<String, CustomComponentDefinition> resolver) {
+        refresh(components);
+        List<Integer> dependents = new ArrayList<>();
+        Map<String, Boolean> memo = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : positionsById.entrySet()) {
+            CustomComponent sample = (CustomComponent) snapshot[entry.getValue().get(0)];
+            if (nests(sample.getDefinition(), customIds, resolver, memo, new HashSet<>())) {
+                dependents.addAll(entry.getValue());
+            }
+        }
+        return dependents;
+    }
+
+    private static boolean nests(CustomComponentDefinition definition, Collection<String> customIds,
+                                 Function<String, CustomComponentDefinition> resolver, Map<String, Boolean> memo,
+                                 Set<String> visiting) {
+        if (definition == null || !visiting.add(definition.getId())) {
+            return false;
+        }
+        Boolean known = memo.get(definition.getId());
+        if (known != null) {
+            return known;
+        }
+        boolean result = false;
+        for (String childId : getChildIds(definition)) {
+            if (customIds.contains(childId)
+                    || nests(resolver.apply(childId), customIds, resolver, memo, visiting)) {
+                result = true;
+                break;
+            }
+        }
+        memo.put(definition.getId(), result);
+        return result;
+    }
+
+    private static Set<String> getChildIds(CustomComponentDefinition definition) {
+        synchronized (CHILD_IDS) {
+            Set<String> ids = CHILD_IDS.get(definition);
+            if (ids == null) {
+                ids = new HashSet<>();
+                BoardState state = definition.getBoardState();
+                if (state != null) {
+                    for (BoardState.ComponentState componentState : state.getComponents()) {
+                        if ("Custom".equals(componentState.getType()) && componentState.getCustomId() != null) {
+                            ids.add(componentState.getCustomId());
+                        }
+                    }
+                }
+                CHILD_IDS.put(definition, ids);
+            }
+            return ids;
+        }
+    }
+
+    private void refresh(List<CircuitComponent> components) {
+        if (components.size() == snapshot.length) {
+            boolean same = true;
+            for (int i = 0; i < snapshot.length && same; i++) {
+                same = components.get(i) == snapshot[i];
+            }
+            if (same) {
+                return;
+            }
+        }
+        snapshot = components.toArray(new CircuitComponent[0]);
+        positionsById.clear();
+        for (int i = 0; i < snapshot.length; i++) {
+            if (snapshot[i] instanceof CustomComponent custom && custom.getDefinition() != null) {
+                positionsById.computeIfAbsent(custom.getDefinition().getId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+    }
+}
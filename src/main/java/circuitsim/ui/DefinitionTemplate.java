@@ -0,0 +1,487 @@
+package circuitsim.ui;
+
+import circuitsim.components.core.CircuitComponent;
+import circuitsim.components.core.ComponentRegistry;
+import circuitsim.components.core.ConnectionPoint;
+import circuitsim.components.electrical.Capacitor;
+import circuitsim.components.electrical.Inductor;
+import circuitsim.components.electrical.PassiveDeviceBank;
+import circuitsim.components.electrical.Resistor;
+import circuitsim.components.logic.LogicLookupTable;
+import circuitsim.components.ports.CustomComponent;
+import circuitsim.components.ports.CustomInputPort;
+import circuitsim.components.ports.CustomOutputPort;
+import circuitsim.components.wiring.Wire;
+import circuitsim.components.wiring.WireColor;
+import circuitsim.components.wiring.WireNode;
+import circuitsim.custom.CustomComponentDefinition;
+import circuitsim.io.BoardState;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Immutable, flattened compilation of a custom component definition.
+ * Nested definitions are inlined (or replaced by their lookup tables) into disjoint local regions once, with
+ * nested ports bound to their shells by node id instead of connector wires, so an instance is stamped out
+ * from primitive arrays plus an offset without walking board states or resolving nested definitions again.
+ * Resistors, capacitors and inductors are not instantiated as components at all: their kinds, values and
+ * terminals stay in the template's arrays and each instance gets a single {@link PassiveDeviceBank}.
+ * Templates are cached weakly per interned definition, so they go away with it, and revalidated against the
+ * content hashes of the definition and of every definition it inlines.
+ */
+final class DefinitionTemplate {
+    private static final int NESTED_MARGIN = Grid.SIZE * 20;
+    private static final int MIN_COMPONENT_EXTENT = Grid.SIZE * 4;
+    private static final Map<CustomComponentDefinition, DefinitionTemplate> CACHE = new java.util.WeakHashMap<>();
+
+    private final String contentHash;
+    private final Map<String, String> dependencies;
+    private final BoardState.ComponentState[] deviceStates;
+    private final int[] deviceX;
+    private final int[] deviceY;
+    private final byte[] passiveKinds;
+    private final double[] passiveValues;
+    private final int[] passiveTerminals;
+    private final CustomComponentDefinition[] tableDefinitions;
+    private final BoardState.ComponentState[] tableStates;
+    private final int[] tableX;
+    private final int[] tableY;
+    private final long[][] tables;
+    private final int[] nodeX;
+    private final int[] nodeY;
+    private final int[] wireStart;
+    private final int[] wireEnd;
+    private final WireColor[] wireColors;
+    private final boolean[] wireShowData;
+    private final int[] bindingA;
+    private final int[] bindingB;
+    private final int minX;
+    private final int minY;
+    private final int maxX;
+    private final int maxY;
+    private final int[] inputNodes;
+    private final int[] outputNodes;
+
+    private DefinitionTemplate(String contentHash, Compiler compiler, List<Point> inputs, List<Point> outputs) {
+        this.contentHash = contentHash;
+        this.dependencies = Map.copyOf(compiler.dependencies);
+        this.deviceStates = compiler.deviceStates.toArray(new BoardState.ComponentState[0]);
+        this.deviceX = toIntArray(compiler.deviceX);
+        this.deviceY = toIntArray(compiler.deviceY);
+        this.passiveKinds = new byte[compiler.passiveKinds.size()];
+        this.passiveValues = new double[passiveKinds.length];
+        for (int i = 0; i < passiveKinds.length; i++) {
+            passiveKinds[i] = compiler.passiveKinds.get(i);
+            passiveValues[i] = compiler.passiveValues.get(i);
+        }
+        this.passiveTerminals = toIntArray(compiler.passiveTerminals);
+        this.tableDefinitions = compiler.tableDefinitions.toArray(new CustomComponentDefinition[0]);
+        this.tableStates = compiler.tableStates.toArray(new BoardState.ComponentState[0]);
+        this.tableX = toIntArray(compiler.tableX);
+        this.tableY = toIntArray(compiler.tableY);
+        this.tables = compiler.tables.toArray(new long[0][]);
+        this.inputNodes = new int[inputs.size()];
+        for (int i = 0; i < inputNodes.length; i++) {
+            inputNodes[i] = compiler.node(inputs.get(i).x, inputs.get(i).y);
+        }
+        this.outputNodes = new int[outputs.size()];
+        for (int i = 0; i < outputNodes.length; i++) {
+            outputNodes[i] = compiler.node(outputs.get(i).x, outputs.get(i).y);
+        }
+        this.nodeX = toIntArray(compiler.nodeX);
+        this.nodeY = toIntArray(compiler.nodeY);
+        this.wireStart = toIntArray(compiler.wireStart);
+        this.wireEnd = toIntArray(compiler.wireEnd);
+        this.wireColors = compiler.wireColors.toArray(new WireColor[0]);
+        this.bindingA = toIntArray(compiler.bindingA);
+        this.bindingB = toIntArray(compiler.bindingB);
+        this.minX = compiler.minX == Integer.MAX_VALUE ? 0 : compiler.minX;
+        this.minY = compiler.minY == Integer.MAX_VALUE ? 0 : compiler.minY;
+        this.maxX = Math.max(this.minX, compiler.maxX);
+        this.maxY = Math.max(this.minY, compiler.maxY);
+        this.wireShowData = new boolean[compiler.wireShowData.size()];
+        for (int i = 0; i < wireShowData.length; i++) {
+            wireShowData[i] = compiler.wireShowData.get(i);
+        }
+    }
+
+    /**
+     * @return compiled template for the definition, reusing the cached one while nothing it depends on changed
+     */
+    static DefinitionTemplate forDefinition(CustomComponentDefinition definition,
+                                            Function<String, CustomComponentDefinition> customDefinitionResolver,
+                                            BiConsumer<CircuitComponent, BoardState.ComponentState> applyComponentState) {
+        DefinitionTemplate cached = CACHE.get(definition);
+        if (cached != null && cached.isCurrent(definition, customDefinitionResolver)) {
+            return cached;
+        }
+        Compiler compiler = new Compiler(customDefinitionResolver, applyComponentState);
+        List<Point> inputs = new ArrayList<>();
+        List<Point> outputs = new ArrayList<>();
+        compiler.place(definition, 0, 0, new HashSet<>(), inputs, outputs);
+        DefinitionTemplate template = new DefinitionTemplate(definition.getContentHash(), compiler, inputs, outputs);
+        CACHE.put(definition, template);
+        return template;
+    }
+
+    /**
+     * @return true when neither the definition nor any inlined nested definition changed
+     */
+    boolean isCurrent(CustomComponentDefinition definition,
+                      Function<String, CustomComponentDefinition> customDefinitionResolver) {
+        if (!contentHash.equals(definition.getContentHash())) {
+            return false;
+        }
+        for (Map.Entry<String, String> dependency : dependencies.entrySet()) {
+            CustomComponentDefinition nested = customDefinitionResolver.apply(dependency.getKey());
+            if (nested == null || !dependency.getValue().equals(nested.getContentHash())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return smallest local x used by the template
+     */
+    int getMinX() {
+        return minX;
+    }
+
+    /**
+     * @return smallest local y used by the template
+     */
+    int getMinY() {
+        return minY;
+    }
+
+    /**
+     * @return horizontal extent of the template's local region
+     */
+    int getWidth() {
+        return maxX - minX;
+    }
+
+    /**
+     * @return vertical extent of the template's local region
+     */
+    int getHeight() {
+        return maxY - minY;
+    }
+
+    /**
+     * Creates the simulation components and wires of one instance placed at the given offset.
+     */
+    Instance instantiate(int offsetX, int offsetY,
+                         BiConsumer<CircuitComponent, BoardState.ComponentState> applyComponentState) {
+        Instance instance = new Instance(deviceStates.length + tables.length + 1, wireStart.length);
+        for (int i = 0; i < deviceStates.length; i++) {
+            BoardState.ComponentState state = deviceStates[i];
+            CircuitComponent component = ComponentRegistry.createBuiltinFromType(state.getType(),
+                    state.getX(), state.getY());
+            applyComponentState.accept(component, state);
+            component.setPosition(deviceX[i] + offsetX, deviceY[i] + offsetY);
+            instance.components.add(component);
+        }
+        if (passiveKinds.length > 0) {
+            instance.components.add(new PassiveDeviceBank(passiveKinds, passiveValues, passiveTerminals,
+                    offsetX, offsetY));
+        }
+        for (int i = 0; i < tables.length; i++) {
+            CustomComponent shell = new CustomComponent(0, 0, tableDefinitions[i]);
+            applyComponentState.accept(shell, tableStates[i]);
+            shell.setPosition(tableX[i] + offsetX, tableY[i] + offsetY);
+            instance.components.add(new LogicLookupTable(shell, tables[i]));
+        }
+        for (int i = 0; i < wireStart.length; i++) {
+            WireNode start = new WireNode(nodeX[wireStart[i]] + offsetX, nodeY[wireStart[i]] + offsetY);
+            WireNode end = new WireNode(nodeX[wireEnd[i]] + offsetX, nodeY[wireEnd[i]] + offsetY);
+            Wire wire = Wire.connect(start, end, wireColors[i]);
+            wire.setShowData(wireShowData[i]);
+            instance.wires.add(wire);
+        }
+        for (int i = 0; i < bindingA.length; i++) {
+            instance.bindings.add(new int[] {nodeX[bindingA[i]] + offsetX, nodeY[bindingA[i]] + offsetY,
+                    nodeX[bindingB[i]] + offsetX, nodeY[bindingB[i]] + offsetY});
+        }
+        for (int node : inputNodes) {
+            instance.inputPoints.add(new Point(nodeX[node] + offsetX, nodeY[node] + offsetY));
+        }
+        for (int node : outputNodes) {
+            instance.outputPoints.add(new Point(nodeX[node] + offsetX, nodeY[node] + offsetY));
+        }
+        return instance;
+    }
+
+    private static int[] toIntArray(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Components, wires and port points of one instantiated template.
+     */
+    static final class Instance {
+        final List<CircuitComponent> components;
+        final List<Wire> wires;
+        final List<int[]> bindings = new ArrayList<>();
+        final List<Point> inputPoints = new ArrayList<>();
+        final List<Point> outputPoints = new ArrayList<>();
+
+        private Instance(int componentCount, int wireCount) {
+            components = new ArrayList<>(componentCount);
+            wires = new ArrayList<>(wireCount);
+        }
+    }
+
+    /**
+     * Mutable accumulator used while flattening a definition tree.
+     */
+    private static final class Compiler {
+        private final Function<String, CustomComponentDefinition> customDefinitionResolver;
+        private final BiConsumer<CircuitComponent, BoardState.ComponentState> applyComponentState;
+        private final Map<String, String> dependencies = new LinkedHashMap<>();
+        private final List<BoardState.ComponentState> deviceStates = new ArrayList<>();
+        private final List<Integer> deviceX = new ArrayList<>();
+        private final List<Integer> deviceY = new ArrayList<>();
+        private final List<Byte> passiveKinds = new ArrayList<>();
+        private final List<Double> passiveValues = new ArrayList<>();
+        private final List<Integer> passiveTerminals = new ArrayList<>();
+        private final List<CustomComponentDefinition> tableDefinitions = new ArrayList<>();
+        private final List<BoardState.ComponentState> tableStates = new ArrayList<>();
+        private final List<Integer> tableX = new ArrayList<>();
+        private final List<Integer> tableY = new ArrayList<>();
+        private final List<long[]> tables = new ArrayList<>();
+        private final Map<Long, Integer> nodes = new HashMap<>();
+        private final List<Integer> nodeX = new ArrayList<>();
+        private final List<Integer> nodeY = new ArrayList<>();
+        private final List<Integer> wireStart = new ArrayList<>();
+        private final List<Integer> wireEnd = new ArrayList<>();
+        private final List<WireColor> wireColors = new ArrayList<>();
+        private final List<Boolean> wireShowData = new ArrayList<>();
+        private final List<Integer> bindingA = new ArrayList<>();
+        private final List<Integer> bindingB = new ArrayList<>();
+        private int minX = Integer.MAX_VALUE;
+        private int minY = Integer.MAX_VALUE;
+        private int maxX = Integer.MIN_VALUE;
+        private int maxY = Integer.MIN_VALUE;
+
+        private Compiler(Function<String, CustomComponentDefinition> customDefinitionResolver,
+                         BiConsumer<CircuitComponent, BoardState.ComponentState> applyComponentState) {
+            this.customDefinitionResolver = customDefinitionResolver;
+            this.applyComponentState = applyComponentState;
+        }
+
+        /**
+         * Flattens a definition shifted by (shiftX, shiftY); nested definitions are laid out to the right.
+         *
+         * @return rightmost local x used
+         */
+        private int place(CustomComponentDefinition definition, int shiftX, int shiftY, Set<String> path,
+                          List<Point> inputs, List<Point> outputs) {
+            BoardState state = definition.getBoardState();
+            if (state == null || !path.add(definition.getId())) {
+                return shiftX;
+            }
+            int[] bounds = bounds(state);
+            int right = bounds[2] + shiftX;
+            int cursor = right + NESTED_MARGIN;
+            for (BoardState.ComponentState componentState : state.getComponents()) {
+                int x = componentState.getX() + shiftX;
+                int y = componentState.getY() + shiftY;
+                if ("Custom".equals(componentState.getType())) {
+                    CustomComponentDefinition nested = customDefinitionResolver.apply(componentState.getCustomId());
+                    if (nested == null || path.contains(nested.getId())) {
+                        continue;
+                    }
+                    dependencies.put(nested.getId(), nested.getContentHash());
+                    CustomComponent nestedShell = new CustomComponent(0, 0, nested);
+                    applyComponentState.accept(nestedShell, componentState);
+                    nestedShell.setPosition(x, y);
+                    long[] table = LogicMacroModels.lookup(nested, applyComponentState);
+                    if (table != null) {
+                        tableDefinitions.add(nested);
+                        tableStates.add(componentState);
+                        tableX.add(x);
+                        tableY.add(y);
+                        include(x, y);
+                        include(x + nestedShell.getWidth(), y + nestedShell.getHeight());
+                        tables.add(table);
+                        continue;
+                    }
+                    if (nested.getBoardState() == null) {
+                        continue;
+                    }
+                    int[] nestedBounds = bounds(nested.getBoardState());
+                    List<Point> nestedInputs = new ArrayList<>();
+                    List<Point> nestedOutputs = new ArrayList<>();
+                    int nestedRight = place(nested, Grid.snap(cursor - nestedBounds[0]),
+                            Grid.snap(bounds[1] + shiftY - nestedBounds[1]), path, nestedInputs, nestedOutputs);
+                    cursor = Math.max(cursor, nestedRight) + NESTED_MARGIN;
+                    right = Math.max(right, nestedRight);
+                    bind(portPoints(nestedShell, true), nestedInputs);
+                    bind(portPoints(nestedShell, false), nestedOutputs);
+                    continue;
+                }
+                CircuitComponent component = componentState.getType() == null ? null
+                        : ComponentRegistry.createBuiltinFromType(componentState.getType(),
+                        componentState.getX(), componentState.getY());
+                if (component == null) {
+                    continue;
+                }
+                applyComponentState.accept(component, componentState);
+                component.setPosition(x, y);
+                include(x, y);
+                include(x + component.getWidth(), y + component.getHeight());
+                if (addPassive(component)) {
+                    continue;
+                }
+                deviceStates.add(componentState);
+                deviceX.add(x);
+                deviceY.add(y);
+                if (component instanceof CustomInputPort) {
+                    inputs.add(primaryPoint(component));
+                } else if (component instanceof CustomOutputPort) {
+                    outputs.add(primaryPoint(component));
+                }
+            }
+            for (BoardState.WireState wireState : state.getWires()) {
+                addWire(node(wireState.getStartX() + shiftX, wireState.getStartY() + shiftY),
+                        node(wireState.getEndX() + shiftX, wireState.getEndY() + shiftY),
+                        wireState.getColor(), wireState.isShowData());
+            }
+            path.remove(definition.getId());
+            return right;
+        }
+
+        /**
+         * Records a two-terminal resistor, capacitor or inductor in the passive arrays.
+         *
+         * @return false when the component has to be instantiated as a full component
+         */
+        private boolean addPassive(CircuitComponent component) {
+            List<ConnectionPoint> points = component.getConnectionPoints();
+            if (points.size() < 2) {
+                return false;
+            }
+            switch (component) {
+                case Resistor resistor -> {
+                    passiveKinds.add(PassiveDeviceBank.RESISTOR);
+                    passiveValues.add((double) resistor.getResistance());
+                }
+                case Capacitor capacitor -> {
+                    passiveKinds.add(PassiveDeviceBank.CAPACITOR);
+                    passiveValues.add((double) capacitor.getCapacitanceFarad());
+                }
+                case Inductor inductor -> {
+                    passiveKinds.add(PassiveDeviceBank.INDUCTOR);
+                    passiveValues.add((double) inductor.getInductanceHenry());
+                }
+                default -> {
+                    return false;
+                }
+            }
+            for (int i = 0; i < 2; i++) {
+                passiveTerminals.add(component.getConnectionPointWorldX(points.get(i)));
+                passiveTerminals.add(component.getConnectionPointWorldY(points.get(i)));
+            }
+            return true;
+        }
+
+        private void bind(List<Point> externalPoints, List<Point> internalPoints) {
+            int count = Math.min(externalPoints.size(), internalPoints.size());
+            for (int i = 0; i < count; i++) {
+                Point external = externalPoints.get(i);
+                Point internal = internalPoints.get(i);
+                bindingA.add(node(external.x, external.y));
+                bindingB.add(node(internal.x, internal.y));
+            }
+        }
+
+        private void include(int x, int y) {
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+
+        private void addWire(int start, int end, WireColor color, boolean showData) {
+            wireStart.add(start);
+            wireEnd.add(end);
+            wireColors.add(color);
+            wireShowData.add(showData);
+        }
+
+        private int node(int x, int y) {
+            long key = ((long) x << 32) | (y & 0xffffffffL);
+            Integer existing = nodes.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            int id = nodeX.size();
+            nodes.put(key, id);
+            include(x, y);
+            nodeX.add(x);
+            nodeY.add(y);
+            return id;
+        }
+
+        /**
+         * @return {minX, minY, maxX, maxY} of the board's components and wires
+         */
+        private static int[] bounds(BoardState state) {
+            int minX = Integer.MAX_VALUE;
+            int minY = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE;
+            int maxY = Integer.MIN_VALUE;
+            for (BoardState.ComponentState componentState : state.getComponents()) {
+                minX = Math.min(minX, componentState.getX());
+                minY = Math.min(minY, componentState.getY());
+                maxX = Math.max(maxX, componentState.getX()
+                        + Math.max(componentState.getWidth(), MIN_COMPONENT_EXTENT));
+                maxY = Math.max(maxY, componentState.getY()
+                        + Math.max(componentState.getHeight(), MIN_COMPONENT_EXTENT));
+            }
+            for (BoardState.WireState wireState : state.getWires()) {
+                minX = Math.min(minX, Math.min(wireState.getStartX(), wireState.getEndX()));
+                minY = Math.min(minY, Math.min(wireState.getStartY(), wireState.getEndY()));
+                maxX = Math.max(maxX, Math.max(wireState.getStartX(), wireState.getEndX()));
+                maxY = Math.max(maxY, Math.max(wireState.getStartY(), wireState.getEndY()));
+            }
+            if (minX > maxX) {
+                return new int[] {0, 0, 0, 0};
+            }
+            return new int[] {minX, minY, maxX, maxY};
+        }
+
+        private static List<Point> portPoints(CustomComponent shell, boolean inputs) {
+            List<Point> points = new ArrayList<>();
+            for (ConnectionPoint point : shell.getConnectionPoints()) {
+                if (inputs ? shell.isInputPoint(point) : shell.isOutputPoint(point)) {
+                    points.add(new Point(shell.getConnectionPointWorldX(point),
+                            shell.getConnectionPointWorldY(point)));
+                }
+            }
+            return points;
+        }
+
+        private static Point primaryPoint(CircuitComponent component) {
+            if (component.getConnectionPoints().isEmpty()) {
+                return new Point(component.getX(), component.getY());
+            }
+            ConnectionPoint point = component.getConnectionPoints().get(0);
+            return new Point(component.getConnectionPointWorldX(point), component.getConnectionPointWorldY(point));
+        }
+    }
+}
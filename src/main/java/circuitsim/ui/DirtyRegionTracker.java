@@ -0,0 +1,165 @@
+package circuitsim.ui;
+
+import circuitsim.components.core.CircuitComponent;
+import circuitsim.components.wiring.Wire;
+import circuitsim.components.wiring.WireNode;
+import java.awt.Rectangle;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers where each board component and wire was last shown, so a simulation frame repaints only the areas
+ * whose geometry changed or whose display flag was raised by a setter. Geometry changes also advance versions
+ * that paint-time caches can be keyed on.
+ */
+final class DirtyRegionTracker {
+    private static final int WIRE_PAINT_MARGIN = Grid.SIZE * 2;
+
+    private final Map<CircuitComponent, ComponentEntry> componentEntries = new IdentityHashMap<>();
+    private final Map<Wire, WireEntry> wireEntries = new IdentityHashMap<>();
+    private int pass;
+    private long geometryVersion;
+    private long wireGeometryVersion;
+    private Rectangle dirty;
+
+    /**
+     * @return counter advanced whenever a component or wire was added, moved, resized, rotated or removed
+     */
+    long getGeometryVersion() {
+        return geometryVersion;
+    }
+
+    /**
+     * @return counter advanced whenever a wire was added, moved or removed
+     */
+    long getWireGeometryVersion() {
+        return wireGeometryVersion;
+    }
+
+    /**
+     * Compares the board against the previous call.
+     *
+     * @return world area to repaint, or null when nothing visible changed
+     */
+    Rectangle collect(List<CircuitComponent> components, Collection<Wire> wires) {
+        pass++;
+        dirty = null;
+        boolean geometryChanged = false;
+        for (CircuitComponent component : components) {
+            ComponentEntry entry = componentEntries.get(component);
+            int geometry = component.getGeometryState();
+            boolean displayChanged = component.pollDisplayChanged();
+            if (entry == null) {
+                entry = new ComponentEntry();
+                componentEntries.put(component, entry);
+                geometryChanged = true;
+            } else if (entry.geometry != geometry) {
+                geometryChanged = true;
+                include(entry.bounds);
+            } else if (displayChanged) {
+                include(entry.bounds);
+            } else {
+                entry.pass = pass;
+                continue;
+            }
+            entry.geometry = geometry;
+            entry.bounds = component.getPaintBounds();
+            entry.pass = pass;
+            include(entry.bounds);
+        }
+        for (Iterator<ComponentEntry> iterator = componentEntries.values().iterator(); iterator.hasNext(); ) {
+            ComponentEntry entry = iterator.next();
+            if (entry.pass != pass) {
+                include(entry.bounds);
+                iterator.remove();
+                geometryChanged = true;
+            }
+        }
+
+        boolean wireGeometryChanged = false;
+        for (Wire wire : wires) {
+            WireNode start = wire.getStart();
+            WireNode end = wire.getEnd();
+            if (start == null || end == null) {
+                continue;
+            }
+            WireEntry entry = wireEntries.get(wire);
+            boolean displayChanged = wire.pollDisplayChanged();
+            if (entry == null) {
+                entry = new WireEntry();
+                wireEntries.put(wire, entry);
+                wireGeometryChanged = true;
+            } else if (!entry.matches(start, end)) {
+                wireGeometryChanged = true;
+                include(entry.getBounds());
+            } else if (!displayChanged) {
+                entry.pass = pass;
+                continue;
+            }
+            entry.x1 = start.getX();
+            entry.y1 = start.getY();
+            entry.x2 = end.getX();
+            entry.y2 = end.getY();
+            entry.pass = pass;
+            include(entry.getBounds());
+        }
+        for (Iterator<WireEntry> iterator = wireEntries.values().iterator(); iterator.hasNext(); ) {
+            WireEntry entry = iterator.next();
+            if (entry.pass != pass) {
+                include(entry.getBounds());
+                iterator.remove();
+                wireGeometryChanged = true;
+            }
+        }
+        if (wireGeometryChanged) {
+            wireGeometryVersion++;
+            geometryChanged = true;
+        }
+        if (geometryChanged) {
+            geometryVersion++;
+        }
+        return dirty;
+    }
+
+    private void include(Rectangle bounds) {
+        if (bounds == null) {
+            return;
+        }
+        if (dirty == null) {
+            dirty = new Rectangle(bounds);
+        } else {
+            dirty.add(bounds);
+        }
+    }
+
+    private static final class ComponentEntry {
+        private int geometry;
+        private Rectangle bounds;
+        private int pass;
+    }
+
+    private static final class WireEntry {
+        private int x1;
+        private int y1;
+        private int x2;
+        private int y2;
+        private int pass;
+
+        private boolean matches(WireNode start, WireNode end) {
+            return x1 == start.getX() && y1 == start.getY() && x2 == end.getX() && y2 == end.getY();
+        }
+
+        /**
+         * @return segment bounds grown to cover parallel offsets, crossing arcs and the data label
+         */
+        private Rectangle getBounds() {
+            Rectangle bounds = new Rectangle(Math.min(x1, x2), Math.min(y1, y2),
+                    Math.abs(x2 - x1), Math.abs(y2 - y1));
+            bounds.grow(WIRE_PAINT_MARGIN, WIRE_PAINT_MARGIN);
+            return bounds;
+        }
+    }
+}
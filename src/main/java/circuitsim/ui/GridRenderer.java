@@ -0,0 +1,189 @@
+package circuitsim.ui;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Draws the background grid by copying a pre-rasterized tile per zoom across the view, instead of one line per
+ * grid line. Lines closer together than a few screen pixels fade out, leaving every fifth line as a coarser grid.
+ */
+final class GridRenderer {
+    private static final int MAJOR_EVERY = 5;
+    private static final double FADE_START_SPACING = 8.0;
+    private static final double FADE_END_SPACING = 4.0;
+    private static final int ALPHA_STEPS = 16;
+    private static final int MAX_TILE_MULTIPLE = 8;
+    private static final int MAX_TILES = 8;
+    private static final double MIN_TILE_PIXELS = 256.0;
+    private static final double PIXEL_EPSILON = 1e-6;
+
+    private final Map<TileKey, BufferedImage> tiles = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TileKey, BufferedImage> eldest) {
+            return size() > MAX_TILES;
+        }
+    };
+
+    /**
+     * Draws the grid over the visible world area. Where a tile is used the area is also filled with the
+     * background, since tiles are opaque.
+     *
+     * @param zoomFactor view zoom, deciding how far minor lines are faded
+     * @param background canvas color under the grid
+     */
+    void draw(Graphics2D g2, Rectangle visibleWorld, double zoomFactor, Color background) {
+        int minorAlpha = getMinorAlphaStep(zoomFactor);
+        int cellsPerPeriod = minorAlpha == ALPHA_STEPS ? 1 : MAJOR_EVERY;
+        AffineTransform transform = g2.getTransform();
+        int tileCells = findTileCells(transform, cellsPerPeriod);
+        if (tileCells == 0) {
+            drawLines(g2, visibleWorld, minorAlpha, cellsPerPeriod);
+            return;
+        }
+        double scale = transform.getScaleX();
+        int tileSize = (int) Math.round(tileCells * Grid.SIZE * scale);
+        TileKey key = new TileKey(scale, tileCells, minorAlpha, background, g2.getStroke(),
+                g2.getRenderingHint(RenderingHints.KEY_ANTIALIASING));
+        BufferedImage tile = tiles.get(key);
+        if (tile == null) {
+            tile = renderTile(g2, scale, tileCells, tileSize, minorAlpha, cellsPerPeriod, background);
+            tiles.put(key, tile);
+        }
+        Rectangle area = transform.createTransformedShape(visibleWorld).getBounds();
+        int originX = (int) Math.rint(transform.getTranslateX());
+        int originY = (int) Math.rint(transform.getTranslateY());
+        int startX = originX + (Math.floorDiv(area.x - originX, tileSize) * tileSize);
+        int startY = originY + (Math.floorDiv(area.y - originY, tileSize) * tileSize);
+        g2.setTransform(new AffineTransform());
+        for (int y = startY; y < area.y + area.height; y += tileSize) {
+            for (int x = startX; x < area.x + area.width; x += tileSize) {
+                g2.drawImage(tile, x, y, null);
+            }
+        }
+        g2.setTransform(transform);
+    }
+
+    /**
+     * @return opacity of minor lines in sixteenths, from the on-screen spacing of grid lines
+     */
+    private static int getMinorAlphaStep(double zoomFactor) {
+        double spacing = Grid.SIZE * zoomFactor;
+        double fade = (spacing - FADE_END_SPACING) / (FADE_START_SPACING - FADE_END_SPACING);
+        return (int) Math.round(Math.max(0.0, Math.min(1.0, fade)) * ALPHA_STEPS);
+    }
+
+    /**
+     * Picks how many grid cells one tile spans so the tile is a whole number of device pixels and the grid
+     * origin falls on a device pixel; tiles then repeat without drift. Small tiles are repeated within the tile
+     * so a view takes only a few copies.
+     *
+     * @return cells per tile, or 0 when no such tile exists under the transform
+     */
+    private static int findTileCells(AffineTransform transform, int cellsPerPeriod) {
+        if ((transform.getType() & ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_UNIFORM_SCALE)) != 0
+                || !isWhole(transform.getTranslateX()) || !isWhole(transform.getTranslateY())) {
+            return 0;
+        }
+        double cellPixels = Grid.SIZE * transform.getScaleX();
+        for (int multiple = 1; multiple <= MAX_TILE_MULTIPLE; multiple++) {
+            int cells = cellsPerPeriod * multiple;
+            if (isWhole(cells * cellPixels)) {
+                int repeats = Math.max(1, (int) Math.ceil(MIN_TILE_PIXELS / (cells * cellPixels)));
+                return cells * repeats;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isWhole(double value) {
+        return Math.abs(value - Math.rint(value)) < PIXEL_EPSILON;
+    }
+
+    /**
+     * Draws the lines of one tile the same way {@link #drawLines} would, with the grid origin on the tile's
+     * top-left pixel. Lines just outside the tile are included for the parts of wide strokes that spill over.
+     */
+    private static BufferedImage renderTile(Graphics2D target, double scale, int tileCells, int tileSize,
+                                            int minorAlpha, int cellsPerPeriod, Color background) {
+        BufferedImage tile = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = tile.createGraphics();
+        g2.setColor(background);
+        g2.fillRect(0, 0, tileSize, tileSize);
+        g2.setRenderingHints(target.getRenderingHints());
+        g2.setStroke(target.getStroke());
+        g2.scale(scale, scale);
+        int extent = tileCells * Grid.SIZE;
+        drawLines(g2, new Rectangle(-Grid.SIZE, -Grid.SIZE, extent + (2 * Grid.SIZE), extent + (2 * Grid.SIZE)),
+                minorAlpha, cellsPerPeriod);
+        g2.dispose();
+        return tile;
+    }
+
+    /**
+     * Draws one line per grid line across the area, vertical lines first.
+     */
+    private static void drawLines(Graphics2D g2, Rectangle area, int minorAlpha, int cellsPerPeriod) {
+        Color originalColor = g2.getColor();
+        Color minorColor = getMinorColor(minorAlpha);
+        int left = area.x;
+        int top = area.y;
+        int right = area.x + area.width;
+        int bottom = area.y + area.height;
+        int startX = Math.floorDiv(left, Grid.SIZE);
+        int startY = Math.floorDiv(top, Grid.SIZE);
+        for (int column = startX; column * Grid.SIZE <= right; column++) {
+            if (setLineColor(g2, column, minorColor, cellsPerPeriod)) {
+                g2.drawLine(column * Grid.SIZE, top, column * Grid.SIZE, bottom);
+            }
+        }
+        for (int row = startY; row * Grid.SIZE <= bottom; row++) {
+            if (setLineColor(g2, row, minorColor, cellsPerPeriod)) {
+                g2.drawLine(left, row * Grid.SIZE, right, row * Grid.SIZE);
+            }
+        }
+        g2.setColor(originalColor);
+    }
+
+    /**
+     * @return false when the line is a fully faded minor line and is skipped
+     */
+    private static boolean setLineColor(Graphics2D g2, int index, Color minorColor, int cellsPerPeriod) {
+        if (Math.floorMod(index, cellsPerPeriod) == 0) {
+            g2.setColor(Colors.GRID_LINE);
+            return true;
+        }
+        if (minorColor == null) {
+            return false;
+        }
+        g2.setColor(minorColor);
+        return true;
+    }
+
+    /**
+     * @return minor line color at the given opacity step, or null when fully faded
+     */
+    private static Color getMinorColor(int minorAlpha) {
+        if (minorAlpha == 0) {
+            return null;
+        }
+        if (minorAlpha == ALPHA_STEPS) {
+            return Colors.GRID_LINE;
+        }
+        Color line = Colors.GRID_LINE;
+        return new Color(line.getRed(), line.getGreen(), line.getBlue(), (255 * minorAlpha) / ALPHA_STEPS);
+    }
+
+    /**
+     * Everything a tile's pixels depend on.
+     */
+    private record TileKey(double scale, int tileCells, int minorAlpha, Color background, Stroke stroke,
+                           Object antialiasing) {
+    }
+}
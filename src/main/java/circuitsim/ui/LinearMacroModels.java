@@ -0,0 +1,97 @@
+package circuitsim.ui;
+
+import circuitsim.components.core.CircuitComponent;
+import circuitsim.components.core.ComponentRegistry;
+import circuitsim.components.wiring.Wire;
+import circuitsim.components.wiring.WireNode;
+import circuitsim.custom.CustomComponentDefinition;
+import circuitsim.io.BoardState;
+import circuitsim.physics.PortReducedModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Caches port-reduced models for custom component definitions built only from linear passives.
+ * Entries are keyed by definition id and revalidated against the definition's content hash.
+ */
+final class LinearMacroModels {
+    private static final int DEFAULT_MAX_INTERNAL_NODES = 256;
+    private static final int MAX_INTERNAL_NODES = resolveMaxInternalNodes();
+    private static final Map<String, CachedModel> CACHE = new HashMap<>();
+
+    private LinearMacroModels() {
+    }
+
+    /**
+     * @return reduced model for the definition, or null if it must be expanded (active, nonlinear, nested,
+     * or larger than the configured node limit)
+     */
+    static PortReducedModel lookup(CustomComponentDefinition definition,
+                                   BiConsumer<CircuitComponent, BoardState.ComponentState> applyComponentState) {
+        if (definition == null || definition.getBoardState() == null) {
+            return null;
+        }
+        String contentHash = definition.getContentHash();
+        CachedModel cached = CACHE.get(definition.getId());
+        if (cached == null || !cached.contentHash.equals(contentHash)) {
+            cached = new CachedModel(contentHash, compile(definition, applyComponentState));
+            CACHE.put(definition.getId(), cached);
+        }
+        return cached.model;
+    }
+
+    private static PortReducedModel compile(CustomComponentDefinition definition,
+                                            BiConsumer<CircuitComponent, BoardState.ComponentState> applyComponentState) {
+        BoardState state = definition.getBoardState();
+        List<CircuitComponent> components = new ArrayList<>();
+        for (BoardState.ComponentState componentState : state.getComponents()) {
+            if (componentState.getType() == null || "Custom".equals(componentState.getType())) {
+                return null;
+            }
+            CircuitComponent component = ComponentRegistry.createBuiltinFromType(componentState.getType(),
+                    componentState.getX(), componentState.getY());
+            if (component == null) {
+                return null;
+            }
+            applyComponentState.accept(component, componentState);
+            component.setPosition(componentState.getX(), componentState.getY());
+            components.add(component);
+        }
+        List<Wire> wires = new ArrayList<>();
+        for (BoardState.WireState wireState : state.getWires()) {
+            wires.add(Wire.connect(new WireNode(wireState.getStartX(), wireState.getStartY()),
+                    new WireNode(wireState.getEndX(), wireState.getEndY())));
+        }
+        PortReducedModel model = PortReducedModel.compile(components, wires, MAX_INTERNAL_NODES);
+        if (model == null
+                || model.getPortCount() != definition.getInputs().size() + definition.getOutputs().size()) {
+            return null;
+        }
+        return model;
+    }
+
+    private static int resolveMaxInternalNodes() {
+        String configured = System.getProperty("circuitsim.reducedMaxNodes");
+        if (configured == null || configured.isBlank()) {
+            return DEFAULT_MAX_INTERNAL_NODES;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(configured.trim()));
+        } catch (NumberFormatException e) {
+            return DEFAULT_MAX_INTERNAL_NODES;
+        }
+    }
+
+    private static final class CachedModel {
+        private final String contentHash;
+        private final PortReducedModel model;
+
+        private CachedModel(String contentHash, PortReducedModel model) {
+            this.contentHash = contentHash;
+            this.model = model;
+        }
+    }
+}
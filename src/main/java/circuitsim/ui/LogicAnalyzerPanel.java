@@ -0,0 +1,192 @@
+package circuitsim.ui;
+
+import circuitsim.io.VcdWriter;
+import circuitsim.physics.DigitalScheduler;
+import circuitsim.physics.WaveformRecorder;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+
+/**
+ * Timeline view of recorded logic transitions with VCD export.
+ */
+public class LogicAnalyzerPanel extends JPanel {
+    private static final int LABEL_WIDTH = 140;
+    private static final int ROW_HEIGHT = 28;
+    private static final int TRACE_HEIGHT = 16;
+    private static final int AXIS_HEIGHT = 22;
+    private static final Color TRACE_HIGH = new Color(80, 200, 120);
+    private static final Color TRACE_LOW = new Color(120, 160, 200);
+    private static final Color TRACE_UNKNOWN = new Color(120, 120, 130);
+
+    private final WaveformRecorder recorder;
+    private final JPanel timeline;
+    private int paintedVersion = -1;
+
+    /**
+     * @param recorder recorder to display
+     */
+    public LogicAnalyzerPanel(WaveformRecorder recorder) {
+        this.recorder = recorder;
+        setLayout(new BorderLayout());
+        setBackground(Colors.PROPERTIES_BG);
+        JPanel toolbar = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 4));
+        toolbar.setBackground(Colors.WIRE_PALETTE_BG);
+        toolbar.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, Colors.WIRE_PALETTE_BORDER));
+        toolbar.add(createButton("Clear", () -> {
+            recorder.clearEvents();
+            refresh();
+        }));
+        toolbar.add(createButton("Export VCD...", this::exportVcd));
+        timeline = new JPanel() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                paintTimeline((Graphics2D) g);
+            }
+        };
+        timeline.setBackground(Colors.CANVAS_BG);
+        add(toolbar, BorderLayout.NORTH);
+        add(timeline, BorderLayout.CENTER);
+        setPreferredSize(new Dimension(720, 260));
+    }
+
+    /**
+     * Repaints the timeline when the recorder has new data.
+     */
+    public void refresh() {
+        int version = recorder.getVersion();
+        if (version != paintedVersion) {
+            paintedVersion = version;
+            timeline.repaint();
+        }
+    }
+
+    private JButton createButton(String text, Runnable action) {
+        JButton button = new JButton(text);
+        button.setFocusPainted(false);
+        button.setBackground(Colors.WIRE_PALETTE_BG);
+        button.setForeground(Colors.PROPERTIES_TEXT);
+        button.addActionListener(event -> action.run());
+        return button;
+    }
+
+    private void exportVcd() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export Waveforms");
+        chooser.setSelectedFile(new java.io.File("waveforms.vcd"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path path = chooser.getSelectedFile().toPath();
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+            VcdWriter.write(recorder, writer);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Failed to export waveforms.",
+                    "CircuitSim", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void paintTimeline(Graphics2D g2) {
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        List<WaveformRecorder.Probe> probes = recorder.getProbes();
+        int width = timeline.getWidth();
+        g2.setColor(Colors.PROPERTIES_TEXT);
+        if (probes.isEmpty()) {
+            g2.drawString("Right-click a wire, source or port and choose Probe to record it.", 12, 24);
+            return;
+        }
+        long start = Math.max(0L, recorder.getStartTick());
+        long end = Math.max(start + 1, recorder.getLastTick());
+        int traceLeft = LABEL_WIDTH;
+        int traceWidth = Math.max(1, width - traceLeft - 12);
+        double scale = traceWidth / (double) (end - start);
+
+        int maxId = -1;
+        for (WaveformRecorder.Probe probe : probes) {
+            maxId = Math.max(maxId, probe.getId());
+        }
+        int[] rowOf = new int[maxId + 1];
+        Arrays.fill(rowOf, -1);
+        int[] value = new int[probes.size()];
+        int[] lastX = new int[probes.size()];
+        for (int row = 0; row < probes.size(); row++) {
+            WaveformRecorder.Probe probe = probes.get(row);
+            rowOf[probe.getId()] = row;
+            value[row] = recorder.getBaseValue(probe.getId());
+            lastX[row] = traceLeft;
+            int rowTop = AXIS_HEIGHT + row * ROW_HEIGHT;
+            g2.setColor(Colors.PROPERTIES_TEXT);
+            g2.drawString(probe.getName(), 8, rowTop + ROW_HEIGHT / 2 + 4);
+            g2.setColor(Colors.GRID_LINE);
+            g2.drawLine(0, rowTop + ROW_HEIGHT, width, rowTop + ROW_HEIGHT);
+        }
+
+        int count = recorder.getEventCount();
+        for (int i = 0; i < count; i++) {
+            int probeId = recorder.getEventProbe(i);
+            int row = probeId <= maxId ? rowOf[probeId] : -1;
+            if (row < 0) {
+                continue;
+            }
+            int x = traceLeft + (int) Math.round((recorder.getEventTick(i) - start) * scale);
+            int next = recorder.getEventValue(i) ? 1 : 0;
+            drawSegment(g2, row, lastX[row], x, value[row], next);
+            lastX[row] = x;
+            value[row] = next;
+        }
+        for (int row = 0; row < probes.size(); row++) {
+            drawSegment(g2, row, lastX[row], traceLeft + traceWidth, value[row], value[row]);
+        }
+
+        g2.setColor(Colors.PROPERTIES_TEXT);
+        g2.drawString(formatTime(start), traceLeft, 14);
+        String endLabel = formatTime(end);
+        g2.drawString(endLabel, traceLeft + traceWidth - g2.getFontMetrics().stringWidth(endLabel), 14);
+    }
+
+    private void drawSegment(Graphics2D g2, int row, int fromX, int toX, int value, int nextValue) {
+        int rowTop = AXIS_HEIGHT + row * ROW_HEIGHT;
+        int highY = rowTop + (ROW_HEIGHT - TRACE_HEIGHT) / 2;
+        int lowY = highY + TRACE_HEIGHT;
+        if (value < 0) {
+            g2.setColor(TRACE_UNKNOWN);
+            g2.drawLine(fromX, (highY + lowY) / 2, toX, (highY + lowY) / 2);
+        } else {
+            int y = value == 1 ? highY : lowY;
+            g2.setColor(value == 1 ? TRACE_HIGH : TRACE_LOW);
+            g2.drawLine(fromX, y, toX, y);
+        }
+        if (nextValue != value && nextValue >= 0) {
+            g2.setColor(TRACE_HIGH);
+            g2.drawLine(toX, highY, toX, lowY);
+        }
+    }
+
+    private static String formatTime(long tick) {
+        double seconds = tick / (double) DigitalScheduler.TICKS_PER_SECOND;
+        if (seconds >= 1.0) {
+            return String.format(java.util.Locale.US, "%.3f s", seconds);
+        }
+        if (seconds >= 1e-3) {
+            return String.format(java.util.Locale.US, "%.3f ms", seconds * 1e3);
+        }
+        return String.format(java.util.Locale.US, "%.3f us", seconds * 1e6);
+    }
+}
@@ -0,0 +1,102 @@
+package circuitsim.ui;
+
+import circuitsim.components.core.CircuitComponent;
+import circuitsim.components.core.ComponentRegistry;
+import circuitsim.components.wiring.Wire;
+import circuitsim.components.wiring.WireNode;
+import circuitsim.custom.CustomComponentDefinition;
+import circuitsim.io.BoardState;
+import circuitsim.physics.TruthTableExtractor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Caches truth-table macro-models for purely combinational custom component definitions.
+ * Entries are keyed weakly on the interned definition, whose content never changes, so they go away with it.
+ */
+final class LogicMacroModels {
+    private static final int DEFAULT_MAX_INPUTS = 12;
+    private static final int MAX_INPUTS_LIMIT = 20;
+    private static final int MAX_INPUTS = resolveMaxInputs();
+    private static final Map<CustomComponentDefinition, CachedTable> CACHE = new java.util.WeakHashMap<>();
+
+    private LogicMacroModels() {
+    }
+
+    /**
+     * @return truth table for the definition, or null if it must be expanded (sequential, analog, nested,
+     * or wider than the configured input limit)
+     */
+    static long[] lookup(CustomComponentDefinition definition,
+                         BiConsumer<CircuitComponent, BoardState.ComponentState> applyComponentState) {
+        if (definition == null || definition.getBoardState() == null) {
+            return null;
+        }
+        CachedTable cached = CACHE.get(definition);
+        if (cached == null) {
+            cached = new CachedTable(extract(definition, applyComponentState));
+            CACHE.put(definition, cached);
+        }
+        return cached.table;
+    }
+
+    private static long[] extract(CustomComponentDefinition definition,
+                                  BiConsumer<CircuitComponent, BoardState.ComponentState> applyComponentState) {
+        BoardState state = definition.getBoardState();
+        List<CircuitComponent> components = new ArrayList<>();
+        int inputPorts = 0;
+        int outputPorts = 0;
+        for (BoardState.ComponentState componentState : state.getComponents()) {
+            if (componentState.getType() == null || "Custom".equals(componentState.getType())) {
+                return null;
+            }
+            CircuitComponent component = ComponentRegistry.createBuiltinFromType(componentState.getType(),
+                    componentState.getX(), componentState.getY());
+            if (component == null) {
+                return null;
+            }
+            applyComponentState.accept(component, componentState);
+            component.setPosition(componentState.getX(), componentState.getY());
+            if (component instanceof circuitsim.components.ports.CustomInputPort) {
+                inputPorts++;
+            } else if (component instanceof circuitsim.components.ports.CustomOutputPort) {
+                outputPorts++;
+            }
+            components.add(component);
+        }
+        if (inputPorts != definition.getInputs().size() || outputPorts != definition.getOutputs().size()) {
+            return null;
+        }
+        List<Wire> wires = new ArrayList<>();
+        for (BoardState.WireState wireState : state.getWires()) {
+            wires.add(Wire.connect(new WireNode(wireState.getStartX(), wireState.getStartY()),
+                    new WireNode(wireState.getEndX(), wireState.getEndY())));
+        }
+        return TruthTableExtractor.extract(components, wires, MAX_INPUTS);
+    }
+
+    private static int resolveMaxInputs() {
+        String configured = System.getProperty("circuitsim.lutMaxInputs");
+        if (configured == null || configured.isBlank()) {
+            return DEFAULT_MAX_INPUTS;
+        }
+        try {
+            return Math.max(0, Math.min(MAX_INPUTS_LIMIT, Integer.parseInt(configured.trim())));
+        } catch (NumberFormatException e) {
+            return DEFAULT_MAX_INPUTS;
+        }
+    }
+
+    /**
+     * Cached result; a null table is kept too, so definitions that must be expanded are not re-extracted.
+     */
+    private static final class CachedTable {
+        private final long[] table;
+
+        private CachedTable(long[] table) {
+            this.table = table;
+        }
+    }
+}
@@ -0,0 +1,596 @@
+package circuitsim.ui;
+
+import circuitsim.components.core.BoardGeometry;
+import circuitsim.components.core.GeometryChanges;
+import circuitsim.components.wiring.Wire;
+import circuitsim.components.wiring.WireNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the render wires of the board between frames. Wires are bucketed by the line they lie on, so parallel
+ * overlap groups are only searched for among wires of the same line. Moved wires are drained from the board's
+ * dirty set: only their old and new lines are regrouped, node offset sums are adjusted by the shifts that changed,
+ * and only render wires touching those lines, nodes or anchors are recomputed. Adding or removing wires, and the
+ * rare move that creates or clears a zero-length wire, rebuild the whole cache. Render wires whose geometry did
+ * not change are reused; wires whose render wire was replaced or that were re-linked are reported to
+ * {@link #trackChanges()} sets.
+ */
+final class RenderWireCache {
+    private static final Offset NO_OFFSET = new Offset(0, 0);
+    private static final Comparator<Entry> BOARD_ORDER = Comparator.comparingInt(entry -> entry.order);
+
+    private final int offsetStep;
+    private final GeometryChanges<Wire> wireChanges;
+    private final List<GeometryChanges<Wire>> trackers = new ArrayList<>();
+    private final Map<Wire, Entry> entries = new IdentityHashMap<>();
+    private final Map<LineKey, Line> lines = new HashMap<>();
+    private final List<Entry> points = new ArrayList<>();
+    private final Set<Wire> detached = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<WireNode, OffsetAccumulator> accumulators = new HashMap<>();
+    private final Map<Wire, List<Entry>> dependents = new IdentityHashMap<>();
+    private final List<RenderWire> renderWires = new ArrayList<>();
+    private final List<RenderWire> renderWiresView = Collections.unmodifiableList(renderWires);
+    private int cachedListVersion = -1;
+    private int pass;
+
+    /**
+     * @param offsetStep spacing between parallel overlapping wires in pixels
+     */
+    RenderWireCache(BoardGeometry boardGeometry, int offsetStep) {
+        this.offsetStep = offsetStep;
+        this.wireChanges = boardGeometry.trackWires();
+    }
+
+    /**
+     * @return a new set that collects every wire whose render wire is replaced or whose nodes are re-linked from
+     * now on; it is marked wholly dirty whenever the cache is rebuilt
+     */
+    GeometryChanges<Wire> trackChanges() {
+        GeometryChanges<Wire> changes = new GeometryChanges<>();
+        trackers.add(changes);
+        return changes;
+    }
+
+    /**
+     * @param listVersion current version of the board wire list
+     * @return render wires in board order; always the same list, updated in place
+     */
+    List<RenderWire> getRenderWires(List<Wire> wires, int listVersion) {
+        List<Wire> moved = wireChanges.drain();
+        if (listVersion == cachedListVersion) {
+            if (moved.isEmpty()) {
+                return renderWiresView;
+            }
+            if (canUpdate(moved)) {
+                update(moved);
+                return renderWiresView;
+            }
+        }
+        rebuild(wires);
+        cachedListVersion = listVersion;
+        return renderWiresView;
+    }
+
+    /**
+     * @return render wire of the wire as of the last {@link #getRenderWires} call, or null when it had none
+     */
+    RenderWire getRenderWire(Wire wire) {
+        Entry entry = entries.get(wire);
+        return entry == null ? null : entry.render;
+    }
+
+    /**
+     * @return true when the moved wires neither create nor clear a zero-length wire nor gain or lose an endpoint,
+     * so the line buckets can be patched in place
+     */
+    private boolean canUpdate(List<Wire> moved) {
+        for (Wire wire : moved) {
+            Entry entry = entries.get(wire);
+            if (entry == null) {
+                if (detached.contains(wire)) {
+                    return false;
+                }
+                // Not on the board: a wire that shares a node with board wires.
+                continue;
+            }
+            WireNode start = wire.getStart();
+            WireNode end = wire.getEnd();
+            if (start == null || end == null || entry.line == null
+                    || (start.getX() == end.getX() && start.getY() == end.getY())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Re-files the moved wires, regroups the lines they left or joined and recomputes the render wires whose
+     * inputs changed.
+     */
+    private void update(List<Wire> moved) {
+        Set<Entry> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Line> dirtyLines = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Entry> relinked = new ArrayList<>();
+        for (Wire wire : moved) {
+            Entry entry = entries.get(wire);
+            if (entry == null) {
+                continue;
+            }
+            affected.add(entry);
+            if (entry.start != wire.getStart() || entry.end != wire.getEnd()) {
+                relinked.add(entry);
+            }
+            if (!entry.matches()) {
+                dirtyLines.add(entry.line);
+                leaveLine(entry);
+                assignLine(entry);
+                dirtyLines.add(entry.line);
+            }
+        }
+        List<Entry> shifted = new ArrayList<>();
+        for (Line line : dirtyLines) {
+            line.dirty = false;
+            if (line.members.isEmpty()) {
+                lines.remove(line.key);
+                continue;
+            }
+            line.members.sort(BOARD_ORDER);
+            List<Offset> previous = new ArrayList<>(line.members.size());
+            for (Entry entry : line.members) {
+                previous.add(entry.offset);
+            }
+            regroup(line);
+            for (int i = 0; i < line.members.size(); i++) {
+                Entry entry = line.members.get(i);
+                if (!sameOffset(entry.offset, previous.get(i))) {
+                    shifted.add(entry);
+                }
+            }
+        }
+        Set<WireNode> touchedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Entry entry : affected) {
+            updateContribution(entry, touchedNodes);
+        }
+        for (Entry entry : shifted) {
+            updateContribution(entry, touchedNodes);
+            affected.add(entry);
+            List<Entry> anchored = dependents.get(entry.wire);
+            if (anchored != null) {
+                affected.addAll(anchored);
+            }
+        }
+        for (WireNode node : touchedNodes) {
+            for (Wire wire : node.getWires()) {
+                Entry entry = entries.get(wire);
+                if (entry != null) {
+                    affected.add(entry);
+                }
+            }
+        }
+        for (Entry entry : affected) {
+            if (entry.startAnchor != entry.wire.getStartAnchorWire()
+                    || entry.endAnchor != entry.wire.getEndAnchorWire()) {
+                unlinkAnchors(entry);
+                linkAnchors(entry);
+            }
+            if (refreshRender(entry)) {
+                renderWires.set(entry.index, entry.render);
+                publish(entry);
+            }
+        }
+        // Crossings skip wires sharing a node, so a re-link is reported even when the segment did not move.
+        for (Entry entry : relinked) {
+            publish(entry);
+        }
+    }
+
+    private void publish(Entry entry) {
+        for (GeometryChanges<Wire> changes : trackers) {
+            changes.add(entry.wire);
+        }
+    }
+
+    /**
+     * Re-files every wire and rebuilds the render wire list.
+     */
+    private void rebuild(List<Wire> wires) {
+        pass++;
+        boolean pointsChanged = false;
+        detached.clear();
+        for (int i = 0; i < wires.size(); i++) {
+            Wire wire = wires.get(i);
+            if (wire.getStart() == null || wire.getEnd() == null) {
+                detached.add(wire);
+                continue;
+            }
+            Entry entry = entries.get(wire);
+            if (entry == null) {
+                entry = new Entry(wire);
+                entries.put(wire, entry);
+                pointsChanged |= assignLine(entry);
+            } else if (!entry.matches()) {
+                pointsChanged |= leaveLine(entry);
+                pointsChanged |= assignLine(entry);
+            }
+            entry.order = i;
+            entry.pass = pass;
+        }
+        for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+            Entry entry = iterator.next();
+            if (entry.pass != pass) {
+                pointsChanged |= leaveLine(entry);
+                iterator.remove();
+            }
+        }
+        if (pointsChanged) {
+            // A zero-length wire can capture overlapping wires of any line, so every line is regrouped.
+            for (Line line : lines.values()) {
+                line.dirty = true;
+            }
+        }
+        collectMembers(wires, pointsChanged);
+        for (Iterator<Line> iterator = lines.values().iterator(); iterator.hasNext(); ) {
+            Line line = iterator.next();
+            if (line.members.isEmpty()) {
+                iterator.remove();
+            } else if (line.dirty) {
+                regroup(line);
+                line.dirty = false;
+            }
+        }
+        accumulators.clear();
+        dependents.clear();
+        renderWires.clear();
+        for (Entry entry : entries.values()) {
+            entry.contributedStart = null;
+            entry.contributedEnd = null;
+            entry.contributedOffset = NO_OFFSET;
+            updateContribution(entry, null);
+            linkAnchors(entry);
+        }
+        for (Wire wire : wires) {
+            Entry entry = entries.get(wire);
+            if (entry == null) {
+                continue;
+            }
+            refreshRender(entry);
+            entry.index = renderWires.size();
+            renderWires.add(entry.render);
+        }
+        for (GeometryChanges<Wire> changes : trackers) {
+            changes.markAll();
+        }
+    }
+
+    /**
+     * Records the wire's current endpoints and files it under its line.
+     *
+     * @return true when the wire has zero length
+     */
+    private boolean assignLine(Entry entry) {
+        entry.record();
+        LineKey key = LineKey.of(entry.x1, entry.y1, entry.x2, entry.y2);
+        if (key == null) {
+            entry.line = null;
+            entry.offset = NO_OFFSET;
+            return true;
+        }
+        entry.line = lines.computeIfAbsent(key, Line::new);
+        entry.line.members.add(entry);
+        entry.line.dirty = true;
+        return false;
+    }
+
+    /**
+     * @return true when the wire had zero length
+     */
+    private boolean leaveLine(Entry entry) {
+        if (entry.line == null) {
+            return true;
+        }
+        entry.line.members.remove(entry);
+        entry.line.dirty = true;
+        return false;
+    }
+
+    /**
+     * Rebuilds the member lists of dirty lines, and the zero-length wire list, in board order.
+     */
+    private void collectMembers(List<Wire> wires, boolean pointsChanged) {
+        for (Line line : lines.values()) {
+            if (line.dirty) {
+                line.members.clear();
+            }
+        }
+        if (pointsChanged) {
+            points.clear();
+        }
+        for (Wire wire : wires) {
+            Entry entry = entries.get(wire);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.line == null) {
+                if (pointsChanged) {
+                    points.add(entry);
+                }
+            } else if (entry.line.dirty) {
+                entry.line.members.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Groups the wires of one line the way a board-order scan would: each wire joins the earliest group whose
+     * first wire it overlaps. Every wire of a group is then shifted along the first wire's normal.
+     */
+    private void regroup(Line line) {
+        List<List<Entry>> groups = new ArrayList<>();
+        for (Entry entry : line.members) {
+            List<Entry> target = null;
+            for (List<Entry> group : groups) {
+                if (WireRenderPlanner.areColinearOverlap(entry.wire, group.get(0).wire)) {
+                    target = group;
+                    break;
+                }
+            }
+            int limit = target == null ? entry.order : target.get(0).order;
+            if (isCapturedByPoint(entry, limit)) {
+                entry.offset = NO_OFFSET;
+                continue;
+            }
+            if (target == null) {
+                target = new ArrayList<>();
+                groups.add(target);
+            }
+            target.add(entry);
+        }
+        for (List<Entry> group : groups) {
+            int count = group.size();
+            if (count <= 1) {
+                group.get(0).offset = NO_OFFSET;
+                continue;
+            }
+            Entry base = group.get(0);
+            int dx = base.x2 - base.x1;
+            int dy = base.y2 - base.y1;
+            double length = Math.hypot(dx, dy);
+            double normalX = -dy / length;
+            double normalY = dx / length;
+            for (int i = 0; i < count; i++) {
+                double index = i - (count - 1) / 2.0;
+                int offsetX = (int) Math.round(normalX * index * offsetStep);
+                int offsetY = (int) Math.round(normalY * index * offsetStep);
+                group.get(i).offset = new Offset(offsetX, offsetY);
+            }
+        }
+    }
+
+    /**
+     * @return true when a zero-length wire earlier than {@code limit} lies inside the wire, which then joins
+     * that wire's group and stays unshifted
+     */
+    private boolean isCapturedByPoint(Entry entry, int limit) {
+        for (Entry point : points) {
+            if (point.order >= limit) {
+                break;
+            }
+            if (WireRenderPlanner.areColinearOverlap(entry.wire, point.wire)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Recomputes the render wire of one wire, reusing the previous one when its geometry is unchanged.
+     *
+     * @return true when the render wire was replaced
+     */
+    private boolean refreshRender(Entry entry) {
+        Wire wire = entry.wire;
+        Offset startOffset = resolveEndpointOffset(entry, wire.getStartAnchorWire(), wire.getStart());
+        Offset endOffset = resolveEndpointOffset(entry, wire.getEndAnchorWire(), wire.getEnd());
+        int startX = entry.x1 + startOffset.dx;
+        int startY = entry.y1 + startOffset.dy;
+        int endX = entry.x2 + endOffset.dx;
+        int endY = entry.y2 + endOffset.dy;
+        RenderWire previous = entry.render;
+        if (previous != null && previous.x1 == startX && previous.y1 == startY && previous.x2 == endX
+                && previous.y2 == endY && previous.baseX1 == entry.x1 && previous.baseY1 == entry.y1
+                && previous.baseX2 == entry.x2 && previous.baseY2 == entry.y2) {
+            return false;
+        }
+        entry.render = new RenderWire(wire, startX, startY, endX, endY, entry.x1, entry.y1, entry.x2, entry.y2);
+        return true;
+    }
+
+    /**
+     * A shifted wire keeps its own offset; an unshifted one follows its anchor wire, else the average shift of
+     * the wires meeting at the node.
+     */
+    private Offset resolveEndpointOffset(Entry entry, Wire anchor, WireNode node) {
+        if (!entry.offset.isZero()) {
+            return entry.offset;
+        }
+        if (anchor != null) {
+            Entry anchorEntry = entries.get(anchor);
+            if (anchorEntry != null && !anchorEntry.offset.isZero()) {
+                return anchorEntry.offset;
+            }
+        }
+        OffsetAccumulator accumulator = accumulators.get(node);
+        if (accumulator == null || accumulator.count == 0) {
+            return entry.offset;
+        }
+        return new Offset(Math.round(accumulator.sumDx / (float) accumulator.count),
+                Math.round(accumulator.sumDy / (float) accumulator.count));
+    }
+
+    /**
+     * Moves the wire's shift in the node offset sums from the nodes and shift it last added to its current ones.
+     * Only shifted wires count towards a node's average.
+     *
+     * @param touchedNodes receives every node whose sum changed, or null
+     */
+    private void updateContribution(Entry entry, Set<WireNode> touchedNodes) {
+        boolean shifted = !entry.offset.isZero();
+        WireNode start = shifted ? entry.start : null;
+        WireNode end = shifted ? entry.end : null;
+        if (start == entry.contributedStart && end == entry.contributedEnd
+                && sameOffset(entry.offset, entry.contributedOffset)) {
+            return;
+        }
+        addOffsetToNode(entry.contributedStart, entry.contributedOffset, -1, touchedNodes);
+        addOffsetToNode(entry.contributedEnd, entry.contributedOffset, -1, touchedNodes);
+        addOffsetToNode(start, entry.offset, 1, touchedNodes);
+        addOffsetToNode(end, entry.offset, 1, touchedNodes);
+        entry.contributedStart = start;
+        entry.contributedEnd = end;
+        entry.contributedOffset = entry.offset;
+    }
+
+    private void addOffsetToNode(WireNode node, Offset offset, int sign, Set<WireNode> touchedNodes) {
+        if (node == null) {
+            return;
+        }
+        OffsetAccumulator accumulator = accumulators.computeIfAbsent(node, unused -> new OffsetAccumulator());
+        accumulator.sumDx += sign * offset.dx;
+        accumulator.sumDy += sign * offset.dy;
+        accumulator.count += sign;
+        if (accumulator.count == 0) {
+            accumulators.remove(node);
+        }
+        if (touchedNodes != null) {
+            touchedNodes.add(node);
+        }
+    }
+
+    private void linkAnchors(Entry entry) {
+        entry.startAnchor = entry.wire.getStartAnchorWire();
+        entry.endAnchor = entry.wire.getEndAnchorWire();
+        if (entry.startAnchor != null) {
+            dependents.computeIfAbsent(entry.startAnchor, unused -> new ArrayList<>(2)).add(entry);
+        }
+        if (entry.endAnchor != null && entry.endAnchor != entry.startAnchor) {
+            dependents.computeIfAbsent(entry.endAnchor, unused -> new ArrayList<>(2)).add(entry);
+        }
+    }
+
+    private void unlinkAnchors(Entry entry) {
+        unlinkAnchor(entry.startAnchor, entry);
+        if (entry.endAnchor != entry.startAnchor) {
+            unlinkAnchor(entry.endAnchor, entry);
+        }
+    }
+
+    private void unlinkAnchor(Wire anchor, Entry entry) {
+        List<Entry> anchored = anchor == null ? null : dependents.get(anchor);
+        if (anchored != null && anchored.remove(entry) && anchored.isEmpty()) {
+            dependents.remove(anchor);
+        }
+    }
+
+    private static boolean sameOffset(Offset first, Offset second) {
+        return first.dx == second.dx && first.dy == second.dy;
+    }
+
+    /**
+     * Wires lying on one line and the offsets last computed for them.
+     */
+    private static final class Line {
+        private final LineKey key;
+        private final List<Entry> members = new ArrayList<>();
+        private boolean dirty;
+
+        private Line(LineKey key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Cached state of one board wire.
+     */
+    private static final class Entry {
+        private final Wire wire;
+        private WireNode start;
+        private WireNode end;
+        private int x1;
+        private int y1;
+        private int x2;
+        private int y2;
+        private int order;
+        private int index;
+        private int pass;
+        private Line line;
+        private Offset offset = NO_OFFSET;
+        private RenderWire render;
+        private WireNode contributedStart;
+        private WireNode contributedEnd;
+        private Offset contributedOffset = NO_OFFSET;
+        private Wire startAnchor;
+        private Wire endAnchor;
+
+        private Entry(Wire wire) {
+            this.wire = wire;
+        }
+
+        private boolean matches() {
+            WireNode currentStart = wire.getStart();
+            WireNode currentEnd = wire.getEnd();
+            return currentStart == start && currentEnd == end && currentStart.getX() == x1
+                    && currentStart.getY() == y1 && currentEnd.getX() == x2 && currentEnd.getY() == y2;
+        }
+
+        private void record() {
+            start = wire.getStart();
+            end = wire.getEnd();
+            x1 = start.getX();
+            y1 = start.getY();
+            x2 = end.getX();
+            y2 = end.getY();
+        }
+    }
+
+    /**
+     * Canonical line through a segment: reduced direction with a fixed sign, plus the offset of the line from
+     * the origin along that direction's normal.
+     */
+    private record LineKey(long dx, long dy, long intercept) {
+        /**
+         * @return the key, or null for a zero-length segment
+         */
+        private static LineKey of(int x1, int y1, int x2, int y2) {
+            long dx = (long) x2 - x1;
+            long dy = (long) y2 - y1;
+            if (dx == 0 && dy == 0) {
+                return null;
+            }
+            long divisor = gcd(Math.abs(dx), Math.abs(dy));
+            dx /= divisor;
+            dy /= divisor;
+            if (dx < 0 || (dx == 0 && dy < 0)) {
+                dx = -dx;
+                dy = -dy;
+            }
+            return new LineKey(dx, dy, (dy * x1) - (dx * y1));
+        }
+
+        private static long gcd(long a, long b) {
+            while (b != 0) {
+                long remainder = a % b;
+                a = b;
+                b = remainder;
+            }
+            return a;
+        }
+    }
+}
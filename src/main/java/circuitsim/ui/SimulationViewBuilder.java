@@ -2,125 +2,246 @@ package circuitsim.ui;
 
 import circuitsim.components.core.CircuitComponent;
 import circuitsim.components.core.ConnectionPoint;
+import circuitsim.components.electrical.PortReducedNetwork;
+import circuitsim.components.logic.LogicLookupTable;
 import circuitsim.components.ports.CustomComponent;
-import circuitsim.components.ports.CustomInputPort;
-import circuitsim.components.ports.CustomOutputPort;
 import circuitsim.components.wiring.Wire;
-import circuitsim.components.wiring.WireColor;
-import circuitsim.components.wiring.WireNode;
 import circuitsim.custom.CustomComponentDefinition;
 import circuitsim.io.BoardState;
+import circuitsim.physics.PortReducedModel;
+import circuitsim.physics.WireNetIndex;
 import circuitsim.ui.Grid;
 import java.awt.Point;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 /**
  * Expands custom components into their internal circuits for simulation.
+ * Instances are stamped out from compiled {@link DefinitionTemplate}s. Expansions persist per instance so
+ * internal state (capacitor history, latches) survives between frames;
+ * an instance is re-expanded only when its definition (or a nested one) changes, and its port bindings
+ * are rebuilt only when it moves. Each instance gets its own region of simulation space, so internals of
+ * different instances never share a net by coincidence; regions of dropped expansions are handed to later ones.
+ * Ports join the board through net index bindings, which the solver stamps as one node, rather than connector
+ * wires. Purely combinational definitions become lookup tables and purely linear ones become port-reduced
+ * networks instead of being expanded. The assembled view is reused while the board is unchanged, and tags each
+ * expansion's parts with its instance so the solver can split the system along instance boundaries.
  */
 final class SimulationViewBuilder {
-    private SimulationViewBuilder() {
-    }
+    private static final int REGION_ORIGIN = 1_000_000_000;
+    private static final int REGION_LIMIT = 2_000_000_000;
+    private static final int REGION_MARGIN = Grid.SIZE * 40;
+    private final java.util.Map<CustomComponent, CachedExpansion> expansions = new java.util.IdentityHashMap<>();
+    private CircuitComponent[] viewComponents = new CircuitComponent[0];
+    private WireNetIndex viewWireIndex;
+    private int viewWireCount = -1;
+    private int viewWireVersion = -1;
+    private SimulationView view;
+    private final List<Region> freeRegions = new ArrayList<>();
+    private int nextRegionX = REGION_ORIGIN;
+    private int nextRegionY = REGION_ORIGIN;
+    private int rowHeight;
 
-    static SimulationView build(List<CircuitComponent> components, List<Wire> wires,
-                                Function<String, CustomComponentDefinition> customDefinitionResolver,
-                                BiConsumer<CircuitComponent, BoardState.ComponentState> applyComponentState) {
+    /**
+     * @return simulation view for the board, reusing cached expansions and the previous view when valid
+     */
+    SimulationView build(List<CircuitComponent> components, List<Wire> wires, WireNetIndex wireNetIndex,
+                         Function<String, CustomComponentDefinition> customDefinitionResolver,
+                         BiConsumer<CircuitComponent, BoardState.ComponentState> applyComponentState) {
+        if (expansions.isEmpty()) {
+            freeRegions.clear();
+            nextRegionX = REGION_ORIGIN;
+            nextRegionY = REGION_ORIGIN;
+            rowHeight = 0;
+        }
+        boolean reusable = view != null && viewWireIndex == wireNetIndex && viewWireCount == wires.size()
+                && viewWireVersion == wireNetIndex.getVersion() && viewComponents.length == components.size();
+        for (int i = 0; i < components.size(); i++) {
+            CircuitComponent component = components.get(i);
+            if (reusable && viewComponents[i] != component) {
+                reusable = false;
+            }
+            if (component instanceof CustomComponent custom && !refreshExpansion(custom,
+                    customDefinitionResolver, applyComponentState)) {
+                reusable = false;
+            }
+        }
+        if (reusable) {
+            return view;
+        }
+        java.util.Set<CircuitComponent> present = java.util.Collections.newSetFromMap(new java.util.IdentityHashMap<>());
+        present.addAll(components);
+        for (java.util.Iterator<java.util.Map.Entry<CustomComponent, CachedExpansion>> iterator =
+             expansions.entrySet().iterator(); iterator.hasNext(); ) {
+            java.util.Map.Entry<CustomComponent, CachedExpansion> entry = iterator.next();
+            if (!present.contains(entry.getKey())) {
+                releaseRegion(entry.getValue());
+                iterator.remove();
+            }
+        }
         List<CircuitComponent> simulationComponents = new ArrayList<>();
         List<Wire> simulationWires = new ArrayList<>(wires);
+        List<int[]> bindings = new ArrayList<>();
+        java.util.Map<Object, Integer> domains = new java.util.IdentityHashMap<>();
+        int domainCount = 0;
         for (CircuitComponent component : components) {
             if (component instanceof CustomComponent custom) {
-                CustomComponentDefinition definition = custom.getDefinition();
-                if (definition == null) {
+                CachedExpansion expansion = expansions.get(custom);
+                if (expansion == null) {
                     continue;
                 }
-                ExpansionResult expansion = expandDefinition(definition, custom.getId(), new HashSet<>(),
-                        customDefinitionResolver, applyComponentState);
+                Integer domain = domainCount++;
+                for (CircuitComponent inner : expansion.components) {
+                    domains.put(inner, domain);
+                }
+                for (Wire wire : expansion.wires) {
+                    domains.put(wire, domain);
+                }
                 simulationComponents.addAll(expansion.components);
                 simulationWires.addAll(expansion.wires);
-                connectExternalPorts(custom, expansion, simulationWires);
+                bindings.addAll(expansion.bindings);
+                bindings.addAll(expansion.portBindings);
             } else {
                 simulationComponents.add(component);
             }
         }
-        return new SimulationView(simulationComponents, simulationWires);
+        WireNetIndex simulationNetIndex = wireNetIndex;
+        if (simulationWires.size() != wires.size() || !bindings.isEmpty()) {
+            // Extend a copy with the expanded internals so the board index stays untouched.
+            simulationNetIndex = wireNetIndex.copy();
+            for (int i = wires.size(); i < simulationWires.size(); i++) {
+                simulationNetIndex.addWire(simulationWires.get(i));
+            }
+            for (int[] binding : bindings) {
+                simulationNetIndex.bind(binding[0], binding[1], binding[2], binding[3]);
+            }
+        }
+        viewComponents = components.toArray(new CircuitComponent[0]);
+        viewWireIndex = wireNetIndex;
+        viewWireCount = wires.size();
+        viewWireVersion = wireNetIndex.getVersion();
+        view = new SimulationView(simulationComponents, simulationWires, simulationNetIndex, domains);
+        return view;
     }
 
-    private static ExpansionResult expandDefinition(CustomComponentDefinition definition, long seed,
-                                                   java.util.Set<String> path,
-                                                   Function<String, CustomComponentDefinition> customDefinitionResolver,
-                                                   BiConsumer<CircuitComponent, BoardState.ComponentState> applyComponentState) {
-        ExpansionResult result = new ExpansionResult();
+    /**
+     * Brings the instance's cached expansion up to date.
+     *
+     * @return true when the cached expansion (and therefore the view) is unchanged
+     */
+    private boolean refreshExpansion(CustomComponent custom,
+                                     Function<String, CustomComponentDefinition> customDefinitionResolver,
+                                     BiConsumer<CircuitComponent, BoardState.ComponentState> applyComponentState) {
+        CustomComponentDefinition definition = custom.getDefinition();
+        CachedExpansion cached = expansions.get(custom);
         if (definition == null) {
-            return result;
-        }
-        if (path.contains(definition.getId())) {
-            return result;
-        }
-        path.add(definition.getId());
-        BoardState state = definition.getBoardState();
-        if (state == null) {
-            return result;
-        }
-        Point offset = computeSimulationOffset(seed);
-        List<BoardState.ComponentState> componentStates = state.getComponents();
-        for (int i = 0; i < componentStates.size(); i++) {
-            BoardState.ComponentState componentState = componentStates.get(i);
-            if ("Custom".equals(componentState.getType())) {
-                CustomComponentDefinition nested = customDefinitionResolver.apply(componentState.getCustomId());
-                if (nested == null) {
-                    continue;
-                }
-                CustomComponent nestedShell = new CustomComponent(0, 0, nested);
-                applyComponentState.accept(nestedShell, componentState);
-                nestedShell.setPosition(componentState.getX() + offset.x, componentState.getY() + offset.y);
-                long nestedSeed = (seed * 31L) + i + 1;
-                ExpansionResult nestedExpansion = expandDefinition(nested, nestedSeed,
-                        new HashSet<>(path), customDefinitionResolver, applyComponentState);
-                result.components.addAll(nestedExpansion.components);
-                result.wires.addAll(nestedExpansion.wires);
-                connectPortLists(getPortPoints(nestedShell, true), nestedExpansion.inputPoints, result.wires);
-                connectPortLists(getPortPoints(nestedShell, false), nestedExpansion.outputPoints, result.wires);
-                continue;
+            CachedExpansion removed = expansions.remove(custom);
+            releaseRegion(removed);
+            return removed == null;
+        }
+        if (cached != null && cached.matchesDefinition(definition, customDefinitionResolver)) {
+            if (cached.matchesPlacement(custom)) {
+                return true;
             }
-            CircuitComponent component = createComponentFromStateForSimulation(componentState);
-            if (component == null) {
-                continue;
+            if (cached.table == null) {
+                // Moved: internals live in their own region, so only the port bindings change.
+                cached.portBindings.clear();
+                if (cached.network != null) {
+                    bindSharedPorts(custom, cached.network.getModel(), cached.portBindings);
+                } else {
+                    bindPortLists(getPortPoints(custom, true), cached.inputPoints, cached.portBindings);
+                    bindPortLists(getPortPoints(custom, false), cached.outputPoints, cached.portBindings);
+                }
+                cached.recordPlacement(custom);
+                return false;
             }
-            applyComponentState.accept(component, componentState);
-            component.setPosition(componentState.getX() + offset.x, componentState.getY() + offset.y);
-            result.components.add(component);
-            if (component instanceof CustomInputPort) {
-                result.inputPoints.add(getPrimaryConnectionPoint(component));
-            } else if (component instanceof CustomOutputPort) {
-                result.outputPoints.add(getPrimaryConnectionPoint(component));
+        }
+        releaseRegion(cached);
+        CachedExpansion expansion = new CachedExpansion(definition);
+        long[] table = LogicMacroModels.lookup(definition, applyComponentState);
+        PortReducedModel model = table == null ? LinearMacroModels.lookup(definition, applyComponentState) : null;
+        if (table != null) {
+            expansion.table = table;
+            expansion.components.add(new LogicLookupTable(custom, table));
+        } else if (model != null && model.getPortCount()
+                == getPortPoints(custom, true).size() + getPortPoints(custom, false).size()) {
+            expansion.network = new PortReducedNetwork(custom, model);
+            expansion.components.add(expansion.network);
+            bindSharedPorts(custom, model, expansion.portBindings);
+        } else {
+            expansion.template = DefinitionTemplate.forDefinition(definition, customDefinitionResolver,
+                    applyComponentState);
+            DefinitionTemplate template = expansion.template;
+            expansion.region = allocateRegion(template.getWidth(), template.getHeight());
+            int offsetX = expansion.region.x - template.getMinX();
+            int offsetY = expansion.region.y - template.getMinY();
+            DefinitionTemplate.Instance result = template.instantiate(offsetX, offsetY, applyComponentState);
+            expansion.components.addAll(result.components);
+            expansion.wires.addAll(result.wires);
+            expansion.bindings.addAll(result.bindings);
+            expansion.inputPoints.addAll(result.inputPoints);
+            expansion.outputPoints.addAll(result.outputPoints);
+            bindPortLists(getPortPoints(custom, true), expansion.inputPoints, expansion.portBindings);
+            bindPortLists(getPortPoints(custom, false), expansion.outputPoints, expansion.portBindings);
+        }
+        expansion.recordPlacement(custom);
+        expansions.put(custom, expansion);
+        return false;
+    }
+
+    /**
+     * @return free region at least as large as requested, reusing a released one when it fits
+     */
+    private Region allocateRegion(int width, int height) {
+        for (int i = 0; i < freeRegions.size(); i++) {
+            Region region = freeRegions.get(i);
+            if (region.width >= width && region.height >= height) {
+                freeRegions.remove(i);
+                return region;
             }
         }
-        for (BoardState.WireState wireState : state.getWires()) {
-            WireNode start = new WireNode(wireState.getStartX() + offset.x, wireState.getStartY() + offset.y);
-            WireNode end = new WireNode(wireState.getEndX() + offset.x, wireState.getEndY() + offset.y);
-            Wire wire = Wire.connect(start, end, wireState.getColor());
-            wire.setShowData(wireState.isShowData());
-            result.wires.add(wire);
+        if (nextRegionX > REGION_LIMIT - width) {
+            // Row is full: continue below the tallest region of the current row.
+            nextRegionX = REGION_ORIGIN;
+            nextRegionY = Grid.snap(nextRegionY + rowHeight + REGION_MARGIN);
+            rowHeight = 0;
         }
-        return result;
+        Region region = new Region(nextRegionX, nextRegionY, width, height);
+        nextRegionX = Grid.snap(nextRegionX + width + REGION_MARGIN);
+        rowHeight = Math.max(rowHeight, height);
+        return region;
     }
 
-    private static void connectExternalPorts(CustomComponent shell, ExpansionResult expansion, List<Wire> simWires) {
-        connectPortLists(getPortPoints(shell, true), expansion.inputPoints, simWires);
-        connectPortLists(getPortPoints(shell, false), expansion.outputPoints, simWires);
+    private void releaseRegion(CachedExpansion expansion) {
+        if (expansion != null && expansion.region != null) {
+            freeRegions.add(expansion.region);
+            expansion.region = null;
+        }
     }
 
-    private static void connectPortLists(List<Point> externalPoints, List<Point> internalPoints, List<Wire> simWires) {
+    /**
+     * Binds ports that the definition shorts together, since the reduced model stamps one node per port net.
+     */
+    private static void bindSharedPorts(CustomComponent shell, PortReducedModel model, List<int[]> bindings) {
+        List<Point> ports = getPortPoints(shell, true);
+        ports.addAll(getPortPoints(shell, false));
+        for (int port = 0; port < ports.size(); port++) {
+            Point point = ports.get(port);
+            Point shared = ports.get(model.getGroupPort(model.getPortGroup(port)));
+            if (shared != point) {
+                bindings.add(new int[] {shared.x, shared.y, point.x, point.y});
+            }
+        }
+    }
+
+    private static void bindPortLists(List<Point> externalPoints, List<Point> internalPoints, List<int[]> bindings) {
         int count = Math.min(externalPoints.size(), internalPoints.size());
         for (int i = 0; i < count; i++) {
             Point external = externalPoints.get(i);
             Point internal = internalPoints.get(i);
-            WireNode start = new WireNode(external.x, external.y);
-            WireNode end = new WireNode(internal.x, internal.y);
-            simWires.add(Wire.connect(start, end, WireColor.WHITE));
+            bindings.add(new int[] {external.x, external.y, internal.x, internal.y});
         }
     }
 
@@ -138,44 +259,74 @@ final class SimulationViewBuilder {
         return points;
     }
 
-    private static Point getPrimaryConnectionPoint(CircuitComponent component) {
-        if (component.getConnectionPoints().isEmpty()) {
-            return new Point(component.getX(), component.getY());
-        }
-        ConnectionPoint point = component.getConnectionPoints().get(0);
-        return new Point(component.getConnectionPointWorldX(point),
-                component.getConnectionPointWorldY(point));
-    }
-
-    private static Point computeSimulationOffset(long seed) {
-        long abs = Math.abs(seed);
-        int baseX = 1_000_000 + (int) ((abs % 997) * 10_000L);
-        int baseY = 1_000_000 + (int) (((abs / 997) % 997) * 10_000L);
-        return new Point(Grid.snap(baseX), Grid.snap(baseY));
-    }
-
-    private static CircuitComponent createComponentFromStateForSimulation(BoardState.ComponentState state) {
-        if (state == null || state.getType() == null) {
-            return null;
-        }
-        return circuitsim.components.core.ComponentRegistry.createBuiltinFromType(state.getType(),
-                state.getX(), state.getY());
-    }
-
     static final class SimulationView {
         final List<CircuitComponent> components;
         final List<Wire> wires;
+        final WireNetIndex netIndex;
+        /** Expanded instance index per internal component and wire, for the domain-decomposed solve. */
+        final java.util.Map<Object, Integer> domains;
 
-        SimulationView(List<CircuitComponent> components, List<Wire> wires) {
+        SimulationView(List<CircuitComponent> components, List<Wire> wires, WireNetIndex netIndex,
+                       java.util.Map<Object, Integer> domains) {
             this.components = components;
             this.wires = wires;
+            this.netIndex = netIndex;
+            this.domains = domains;
         }
     }
 
-    private static final class ExpansionResult {
+    /**
+     * Area of simulation space holding one expanded instance.
+     */
+    private record Region(int x, int y, int width, int height) {
+    }
+
+    /**
+     * Persistent expansion of one custom component instance.
+     */
+    private static final class CachedExpansion {
+        final CustomComponentDefinition definition;
+        final String contentHash;
         final List<CircuitComponent> components = new ArrayList<>();
         final List<Wire> wires = new ArrayList<>();
+        final List<int[]> bindings = new ArrayList<>();
+        final List<int[]> portBindings = new ArrayList<>();
         final List<Point> inputPoints = new ArrayList<>();
         final List<Point> outputPoints = new ArrayList<>();
+        long[] table;
+        PortReducedNetwork network;
+        DefinitionTemplate template;
+        Region region;
+        private int x;
+        private int y;
+        private int width;
+        private int height;
+        private int rotation;
+
+        CachedExpansion(CustomComponentDefinition definition) {
+            this.definition = definition;
+            this.contentHash = definition.getContentHash();
+        }
+
+        boolean matchesDefinition(CustomComponentDefinition current,
+                                  Function<String, CustomComponentDefinition> customDefinitionResolver) {
+            if (current != definition || !contentHash.equals(current.getContentHash())) {
+                return false;
+            }
+            return template == null || template.isCurrent(current, customDefinitionResolver);
+        }
+
+        boolean matchesPlacement(CustomComponent shell) {
+            return x == shell.getX() && y == shell.getY() && width == shell.getWidth()
+                    && height == shell.getHeight() && rotation == shell.getRotationQuarterTurns();
+        }
+
+        void recordPlacement(CustomComponent shell) {
+            x = shell.getX();
+            y = shell.getY();
+            width = shell.getWidth();
+            height = shell.getHeight();
+            rotation = shell.getRotationQuarterTurns();
+        }
     }
 }
@@ -0,0 +1,370 @@
+package circuitsim.ui;
+
+import circuitsim.components.core.BoardGeometry;
+import circuitsim.components.core.CircuitComponent;
+import circuitsim.components.core.ConnectionPoint;
+import circuitsim.components.core.GeometryChanges;
+import circuitsim.components.wiring.Wire;
+import circuitsim.components.wiring.WireNode;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid over world coordinates for hit-testing, marquee selection and paint culling.
+ * Components are bucketed by their paint bounds and connection dots, wires by their segment. The grid is brought up
+ * to date on the next query after an edit: moves are drained from the board's dirty sets and only those items are
+ * re-bucketed, while adding or removing items re-walks the list to renumber it. Query results keep the board list
+ * order, so callers can apply the same first-match and topmost-match rules as a linear scan.
+ */
+final class SpatialIndex {
+    private static final int CELL_SIZE = Grid.SIZE * 4;
+    private static final int MAX_ITEM_CELLS = 1024;
+
+    private final VersionedList<CircuitComponent> components;
+    private final VersionedList<Wire> wires;
+    private final GeometryChanges<CircuitComponent> componentChanges;
+    private final GeometryChanges<Wire> wireChanges;
+    private final GeometryChanges<Wire> renderWireChanges;
+    private final Map<CircuitComponent, Entry<CircuitComponent>> componentEntries = new IdentityHashMap<>();
+    private final Map<Wire, Entry<Wire>> wireEntries = new IdentityHashMap<>();
+    private final Map<Wire, Entry<RenderWire>> renderWireEntries = new IdentityHashMap<>();
+    private final CellMap<CircuitComponent> componentCells = new CellMap<>();
+    private final CellMap<Wire> wireCells = new CellMap<>();
+    private final CellMap<RenderWire> renderWireCells = new CellMap<>();
+    private int syncedComponentList = -1;
+    private int syncedWireList = -1;
+    private List<RenderWire> indexedRenderWires;
+    private int pass;
+
+    /**
+     * @param renderWireChanges wires whose render wire the render wire cache replaced
+     */
+    SpatialIndex(BoardGeometry boardGeometry, VersionedList<CircuitComponent> components,
+                 VersionedList<Wire> wires, GeometryChanges<Wire> renderWireChanges) {
+        this.components = components;
+        this.wires = wires;
+        this.componentChanges = boardGeometry.trackComponents();
+        this.wireChanges = boardGeometry.trackWires();
+        this.renderWireChanges = renderWireChanges;
+    }
+
+    /**
+     * @return components whose paint bounds or connection dots may overlap the area, in board order
+     */
+    List<CircuitComponent> componentsIn(Rectangle area) {
+        syncComponents();
+        return componentCells.query(area);
+    }
+
+    /**
+     * @return wires whose segment bounds may overlap the area, in board order
+     */
+    List<Wire> wiresIn(Rectangle area) {
+        syncWires();
+        return wireCells.query(area);
+    }
+
+    /**
+     * @return render wires whose offset segment bounds may overlap the area, in list order
+     */
+    List<RenderWire> renderWiresIn(List<RenderWire> renderWires, Rectangle area) {
+        if (renderWires != indexedRenderWires || renderWireChanges.isAll()) {
+            renderWireChanges.drain();
+            renderWireCells.clear();
+            renderWireEntries.clear();
+            for (int i = 0; i < renderWires.size(); i++) {
+                insertRenderWire(renderWires.get(i), i);
+            }
+            indexedRenderWires = renderWires;
+        } else {
+            for (Wire wire : renderWireChanges.drain()) {
+                Entry<RenderWire> entry = renderWireEntries.get(wire);
+                if (entry != null) {
+                    renderWireCells.remove(entry);
+                    insertRenderWire(renderWires.get(entry.order), entry.order);
+                }
+            }
+        }
+        return renderWireCells.query(area);
+    }
+
+    private void insertRenderWire(RenderWire renderWire, int order) {
+        Entry<RenderWire> entry = new Entry<>(renderWire);
+        entry.order = order;
+        renderWireEntries.put(renderWire.wire, entry);
+        renderWireCells.insert(entry, Math.min(renderWire.x1, renderWire.x2), Math.min(renderWire.y1, renderWire.y2),
+                Math.max(renderWire.x1, renderWire.x2), Math.max(renderWire.y1, renderWire.y2));
+    }
+
+    /**
+     * @return square of the given radius around a point
+     */
+    static Rectangle around(int x, int y, int radius) {
+        return new Rectangle(x - radius, y - radius, (radius * 2) + 1, (radius * 2) + 1);
+    }
+
+    private void syncComponents() {
+        int listVersion = components.getVersion();
+        if (listVersion == syncedComponentList) {
+            // Components that left the board have no entry and are skipped.
+            for (CircuitComponent component : componentChanges.drain()) {
+                Entry<CircuitComponent> entry = componentEntries.get(component);
+                if (entry != null && entry.stamp != component.getGeometryStamp()) {
+                    componentCells.remove(entry);
+                    insertComponent(entry);
+                }
+            }
+            return;
+        }
+        componentChanges.drain();
+        pass++;
+        for (int i = 0; i < components.size(); i++) {
+            CircuitComponent component = components.get(i);
+            Entry<CircuitComponent> entry = componentEntries.get(component);
+            if (entry == null) {
+                entry = new Entry<>(component);
+                componentEntries.put(component, entry);
+                insertComponent(entry);
+            } else if (entry.stamp != component.getGeometryStamp()) {
+                componentCells.remove(entry);
+                insertComponent(entry);
+            }
+            entry.order = i;
+            entry.pass = pass;
+        }
+        for (Iterator<Entry<CircuitComponent>> iterator = componentEntries.values().iterator();
+             iterator.hasNext(); ) {
+            Entry<CircuitComponent> entry = iterator.next();
+            if (entry.pass != pass) {
+                componentCells.remove(entry);
+                iterator.remove();
+            }
+        }
+        syncedComponentList = listVersion;
+    }
+
+    private void insertComponent(Entry<CircuitComponent> entry) {
+        CircuitComponent component = entry.item;
+        entry.stamp = component.getGeometryStamp();
+        Rectangle paintBounds = component.getPaintBounds();
+        int minX = paintBounds.x;
+        int minY = paintBounds.y;
+        int maxX = paintBounds.x + paintBounds.width;
+        int maxY = paintBounds.y + paintBounds.height;
+        int radius = component.getConnectionDotSize() / 2;
+        for (ConnectionPoint point : component.getConnectionPoints()) {
+            int pointX = component.getConnectionPointWorldX(point);
+            int pointY = component.getConnectionPointWorldY(point);
+            minX = Math.min(minX, pointX - radius);
+            minY = Math.min(minY, pointY - radius);
+            maxX = Math.max(maxX, pointX + radius);
+            maxY = Math.max(maxY, pointY + radius);
+        }
+        componentCells.insert(entry, minX, minY, maxX, maxY);
+    }
+
+    private void syncWires() {
+        int listVersion = wires.getVersion();
+        if (listVersion == syncedWireList) {
+            for (Wire wire : wireChanges.drain()) {
+                Entry<Wire> entry = wireEntries.get(wire);
+                if (entry != null && !entry.matches(wire.getStart(), wire.getEnd())) {
+                    wireCells.remove(entry);
+                    insertWire(entry);
+                }
+            }
+            return;
+        }
+        wireChanges.drain();
+        pass++;
+        for (int i = 0; i < wires.size(); i++) {
+            Wire wire = wires.get(i);
+            Entry<Wire> entry = wireEntries.get(wire);
+            if (entry == null) {
+                entry = new Entry<>(wire);
+                wireEntries.put(wire, entry);
+                insertWire(entry);
+            } else if (!entry.matches(wire.getStart(), wire.getEnd())) {
+                wireCells.remove(entry);
+                insertWire(entry);
+            }
+            entry.order = i;
+            entry.pass = pass;
+        }
+        for (Iterator<Entry<Wire>> iterator = wireEntries.values().iterator(); iterator.hasNext(); ) {
+            Entry<Wire> entry = iterator.next();
+            if (entry.pass != pass) {
+                wireCells.remove(entry);
+                iterator.remove();
+            }
+        }
+        syncedWireList = listVersion;
+    }
+
+    private void insertWire(Entry<Wire> entry) {
+        WireNode start = entry.item.getStart();
+        WireNode end = entry.item.getEnd();
+        entry.start = start;
+        entry.end = end;
+        WireNode first = start != null ? start : end;
+        WireNode second = end != null ? end : start;
+        if (first == null) {
+            return;
+        }
+        entry.x1 = first.getX();
+        entry.y1 = first.getY();
+        entry.x2 = second.getX();
+        entry.y2 = second.getY();
+        wireCells.insert(entry, Math.min(entry.x1, entry.x2), Math.min(entry.y1, entry.y2),
+                Math.max(entry.x1, entry.x2), Math.max(entry.y1, entry.y2));
+    }
+
+    private static int cellOf(int coordinate) {
+        return Math.floorDiv(coordinate, CELL_SIZE);
+    }
+
+    private static long cellKey(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xffffffffL);
+    }
+
+    /**
+     * Bookkeeping for one indexed item.
+     */
+    private static final class Entry<T> {
+        private final T item;
+        private int order;
+        private int pass;
+        private int mark;
+        private long stamp;
+        private WireNode start;
+        private WireNode end;
+        private int x1;
+        private int y1;
+        private int x2;
+        private int y2;
+        private boolean indexed;
+        private boolean oversized;
+        private int minCellX;
+        private int minCellY;
+        private int maxCellX;
+        private int maxCellY;
+
+        private Entry(T item) {
+            this.item = item;
+        }
+
+        private boolean matches(WireNode start, WireNode end) {
+            if (start != this.start || end != this.end) {
+                return false;
+            }
+            WireNode first = start != null ? start : end;
+            WireNode second = end != null ? end : start;
+            return first == null || (x1 == first.getX() && y1 == first.getY()
+                    && x2 == second.getX() && y2 == second.getY());
+        }
+    }
+
+    /**
+     * Sparse map from grid cell to the entries overlapping it. Items spanning too many cells are kept in a
+     * separate list that every query checks.
+     */
+    private static final class CellMap<T> {
+        private final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+        private final List<Entry<T>> oversized = new ArrayList<>();
+        private int query;
+
+        private void insert(Entry<T> entry, int minX, int minY, int maxX, int maxY) {
+            entry.minCellX = cellOf(minX);
+            entry.minCellY = cellOf(minY);
+            entry.maxCellX = cellOf(maxX);
+            entry.maxCellY = cellOf(maxY);
+            entry.indexed = true;
+            long cellCount = ((long) entry.maxCellX - entry.minCellX + 1)
+                    * ((long) entry.maxCellY - entry.minCellY + 1);
+            entry.oversized = cellCount > MAX_ITEM_CELLS;
+            if (entry.oversized) {
+                oversized.add(entry);
+                return;
+            }
+            for (int cellX = entry.minCellX; cellX <= entry.maxCellX; cellX++) {
+                for (int cellY = entry.minCellY; cellY <= entry.maxCellY; cellY++) {
+                    cells.computeIfAbsent(cellKey(cellX, cellY), key -> new ArrayList<>(4)).add(entry);
+                }
+            }
+        }
+
+        private void remove(Entry<T> entry) {
+            if (!entry.indexed) {
+                return;
+            }
+            entry.indexed = false;
+            if (entry.oversized) {
+                oversized.remove(entry);
+                return;
+            }
+            for (int cellX = entry.minCellX; cellX <= entry.maxCellX; cellX++) {
+                for (int cellY = entry.minCellY; cellY <= entry.maxCellY; cellY++) {
+                    Long key = cellKey(cellX, cellY);
+                    List<Entry<T>> bucket = cells.get(key);
+                    if (bucket != null && bucket.remove(entry) && bucket.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+
+        private void clear() {
+            cells.clear();
+            oversized.clear();
+        }
+
+        private List<T> query(Rectangle area) {
+            query++;
+            List<Entry<T>> hits = new ArrayList<>();
+            int minCellX = cellOf(area.x);
+            int minCellY = cellOf(area.y);
+            int maxCellX = cellOf(area.x + area.width);
+            int maxCellY = cellOf(area.y + area.height);
+            long areaCells = ((long) maxCellX - minCellX + 1) * ((long) maxCellY - minCellY + 1);
+            if (areaCells > cells.size()) {
+                // Wider than the occupied cells; walk those instead of the empty ones.
+                for (List<Entry<T>> bucket : cells.values()) {
+                    for (Entry<T> entry : bucket) {
+                        if (entry.mark != query && entry.minCellX <= maxCellX && entry.maxCellX >= minCellX
+                                && entry.minCellY <= maxCellY && entry.maxCellY >= minCellY) {
+                            entry.mark = query;
+                            hits.add(entry);
+                        }
+                    }
+                }
+            } else {
+                for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                    for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                        List<Entry<T>> bucket = cells.get(cellKey(cellX, cellY));
+                        if (bucket == null) {
+                            continue;
+                        }
+                        for (Entry<T> entry : bucket) {
+                            if (entry.mark != query) {
+                                entry.mark = query;
+                                hits.add(entry);
+                            }
+                        }
+                    }
+                }
+            }
+            hits.addAll(oversized);
+            hits.sort((a, b) -> Integer.compare(a.order, b.order));
+            List<T> items = new ArrayList<>(hits.size());
+            for (Entry<T> entry : hits) {
+                items.add(entry.item);
+            }
+            return items;
+        }
+    }
+}
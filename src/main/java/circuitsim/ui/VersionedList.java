@@ -0,0 +1,66 @@
+package circuitsim.ui;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Array list that counts structural changes and in-place replacements, so indexes built over it can tell when
+ * membership or order changed without comparing contents. Every element put into the list is handed to the
+ * attach callback first.
+ */
+final class VersionedList<E> extends ArrayList<E> {
+    private final Consumer<? super E> onAttach;
+    private int replacements;
+
+    /**
+     * @param onAttach called with every element added or set into the list
+     */
+    VersionedList(Consumer<? super E> onAttach) {
+        this.onAttach = onAttach;
+    }
+
+    /**
+     * @return counter that changes whenever an element is added, removed, replaced or reordered
+     */
+    int getVersion() {
+        return modCount + replacements;
+    }
+
+    @Override
+    public boolean add(E element) {
+        attach(element);
+        return super.add(element);
+    }
+
+    @Override
+    public void add(int index, E element) {
+        attach(element);
+        super.add(index, element);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> elements) {
+        elements.forEach(this::attach);
+        return super.addAll(elements);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> elements) {
+        elements.forEach(this::attach);
+        return super.addAll(index, elements);
+    }
+
+    @Override
+    public E set(int index, E element) {
+        attach(element);
+        replacements++;
+        return super.set(index, element);
+    }
+
+    private void attach(E element) {
+        if (element != null) {
+            onAttach.accept(element);
+        }
+    }
+}
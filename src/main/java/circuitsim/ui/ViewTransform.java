@@ -6,9 +6,10 @@ import java.awt.Graphics2D;
  * Tracks pan/zoom state and provides screen-to-world transforms.
  */
 final class ViewTransform {
-    static final double MIN_ZOOM = 0.5;
+    static final double MIN_ZOOM = 0.2;
     static final double MAX_ZOOM = 2.5;
     static final double ZOOM_STEP = 0.1;
+    private static final double ZOOM_RESOLUTION = 100.0;
 
     private int offsetX;
     private int offsetY;
@@ -27,8 +28,32 @@ final class ViewTransform {
         return (int) Math.round((screenY - offsetY) / zoomFactor);
     }
 
+    /**
+     * @return screen rectangle covering the given world rectangle
+     */
+    java.awt.Rectangle toScreen(java.awt.Rectangle world) {
+        int left = (int) Math.floor((world.x * zoomFactor) + offsetX);
+        int top = (int) Math.floor((world.y * zoomFactor) + offsetY);
+        int right = (int) Math.ceil(((world.x + world.width) * zoomFactor) + offsetX);
+        int bottom = (int) Math.ceil(((world.y + world.height) * zoomFactor) + offsetY);
+        return new java.awt.Rectangle(left, top, right - left + 1, bottom - top + 1);
+    }
+
+    /**
+     * @return world rectangle covered by the given screen rectangle
+     */
+    java.awt.Rectangle toWorld(java.awt.Rectangle screen) {
+        int left = (int) Math.floor((screen.x - offsetX) / zoomFactor);
+        int top = (int) Math.floor((screen.y - offsetY) / zoomFactor);
+        int right = (int) Math.ceil((screen.x + screen.width - offsetX) / zoomFactor);
+        int bottom = (int) Math.ceil((screen.y + screen.height - offsetY) / zoomFactor);
+        return new java.awt.Rectangle(left, top, right - left, bottom - top);
+    }
+
     void zoomAt(int screenX, int screenY, double delta, Runnable repaint) {
-        double nextZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoomFactor + delta));
+        // Whole percents keep repeated steps from drifting off the grid spacing by rounding error.
+        double nextZoom = Math.round((zoomFactor + delta) * ZOOM_RESOLUTION) / ZOOM_RESOLUTION;
+        nextZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, nextZoom));
         if (Math.abs(nextZoom - zoomFactor) < 0.0001) {
             return;
         }
@@ -7,11 +7,16 @@ final class WireCrossing {
     final int x;
     final int y;
     final double angle;
+    /**
+     * Start angle in degrees of the half circle bridging the crossing. Arc angles run counterclockwise on
+     * screen while the wire angle runs clockwise.
+     */
+    final int arcStartAngle;
 
     WireCrossing(int x, int y, double angle) {
         this.x = x;
         this.y = y;
         this.angle = angle;
+        this.arcStartAngle = (int) Math.round(-Math.toDegrees(angle));
     }
 }
-
@@ -0,0 +1,312 @@
+package circuitsim.ui;
+
+import circuitsim.components.core.GeometryChanges;
+import circuitsim.components.wiring.Wire;
+import circuitsim.components.wiring.WireNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the wire crossings of the last painted board. Segments are bucketed in a uniform grid, so a wire is only
+ * tested against wires sharing a cell with it. Wires whose render wire was replaced are drained from the render
+ * wire cache's change set: only those segments are re-tested, and only their entries and their crossing
+ * partners' entries in the crossing map are rebuilt.
+ */
+final class WireCrossingCache {
+    private static final int CELL_SIZE = Grid.SIZE * 4;
+    private static final int MAX_SEGMENT_CELLS = 1024;
+
+    private final Map<Wire, Segment> segments = new IdentityHashMap<>();
+    private final Map<Long, List<Segment>> cells = new HashMap<>();
+    private final List<Segment> oversized = new ArrayList<>();
+    private final GeometryChanges<Wire> renderWireChanges;
+    private final Map<Wire, List<WireCrossing>> crossings = new HashMap<>();
+    private final Map<Wire, List<WireCrossing>> crossingsView = Collections.unmodifiableMap(crossings);
+    private List<RenderWire> indexedRenderWires;
+    private int pass;
+    private int query;
+
+    /**
+     * @param renderWireChanges wires whose render wire the render wire cache replaced
+     */
+    WireCrossingCache(GeometryChanges<Wire> renderWireChanges) {
+        this.renderWireChanges = renderWireChanges;
+    }
+
+    /**
+     * @return crossing markers per over wire
+     */
+    Map<Wire, List<WireCrossing>> getCrossings(List<RenderWire> renderWires) {
+        if (renderWires != indexedRenderWires || renderWireChanges.isAll()) {
+            renderWireChanges.drain();
+            resync(renderWires);
+            indexedRenderWires = renderWires;
+            return crossingsView;
+        }
+        List<Wire> replaced = renderWireChanges.drain();
+        if (replaced.isEmpty()) {
+            return crossingsView;
+        }
+        pass++;
+        List<Segment> changed = new ArrayList<>();
+        Set<Segment> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Wire wire : replaced) {
+            Segment segment = segments.get(wire);
+            if (segment == null) {
+                continue;
+            }
+            segment.render = renderWires.get(segment.order);
+            touched.add(segment);
+            if (!segment.matches(segment.render)) {
+                for (Hit hit : segment.hits) {
+                    touched.add(hit.other);
+                }
+                unlink(segment);
+                changed.add(segment);
+            }
+        }
+        for (Segment segment : changed) {
+            segment.record();
+            link(segment);
+        }
+        for (Segment segment : changed) {
+            findCrossings(segment);
+        }
+        for (Segment segment : changed) {
+            for (Hit hit : segment.hits) {
+                touched.add(hit.other);
+            }
+        }
+        for (Segment segment : touched) {
+            assemble(segment);
+        }
+        return crossingsView;
+    }
+
+    /**
+     * Re-walks every render wire, as after the wire list or the render wire list itself changed.
+     */
+    private void resync(List<RenderWire> renderWires) {
+        pass++;
+        List<Segment> changed = new ArrayList<>();
+        for (int i = 0; i < renderWires.size(); i++) {
+            RenderWire renderWire = renderWires.get(i);
+            Segment segment = segments.get(renderWire.wire);
+            if (segment == null) {
+                segment = new Segment();
+                segments.put(renderWire.wire, segment);
+                changed.add(segment);
+            } else if (!segment.matches(renderWire)) {
+                unlink(segment);
+                changed.add(segment);
+            }
+            segment.render = renderWire;
+            segment.order = i;
+            segment.pass = pass;
+        }
+        for (Iterator<Segment> iterator = segments.values().iterator(); iterator.hasNext(); ) {
+            Segment segment = iterator.next();
+            if (segment.pass != pass) {
+                unlink(segment);
+                iterator.remove();
+            }
+        }
+        for (Segment segment : changed) {
+            segment.record();
+            link(segment);
+        }
+        for (Segment segment : changed) {
+            findCrossings(segment);
+        }
+        crossings.clear();
+        for (RenderWire renderWire : renderWires) {
+            assemble(segments.get(renderWire.wire));
+        }
+    }
+
+    private void findCrossings(Segment segment) {
+        segment.tested = pass;
+        for (Segment other : candidates(segment)) {
+            if (other == segment || other.tested == pass) {
+                // Pairs of changed segments are tested once, from whichever comes first.
+                continue;
+            }
+            java.awt.Point point = WireRenderPlanner.findCrossing(segment.render, other.render);
+            if (point != null) {
+                segment.hits.add(new Hit(other, point.x, point.y));
+                other.hits.add(new Hit(segment, point.x, point.y));
+            }
+        }
+    }
+
+    private List<Segment> candidates(Segment segment) {
+        if (segment.oversized) {
+            return new ArrayList<>(segments.values());
+        }
+        query++;
+        List<Segment> result = new ArrayList<>();
+        for (int cellX = segment.minCellX; cellX <= segment.maxCellX; cellX++) {
+            for (int cellY = segment.minCellY; cellY <= segment.maxCellY; cellY++) {
+                List<Segment> bucket = cells.get(cellKey(cellX, cellY));
+                if (bucket == null) {
+                    continue;
+                }
+                for (Segment other : bucket) {
+                    if (other.mark != query) {
+                        other.mark = query;
+                        result.add(other);
+                    }
+                }
+            }
+        }
+        for (Segment other : oversized) {
+            if (other.mark != query) {
+                other.mark = query;
+                result.add(other);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rebuilds the crossing markers of one wire, resolving which wire of each crossing pair carries the arc in
+     * board order.
+     */
+    private void assemble(Segment segment) {
+        RenderWire renderWire = segment.render;
+        List<WireCrossing> wireCrossings = null;
+        Set<PointKey> seenPoints = null;
+        for (Hit hit : segment.hits) {
+            Segment other = hit.other;
+            RenderWire over = segment.order < other.order
+                    ? WireRenderPlanner.chooseOverWire(segment.render, other.render)
+                    : WireRenderPlanner.chooseOverWire(other.render, segment.render);
+            if (over != segment.render) {
+                continue;
+            }
+            if (wireCrossings == null) {
+                wireCrossings = new ArrayList<>();
+                seenPoints = new HashSet<>();
+            }
+            if (seenPoints.add(new PointKey(hit.x, hit.y))) {
+                wireCrossings.add(new WireCrossing(hit.x, hit.y, renderWire.angle));
+            }
+        }
+        if (wireCrossings == null) {
+            crossings.remove(renderWire.wire);
+        } else {
+            crossings.put(renderWire.wire, wireCrossings);
+        }
+    }
+
+    private void link(Segment segment) {
+        segment.minCellX = Math.floorDiv(Math.min(segment.x1, segment.x2), CELL_SIZE);
+        segment.minCellY = Math.floorDiv(Math.min(segment.y1, segment.y2), CELL_SIZE);
+        segment.maxCellX = Math.floorDiv(Math.max(segment.x1, segment.x2), CELL_SIZE);
+        segment.maxCellY = Math.floorDiv(Math.max(segment.y1, segment.y2), CELL_SIZE);
+        long cellCount = ((long) segment.maxCellX - segment.minCellX + 1)
+                * ((long) segment.maxCellY - segment.minCellY + 1);
+        segment.oversized = cellCount > MAX_SEGMENT_CELLS;
+        segment.linked = true;
+        if (segment.oversized) {
+            oversized.add(segment);
+            return;
+        }
+        for (int cellX = segment.minCellX; cellX <= segment.maxCellX; cellX++) {
+            for (int cellY = segment.minCellY; cellY <= segment.maxCellY; cellY++) {
+                cells.computeIfAbsent(cellKey(cellX, cellY), key -> new ArrayList<>(4)).add(segment);
+            }
+        }
+    }
+
+    /**
+     * Removes a segment from the grid and drops every crossing it took part in.
+     */
+    private void unlink(Segment segment) {
+        for (Hit hit : segment.hits) {
+            hit.other.hits.removeIf(otherHit -> otherHit.other == segment);
+        }
+        segment.hits.clear();
+        if (!segment.linked) {
+            return;
+        }
+        segment.linked = false;
+        if (segment.oversized) {
+            oversized.remove(segment);
+            return;
+        }
+        for (int cellX = segment.minCellX; cellX <= segment.maxCellX; cellX++) {
+            for (int cellY = segment.minCellY; cellY <= segment.maxCellY; cellY++) {
+                Long key = cellKey(cellX, cellY);
+                List<Segment> bucket = cells.get(key);
+                if (bucket != null && bucket.remove(segment) && bucket.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        }
+    }
+
+    private static long cellKey(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xffffffffL);
+    }
+
+    /**
+     * Cached render segment of one wire and the crossings found for it.
+     */
+    private static final class Segment {
+        private final List<Hit> hits = new ArrayList<>(2);
+        private RenderWire render;
+        private WireNode start;
+        private WireNode end;
+        private int x1;
+        private int y1;
+        private int x2;
+        private int y2;
+        private int order;
+        private int pass;
+        private int tested;
+        private int mark;
+        private boolean linked;
+        private boolean oversized;
+        private int minCellX;
+        private int minCellY;
+        private int maxCellX;
+        private int maxCellY;
+
+        private boolean matches(RenderWire renderWire) {
+            return renderWire.x1 == x1 && renderWire.y1 == y1 && renderWire.x2 == x2 && renderWire.y2 == y2
+                    && renderWire.wire.getStart() == start && renderWire.wire.getEnd() == end;
+        }
+
+        private void record() {
+            x1 = render.x1;
+            y1 = render.y1;
+            x2 = render.x2;
+            y2 = render.y2;
+            start = render.wire.getStart();
+            end = render.wire.getEnd();
+        }
+    }
+
+    /**
+     * Crossing with another segment.
+     */
+    private static final class Hit {
+        private final Segment other;
+        private final int x;
+        private final int y;
+
+        private Hit(Segment other, int x, int y) {
+            this.other = other;
+            this.x = x;
+            this.y = y;
+        }
+    }
+}
@@ -2,75 +2,30 @@ package circuitsim.ui;
 
 import circuitsim.components.wiring.Wire;
 import circuitsim.components.wiring.WireNode;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 /**
- * Computes wire render geometry (parallel offsets and crossing markers).
+ * Geometric tests behind wire render geometry (parallel offsets and crossing markers).
  */
 final class WireRenderPlanner {
     private WireRenderPlanner() {
     }
 
-    static List<RenderWire> buildRenderWires(List<Wire> wires, int wireOffsetStep) {
-        List<RenderWire> renderWires = new ArrayList<>();
-        Map<Wire, Offset> offsets = computeWireOffsets(wires, wireOffsetStep);
-        Map<WireNode, Offset> nodeOffsets = computeNodeOffsets(wires, offsets);
-        for (Wire wire : wires) {
-            if (wire.getStart() == null || wire.getEnd() == null) {
-                continue;
-            }
-            Offset wireOffset = offsets.getOrDefault(wire, new Offset(0, 0));
-            Offset startOffset = resolveEndpointOffset(wire, wire.getStart(), true, wireOffset, offsets, nodeOffsets);
-            Offset endOffset = resolveEndpointOffset(wire, wire.getEnd(), false, wireOffset, offsets, nodeOffsets);
-            int baseStartX = wire.getStart().getX();
-            int baseStartY = wire.getStart().getY();
-            int baseEndX = wire.getEnd().getX();
-            int baseEndY = wire.getEnd().getY();
-            int startX = baseStartX + startOffset.dx;
-            int startY = baseStartY + startOffset.dy;
-            int endX = baseEndX + endOffset.dx;
-            int endY = baseEndY + endOffset.dy;
-            renderWires.add(new RenderWire(wire, startX, startY, endX, endY,
-                    baseStartX, baseStartY, baseEndX, baseEndY));
-        }
-        return renderWires;
-    }
-
-    static Map<Wire, List<WireCrossing>> computeWireCrossings(List<RenderWire> renderWires) {
-        Map<Wire, List<WireCrossing>> crossings = new HashMap<>();
-        Map<Wire, Set<PointKey>> seen = new HashMap<>();
-        for (int i = 0; i < renderWires.size(); i++) {
-            RenderWire first = renderWires.get(i);
-            for (int j = i + 1; j < renderWires.size(); j++) {
-                RenderWire second = renderWires.get(j);
-                if (sharesNode(first.wire, second.wire)) {
-                    continue;
-                }
-                if (areColinear(first, second)) {
-                    continue;
-                }
-                java.awt.Point intersection = getIntersectionPoint(first, second);
-                if (intersection == null) {
-                    continue;
-                }
-                RenderWire overWire = chooseOverWire(first, second);
-                PointKey key = new PointKey(intersection.x, intersection.y);
-                Set<PointKey> seenPoints = seen.computeIfAbsent(overWire.wire, wire -> new HashSet<>());
-                if (seenPoints.add(key)) {
-                    crossings.computeIfAbsent(overWire.wire, wire -> new ArrayList<>())
-                            .add(new WireCrossing(intersection.x, intersection.y, overWire.angle));
-                }
-            }
+    /**
+     * @return rounded crossing point of two render wires, or null when they share a node, run parallel or miss
+     */
+    static java.awt.Point findCrossing(RenderWire first, RenderWire second) {
+        if (sharesNode(first.wire, second.wire) || areColinear(first, second)) {
+            return null;
         }
-        return crossings;
+        return getIntersectionPoint(first, second);
     }
 
-    private static RenderWire chooseOverWire(RenderWire first, RenderWire second) {
+    /**
+     * @param first wire earlier in the board order
+     * @param second wire later in the board order
+     * @return the wire drawn with the overpass arc: the more vertical one, else the later one
+     */
+    static RenderWire chooseOverWire(RenderWire first, RenderWire second) {
         boolean firstVertical = isMostlyVertical(first);
         boolean secondVertical = isMostlyVertical(second);
         if (firstVertical != secondVertical) {
@@ -137,108 +92,10 @@ final class WireRenderPlanner {
         return px >= minX && px <= maxX && py >= minY && py <= maxY;
     }
 
-    private static Map<Wire, Offset> computeWireOffsets(List<Wire> wires, int wireOffsetStep) {
-        Map<Wire, Offset> offsets = new HashMap<>();
-        List<List<Wire>> groups = new ArrayList<>();
-        for (Wire wire : wires) {
-            if (wire.getStart() == null || wire.getEnd() == null) {
-                continue;
-            }
-            List<Wire> targetGroup = null;
-            for (List<Wire> group : groups) {
-                if (!group.isEmpty() && areColinearOverlap(wire, group.get(0))) {
-                    targetGroup = group;
-                    break;
-                }
-            }
-            if (targetGroup == null) {
-                targetGroup = new ArrayList<>();
-                groups.add(targetGroup);
-            }
-            targetGroup.add(wire);
-        }
-        for (List<Wire> group : groups) {
-            if (group.size() <= 1) {
-                Wire wire = group.get(0);
-                offsets.put(wire, new Offset(0, 0));
-                continue;
-            }
-            Wire base = group.get(0);
-            int dx = base.getEnd().getX() - base.getStart().getX();
-            int dy = base.getEnd().getY() - base.getStart().getY();
-            double length = Math.hypot(dx, dy);
-            if (length == 0) {
-                for (Wire wire : group) {
-                    offsets.put(wire, new Offset(0, 0));
-                }
-                continue;
-            }
-            double normalX = -dy / length;
-            double normalY = dx / length;
-            int count = group.size();
-            for (int i = 0; i < count; i++) {
-                double index = i - (count - 1) / 2.0;
-                int offsetX = (int) Math.round(normalX * index * wireOffsetStep);
-                int offsetY = (int) Math.round(normalY * index * wireOffsetStep);
-                offsets.put(group.get(i), new Offset(offsetX, offsetY));
-            }
-        }
-        return offsets;
-    }
-
-    private static Map<WireNode, Offset> computeNodeOffsets(List<Wire> wires, Map<Wire, Offset> wireOffsets) {
-        Map<WireNode, OffsetAccumulator> accumulators = new HashMap<>();
-        for (Wire wire : wires) {
-            Offset offset = wireOffsets.getOrDefault(wire, new Offset(0, 0));
-            if (offset.isZero()) {
-                continue;
-            }
-            addOffsetToNode(accumulators, wire.getStart(), offset);
-            addOffsetToNode(accumulators, wire.getEnd(), offset);
-        }
-        Map<WireNode, Offset> nodeOffsets = new HashMap<>();
-        for (Map.Entry<WireNode, OffsetAccumulator> entry : accumulators.entrySet()) {
-            OffsetAccumulator accumulator = entry.getValue();
-            if (accumulator.count == 0) {
-                continue;
-            }
-            int dx = Math.round(accumulator.sumDx / (float) accumulator.count);
-            int dy = Math.round(accumulator.sumDy / (float) accumulator.count);
-            nodeOffsets.put(entry.getKey(), new Offset(dx, dy));
-        }
-        return nodeOffsets;
-    }
-
-    private static Offset resolveEndpointOffset(Wire wire, WireNode node, boolean isStart, Offset wireOffset,
-            Map<Wire, Offset> wireOffsets, Map<WireNode, Offset> nodeOffsets) {
-        if (!wireOffset.isZero()) {
-            return wireOffset;
-        }
-        Wire anchor = isStart ? wire.getStartAnchorWire() : wire.getEndAnchorWire();
-        if (anchor != null) {
-            Offset anchorOffset = wireOffsets.getOrDefault(anchor, new Offset(0, 0));
-            if (!anchorOffset.isZero()) {
-                return anchorOffset;
-            }
-        }
-        return nodeOffsets.getOrDefault(node, wireOffset);
-    }
-
-    private static void addOffsetToNode(Map<WireNode, OffsetAccumulator> accumulators, WireNode node, Offset offset) {
-        if (node == null) {
-            return;
-        }
-        OffsetAccumulator accumulator = accumulators.get(node);
-        if (accumulator == null) {
-            accumulator = new OffsetAccumulator();
-            accumulators.put(node, accumulator);
-        }
-        accumulator.sumDx += offset.dx;
-        accumulator.sumDy += offset.dy;
-        accumulator.count++;
-    }
-
-    private static boolean areColinearOverlap(Wire first, Wire second) {
+    /**
+     * @return true when the second wire lies on the first wire's line, overlaps it and shares no node with it
+     */
+    static boolean areColinearOverlap(Wire first, Wire second) {
         if (!areColinear(first, second)) {
             return false;
         }